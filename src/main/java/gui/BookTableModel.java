@@ -0,0 +1,155 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package gui;
+
+import java.util.BitSet;
+
+import javax.swing.table.AbstractTableModel;
+
+import model.Book;
+import model.Library;
+import model.LibraryListener;
+
+/**
+ * The TableModel of the JTable in the Window.
+ * 
+ * It does not copy the books, the JTable asks
+ * for the values of the rows it shows and they
+ * are taken directly from the library.
+ * Changes the library reports are passed on
+ * to the JTable row by row.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class BookTableModel extends AbstractTableModel implements LibraryListener {
+	
+	private static final long serialVersionUID = 1L;
+	
+	private static final String[] COLUMNNAMES = {"Titles", "Authors", "Date"};
+	
+	/**
+	 * The library which is displayed.
+	 */
+	private Library library;
+	
+	/**
+	 * Determines how the author is displayed.
+	 * 
+	 * false for <i>surName + lastName </i>
+	 * true for <i>lastName + "," + surName </i>
+	 */
+	private boolean lastNameFirst;
+	
+	public BookTableModel() {
+		library = null;
+		lastNameFirst = false;
+	}
+	
+	/**
+	 * @param library the library which shall be displayed
+	 */
+	public void setLibrary(Library library) {
+		if(this.library != null) {
+			this.library.removeLibraryListener(this);
+		}
+		this.library = library;
+		if(library != null) {
+			library.addLibraryListener(this);
+		}
+	}
+	
+	/**
+	 * @param lastNameFirst true if the authors shall be
+	 * displayed <i>lastName + "," + surName </i>
+	 */
+	public void setLastNameFirst(boolean lastNameFirst) {
+		this.lastNameFirst = lastNameFirst;
+	}
+
+	@Override
+	public int getRowCount() {
+		return library == null ? 0 : library.size();
+	}
+
+	@Override
+	public int getColumnCount() {
+		return COLUMNNAMES.length;
+	}
+	
+	@Override
+	public String getColumnName(int column) {
+		return COLUMNNAMES[column];
+	}
+	
+	@Override
+	public boolean isCellEditable(int row, int column) {
+		return false;
+	}
+
+	@Override
+	public Object getValueAt(int row, int column) {
+		
+		Book book = library.getBook(row);
+		
+		switch(column) {
+		case 0:
+			return book.getTitle();
+		case 1:
+			return lastNameFirst ? book.getAuthorLastNameFirst() : book.getAuthor();
+		default:
+			return book.getDateWithWords();
+		}
+	}
+
+	//#######################################################################
+
+	@Override
+	public void booksInserted(int first, int last) {
+		fireTableRowsInserted(first, last);
+	}
+
+	@Override
+	public void booksUpdated(int first, int last) {
+		fireTableRowsUpdated(first, last);
+	}
+
+	@Override
+	public void booksDeleted(int first, int last) {
+		fireTableRowsDeleted(first, last);
+	}
+
+	/**
+	 * Rows which stand together are passed on as such,
+	 * otherwise the JTable reads all rows again once.
+	 */
+	@Override
+	public void booksDeleted(BitSet positions) {
+		
+		int first = positions.nextSetBit(0);
+		int last = positions.length() - 1;
+		
+		if(positions.cardinality() == last - first + 1) {
+			fireTableRowsDeleted(first, last);
+		} else {
+			fireTableDataChanged();
+		}
+	}
+}
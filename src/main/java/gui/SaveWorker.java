@@ -0,0 +1,196 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package gui;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import model.SaveTask;
+
+/**
+ * Saves libraries on its own thread, so the
+ * window does not freeze while a big list is written.
+ * 
+ * Only one task waits at a time: if the window asks
+ * to save again before the waiting task has started,
+ * both are merged and written once.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class SaveWorker {
+	
+	/**
+	 * Is informed about the tasks of the worker.
+	 * All methods are called on the event dispatch thread.
+	 */
+	public interface Listener {
+		
+		/**
+		 * @param written the amount of books which are written
+		 * @param total the amount of books which will be written
+		 */
+		void saveProgress(int written, int total);
+		
+		/**
+		 * @param task the task which is done
+		 */
+		void saveCompleted(SaveTask task);
+		
+		/**
+		 * @param task the task which failed
+		 * @param e the reason
+		 */
+		void saveFailed(SaveTask task, IOException e);
+		
+		/**
+		 * @param task a task which was not run,
+		 * because the task before it failed
+		 */
+		void saveDropped(SaveTask task);
+	}
+	
+	/**
+	 * The thread which writes the files. It is no
+	 * daemon, so the program does not end while
+	 * a file is written.
+	 */
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		return new Thread(runnable, "Booklist save");
+	});
+	
+	private final Listener listener;
+	
+	/**
+	 * The task which waits to be run.
+	 */
+	private SaveTask waiting;
+	
+	/**
+	 * The amount of tasks which were started and
+	 * not yet reported to the listener.
+	 */
+	private int unreported;
+	
+	/**
+	 * @param listener is informed about the tasks
+	 */
+	public SaveWorker(Listener listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Saves a library in the background.
+	 * 
+	 * @param task created by Library.prepareSave()
+	 */
+	public synchronized void save(SaveTask task) {
+		
+		if(waiting == null) {
+			waiting = task;
+			executor.execute(this::runWaiting);
+		} else {
+			waiting = waiting.merge(task);
+		}
+	}
+	
+	private void runWaiting() {
+		
+		SaveTask task;
+		synchronized(this) {
+			task = waiting;
+			waiting = null;
+			if(task == null) {
+				return; 	//dropped because an earlier task failed
+			}
+			unreported++;
+		}
+		
+		try {
+			task.run((written, total) -> {
+				SwingUtilities.invokeLater(() -> listener.saveProgress(written, total));
+			});
+			report(() -> listener.saveCompleted(task));
+			
+		} catch (IOException | RuntimeException e) {
+			/*
+			 * Tasks which wait were created after this one
+			 * and depend on it, the next save writes all books.
+			 */
+			SaveTask dropped;
+			synchronized(this) {
+				dropped = waiting;
+				waiting = null;
+				if(dropped != null) {
+					unreported++;
+				}
+			}
+			IOException failure = e instanceof IOException ? (IOException) e
+					: new IOException("The booklist could not be written (" + e + ").", e);
+			report(() -> listener.saveFailed(task, failure));
+			if(dropped != null) {
+				report(() -> listener.saveDropped(dropped));
+			}
+		}
+	}
+	
+	/**
+	 * Informs the listener on the event dispatch thread
+	 * that a task is done. From then on it is not
+	 * counted by <i>isIdle()</i> anymore.
+	 */
+	private void report(Runnable call) {
+		SwingUtilities.invokeLater(() -> {
+			synchronized(this) {
+				unreported--;
+			}
+			call.run();
+		});
+	}
+	
+	/**
+	 * Tells if every task was reported to the listener
+	 * and none waits, so the result of the last save is
+	 * known. Call it on the event dispatch thread.
+	 * 
+	 * @return <code>true</code> if nothing is saved
+	 */
+	public synchronized boolean isIdle() {
+		return waiting == null && unreported == 0;
+	}
+	
+	/**
+	 * Waits until all tasks are done
+	 * and ends the thread.
+	 */
+	public void shutdown() {
+		
+		executor.shutdown();
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -26,6 +26,9 @@ import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.SwingConstants;
 
+import model.BinaryBooklist;
+import model.CompressedBooklist;
+
 /**
  * An editor to edit books.
  * 
@@ -40,10 +43,33 @@ public class Utilities {
 	 */
 	public static final String FILE_ENDING = ".booklist";
 	
+	/**
+	 * Ending which is used for binary Booklist files.
+	 */
+	public static final String BINARY_FILE_ENDING = BinaryBooklist.FILE_ENDING;
+	
+	/**
+	 * Ending which is used for compressed Booklist files.
+	 */
+	public static final String COMPRESSED_FILE_ENDING = CompressedBooklist.FILE_ENDING;
+	
 	public Utilities() {
 		//do nothing, just definded for accidential instance creation.
 	}
 
+	/**
+	 * Checks if a file name has one of the
+	 * endings of Booklist files.
+	 * 
+	 * @param filename the name of the file
+	 * @return <code>true</code> if it ends with
+	 * ".booklist", ".booklistb" or ".booklistz"
+	 */
+	public static boolean hasBooklistEnding(String filename) {
+		return filename.endsWith(FILE_ENDING) || filename.endsWith(BINARY_FILE_ENDING)
+				|| filename.endsWith(COMPRESSED_FILE_ENDING);
+	}
+
 	/**
 	 * Sets the frame title based on the name of the file.
 	 * 
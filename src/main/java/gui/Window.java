@@ -44,13 +44,21 @@ import javax.swing.KeyStroke;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.JToolBar;
 import javax.swing.JButton;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
-import java.util.Vector;
 import java.io.File;
+import java.io.IOException;
+import java.text.DateFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import model.Book;
 import model.Library;
+import model.FileWatcher;
+import model.LibraryOptions;
+import model.LibraryStatistics;
+import model.SaveTask;
 
 
 public class Window {
@@ -64,10 +72,10 @@ public class Window {
 	private JTable bookEntries;
 	
 	/**
-	 * The DefaultTableModel inside the JTable which
-	 * holds all the books.
+	 * The BookTableModel inside the JTable which
+	 * shows the books of the library.
 	 */
-	private DefaultTableModel model;
+	private BookTableModel model;
 	
 	/**
 	 * Container, which holds horizontal.
@@ -115,8 +123,6 @@ public class Window {
 	 * The library, where all books are stored in.
 	 */
 	private Library library;
-	
-	private Vector<Book> books;
 		
 	private Boolean needSave;
 	
@@ -150,8 +156,57 @@ public class Window {
 	
 	private JLabel countOfBooksLabel;
 	
+	/*
+	 * Show the amount of authors and years next to the
+	 * amount of books, the books per month as tool tip.
+	 * The library counts them, the labels only read them.
+	 */
+	private JPanel statisticsPanel;
+	private JLabel authorCountLabel;
+	private JLabel yearCountLabel;
+	
+	/**
+	 * Asks for the statistics again until the books of
+	 * a binary booklist are counted, so the window does
+	 * not wait for them.
+	 */
+	private final Timer statisticsTimer = new Timer(200, e -> updateStatistics());
+	
+	/**
+	 * Shows if the list is being saved.
+	 */
+	private JLabel saveStatusLabel;
+	
+	/**
+	 * Saves the library in the background.
+	 */
+	private SaveWorker saveWorker;
+	
+	/**
+	 * True if the window is closed as soon as the
+	 * SaveWorker reported the last save.
+	 */
+	private boolean closeWhenSaved;
+	
+	/**
+	 * Tells when another program changed the
+	 * file of the library, may be <code>null</code>.
+	 */
+	private FileWatcher fileWatcher;
+	
+	/**
+	 * True while a reload of the file waits to be
+	 * run on the event dispatch thread.
+	 */
+	private final AtomicBoolean reloadWaiting = new AtomicBoolean();
+	
 	public static final Icon DELETEICON = Utilities.createImageIcon("delete.png", "Delete");
 	public static final Icon WARNINGICON = Utilities.createImageIcon("warning.png", "Warning");
+	
+	/**
+	 * The names of the months, for the statistics.
+	 */
+	private static final String[] MONTHNAMES = new DateFormatSymbols(Locale.ENGLISH).getMonths();
 
 	private JMenuItem newFileMenuItem;
 	
@@ -161,6 +216,12 @@ public class Window {
 	private int countSortTitle;
 	private int countSortDate;
 	
+	/**
+	 * Determines how the libraries of
+	 * all windows are loaded.
+	 */
+	private static LibraryOptions libraryOptions = new LibraryOptions();
+	
 	//###########################################################################################################
 	
 	/**
@@ -227,18 +288,17 @@ public class Window {
 		
 		fileDialog = new java.awt.FileDialog(mainFrame);
 		fileDialog.setFilenameFilter((File directory, String name) -> {
-			return name.endsWith(Utilities.FILE_ENDING);
+			return Utilities.hasBooklistEnding(name);
 		});
 		
 		//#############################################
 		
 		/*
-		 * Create JTable and DefaultTableModel
-		 * which holds all the books.
-		 * The first attribute for the DefaultTableModel
-		 * determines the column names.
+		 * Create JTable and BookTableModel
+		 * which shows all the books.
+		 * The BookTableModel determines the column names.
 		 */
-		bookEntries = new JTable(new DefaultTableModel(new Object[] {"Titles", "Authors", "Date"}, 0)) {
+		bookEntries = new JTable(new BookTableModel()) {
 			
 			//Cells shall not be editable with double click
 	        private static final long serialVersionUID = 1L;
@@ -271,10 +331,10 @@ public class Window {
         });
 
 		/*
-		 * Extract the DefualtTableModel from bookEntries
-		 * which holds all books (rows of books).
+		 * Extract the BookTableModel from bookEntries
+		 * which shows all books (rows of books).
 		 */
-		model = (DefaultTableModel) bookEntries.getModel();
+		model = (BookTableModel) bookEntries.getModel();
 
 		
 		/*
@@ -301,9 +361,29 @@ public class Window {
 
 
 		
+		authorCountLabel = new JLabel("0 Authors");
+		authorCountLabel.setFont(authorCountLabel.getFont().deriveFont(10f));
+		
+		yearCountLabel = new JLabel("0 Years");
+		yearCountLabel.setFont(yearCountLabel.getFont().deriveFont(10f));
+		
+		statisticsPanel = new JPanel();
+		statisticsPanel.add(authorCountLabel);
+		statisticsPanel.add(Box.createHorizontalStrut(10));
+		statisticsPanel.add(yearCountLabel);
+		
+		saveStatusLabel = new JLabel("");
+		saveStatusLabel.setFont(saveStatusLabel.getFont().deriveFont(10f));
+		
 		bottomPanel = new JPanel();
 		bottomPanel.add(countOfBooksLabel);
 		bottomPanel.add(descriptionOfCountOfBooksLabel);
+		bottomPanel.add(Box.createHorizontalStrut(10));
+		bottomPanel.add(statisticsPanel);
+		bottomPanel.add(Box.createHorizontalStrut(20));
+		bottomPanel.add(saveStatusLabel);
+		
+		setupSaveWorker();
 		
 		//#################		
 		
@@ -328,38 +408,56 @@ public class Window {
 	/**
 	 * Display all books in the GUI.
 	 * 
-	 * @param books The ArrayList which holds all
-	 * the books.
+	 * The rows are not copied into the table,
+	 * the table only reads the books it shows.
 	 */
 	public void update() {
 		
-		int bookCount = books.size();		
-		int modelCurrentRowCount = model.getRowCount();
-
-		/*
-		 * Delete all rows (data) in the model / JTable.
-		 */
-		for(int i = 0; i < modelCurrentRowCount; i++) {
-			model.removeRow(0);
-		}
+		int bookCount = library.size();
 		
 		/*
-		 * Add all data (rows) to the model /JTable.
+		 * Tell the JTable that all rows may have changed.
 		 */
-		if(countSortAuthor == 0) {
-			for(int i = 0; i < bookCount; i++) {
-				model.addRow(new Object[] {books.get(i).getTitle(), books.get(i).getAuthor(), books.get(i).getDateWithWords()});
-			}
-		} else {
-			for(int i = 0; i < bookCount; i++) {
-				model.addRow(new Object[] {books.get(i).getTitle(), books.get(i).getAuthorLastNameFirst(), books.get(i).getDateWithWords()});
-			}
-		}
+		model.setLastNameFirst(countSortAuthor != 0);
+		model.fireTableDataChanged();
 		
 		/*
 		 * Update the number of the Books in the List.
 		 */
 		countOfBooksLabel.setText(Integer.toString(bookCount));
+		updateStatistics();
+	}
+	
+	/**
+	 * Shows the statistics of the library. The library
+	 * keeps them up to date, so no book is read here.
+	 * While the books of a binary booklist are still
+	 * counted, they are shown when they are done.
+	 */
+	private void updateStatistics() {
+		
+		if(!library.isStatisticsReady()) {
+			authorCountLabel.setText("? Authors");
+			yearCountLabel.setText("? Years");
+			yearCountLabel.setToolTipText(null);
+			if(!statisticsTimer.isRunning()) {
+				statisticsTimer.start();
+			}
+			return;
+		}
+		statisticsTimer.stop();
+		
+		LibraryStatistics statistics = library.getStatistics();
+		authorCountLabel.setText(statistics.getAuthorCount() + " Authors");
+		yearCountLabel.setText(statistics.getYearCount() + " Years");
+		
+		int[] months = statistics.getBooksPerMonth();
+		StringBuilder toolTip = new StringBuilder("<html>Books per month:");
+		for(int month = 1; month <= 12; month++) {
+			toolTip.append("<br>").append(MONTHNAMES[month - 1]).append(": ").append(months[month]);
+		}
+		toolTip.append("<br>Without year: ").append(statistics.booksIn(0)).append("</html>");
+		yearCountLabel.setToolTipText(toolTip.toString());
 	}
 	
 	//###########################################################################################################
@@ -423,6 +521,12 @@ public class Window {
 					
 				} else {
 					
+					/*
+					 * The ids stay the same if the rows move
+					 * while the dialog is open, e.g. on a reload.
+					 */
+					long[] selectedIds = selectedIds();
+					
 					int chosenButton = JOptionPane.showOptionDialog(null,
 							"Are you sure you want to delete these books?",
 							"Bookdeletion",
@@ -433,8 +537,9 @@ public class Window {
 					
 					if(chosenButton == JOptionPane.OK_OPTION) {
 						int selectedRow = bookEntries.getSelectedRow();
-						library.deleteBooks(bookEntries.getSelectedRows());
-						update();
+						library.deleteBooks(selectedIds); 	//the table is informed by the library
+						countOfBooksLabel.setText(Integer.toString(library.size()));
+						updateStatistics();
 						needSave();
 						if(selectedRow == bookEntries.getRowCount()) { //last row has been deleted
 							selectedRow -= 1;
@@ -548,7 +653,7 @@ public class Window {
 			fileDialog.setVisible(true);
 			String filename = fileDialog.getFile();
 			if (filename != null) {
-				if (!filename.endsWith(Utilities.FILE_ENDING))
+				if (!Utilities.hasBooklistEnding(filename))
 					filename += Utilities.FILE_ENDING;
 				File file = new File(fileDialog.getDirectory(), filename);
 				createBookWindow(file);
@@ -615,20 +720,88 @@ public class Window {
 					WARNINGICON, null, null);
 			
 		} else {
-			Book book = books.get(bookEntries.getSelectedRow());
-			if(bookEditor.edit(book, 0)) {
+			long id = library.getId(bookEntries.getSelectedRow());
+			Book book = new Book(library.getBook(id)); 	//snapshots may share the book
+			if(bookEditor.edit(book, 0) && library.updateBook(id, book)) {
 				update();
 				needSave();
 			}
 		}
 	}
 	
+	/**
+	 * @return the ids of the selected books
+	 */
+	private long[] selectedIds() {
+		int[] rows = bookEntries.getSelectedRows();
+		long[] selected = new long[rows.length];
+		for(int i = 0; i < rows.length; i++) {
+			selected[i] = library.getId(rows[i]);
+		}
+		return selected;
+	}
+	
 	
 	public void addLibrary(Library library) {
 		this.library = library;
-		this.books = library.getBooks();
+		model.setLibrary(library);
 		Utilities.setFrameTitle(mainFrame, library.getFile()); //set title of the frame to file-name
 		update();
+		watchFile();
+	}
+	
+	/**
+	 * Starts to watch the file of the library, so
+	 * changes of other programs are shown.
+	 */
+	private void watchFile() {
+		
+		stopWatching();
+		if(library.getFile() == null) {
+			return;
+		}
+		try {
+			fileWatcher = new FileWatcher(library.getFile(), () -> {
+				if(reloadWaiting.compareAndSet(false, true)) {
+					SwingUtilities.invokeLater(this::reloadFile);
+				}
+			});
+		} catch (IOException e) {
+			System.out.println("The file " + library.getFile().getName() + " cannot be watched.\n"
+					+ "Errormessage is" + e.getMessage());
+		}
+	}
+	
+	private void stopWatching() {
+		if(fileWatcher != null) {
+			try {
+				fileWatcher.close();
+			} catch (IOException e) {
+				//nothing is watched anymore anyway
+			}
+			fileWatcher = null;
+		}
+	}
+	
+	/**
+	 * Reads what another program changed in the file.
+	 * The library tells the table which rows changed.
+	 */
+	private void reloadFile() {
+		
+		reloadWaiting.set(false);
+		if(library == null || !mainFrame.isDisplayable()) {
+			return;
+		}
+		try {
+			if(library.reload()) {
+				countOfBooksLabel.setText(Integer.toString(library.size()));
+				updateStatistics();
+			}
+		} catch (IOException e) {
+			System.out.println("Reload did not work properly.\n"
+					+ "Errormessage is" + e.getMessage());
+		}
 	}
 	
 	//###################################
@@ -654,8 +827,78 @@ public class Window {
 	}
 	
 	public void doSave() {
-			library.writeToFile();
+			saveWorker.save(library.prepareSave());
 			needSave = false;
+			saveStatusLabel.setText("Saving...");
+	}
+	
+	/**
+	 * Create the SaveWorker, which reports back
+	 * to the window while it saves the library.
+	 */
+	private void setupSaveWorker() {
+		
+		saveWorker = new SaveWorker(new SaveWorker.Listener() {
+			
+			public void saveProgress(int written, int total) {
+				if(mainFrame.isDisplayable()) {
+					saveStatusLabel.setText("Saving... " + (written * 100L / Math.max(1, total)) + "%");
+				}
+			}
+			
+			public void saveCompleted(SaveTask task) {
+				if(!mainFrame.isDisplayable()) {
+					return; //the window was closed meanwhile
+				}
+				try {
+					library.saveCompleted(task);
+					saveStatusLabel.setText("Saved (" + formatBytes(task.getBytesWritten()) + " written)");
+				} catch (IOException e) {
+					closeWhenSaved = false;
+					saveStatusLabel.setText("");
+					showSaveError(e);
+				}
+				if(closeWhenSaved) {
+					closeWhenSaved = false;
+					closeWindow(); 	//asks again if the books were changed meanwhile
+				}
+			}
+			
+			public void saveFailed(SaveTask task, IOException e) {
+				library.saveFailed(task);
+				needSave();
+				closeWhenSaved = false; 	//keep the window, so it can be saved again
+				if(mainFrame.isDisplayable()) {
+					saveStatusLabel.setText("Not saved");
+					showSaveError(e);
+				} else {
+					System.err.println("The booklist could not be saved: " + e.getLocalizedMessage());
+				}
+			}
+			
+			public void saveDropped(SaveTask task) {
+				library.saveFailed(task);
+			}
+		});
+	}
+	
+	private static String formatBytes(long bytes) {
+		if(bytes < 1024) {
+			return bytes + " bytes";
+		} else if(bytes < (1 << 20)) {
+			return (bytes >> 10) + " KB";
+		}
+		return (bytes >> 20) + " MB";
+	}
+	
+	private void showSaveError(IOException e) {
+		JOptionPane.showOptionDialog(mainFrame,
+				"The booklist could not be saved.\n"
+				+ e.getLocalizedMessage(),
+				"Save",
+				JOptionPane.DEFAULT_OPTION,
+				JOptionPane.WARNING_MESSAGE,
+				WARNINGICON, null, null);
 	}
 	
 	public void saveAs() {
@@ -663,7 +906,7 @@ public class Window {
 		fileDialog.setVisible(true);
 		String filename = fileDialog.getFile();
 		if (filename != null) {
-			if (!filename.endsWith(Utilities.FILE_ENDING))
+			if (!Utilities.hasBooklistEnding(filename))
 				filename += Utilities.FILE_ENDING;
 
 			File newFile = new File(fileDialog.getDirectory(), filename);
@@ -680,6 +923,7 @@ public class Window {
 			}
 			library.setFile(newFile);
 			doSave();
+			watchFile();
 		}
 	}
 	
@@ -711,11 +955,24 @@ public class Window {
 		}
 	}
 	public static boolean createBookWindow(File file) {
+		return createBookWindow(file, libraryOptions);
+	}
+	
+	public static boolean createBookWindow(File file, LibraryOptions options) {
 		try {
 			Window newWindow = new Window();
-			Library newLibrary = new Library(file);
+			Library newLibrary = new Library(file, options);
 			newWindow.addLibrary(newLibrary);
 			newWindow.getMainFrame().setVisible(true);
+			if(newLibrary.getKeptJournal() != null) {
+				JOptionPane.showMessageDialog(
+						newWindow.getMainFrame(),
+						"The journal of the document \"" + file.getName()
+								+ "\" does not fit to it anymore or cannot be read.\n"
+								+ "Its changes were not applied, they are kept in\n"
+								+ newLibrary.getKeptJournal().getPath(), "",
+						JOptionPane.WARNING_MESSAGE);
+			}
 			return true;
 		} catch (Exception e) {
 			JOptionPane.showMessageDialog(
@@ -742,16 +999,37 @@ public class Window {
 			
 			if(chosenButton == JOptionPane.OK_OPTION) {
 				save();
-				mainFrame.setVisible(false);
-				mainFrame.dispose();
-			} else if(chosenButton == JOptionPane.NO_OPTION) {
-				mainFrame.setVisible(false);
-				mainFrame.dispose();
+				if(needSave) {
+					return; 	//no file was chosen
+				}
+			} else if(chosenButton != JOptionPane.NO_OPTION) {
+				return;
 			}
-    	} else {
-    		mainFrame.setVisible(false);
-    		mainFrame.dispose();
     	}
+		
+		/*
+		 * Wait until the last save is reported, while the
+		 * window can still show if it failed.
+		 */
+		if(saveWorker.isIdle()) {
+			dispose();
+		} else {
+			closeWhenSaved = true;
+			saveStatusLabel.setText("Saving before closing...");
+		}
+	}
+	
+	/**
+	 * Hide the window and release the library.
+	 */
+	private void dispose() {
+		mainFrame.setVisible(false);
+		mainFrame.dispose();
+		stopWatching();
+		saveWorker.shutdown(); //wait until the library is saved
+		if(library != null) {
+			library.close();
+		}
 	}
 	
 	/**
@@ -766,5 +1044,23 @@ public class Window {
 		needSave = true;
 	}
 	
+	/**
+	 * Set the options which are used to load
+	 * the libraries of new windows.
+	 * @param options the options.
+	 */
+	public static void setLibraryOptions(LibraryOptions options) {
+		libraryOptions = options;
+	}
+	
+	/**
+	 * Get the options which are used to load
+	 * the libraries of new windows.
+	 * @return the options.
+	 */
+	public static LibraryOptions getLibraryOptions() {
+		return libraryOptions;
+	}
+	
 
 }
\ No newline at end of file
@@ -0,0 +1,231 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.zip.CRC32;
+
+/**
+ * An AtomicFile replaces a file without ever leaving
+ * a half written file behind.
+ * 
+ * The new content is written to a temporary file in the
+ * same directory. commit() forces it to the disk, reads
+ * it again to compare the checksum and only then moves
+ * it over the target in one step. If anything goes
+ * wrong, the old file stays untouched.
+ * 
+ * The new file gets the permissions, the owner and the
+ * group of the old one, as far as the system allows, so
+ * a booklist which is shared stays shared. If the target
+ * is a symbolic link, the file it points to is replaced
+ * and the link is kept.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+class AtomicFile {
+	
+	/**
+	 * The file which is replaced.
+	 */
+	private final File target;
+	
+	/**
+	 * The file which is written first.
+	 */
+	private final File temp;
+	
+	/**
+	 * True if the file is forced to the disk before it is moved.
+	 */
+	private final boolean sync;
+	
+	/**
+	 * The checksum of the written bytes.
+	 */
+	private final CRC32 checksum;
+	
+	/**
+	 * Creates the temporary file next to the target.
+	 * 
+	 * @param target the file which is replaced
+	 * @param sync true to force the file to the disk
+	 * before it replaces the target
+	 * @throws IOException if the temporary file cannot be created
+	 */
+	AtomicFile(File target, boolean sync) throws IOException {
+		this.target = target.exists() ? target.toPath().toRealPath().toFile() : target.getAbsoluteFile();
+		this.temp = File.createTempFile(this.target.getName(), ".tmp", this.target.getParentFile());
+		this.sync = sync;
+		this.checksum = new CRC32();
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return the file the content must be written to
+	 */
+	File getTempFile() {
+		return temp;
+	}
+	
+	/**
+	 * @return the checksum which must be updated with
+	 * every byte that is written to the temporary file
+	 */
+	CRC32 getChecksum() {
+		return checksum;
+	}
+	
+	/**
+	 * Replaces the target with the temporary file.
+	 * 
+	 * @param firstByte the position of the first byte which
+	 * was given to the checksum. The bytes before it must have
+	 * been given to it after the rest of the file.
+	 * @throws IOException if the file could not be written
+	 * correctly, the target is not changed then
+	 */
+	void commit(long firstByte) throws IOException {
+		
+		try {
+			try (FileChannel channel = FileChannel.open(temp.toPath(),
+					StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				if(sync) {
+					channel.force(true);
+				}
+				verify(channel, firstByte);
+			}
+			copyAttributes();
+			
+			try {
+				Files.move(temp.toPath(), target.toPath(),
+						StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			
+		} catch (IOException e) {
+			discard();
+			throw e;
+		}
+		
+		if(sync) {
+			syncDirectory();
+		}
+	}
+	
+	/**
+	 * Deletes the temporary file.
+	 */
+	void discard() {
+		temp.delete();
+	}
+	
+	/**
+	 * Reads the file again and compares its checksum.
+	 */
+	private void verify(FileChannel channel, long firstByte) throws IOException {
+		
+		CRC32 read = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+		
+		update(read, channel, buffer, firstByte, channel.size());
+		update(read, channel, buffer, 0, firstByte);
+		
+		if(read.getValue() != checksum.getValue()) {
+			throw new IOException("The written file " + temp.getName() + " is damaged.");
+		}
+	}
+	
+	private static void update(CRC32 crc, FileChannel channel, ByteBuffer buffer,
+			long from, long to) throws IOException {
+		
+		long position = from;
+		while(position < to) {
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), to - position));
+			int read = channel.read(buffer, position);
+			if(read < 0) {
+				throw new IOException("The written file is too short.");
+			}
+			crc.update(buffer.array(), 0, read);
+			position += read;
+		}
+	}
+	
+	/**
+	 * Gives the temporary file the owner, the group and the
+	 * permissions of the target; the temporary file is only
+	 * readable by its creator. The owner and the group stay
+	 * the creator's if it may not change them. Systems
+	 * without POSIX permissions are skipped.
+	 */
+	private void copyAttributes() throws IOException {
+		
+		PosixFileAttributeView view = Files.getFileAttributeView(temp.toPath(), PosixFileAttributeView.class);
+		Path old = target.toPath();
+		if(view == null || !Files.exists(old)) {
+			return;
+		}
+		
+		PosixFileAttributes attributes = Files.readAttributes(old, PosixFileAttributes.class);
+		try {
+			view.setOwner(attributes.owner());
+		} catch (IOException | SecurityException e) {
+			//only the superuser may give a file away
+		}
+		try {
+			view.setGroup(attributes.group());
+		} catch (IOException | SecurityException e) {
+			//the creator is not a member of the group
+		}
+		view.setPermissions(attributes.permissions()); 	//after the owner, which may reset them
+	}
+	
+	/**
+	 * Makes sure the new entry of the directory
+	 * reaches the disk. Not every system allows
+	 * to open a directory, it is skipped then.
+	 */
+	private void syncDirectory() {
+		
+		File directory = target.getParentFile();
+		if(directory == null) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException e) {
+			//the file is moved anyway
+		}
+	}
+}
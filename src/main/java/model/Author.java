@@ -0,0 +1,186 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+/**
+ * An Author is the name of the person who wrote
+ * a book. It cannot be changed, so all books of
+ * the same person can share one Author
+ * (see AuthorDictionary).
+ * 
+ * The names which are shown in the table are
+ * put together once and then kept.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public final class Author {
+	
+	/**
+	 * The author of books without one.
+	 */
+	public static final Author NONE = new Author("", "");
+	
+	private final String surName;
+	private final String lastName;
+	
+	/**
+	 * The position in the AuthorDictionary,
+	 * -1 if the author is in none.
+	 */
+	private final int id;
+	
+	/*
+	 * The names for the table, created when
+	 * they are needed the first time.
+	 */
+	private String name;
+	private String nameLastNameFirst;
+	
+	/*
+	 * The keys for sorting (see SortKeys), created
+	 * when they are needed the first time.
+	 */
+	private byte[] sortKey;
+	private byte[] sortKeyLastNameFirst;
+	
+	/**
+	 * @param surName the first name
+	 * @param lastName the last name
+	 */
+	public Author(String surName, String lastName) {
+		this(surName, lastName, -1);
+	}
+	
+	Author(String surName, String lastName, int id) {
+		this.surName = surName;
+		this.lastName = lastName;
+		this.id = id;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return the author, written
+	 * <i>first Name + last Name </i>
+	 */
+	public String getName() {
+		String result = name;
+		if(result == null) {
+			if(surName.isEmpty()) {
+				result = lastName;
+			} else if(lastName.isEmpty()) {
+				result = surName;
+			} else {
+				result = surName + " " + lastName;
+			}
+			name = result;
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the author, written
+	 * <i>last Name + ", " + first Name </i>
+	 */
+	public String getNameLastNameFirst() {
+		String result = nameLastNameFirst;
+		if(result == null) {
+			if(surName.isEmpty()) {
+				result = lastName;
+			} else if(lastName.isEmpty()) {
+				result = surName;
+			} else {
+				result = lastName + ", " + surName;
+			}
+			nameLastNameFirst = result;
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the key for sorting by
+	 * <i>first Name + last Name</i>
+	 */
+	byte[] getSortKey() {
+		byte[] result = sortKey;
+		if(result == null) {
+			result = SortKeys.of(surName + lastName);
+			sortKey = result;
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the key for sorting by
+	 * <i>last Name + first Name</i>
+	 */
+	byte[] getSortKeyLastNameFirst() {
+		byte[] result = sortKeyLastNameFirst;
+		if(result == null) {
+			result = SortKeys.of(lastName + surName);
+			sortKeyLastNameFirst = result;
+		}
+		return result;
+	}
+	
+	/**
+	 * @return the first name
+	 */
+	public String getSurName() {
+		return surName;
+	}
+	
+	/**
+	 * @return the last name
+	 */
+	public String getLastName() {
+		return lastName;
+	}
+	
+	/**
+	 * @return the position in the AuthorDictionary,
+	 * -1 if the author is in none
+	 */
+	public int getId() {
+		return id;
+	}
+	
+	//#######################################################################
+	
+	@Override
+	public boolean equals(Object other) {
+		if(!(other instanceof Author)) {
+			return false;
+		}
+		Author author = (Author) other;
+		return surName.equals(author.surName) && lastName.equals(author.lastName);
+	}
+	
+	@Override
+	public int hashCode() {
+		return surName.hashCode() * 31 + lastName.hashCode();
+	}
+	
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
@@ -0,0 +1,108 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The AuthorDictionary of a library holds every
+ * author only once. Books of the same author share
+ * the Author of the dictionary instead of keeping
+ * their own copies of the names.
+ * 
+ * Every author gets an id, its position in the
+ * dictionary. Authors can be added from several
+ * threads at once, e.g. while a file is parsed
+ * in parallel.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class AuthorDictionary {
+	
+	private final ConcurrentHashMap<Author, Author> authors;
+	
+	/**
+	 * The authors by their id. It is replaced
+	 * by a bigger copy when it is full, so
+	 * get(int) does not need to lock.
+	 */
+	private volatile Author[] byId;
+	private int count;
+	
+	public AuthorDictionary() {
+		authors = new ConcurrentHashMap<Author, Author>();
+		byId = new Author[64];
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @param surName the first name
+	 * @param lastName the last name
+	 * @return the Author of the dictionary with these names,
+	 * it is added if there is none yet
+	 */
+	public Author intern(String surName, String lastName) {
+		return intern(new Author(surName, lastName));
+	}
+	
+	/**
+	 * @param author an author
+	 * @return the Author of the dictionary with the names
+	 * of the author, it is added if there is none yet
+	 */
+	public Author intern(Author author) {
+		
+		Author interned = authors.get(author);
+		if(interned != null) {
+			return interned;
+		}
+		return authors.computeIfAbsent(author, this::add);
+	}
+	
+	private synchronized Author add(Author key) {
+		
+		Author added = new Author(key.getSurName(), key.getLastName(), count);
+		Author[] array = byId;
+		if(count == array.length) {
+			array = Arrays.copyOf(array, count * 2);
+		}
+		array[count++] = added;
+		byId = array; 	//publishes the new author
+		return added;
+	}
+	
+	/**
+	 * @param id the id of an author
+	 * @return the author
+	 */
+	public Author get(int id) {
+		return byId[id];
+	}
+	
+	/**
+	 * @return the amount of different authors
+	 */
+	public int size() {
+		return authors.size();
+	}
+}
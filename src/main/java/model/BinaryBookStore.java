@@ -0,0 +1,71 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This BookStore leaves the books in a binary booklist.
+ * 
+ * Opening the store only reads the header, the offsets
+ * in the file lead directly to every book.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class BinaryBookStore extends MappedBookStore {
+	
+	/**
+	 * Creates the store for a binary booklist.
+	 * 
+	 * @param file the binary booklist
+	 * @throws IOException
+	 * if the file cannot be opened or is damaged
+	 */
+	public BinaryBookStore(File file) throws IOException {
+		open(file);
+	}
+
+	/**
+	 * The references are the numbers of the books
+	 * in the file, so only the amount is needed.
+	 */
+	@Override
+	protected void index() throws IOException {
+		size = BinaryBooklist.readHeader(map);
+	}
+
+	@Override
+	protected Book read(ByteBuffer map, int ref) {
+		return BinaryBooklist.readBook(map, BinaryBooklist.offset(map, ref));
+	}
+	
+	@Override
+	protected boolean matches(ByteBuffer map, int ref, BookFilter filter) {
+		return BinaryBooklist.matches(map, BinaryBooklist.offset(map, ref), filter);
+	}
+	
+	@Override
+	protected void count(ByteBuffer map, int ref, LibraryStatistics statistics) {
+		BinaryBooklist.count(map, BinaryBooklist.offset(map, ref), statistics);
+	}
+}
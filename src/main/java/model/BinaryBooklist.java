@@ -0,0 +1,558 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+
+/**
+ * This class reads and writes the binary
+ * version of a booklist (.booklistb).
+ * 
+ * Layout of the file (big endian):
+ * <pre>
+ * "BKLB"          4 bytes, marks a binary booklist
+ * version         int
+ * count           int, the amount of books
+ * offsets         count * int, where every book starts
+ * books           count * book
+ * </pre>
+ * Layout of a book:
+ * <pre>
+ * title           length + UTF-8 bytes
+ * surName         length + UTF-8 bytes
+ * lastName        length + UTF-8 bytes
+ * month           byte, 0 for none, 1 - 12
+ * year            short, 0 for none, 1 - 9999
+ * </pre>
+ * A length is an unsigned short, if it is 0xFFFF an int
+ * with the real length follows. A month or year which is
+ * no number (-1) is followed by its String.
+ * 
+ * The offsets make it possible to open the file
+ * without reading it and to read any book directly.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class BinaryBooklist {
+	
+	/**
+	 * Ending which is used for binary Booklist files.
+	 */
+	public static final String FILE_ENDING = ".booklistb";
+	
+	private static final byte[] MAGIC = {'B', 'K', 'L', 'B'};
+	
+	/**
+	 * The version of the layout, it is increased
+	 * whenever the layout changes.
+	 */
+	static final int VERSION = 1;
+	
+	/**
+	 * Magic, version and count.
+	 */
+	static final int HEADER_SIZE = 12;
+	
+	/**
+	 * Marks a length which does not fit
+	 * into an unsigned short.
+	 */
+	private static final int LONG_LENGTH = 0xFFFF;
+	
+	/**
+	 * Marks a month or year which is no number.
+	 */
+	private static final int IRREGULAR = -1;
+	
+	public BinaryBooklist() {
+		//do nothing, just defined for accidental instance creation.
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Checks if a file is a binary booklist
+	 * by looking at its first bytes.
+	 * 
+	 * @param file the file
+	 * @return <code>true</code> if the file is a binary booklist
+	 * @throws IOException if the file cannot be read
+	 */
+	public static boolean isBinary(File file) throws IOException {
+		
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			
+			if(raf.length() < HEADER_SIZE) {
+				return false;
+			}
+			for(int i = 0; i < MAGIC.length; i++) {
+				if(raf.readByte() != MAGIC[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+	
+	/**
+	 * @param file the file
+	 * @return <code>true</code> if the name of the file
+	 * ends with the ending of binary booklists.
+	 */
+	public static boolean hasBinaryEnding(File file) {
+		return file.getName().endsWith(FILE_ENDING);
+	}
+	
+	/**
+	 * Converts a .booklist file into a binary booklist.
+	 * 
+	 * @param text the .booklist file
+	 * @param binary the binary booklist which is written
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void convertToBinary(File text, File binary) throws IOException {
+		
+		Library library = new Library(text);
+		try {
+			library.writeTo(binary, true);
+		} finally {
+			library.close();
+		}
+	}
+	
+	/**
+	 * Converts a binary booklist into a .booklist file.
+	 * 
+	 * @param binary the binary booklist
+	 * @param text the .booklist file which is written
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void convertToText(File binary, File text) throws IOException {
+		
+		Library library = new Library(binary);
+		try {
+			library.writeTo(text, false);
+		} finally {
+			library.close();
+		}
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @param count the amount of books
+	 * @return the position of the first book
+	 * in a file with this amount of books
+	 */
+	static int booksStart(int count) {
+		return HEADER_SIZE + 4 * count;
+	}
+	
+	/**
+	 * Writes all books of the store.
+	 * 
+	 * @param file the file which is written
+	 * @param books the books
+	 * @param listener is informed about the written books,
+	 * may be <code>null</code>
+	 * @param checksum is updated with the written bytes, may be
+	 * <code>null</code>. The books are given to it first, then the
+	 * header and the offsets, which stand before them in the file.
+	 * @throws IOException if the file cannot be written
+	 */
+	static void write(File file, BookStore books, ProgressListener listener,
+			Checksum checksum) throws IOException {
+		
+		int count = books.size();
+		int[] offsets = new int[count];
+		int start = booksStart(count);
+		
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			
+			/*
+			 * First the books, behind the place
+			 * where the offsets will be.
+			 */
+			channel.position(start);
+			OutputStream stream = Channels.newOutputStream(channel);
+			if(checksum != null) {
+				stream = new CheckedOutputStream(stream, checksum);
+			}
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+			
+			for(int i = 0; i < count; i++) {
+				if(listener != null && i % Library.PROGRESS_STEP == 0) {
+					listener.progress(i, count);
+				}
+				if(start + out.size() < 0) { 	//size() stops at Integer.MAX_VALUE
+					throw new IOException("The books do not fit into a binary booklist.");
+				}
+				offsets[i] = start + out.size();
+				writeBook(out, books.get(i));
+			}
+			out.flush();
+			
+			/*
+			 * Then the header and the offsets.
+			 */
+			ByteBuffer header = ByteBuffer.allocate(start);
+			header.put(MAGIC);
+			header.putInt(VERSION);
+			header.putInt(count);
+			for(int offset : offsets) {
+				header.putInt(offset);
+			}
+			header.flip();
+			if(checksum != null) {
+				checksum.update(header.array(), 0, header.limit());
+			}
+			
+			int position = 0;
+			while(header.hasRemaining()) {
+				position += channel.write(header, position);
+			}
+		}
+	}
+	
+	/**
+	 * Writes a book in the layout of binary booklists.
+	 * 
+	 * @param out where the book is written to
+	 * @param book the book
+	 * @throws IOException if the book cannot be written
+	 */
+	static void writeBook(DataOutputStream out, Book book) throws IOException {
+		
+		writeString(out, book.getTitle());
+		writeString(out, book.getSurName());
+		writeString(out, book.getLastName());
+		
+		String month = book.getMonth();
+		int monthNumber = toNumber(month, 2, 12);
+		out.writeByte(monthNumber);
+		if(monthNumber == IRREGULAR) {
+			writeString(out, month);
+		}
+		
+		String year = book.getYear();
+		int yearNumber = toNumber(year, 4, 9999);
+		out.writeShort(yearNumber);
+		if(yearNumber == IRREGULAR) {
+			writeString(out, year);
+		}
+	}
+	
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		
+		if(bytes.length < LONG_LENGTH) {
+			out.writeShort(bytes.length);
+		} else {
+			out.writeShort(LONG_LENGTH);
+			out.writeInt(bytes.length);
+		}
+		out.write(bytes);
+	}
+	
+	/**
+	 * Turns a month or year into a number.
+	 * 
+	 * @param value the month or year
+	 * @param digits the amount of digits it has
+	 * @param max the highest allowed number
+	 * @return 0 for an empty String, the number, or
+	 * IRREGULAR if it cannot be written as number
+	 */
+	private static int toNumber(String value, int digits, int max) {
+		
+		if(value.isEmpty()) {
+			return 0;
+		}
+		if(value.length() != digits) {
+			return IRREGULAR;
+		}
+		
+		int number = 0;
+		for(int i = 0; i < digits; i++) {
+			char c = value.charAt(i);
+			if(c < '0' || c > '9') {
+				return IRREGULAR;
+			}
+			number = number * 10 + (c - '0');
+		}
+		
+		/*
+		 * 0 is written as sentinel ("00" / "0000")
+		 * to .booklist files and read as empty String.
+		 */
+		return number <= max ? number : IRREGULAR;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Reads the book which starts at the offset.
+	 * 
+	 * @param map the binary booklist
+	 * @param offset where the book starts
+	 * @return the book
+	 */
+	static Book readBook(ByteBuffer map, int offset) {
+		return readBook(map, new int[] {offset});
+	}
+	
+	/**
+	 * Reads the book which starts at the position.
+	 * 
+	 * @param map the bytes
+	 * @param position where the book starts, afterwards
+	 * where the next data starts
+	 * @return the book
+	 */
+	static Book readBook(ByteBuffer map, int[] position) {
+		
+		String title = readString(map, position);
+		String surName = readString(map, position);
+		String lastName = readString(map, position);
+		
+		String month;
+		int monthNumber = map.get(position[0]);
+		position[0] += 1;
+		if(monthNumber == IRREGULAR) {
+			month = readString(map, position);
+		} else {
+			month = toString(monthNumber, 2);
+		}
+		
+		String year;
+		int yearNumber = map.getShort(position[0]);
+		position[0] += 2;
+		if(yearNumber == IRREGULAR) {
+			year = readString(map, position);
+		} else {
+			year = toString(yearNumber, 4);
+		}
+		
+		return new Book(title, surName, lastName, month, year);
+	}
+	
+	/**
+	 * Tells if the book which starts at the position matches
+	 * the filter, without creating the Book: the names are
+	 * compared byte by byte, the date is read as numbers
+	 * and the title only read if it has to be compared.
+	 * 
+	 * @param map the bytes
+	 * @param offset where the book starts
+	 * @param filter the conditions
+	 * @return true if the book matches
+	 */
+	static boolean matches(ByteBuffer map, int offset, BookFilter filter) {
+		
+		int[] position = {offset};
+		skipString(map, position);
+		if(!sameString(map, position, filter.getSurName())
+				|| !sameString(map, position, filter.getLastName())) {
+			return false;
+		}
+		
+		if(!filter.matchesDate(readDate(map, position))) {
+			return false;
+		}
+		
+		if(filter.hasTitle()) {
+			position[0] = offset;
+			return filter.matchesTitle(readString(map, position));
+		}
+		return true;
+	}
+	
+	/**
+	 * Counts the author and the date of the book which starts
+	 * at the position, the title is skipped without reading it.
+	 * 
+	 * @param map the bytes
+	 * @param offset where the book starts
+	 * @param statistics the statistics the book is added to
+	 */
+	static void count(ByteBuffer map, int offset, LibraryStatistics statistics) {
+		
+		int[] position = {offset};
+		skipString(map, position);
+		String surName = readString(map, position);
+		String lastName = readString(map, position);
+		statistics.added(new Author(surName, lastName), readDate(map, position));
+	}
+	
+	/**
+	 * Reads the month and the year as numbers and
+	 * moves the position behind them.
+	 * 
+	 * @return the packed date
+	 */
+	private static int readDate(ByteBuffer map, int[] position) {
+		
+		int monthNumber = map.get(position[0]);
+		position[0] += 1;
+		String month = monthNumber == IRREGULAR ? readString(map, position) : null;
+		int yearNumber = map.getShort(position[0]);
+		position[0] += 2;
+		String year = yearNumber == IRREGULAR ? readString(map, position) : null;
+		
+		if(month != null || year != null) {
+			return Book.packDate(month != null ? month : toString(monthNumber, 2),
+					year != null ? year : toString(yearNumber, 4));
+		}
+		return yearNumber * 100 + monthNumber;
+	}
+	
+	private static void skipString(ByteBuffer map, int[] position) {
+		
+		int length = map.getShort(position[0]) & 0xFFFF;
+		position[0] += 2;
+		if(length == LONG_LENGTH) {
+			length = map.getInt(position[0]);
+			position[0] += 4;
+		}
+		position[0] += length;
+	}
+	
+	/**
+	 * Compares a String of the map to the bytes
+	 * and moves the position behind it.
+	 * 
+	 * @param bytes the bytes, null if every String matches
+	 * @return true if the String has the bytes
+	 */
+	private static boolean sameString(ByteBuffer map, int[] position, byte[] bytes) {
+		
+		int start = position[0];
+		skipString(map, position);
+		if(bytes == null) {
+			return true;
+		}
+		int length = map.getShort(start) & 0xFFFF;
+		start += 2;
+		if(length == LONG_LENGTH) {
+			length = map.getInt(start);
+			start += 4;
+		}
+		if(length != bytes.length) {
+			return false;
+		}
+		for(int i = 0; i < length; i++) {
+			if(map.get(start + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static String readString(ByteBuffer map, int[] position) {
+		
+		int length = map.getShort(position[0]) & 0xFFFF;
+		position[0] += 2;
+		if(length == LONG_LENGTH) {
+			length = map.getInt(position[0]);
+			position[0] += 4;
+		}
+		
+		byte[] bytes = new byte[length];
+		for(int i = 0; i < length; i++) {
+			bytes[i] = map.get(position[0] + i);
+		}
+		position[0] += length;
+		
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Writes a number with leading zeros,
+	 * 0 becomes an empty String.
+	 */
+	private static String toString(int number, int digits) {
+		
+		if(number == 0) {
+			return "";
+		}
+		
+		char[] chars = new char[digits];
+		for(int i = digits - 1; i >= 0; i--) {
+			chars[i] = (char) ('0' + number % 10);
+			number /= 10;
+		}
+		return new String(chars);
+	}
+	
+	/**
+	 * Checks the header of a mapped binary booklist.
+	 * 
+	 * @param map the binary booklist
+	 * @return the amount of books in it
+	 * @throws IOException if it is no binary booklist
+	 * of a known version
+	 */
+	static int readHeader(ByteBuffer map) throws IOException {
+		
+		if(map.limit() < HEADER_SIZE) {
+			throw new IOException("The file is no binary booklist.");
+		}
+		for(int i = 0; i < MAGIC.length; i++) {
+			if(map.get(i) != MAGIC[i]) {
+				throw new IOException("The file is no binary booklist.");
+			}
+		}
+		
+		int version = map.getInt(4);
+		if(version != VERSION) {
+			throw new IOException("The binary booklist has the unknown version " + version + ".");
+		}
+		
+		int count = map.getInt(8);
+		if(count < 0 || HEADER_SIZE + 4L * count > map.limit()) {
+			throw new IOException("The binary booklist is damaged.");
+		}
+		return count;
+	}
+	
+	/**
+	 * @param map the binary booklist
+	 * @param index the number of the book
+	 * @return where the book starts
+	 */
+	static int offset(ByteBuffer map, int index) {
+		return map.getInt(HEADER_SIZE + 4 * index);
+	}
+}
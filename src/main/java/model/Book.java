@@ -28,26 +28,94 @@ package model;
 
 public class Book {
 	
-	private String title, surName, lastName, month, year;
+	private String title;
+	
+	/**
+	 * The key for sorting by title (see SortKeys),
+	 * created when it is needed the first time and
+	 * thrown away when the title is changed.
+	 */
+	private byte[] titleKey;
+	
+	/**
+	 * The author, it is shared with the other
+	 * books of the author in a library.
+	 */
+	private Author author;
+	
+	/**
+	 * The date, packed as <i>year * 100 + month</i>.
+	 * 0 stands for an unknown year or month.
+	 * DATE_IRREGULAR if the month is no number with two
+	 * digits or the year no number with four digits.
+	 */
+	private int date;
+	
+	/**
+	 * Month and year of an irregular date,
+	 * <code>null</code> for all others.
+	 */
+	private String[] irregularDate;
+	
+	/**
+	 * The packed date of a book whose month or
+	 * year cannot be written as number.
+	 */
+	public static final int DATE_IRREGULAR = -1;
 	
 	private final static String[] NAMEOFMONTH = {
 		"January", "February", "March", "April", "May", "June", "July", "August", "September", "October", "November", "December"
 	};
 	
+	/*
+	 * The Strings of the packed dates, created when
+	 * they are needed the first time and then shared.
+	 * Index of DATEWITHWORDS is year * 13 + month.
+	 */
+	private final static String[] MONTHS = new String[100];
+	private final static String[] YEARS = new String[10000];
+	private final static String[] DATEWITHWORDS = new String[10000 * 13];
+	
 	public Book() {
 		title = "";
-		surName = "";
-		lastName = "";
-		month = "";
-		year = "";
+		author = Author.NONE;
+		date = 0;
 	}
 
 	public Book(String title, String surName, String lastName, String month, String year) {
+		this(title, new Author(surName, lastName), month, year);
+	}
+	
+	public Book(String title, Author author, String month, String year) {
+		this.title = title;
+		this.author = author;
+		setDate(month, year);
+	}
+	
+	/**
+	 * @param title the title
+	 * @param author the author
+	 * @param date the packed date, <i>year * 100 + month</i>
+	 * (not DATE_IRREGULAR)
+	 */
+	public Book(String title, Author author, int date) {
 		this.title = title;
-		this.surName = surName;
-		this.lastName = lastName;
-		this.month = month;
-		this.year = year;
+		this.author = author;
+		this.date = date;
+	}
+	
+	/**
+	 * Copies a book, e.g. to edit it while the
+	 * original is still in the library.
+	 * 
+	 * @param book the book which is copied
+	 */
+	public Book(Book book) {
+		this.title = book.title;
+		this.titleKey = book.titleKey;
+		this.author = book.author;
+		this.date = book.date;
+		this.irregularDate = book.irregularDate;
 	}
 	
 	/**
@@ -58,15 +126,7 @@ public class Book {
 	 * written <i>first Name + last Name </i>
 	 */
 	public String getAuthor() {
-		if(surName.isEmpty() && lastName.isEmpty()) {
-			return "";
-		} else if(surName.isEmpty()) {
-			return lastName;
-		} else if(lastName.isEmpty()) {
-			return surName;
-		} else {
-			return surName + " " + lastName;
-		}
+		return author.getName();
 	}
 	
 	/**
@@ -77,15 +137,21 @@ public class Book {
 	 * written <i>last Name + ", " + first Name </i>
 	 */
 	public String getAuthorLastNameFirst() {
-		if(surName.isEmpty() && lastName.isEmpty()) {
-			return "";
-		} else if(surName.isEmpty()) {
-			return lastName;
-		} else if(lastName.isEmpty()) {
-			return surName;
-		} else {
-			return lastName + ", " + surName;
-		}
+		return author.getNameLastNameFirst();
+	}
+	
+	/**
+	 * @return the author with both names
+	 */
+	public Author getAuthorEntry() {
+		return author;
+	}
+	
+	/**
+	 * @param author the author to set
+	 */
+	public void setAuthorEntry(Author author) {
+		this.author = author;
 	}
 	
 	/**
@@ -96,6 +162,9 @@ public class Book {
 	 * <i> month + "." + year <\i>
 	 */
 	public String getDate() {
+		String month = getMonth();
+		String year = getYear();
+		
 		if(month.isEmpty() && year.isEmpty()) {
 			return "";
 		} else if(month.isEmpty()) {
@@ -119,6 +188,22 @@ public class Book {
 	 * as a number.
 	 */
 	public String getDateWithWords() {
+		if(date == DATE_IRREGULAR) {
+			return dateWithWords(irregularDate[0], irregularDate[1]);
+		}
+		
+		int month = date % 100;
+		int index = (date / 100) * 13 + (month <= 12 ? month : 0);
+		
+		String words = DATEWITHWORDS[index];
+		if(words == null) {
+			words = dateWithWords(getMonth(), getYear());
+			DATEWITHWORDS[index] = words;
+		}
+		return words;
+	}
+	
+	private static String dateWithWords(String month, String year) {
 		if(month.isEmpty() && year.isEmpty()) {
 			return "";
 		} else if(month.isEmpty()) {
@@ -142,6 +227,94 @@ public class Book {
 		}
 	}
 	
+	/**
+	 * @return the date packed as <i>year * 100 + month</i>,
+	 * 0 for an unknown year or month, or DATE_IRREGULAR
+	 */
+	public int getPackedDate() {
+		return date;
+	}
+	
+	/**
+	 * Packs month and year into one number.
+	 * 
+	 * @param month the month, "" or two digits
+	 * @param year the year, "" or four digits
+	 * @return <i>year * 100 + month</i> or DATE_IRREGULAR
+	 * if month or year cannot be packed
+	 */
+	public static int packDate(String month, String year) {
+		
+		int monthNumber = toNumber(month, 2);
+		int yearNumber = toNumber(year, 4);
+		
+		if(monthNumber < 0 || yearNumber < 0) {
+			return DATE_IRREGULAR;
+		}
+		return yearNumber * 100 + monthNumber;
+	}
+	
+	/**
+	 * @return 0 for an empty String, the number,
+	 * or -1 if it is no number with the digits
+	 */
+	private static int toNumber(String value, int digits) {
+		
+		if(value.isEmpty()) {
+			return 0;
+		}
+		if(value.length() != digits) {
+			return -1;
+		}
+		
+		int number = 0;
+		for(int i = 0; i < digits; i++) {
+			char c = value.charAt(i);
+			if(c < '0' || c > '9') {
+				return -1;
+			}
+			number = number * 10 + (c - '0');
+		}
+		return number;
+	}
+	
+	private void setDate(String month, String year) {
+		date = packDate(month, year);
+		irregularDate = date == DATE_IRREGULAR ? new String[] {month, year} : null;
+	}
+	
+	/**
+	 * @param month the packed month, 0 for none
+	 * @return the month with two digits or ""
+	 */
+	static String monthToString(int month) {
+		if(month == 0) {
+			return "";
+		}
+		String string = MONTHS[month];
+		if(string == null) {
+			string = month < 10 ? "0" + month : Integer.toString(month);
+			MONTHS[month] = string;
+		}
+		return string;
+	}
+	
+	/**
+	 * @param year the packed year, 0 for none
+	 * @return the year with four digits or ""
+	 */
+	static String yearToString(int year) {
+		if(year == 0) {
+			return "";
+		}
+		String string = YEARS[year];
+		if(string == null) {
+			string = Integer.toString(year + 10000).substring(1);
+			YEARS[year] = string;
+		}
+		return string;
+	}
+	
 	/**
 	 * @return the title
 	 */
@@ -154,61 +327,80 @@ public class Book {
 	 */
 	public void setTitle(String title) {
 		this.title = title;
+		titleKey = null;
+	}
+	
+	/**
+	 * @return the key for sorting by title
+	 */
+	byte[] getTitleKey() {
+		byte[] result = titleKey;
+		if(result == null) {
+			result = SortKeys.of(title);
+			titleKey = result;
+		}
+		return result;
 	}
 	
 	/**
 	 * @param surName the surName to set
 	 */
 	public void setSurName(String surName) {
-		this.surName = surName;
+		this.author = new Author(surName, author.getLastName());
 	}
 	
 	/**
 	 * @return the lastName
 	 */
 	public String getLastName() {
-		return lastName;
+		return author.getLastName();
 	}
 
 	/**
 	 * @param lastName the lastName to set
 	 */
 	public void setLastName(String lastName) {
-		this.lastName = lastName;
+		this.author = new Author(author.getSurName(), lastName);
 	}
 	
 	/**
 	 * @param month the month to set
 	 */
 	public void setMonth(String month) {
-		this.month = month;
+		setDate(month, getYear());
 	}
 
 	/**
 	 * @param year the year to set
 	 */
 	public void setYear(String year) {
-		this.year = year;
+		setDate(getMonth(), year);
 	}
 
 	/**
 	 * @return the surName
 	 */
 	public String getSurName() {
-		return surName;
+		return author.getSurName();
 	}
 
 	/**
 	 * @return the month
 	 */
 	public String getMonth() {
-		return month;
+		if(date == DATE_IRREGULAR) {
+			return irregularDate[0];
+		}
+		return monthToString(date % 100);
 	}
 
 	/**
 	 * @return the year
 	 */
 	public String getYear() {
-		return year;
+		if(date == DATE_IRREGULAR) {
+			return irregularDate[1];
+		}
+		return yearToString(date / 100);
 	}
 }
@@ -0,0 +1,177 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The conditions of a BookQuery, given to the BookStore
+ * so it can test its books the cheapest way: a store
+ * which keeps the books as bytes or columns compares
+ * them there and only creates the Books which match.
+ * 
+ * The dates are compared packed as <i>year * 100 + month</i>.
+ * A book with only a year is packed as <i>year * 100</i>, so
+ * it comes before January of its year. A book without a year
+ * (packed below 100) or with an irregular date is in no range.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+final class BookFilter {
+	
+	/**
+	 * The names of the author in UTF-8. A name which
+	 * is null matches every name, each on its own.
+	 */
+	private final byte[] surName;
+	private final byte[] lastName;
+	private final String surNameString;
+	private final String lastNameString;
+	
+	/**
+	 * The text the titles must contain, in lower case
+	 * and without accents, or null for every title.
+	 */
+	private final String titlePart;
+	
+	/**
+	 * The first and last packed date of the range.
+	 */
+	private final int fromDate;
+	private final int toDate;
+	
+	/**
+	 * True if only books without a year match.
+	 */
+	private final boolean withoutDate;
+	
+	/**
+	 * @param surName the sur name of the author, null for every sur name
+	 * @param lastName the last name of the author, null for every last name
+	 * @param titlePart the text the titles must contain, null for every title
+	 * @param fromDate the first packed date of the range, 0 for no range
+	 * @param toDate the last packed date of the range
+	 * @param withoutDate true if only books without a year match
+	 */
+	BookFilter(String surName, String lastName, String titlePart,
+			int fromDate, int toDate, boolean withoutDate) {
+		this.surNameString = surName;
+		this.lastNameString = lastName;
+		this.surName = surName == null ? null : surName.getBytes(StandardCharsets.UTF_8);
+		this.lastName = lastName == null ? null : lastName.getBytes(StandardCharsets.UTF_8);
+		this.titlePart = titlePart == null ? null : SortKeys.folded(titlePart);
+		this.fromDate = fromDate;
+		this.toDate = toDate;
+		this.withoutDate = withoutDate;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return true if the book matches every condition
+	 */
+	boolean matches(Book book) {
+		return matchesDate(book.getPackedDate())
+				&& matchesAuthor(book.getSurName(), book.getLastName())
+				&& matchesTitle(book.getTitle());
+	}
+	
+	/**
+	 * @param date the packed date, or Book.DATE_IRREGULAR
+	 * @return true if the date matches
+	 */
+	boolean matchesDate(int date) {
+		if(withoutDate && (date < 0 || date >= 100)) {
+			return false;
+		}
+		return fromDate == 0 || (date >= 100 && date >= fromDate && date <= toDate);
+	}
+	
+	/**
+	 * @return true if the author matches
+	 */
+	boolean matchesAuthor(String surName, String lastName) {
+		return (surNameString == null || surNameString.equals(surName))
+				&& (lastNameString == null || lastNameString.equals(lastName));
+	}
+	
+	/**
+	 * @return true if the title matches
+	 */
+	boolean matchesTitle(String title) {
+		return titlePart == null || SortKeys.folded(title).contains(titlePart);
+	}
+	
+	/**
+	 * @return true if only some dates match
+	 */
+	boolean hasDate() {
+		return fromDate != 0 || withoutDate;
+	}
+	
+	/**
+	 * @return the first packed date which matches, 0 for
+	 * books without a year, if hasDate()
+	 */
+	int getFirstDate() {
+		return fromDate;
+	}
+	
+	/**
+	 * @return the last packed date which matches, if hasDate();
+	 * smaller than the first if no date matches
+	 */
+	int getLastDate() {
+		if(withoutDate) {
+			return fromDate == 0 ? 99 : Math.min(99, toDate);
+		}
+		return toDate;
+	}
+	
+	/**
+	 * @return true if only some authors match
+	 */
+	boolean hasAuthor() {
+		return surName != null || lastName != null;
+	}
+	
+	/**
+	 * @return true if only some titles match
+	 */
+	boolean hasTitle() {
+		return titlePart != null;
+	}
+	
+	/**
+	 * @return the sur name of the author in UTF-8,
+	 * null for every sur name
+	 */
+	byte[] getSurName() {
+		return surName;
+	}
+	
+	/**
+	 * @return the last name of the author in UTF-8,
+	 * null for every last name
+	 */
+	byte[] getLastName() {
+		return lastName;
+	}
+}
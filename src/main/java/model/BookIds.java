@@ -0,0 +1,351 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * BookIds gives every book of a library an id which
+ * stays the same while the book is sorted, edited or
+ * other books are deleted. The ids are not saved,
+ * they are given again when a file is opened.
+ * 
+ * The ids are kept in the order of the books. A table
+ * with open addressing finds the position of an id.
+ * When a single book is inserted, moved or removed, the
+ * change is only noted and applied to the positions found
+ * in the table; after MAX_CHANGES changes, a sorting or
+ * the removal of many books the table is built again,
+ * when the next position is asked for.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+class BookIds {
+	
+	/**
+	 * The id of every book in the order of the library,
+	 * the first <i>size</i> are used.
+	 */
+	private long[] ids;
+	private int size;
+	
+	private long nextId = 1;
+	
+	/*
+	 * The table, keys[slot] is an id (0 for an empty slot)
+	 * and rows[slot] its position. It is at most half full.
+	 * null if the books moved since it was built.
+	 */
+	private long[] keys;
+	private int[] rows;
+	
+	/**
+	 * The changes which are noted until the table is built again.
+	 */
+	private static final int MAX_CHANGES = 256;
+	
+	/**
+	 * The end of the books; a book which is moved from
+	 * there was inserted, a book moved there was removed.
+	 */
+	private static final int END = Integer.MAX_VALUE;
+	
+	/*
+	 * The books moved since the table was built,
+	 * the book at changeFrom[i] was moved to changeTo[i].
+	 */
+	private final int[] changeFrom = new int[MAX_CHANGES];
+	private final int[] changeTo = new int[MAX_CHANGES];
+	private int changeCount;
+	
+	/*
+	 * The ids added since the table was built, with
+	 * their position and the amount of changes before.
+	 */
+	private final long[] addedIds = new long[MAX_CHANGES];
+	private final int[] addedRows = new int[MAX_CHANGES];
+	private final int[] addedSince = new int[MAX_CHANGES];
+	private int addedCount;
+	
+	/**
+	 * @param count the amount of books, they get new ids
+	 */
+	BookIds(int count) {
+		reset(count);
+	}
+	
+	/**
+	 * Gives all books new ids,
+	 * e.g. after the file was read again.
+	 * 
+	 * @param count the amount of books
+	 */
+	void reset(int count) {
+		ids = new long[Math.max(16, count)];
+		size = 0;
+		keys = null;
+		rows = null;
+		while(size < count) {
+			add();
+		}
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Gives the book which was appended an id.
+	 * 
+	 * @return the id
+	 */
+	long add() {
+		if(size == ids.length) {
+			ids = Arrays.copyOf(ids, size * 2);
+		}
+		long id = nextId++;
+		ids[size] = id;
+		if(keys != null && changeCount == 0) {
+			put(id, size);
+		} else {
+			changed(END, size);
+			added(id, size);
+		}
+		size++;
+		return id;
+	}
+	
+	/**
+	 * Gives the book which was inserted an id.
+	 * 
+	 * @param index the position of the book
+	 * @return the id
+	 */
+	long insert(int index) {
+		if(index == size) {
+			return add();
+		}
+		if(size == ids.length) {
+			ids = Arrays.copyOf(ids, size * 2);
+		}
+		long id = nextId++;
+		System.arraycopy(ids, index, ids, index + 1, size - index);
+		ids[index] = id;
+		size++;
+		changed(END, index);
+		added(id, index);
+		return id;
+	}
+	
+	/**
+	 * @param from the old position of a book
+	 * @param to its new position
+	 */
+	void moved(int from, int to) {
+		long id = ids[from];
+		if(from < to) {
+			System.arraycopy(ids, from + 1, ids, from, to - from);
+		} else {
+			System.arraycopy(ids, to, ids, to + 1, from - to);
+		}
+		ids[to] = id;
+		changed(from, to);
+	}
+	
+	/**
+	 * @param sortedIds the ids of all books in their new
+	 * order, the array is used from now on
+	 */
+	void ordered(long[] sortedIds) {
+		ids = sortedIds;
+		keys = null;
+	}
+	
+	/**
+	 * @param order the old position of every
+	 * book in the new order
+	 */
+	void sorted(int[] order) {
+		long[] sortedIds = new long[ids.length];
+		for(int i = 0; i < size; i++) {
+			sortedIds[i] = ids[order[i]];
+		}
+		ids = sortedIds;
+		keys = null;
+	}
+	
+	/**
+	 * @param removed the positions of the removed books
+	 */
+	void removed(BitSet removed) {
+		if(removed.cardinality() <= 16) {
+			for(int i = removed.length() - 1; i >= 0; i = removed.previousSetBit(i - 1)) {
+				changed(i, END);
+			}
+		} else {
+			keys = null;
+		}
+		int kept = removed.nextSetBit(0);
+		if(kept < 0 || kept >= size) {
+			return;
+		}
+		int start = removed.nextClearBit(kept);
+		while(start < size) {
+			int end = removed.nextSetBit(start);
+			if(end < 0 || end > size) {
+				end = size;
+			}
+			System.arraycopy(ids, start, ids, kept, end - start);
+			kept += end - start;
+			start = removed.nextClearBit(end);
+		}
+		size = kept;
+	}
+	
+	/**
+	 * @param index the position of a book
+	 * @return the id of the book
+	 */
+	long get(int index) {
+		if(index < 0 || index >= size) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+		return ids[index];
+	}
+	
+	/**
+	 * @param id the id of a book
+	 * @return the position of the book or -1
+	 * if no book has the id (anymore)
+	 */
+	int indexOf(long id) {
+		
+		if(keys == null) {
+			build();
+		}
+		
+		int row = -1;
+		int since = 0;
+		int mask = keys.length - 1;
+		for(int slot = spread(id) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+			if(keys[slot] == id) {
+				row = rows[slot];
+				break;
+			}
+		}
+		for(int i = 0; i < addedCount && row < 0; i++) {
+			if(addedIds[i] == id) {
+				row = addedRows[i];
+				since = addedSince[i];
+			}
+		}
+		
+		for(int i = since; i < changeCount && row >= 0; i++) {
+			row = moved(row, changeFrom[i], changeTo[i]);
+		}
+		return row;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Notes that a book was moved. If too many books
+	 * were moved, the table is built again instead.
+	 */
+	private void changed(int from, int to) {
+		if(keys == null) {
+			return;
+		}
+		if(changeCount == MAX_CHANGES) {
+			keys = null;
+			return;
+		}
+		changeFrom[changeCount] = from;
+		changeTo[changeCount] = to;
+		changeCount++;
+	}
+	
+	/**
+	 * Notes an id which was added at a position,
+	 * after the change which added it.
+	 */
+	private void added(long id, int row) {
+		if(keys == null) {
+			return;
+		}
+		addedIds[addedCount] = id;
+		addedRows[addedCount] = row;
+		addedSince[addedCount] = changeCount;
+		addedCount++;
+	}
+	
+	/**
+	 * @return the position of a book after the book at
+	 * <i>from</i> was moved to <i>to</i>, -1 if it was removed
+	 */
+	private static int moved(int row, int from, int to) {
+		if(row == from) {
+			return to == END ? -1 : to;
+		} else if(from < to && row > from && row <= to) {
+			return row - 1;
+		} else if(from > to && row >= to && row < from) {
+			return row + 1;
+		}
+		return row;
+	}
+	
+	private void build() {
+		
+		changeCount = 0;
+		addedCount = 0;
+		int capacity = 16;
+		while(capacity < size * 2) {
+			capacity <<= 1;
+		}
+		keys = new long[capacity * 2];
+		rows = new int[capacity * 2];
+		for(int i = 0; i < size; i++) {
+			put(ids[i], i);
+		}
+	}
+	
+	private void put(long id, int row) {
+		
+		if((size + 1) * 2 > keys.length) {
+			build(); 	//grows the table, the new id is added below
+		}
+		int mask = keys.length - 1;
+		int slot = spread(id) & mask;
+		while(keys[slot] != 0 && keys[slot] != id) {
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = id;
+		rows[slot] = row;
+	}
+	
+	/**
+	 * Ids are given one after another, the bits
+	 * are mixed so they do not fill neighbouring slots.
+	 */
+	private static int spread(long id) {
+		long hash = id * 0x9E3779B97F4A7C15L;
+		return (int) (hash ^ (hash >>> 32));
+	}
+}
@@ -0,0 +1,269 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A query for the books of a library, created by
+ * <i>Library.query()</i>. The conditions are combined,
+ * a book must match all of them:
+ * 
+ * <pre>
+ * List&lt;Book&gt; books = library.query()
+ *         .authorIs("Haruki", "Murakami")
+ *         .datedBetween(2012, 3, 2014, 12)
+ *         .sortByDate(0)
+ *         .limit(20)
+ *         .books();
+ * </pre>
+ * 
+ * The conditions are handed to the BookStore, which
+ * compares its bytes or columns, so no Book is created for
+ * a book which does not match. A range of dates is looked
+ * up in an index of the dates instead, created by the first
+ * such query, so only the books in the range are tested. Without a sorting the books
+ * come in the order of the library. A query can be run
+ * again, it then sees the books as they are then.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class BookQuery {
+	
+	private final Library library;
+	
+	/*
+	 * The author, null for every author.
+	 */
+	private String surName;
+	private String lastName;
+	
+	/**
+	 * The text the titles must contain, null for every title.
+	 */
+	private String titlePart;
+	
+	/*
+	 * The first and the last packed date, 0 for every date.
+	 */
+	private int fromDate;
+	private int toDate;
+	
+	private boolean withoutDate;
+	
+	/**
+	 * LibraryJournal.SORT_TITLES, SORT_AUTHORS or
+	 * SORT_DATE, 0 for the order of the library.
+	 */
+	private byte sortBy;
+	private int countSort;
+	
+	private int offset;
+	private int limit = Integer.MAX_VALUE;
+	
+	/**
+	 * @param library the library whose books are searched
+	 */
+	BookQuery(Library library) {
+		this.library = library;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Only books of the author match. A name which is
+	 * null is not compared: <i>authorIs(null, "Murakami")</i>
+	 * finds every author with the last name Murakami.
+	 * 
+	 * @param surName the sur name, exactly as in the books, or null
+	 * @param lastName the last name, exactly as in the books, or null
+	 * @return this query
+	 */
+	public BookQuery authorIs(String surName, String lastName) {
+		this.surName = surName;
+		this.lastName = lastName;
+		return this;
+	}
+	
+	/**
+	 * Only books whose title contains the text match. Upper
+	 * and lower case and accents do not matter, "bruder"
+	 * finds "Brüder".
+	 * 
+	 * @param text the text
+	 * @return this query
+	 */
+	public BookQuery titleContains(String text) {
+		this.titlePart = text;
+		return this;
+	}
+	
+	/**
+	 * Only books from the first to the last month match,
+	 * both included. Month 0 stands for the whole year: a
+	 * book with only a year matches if its year is the last
+	 * one, or the first one if <i>fromMonth</i> is 0. Books
+	 * without a year or with an irregular date never match.
+	 * 
+	 * @param fromYear the first year
+	 * @param fromMonth the first month, 0 for the whole year
+	 * @param toYear the last year
+	 * @param toMonth the last month, 0 for the whole year
+	 * @return this query
+	 */
+	public BookQuery datedBetween(int fromYear, int fromMonth, int toYear, int toMonth) {
+		this.fromDate = Math.max(100, fromYear * 100 + fromMonth);
+		this.toDate = toYear * 100 + (toMonth == 0 ? 12 : toMonth);
+		return this;
+	}
+	
+	/**
+	 * Only books without a year match.
+	 * 
+	 * @return this query
+	 */
+	public BookQuery withoutDate() {
+		this.withoutDate = true;
+		return this;
+	}
+	
+	/**
+	 * Sorts the found books by title, books with
+	 * the same title keep the order of the library.
+	 * 
+	 * @param countSort 0 for A to Z, 1 for Z to A
+	 * @return this query
+	 */
+	public BookQuery sortByTitles(int countSort) {
+		return sortBy(LibraryJournal.SORT_TITLES, countSort);
+	}
+	
+	/**
+	 * Sorts the found books by author, books of the
+	 * same author keep the order of the library.
+	 * 
+	 * @param countSort 0 for <i>surName + lastName</i>,
+	 * 1 for <i>lastName + "," + surName</i>
+	 * @return this query
+	 */
+	public BookQuery sortByAuthors(int countSort) {
+		return sortBy(LibraryJournal.SORT_AUTHORS, countSort);
+	}
+	
+	/**
+	 * Sorts the found books by date, books with
+	 * the same date keep the order of the library.
+	 * 
+	 * @param countSort 0 for the oldest first, 1 for the newest first
+	 * @return this query
+	 */
+	public BookQuery sortByDate(int countSort) {
+		return sortBy(LibraryJournal.SORT_DATE, countSort);
+	}
+	
+	private BookQuery sortBy(byte by, int countSort) {
+		this.sortBy = by;
+		this.countSort = countSort;
+		return this;
+	}
+	
+	/**
+	 * @param offset the amount of found books which are skipped
+	 * @return this query
+	 */
+	public BookQuery offset(int offset) {
+		this.offset = Math.max(0, offset);
+		return this;
+	}
+	
+	/**
+	 * @param limit the most books which are returned
+	 * @return this query
+	 */
+	public BookQuery limit(int limit) {
+		this.limit = Math.max(0, limit);
+		return this;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Runs the query.
+	 * 
+	 * @return the ids of the found books
+	 */
+	public long[] ids() {
+		int[] positions = library.find(this);
+		long[] ids = new long[positions.length];
+		for(int i = 0; i < positions.length; i++) {
+			ids[i] = library.getId(positions[i]);
+		}
+		return ids;
+	}
+	
+	/**
+	 * Runs the query.
+	 * 
+	 * @return the found books
+	 */
+	public List<Book> books() {
+		int[] positions = library.find(this);
+		List<Book> books = new ArrayList<Book>(positions.length);
+		for(int position : positions) {
+			books.add(library.getBook(position));
+		}
+		return books;
+	}
+	
+	/**
+	 * Runs the query without offset and limit.
+	 * 
+	 * @return the amount of books which match
+	 */
+	public int count() {
+		return library.count(this);
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return the conditions for the BookStore
+	 */
+	BookFilter filter() {
+		return new BookFilter(surName, lastName, titlePart, fromDate, toDate, withoutDate);
+	}
+	
+	byte getSortBy() {
+		return sortBy;
+	}
+	
+	int getCountSort() {
+		return countSort;
+	}
+	
+	int getOffset() {
+		return offset;
+	}
+	
+	int getLimit() {
+		return limit;
+	}
+}
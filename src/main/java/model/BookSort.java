@@ -0,0 +1,362 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Sorts books stable and tells where every book
+ * was before, so the ids of the library can be
+ * put into the same order.
+ * 
+ * Arrays with at least <i>threshold</i> elements are sorted
+ * on several threads by a merge sort: the parts are sorted
+ * by Arrays.sort on the threads of a ForkJoinPool and merged,
+ * large parts are merged in parallel as well. Books which are
+ * equal for the comparator keep their order, exactly like
+ * with Collections.sort, so sorting by title and then by
+ * date still gives the titles of a date in their order.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class BookSort {
+	
+	/**
+	 * Sorts on the calling thread only.
+	 */
+	public static final BookSort SEQUENTIAL = new BookSort(1, Integer.MAX_VALUE);
+	
+	/**
+	 * The smallest part which is sorted or merged
+	 * by one thread; smaller parts cost more to
+	 * hand to another thread than they save.
+	 */
+	static final int MIN_PART = 1 << 13;
+	
+	/**
+	 * The amount of threads.
+	 */
+	private final int parallelism;
+	
+	/**
+	 * The smallest amount of elements which
+	 * are sorted on several threads.
+	 */
+	private final int threshold;
+	
+	/**
+	 * The threads, created for the first parallel sort.
+	 */
+	private ForkJoinPool pool;
+	
+	/**
+	 * @param parallelism the amount of threads
+	 * @param threshold the smallest amount of elements
+	 * which are sorted on several threads
+	 */
+	public BookSort(int parallelism, int threshold) {
+		this.parallelism = parallelism;
+		this.threshold = threshold;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Sorts the books in the array.
+	 * 
+	 * @param books the books, they are sorted afterwards
+	 * @param comparator determines the order
+	 * @return the old position of every book, in the new order
+	 */
+	public int[] sortBooks(Book[] books, Comparator<Book> comparator) {
+		
+		Row[] rows = new Row[books.length];
+		for(int i = 0; i < books.length; i++) {
+			rows[i] = new Row(i, books[i]);
+		}
+		
+		sort(rows, (Row r1, Row r2) -> comparator.compare(r1.book, r2.book));
+		
+		int[] order = new int[books.length];
+		for(int i = 0; i < books.length; i++) {
+			books[i] = rows[i].book;
+			order[i] = rows[i].index;
+		}
+		return order;
+	}
+	
+	/**
+	 * Sorts an array stable, on several threads
+	 * if it is large enough.
+	 * 
+	 * @param array the elements, they are sorted afterwards
+	 * @param comparator determines the order
+	 */
+	public <T> void sort(T[] array, Comparator<? super T> comparator) {
+		
+		if(parallelism <= 1 || array.length < Math.max(threshold, 2 * MIN_PART)) {
+			Arrays.sort(array, comparator);
+			return;
+		}
+		
+		T[] buffer = Arrays.copyOf(array, array.length);
+		int part = Math.max(MIN_PART, array.length / (parallelism * 4));
+		pool().invoke(new SortTask<T>(array, buffer, 0, array.length, false, part, comparator));
+	}
+	
+	/**
+	 * Sorts keys, on several threads if there are enough.
+	 * Different keys have no order which could be kept, so
+	 * Arrays.parallelSort is used on the threads of this sorter.
+	 *
+	 * @param keys the keys, they are sorted afterwards
+	 */
+	public void sort(long[] keys) {
+
+		if(parallelism <= 1 || keys.length < Math.max(threshold, 2 * MIN_PART)) {
+			Arrays.sort(keys);
+			return;
+		}
+		pool().submit(() -> Arrays.parallelSort(keys)).join();
+	}
+
+	/**
+	 * @return the amount of threads
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+	
+	/**
+	 * @return the smallest amount of elements
+	 * which are sorted on several threads
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+	
+	/**
+	 * Ends the threads. They are started
+	 * again for the next parallel sort.
+	 */
+	public synchronized void close() {
+		if(pool != null) {
+			pool.shutdown();
+			pool = null;
+		}
+	}
+	
+	private synchronized ForkJoinPool pool() {
+		if(pool == null) {
+			pool = new ForkJoinPool(parallelism);
+		}
+		return pool;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Sorts a part of the array. The sorted part
+	 * is left in the array or in the buffer, the
+	 * other one is used to merge the halves.
+	 */
+	private static class SortTask<T> extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final T[] array;
+		private final T[] buffer;
+		private final int from;
+		private final int to;
+		private final boolean intoBuffer;
+		private final int part;
+		private final Comparator<? super T> comparator;
+		
+		SortTask(T[] array, T[] buffer, int from, int to, boolean intoBuffer,
+				int part, Comparator<? super T> comparator) {
+			this.array = array;
+			this.buffer = buffer;
+			this.from = from;
+			this.to = to;
+			this.intoBuffer = intoBuffer;
+			this.part = part;
+			this.comparator = comparator;
+		}
+		
+		@Override
+		protected void compute() {
+			
+			if(to - from <= part) {
+				Arrays.sort(array, from, to, comparator);
+				if(intoBuffer) {
+					System.arraycopy(array, from, buffer, from, to - from);
+				}
+				return;
+			}
+			
+			/*
+			 * The halves are sorted into the other array,
+			 * so they can be merged into this one.
+			 */
+			int middle = (from + to) >>> 1;
+			invokeAll(new SortTask<T>(array, buffer, from, middle, !intoBuffer, part, comparator),
+					new SortTask<T>(array, buffer, middle, to, !intoBuffer, part, comparator));
+			
+			T[] source = intoBuffer ? array : buffer;
+			T[] target = intoBuffer ? buffer : array;
+			new MergeTask<T>(source, target, from, middle, middle, to, from, part, comparator).compute();
+		}
+	}
+	
+	/**
+	 * Merges two sorted runs of the source into the target.
+	 * If both are equal, the element of the first run comes first.
+	 */
+	private static class MergeTask<T> extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final T[] source;
+		private final T[] target;
+		private final int from1;
+		private final int to1;
+		private final int from2;
+		private final int to2;
+		private final int at;
+		private final int part;
+		private final Comparator<? super T> comparator;
+		
+		MergeTask(T[] source, T[] target, int from1, int to1, int from2, int to2,
+				int at, int part, Comparator<? super T> comparator) {
+			this.source = source;
+			this.target = target;
+			this.from1 = from1;
+			this.to1 = to1;
+			this.from2 = from2;
+			this.to2 = to2;
+			this.at = at;
+			this.part = part;
+			this.comparator = comparator;
+		}
+		
+		@Override
+		protected void compute() {
+			
+			int length1 = to1 - from1;
+			int length2 = to2 - from2;
+			
+			if(length1 + length2 <= part || length1 == 0 || length2 == 0) {
+				merge();
+				return;
+			}
+			
+			/*
+			 * The larger run is split in its middle, the other one
+			 * where the element there would be inserted. Equal
+			 * elements of the first run stay in front.
+			 */
+			int split1;
+			int split2;
+			if(length1 >= length2) {
+				split1 = (from1 + to1) >>> 1;
+				split2 = firstNotBefore(source[split1], from2, to2);
+			} else {
+				split2 = (from2 + to2) >>> 1;
+				split1 = firstAfter(source[split2], from1, to1);
+			}
+			int at2 = at + (split1 - from1) + (split2 - from2);
+			
+			invokeAll(new MergeTask<T>(source, target, from1, split1, from2, split2, at, part, comparator),
+					new MergeTask<T>(source, target, split1, to1, split2, to2, at2, part, comparator));
+		}
+		
+		private void merge() {
+			
+			int i = from1;
+			int j = from2;
+			int k = at;
+			if(i < to1 && j < to2 && comparator.compare(source[to1 - 1], source[j]) <= 0) {
+				//the runs are already in order
+				System.arraycopy(source, from1, target, k, to1 - from1);
+				System.arraycopy(source, from2, target, k + to1 - from1, to2 - from2);
+				return;
+			}
+			while(i < to1 && j < to2) {
+				if(comparator.compare(source[j], source[i]) < 0) {
+					target[k++] = source[j++];
+				} else {
+					target[k++] = source[i++];
+				}
+			}
+			System.arraycopy(source, i, target, k, to1 - i);
+			k += to1 - i;
+			System.arraycopy(source, j, target, k, to2 - j);
+		}
+		
+		/**
+		 * @return the first position in the run whose
+		 * element does not come before the element
+		 */
+		private int firstNotBefore(T element, int from, int to) {
+			while(from < to) {
+				int middle = (from + to) >>> 1;
+				if(comparator.compare(source[middle], element) < 0) {
+					from = middle + 1;
+				} else {
+					to = middle;
+				}
+			}
+			return from;
+		}
+		
+		/**
+		 * @return the first position in the run whose
+		 * element comes after the element
+		 */
+		private int firstAfter(T element, int from, int to) {
+			while(from < to) {
+				int middle = (from + to) >>> 1;
+				if(comparator.compare(source[middle], element) <= 0) {
+					from = middle + 1;
+				} else {
+					to = middle;
+				}
+			}
+			return from;
+		}
+	}
+	
+	/**
+	 * A book together with its old position.
+	 */
+	private static class Row {
+		
+		private final int index;
+		private final Book book;
+		
+		Row(int index, Book book) {
+			this.index = index;
+			this.book = book;
+		}
+	}
+}
@@ -23,6 +23,8 @@ import java.util.Comparator;
 /**
  * This class represents a Comparator
  * which compares books by author.
+ * The names are compared by the keys the
+ * Authors keep (see SortKeys).
  * 
  * @author Maximilian Alexander Gehrke
  * @version 1.0
@@ -39,15 +41,15 @@ public class BookSortAuthor implements Comparator<Book> {
 	@Override
 	public int compare(Book b1, Book b2) {
 		
+		Author author1 = b1.getAuthorEntry();
+		Author author2 = b2.getAuthorEntry();
+		if(author1 == author2) {
+			return 0;
+		}
 		if(count == 0) {
-			String name1 = b1.getLastName().toLowerCase() + b1.getSurName().toLowerCase();
-			String name2 = b2.getLastName().toLowerCase() + b2.getSurName().toLowerCase();
-			return name1.compareTo(name2);
-
+			return SortKeys.compare(author1.getSortKeyLastNameFirst(), author2.getSortKeyLastNameFirst());
 		} else {
-			String name1 = b1.getSurName().toLowerCase() + b1.getLastName().toLowerCase(); 
-			String name2 = b2.getSurName().toLowerCase() + b2.getLastName().toLowerCase();
-			return name1.compareTo(name2);		
+			return SortKeys.compare(author1.getSortKey(), author2.getSortKey());
 		}
 	}
 	
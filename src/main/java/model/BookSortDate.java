@@ -24,6 +24,12 @@ import java.util.Comparator;
  * This class represents a Comparator
  * which compares books by date.
  * 
+ * The packed dates are compared, so no Strings are
+ * created. Books without a year come first, a year
+ * without month before the months of the year. Books
+ * with irregular dates come last, compared by
+ * <i>year + month</i>.
+ * 
  * @author Maximilian Alexander Gehrke
  * @version 1.0
  *
@@ -40,16 +46,33 @@ public class BookSortDate implements Comparator<Book>{
 	@Override
 	public int compare(Book b1, Book b2) {
 		
-		String datum1 = b1.getYear() + b1.getMonth();
-		String datum2 = b2.getYear() + b2.getMonth();
+		int result = compareDates(b1, b2);
 		
 		if(count == 0) {
-			return datum1.compareTo(datum2);
+			return result;
 		} else {
-			return datum2.compareTo(datum1);
+			return -result;
 		}
 	}
 	
+	private static int compareDates(Book b1, Book b2) {
+		
+		int date1 = b1.getPackedDate();
+		int date2 = b2.getPackedDate();
+		
+		if(date1 != Book.DATE_IRREGULAR && date2 != Book.DATE_IRREGULAR) {
+			return Integer.compare(date1, date2);
+		} else if(date1 != Book.DATE_IRREGULAR) {
+			return -1;
+		} else if(date2 != Book.DATE_IRREGULAR) {
+			return 1;
+		}
+		
+		String datum1 = b1.getYear() + b1.getMonth();
+		String datum2 = b2.getYear() + b2.getMonth();
+		return datum1.compareTo(datum2);
+	}
+	
 	public int getCount() {
 		return count;
 	}
@@ -23,6 +23,9 @@ import java.util.Comparator;
 /**
  * This class represents a Comparator
  * which compares books by title.
+ * The titles are compared by their keys
+ * (see SortKeys), so "Das Brot der frühen Jahre"
+ * comes before "Das Brot der Gäste".
  * 
  * @author Maximilian Alexander Gehrke
  * @version 1.0
@@ -48,9 +51,9 @@ public class BookSortTitle implements Comparator<Book> {
 	public int compare(Book b1, Book b2) {
 		
 		if(count == 0) {
-			return b1.getTitle().toLowerCase().compareTo(b2.getTitle().toLowerCase());
+			return SortKeys.compare(b1.getTitleKey(), b2.getTitleKey());
 		} else {
-			return b2.getTitle().toLowerCase().compareTo(b1.getTitle().toLowerCase());
+			return SortKeys.compare(b2.getTitleKey(), b1.getTitleKey());
 		}
 	}
 	
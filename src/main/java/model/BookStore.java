@@ -0,0 +1,156 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Vector;
+
+/**
+ * A BookStore holds the books of a library
+ * in the order they are displayed.
+ * 
+ * The Library uses only this interface, so the
+ * books can be kept completely in memory or be
+ * read from the file when they are needed.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public interface BookStore {
+	
+	/**
+	 * @return the amount of books in the store.
+	 */
+	int size();
+	
+	/**
+	 * @param index the position of the book
+	 * @return the book at the position
+	 */
+	Book get(int index);
+	
+	/**
+	 * Replaces the book at the position.
+	 * 
+	 * @param index the position of the book
+	 * @param book the new book
+	 */
+	void set(int index, Book book);
+	
+	/**
+	 * Appends a book at the end.
+	 * 
+	 * @param book the book which shall be added
+	 */
+	void add(Book book);
+	
+	/**
+	 * Inserts a book at the position.
+	 * The books from there move down by one.
+	 * 
+	 * @param index the position, size() to append the book
+	 * @param book the book which shall be inserted
+	 */
+	void insert(int index, Book book);
+	
+	/**
+	 * Removes the book at the position.
+	 * All following books move up by one.
+	 * 
+	 * @param index the position of the book
+	 */
+	void remove(int index);
+	
+	/**
+	 * Removes all books whose positions are set, in one
+	 * pass over the books. The other books move up.
+	 * 
+	 * @param positions the positions of the books
+	 */
+	void removeAll(BitSet positions);
+	
+	/**
+	 * Finds the books which match the filter. A store
+	 * which does not keep Books compares its bytes or
+	 * columns where it can, so no Book is created for
+	 * a book which does not match.
+	 * 
+	 * @param filter the conditions
+	 * @param rows the positions of the matching books are set
+	 */
+	void select(BookFilter filter, BitSet rows);
+	
+	/**
+	 * Counts the author and the date of every book.
+	 * A store which does not keep Books reads them from
+	 * its bytes or columns, without creating the Books.
+	 * 
+	 * @param statistics the statistics the books are added to
+	 */
+	void count(LibraryStatistics statistics);
+	
+	/**
+	 * Sorts the books. The sorting is stable,
+	 * books which are equal keep their order.
+	 * 
+	 * @param comparator determines the order
+	 * @param sorter sorts large stores on several threads
+	 * @return the old position of every book, in the new order
+	 */
+	int[] sort(Comparator<Book> comparator, BookSort sorter);
+	
+	/**
+	 * Returns all books in a Vector.
+	 * 
+	 * <i> Only stores which keep all books in memory
+	 * return their own Vector, all others return a
+	 * copy which is not connected to the store. </i>
+	 * 
+	 * @return Vector with all books.
+	 */
+	Vector<Book> getBooks();
+	
+	/**
+	 * Returns the books as they are now. The snapshot
+	 * does not change when the store changes, so it can
+	 * be read on another thread while the library is
+	 * edited. It cannot be changed itself.
+	 * 
+	 * <i> The books are not copied. The store copies
+	 * what it would change in place the first time it
+	 * changes after the snapshot. </i>
+	 * 
+	 * @return the snapshot
+	 */
+	BookStore snapshot();
+	
+	/**
+	 * @return <code>true</code> if the store reads its
+	 * books from a file, <code>false</code> if all
+	 * books are kept in memory.
+	 */
+	boolean readsFromFile();
+	
+	/**
+	 * Releases the resources of the store.
+	 */
+	void close();
+}
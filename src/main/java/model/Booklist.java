@@ -20,7 +20,7 @@ package model;
 
 import gui.Window;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import javax.swing.UIManager;
@@ -68,11 +68,11 @@ public class Booklist {
 	 * Open the program Booklist to order, add
 	 * or change books.
 	 * 
-	 * @throws FileNotFoundException
-	 * 		if there is no File named "Default.booklist"
-	 * 		this exception is thrown.
+	 * @throws IOException
+	 * 		if the File named "Default.booklist"
+	 * 		cannot be read this exception is thrown.
 	 */
-	public static void main(String[] args) throws FileNotFoundException {
+	public static void main(String[] args) throws IOException {
 		
 		if (System.getProperty("os.name").startsWith("Mac OS X")) {
 			// we have to avoid tight coupling to make the project usable on
@@ -105,6 +105,13 @@ public class Booklist {
 		
 		//######################################################################
 		
+		/*
+		 * Determine how libraries are loaded,
+		 * e.g. "--parallel" to use all cores.
+		 */
+		LibraryOptions options = LibraryOptions.fromArguments(args);
+		Window.setLibraryOptions(options);
+		
 		/*
 		 * Create the GUI.
 		 */
@@ -132,7 +139,7 @@ public class Booklist {
 			/*
 			 * Create Library instance.
 			 */
-			library = new Library(file);
+			library = new Library(file, options);
 			
 			/*
 			 * Add library to the window.
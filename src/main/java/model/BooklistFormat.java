@@ -0,0 +1,62 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+
+/**
+ * The formats a booklist file can have.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public enum BooklistFormat {
+	
+	/**
+	 * One book per line (.booklist).
+	 */
+	TEXT,
+	
+	/**
+	 * Binary booklist with offsets (.booklistb).
+	 */
+	BINARY,
+	
+	/**
+	 * The lines of a .booklist file,
+	 * compressed in blocks (.booklistz).
+	 */
+	COMPRESSED;
+	
+	/**
+	 * @param file the file
+	 * @return the format which is written for
+	 * the ending of the file name
+	 */
+	public static BooklistFormat of(File file) {
+		
+		if(BinaryBooklist.hasBinaryEnding(file)) {
+			return BINARY;
+		} else if(CompressedBooklist.hasCompressedEnding(file)) {
+			return COMPRESSED;
+		}
+		return TEXT;
+	}
+}
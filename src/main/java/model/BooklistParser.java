@@ -0,0 +1,444 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * This class parses the content of a .booklist file.
+ * 
+ * The file is mapped into memory and the bytes are
+ * scanned directly for the delimiters '#' and '\n'.
+ * Only the five fields of a book are turned into
+ * Strings, everything else works on the raw bytes.
+ * 
+ * The tokens are read exactly like the Scanner with
+ * the delimiter <i>[#\n]</i> did it before, so the
+ * resulting books are the same.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class BooklistParser {
+	
+	/*
+	 * Tokens in the file for empty
+	 * strings:
+	 * 
+	 * "XXXXXX" for surName
+	 * "XXXXXX" for lastName
+	 * "00" for month
+	 * "0000" for year
+	 */
+	private static final byte[] EMPTY_NAME = {'X', 'X', 'X', 'X', 'X', 'X'};
+	private static final byte[] EMPTY_MONTH = {'0', '0'};
+	private static final byte[] EMPTY_YEAR = {'0', '0', '0', '0'};
+	
+	/**
+	 * The bytes which are parsed.
+	 */
+	private final ByteBuffer buffer;
+	
+	/**
+	 * The current position in the buffer
+	 * and the position where parsing stops.
+	 */
+	private int position;
+	private final int limit;
+	
+	/*
+	 * Start (inclusive) and end (exclusive)
+	 * of the token which was read last.
+	 */
+	private int tokenStart;
+	private int tokenEnd;
+	
+	/**
+	 * Reused to copy the bytes of a token
+	 * before they are decoded.
+	 */
+	private byte[] scratch = new byte[128];
+	
+	/**
+	 * The authors are taken from this dictionary,
+	 * <code>null</code> if every book gets its own.
+	 */
+	private AuthorDictionary authors;
+	
+	/**
+	 * Creates a parser for the whole buffer.
+	 * 
+	 * @param buffer the bytes of a .booklist file
+	 */
+	public BooklistParser(ByteBuffer buffer) {
+		this(buffer, 0, buffer.limit());
+	}
+	
+	/**
+	 * Creates a parser for a part of the buffer.
+	 * 
+	 * @param buffer the bytes of a .booklist file
+	 * @param from the first byte which is parsed
+	 * @param to the byte after the last byte which is parsed
+	 */
+	public BooklistParser(ByteBuffer buffer, int from, int to) {
+		this.buffer = buffer;
+		this.position = from;
+		this.limit = to;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Maps the file into memory and parses
+	 * all books of it.
+	 * 
+	 * @param file the .booklist file
+	 * @return Vector with all books of the file.
+	 * @throws IOException
+	 * if the file cannot be opened or read
+	 */
+	public static Vector<Book> parse(File file) throws IOException {
+		return parse(file, null);
+	}
+	
+	/**
+	 * Maps the file into memory and parses
+	 * all books of it.
+	 * 
+	 * @param file the .booklist file
+	 * @param authors the dictionary the authors are
+	 * taken from, may be <code>null</code>
+	 * @return Vector with all books of the file.
+	 * @throws IOException
+	 * if the file cannot be opened or read
+	 */
+	public static Vector<Book> parse(File file, AuthorDictionary authors) throws IOException {
+		
+		Vector<Book> books = new Vector<Book>();
+		
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel()) {
+			
+			MappedByteBuffer map = map(channel);
+			BooklistParser parser = new BooklistParser(map);
+			parser.setAuthors(authors);
+			parser.parseInto(books);
+		}
+		
+		return books;
+	}
+	
+	/**
+	 * Maps the whole content of a channel read only.
+	 * 
+	 * @param channel the channel of the .booklist file
+	 * @return the mapped content
+	 * @throws IOException
+	 * if the file is too big to be mapped at once
+	 */
+	static MappedByteBuffer map(FileChannel channel) throws IOException {
+		
+		long size = channel.size();
+		
+		if(size > Integer.MAX_VALUE) {
+			throw new IOException("The file is too big to be mapped (" + size + " bytes).");
+		}
+		
+		return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+	}
+	
+	/**
+	 * Parses the books of the buffer and
+	 * adds them to the list in the order
+	 * they appear.
+	 * 
+	 * @param books the list where the books are added
+	 */
+	public void parseInto(List<Book> books) {
+		
+		Book book;
+		while((book = nextBook()) != null) { 		//parse as long as there are tokens
+			books.add(book);
+		}
+	}
+	
+	/**
+	 * Parses the next book.
+	 * 
+	 * @return the next book or <code>null</code> if
+	 * there are no further (complete) books.
+	 */
+	public Book nextBook() {
+		
+		if(!nextToken()) {
+			return null;
+		}
+		String title = decode(null);
+		
+		if(!nextToken()) {
+			incompleteBook();
+			return null;
+		}
+		String surName = decode(EMPTY_NAME);
+		
+		if(!nextToken()) {
+			incompleteBook();
+			return null;
+		}
+		String lastName = decode(EMPTY_NAME);
+		
+		if(!nextToken()) {
+			incompleteBook();
+			return null;
+		}
+		int monthNumber = digits(2);
+		String month = monthNumber < 0 ? decode(EMPTY_MONTH) : null;
+		
+		if(!nextToken()) {
+			incompleteBook();
+			return null;
+		}
+		int yearNumber = digits(4);
+		String year = yearNumber < 0 ? decode(EMPTY_YEAR) : null;
+		
+		Author author = authors == null
+				? new Author(surName, lastName)
+				: authors.intern(surName, lastName);
+		
+		/*
+		 * Most dates are numbers and are packed without
+		 * creating Strings, the others are kept as they are.
+		 */
+		if(month == null && year == null) {
+			return new Book(title, author, yearNumber * 100 + monthNumber);
+		}
+		return new Book(title, author,
+				month != null ? month : Book.monthToString(monthNumber),
+				year != null ? year : Book.yearToString(yearNumber));
+	}
+	
+	/**
+	 * Counts the author and the date of the next
+	 * book, the title is skipped without creating
+	 * a String and no Book is created.
+	 * 
+	 * @param statistics the statistics the book is added to
+	 * @return <code>true</code> if a complete book
+	 * was counted, <code>false</code> otherwise.
+	 */
+	public boolean countBook(LibraryStatistics statistics) {
+		
+		if(!nextToken()) {
+			return false;
+		}
+		
+		if(!nextToken()) {
+			incompleteBook();
+			return false;
+		}
+		String surName = decode(EMPTY_NAME);
+		
+		if(!nextToken()) {
+			incompleteBook();
+			return false;
+		}
+		String lastName = decode(EMPTY_NAME);
+		
+		if(!nextToken()) {
+			incompleteBook();
+			return false;
+		}
+		int monthNumber = digits(2);
+		String month = monthNumber < 0 ? decode(EMPTY_MONTH) : null;
+		
+		if(!nextToken()) {
+			incompleteBook();
+			return false;
+		}
+		int yearNumber = digits(4);
+		String year = yearNumber < 0 ? decode(EMPTY_YEAR) : null;
+		
+		Author author = authors == null
+				? new Author(surName, lastName)
+				: authors.intern(surName, lastName);
+		
+		if(month == null && year == null) {
+			statistics.added(author, yearNumber * 100 + monthNumber);
+		} else {
+			statistics.added(author, Book.packDate(
+					month != null ? month : Book.monthToString(monthNumber),
+					year != null ? year : Book.yearToString(yearNumber)));
+		}
+		return true;
+	}
+	
+	/**
+	 * Skips the next book without
+	 * creating any Strings.
+	 * 
+	 * @return <code>true</code> if a complete book
+	 * was skipped, <code>false</code> otherwise.
+	 */
+	public boolean skipBook() {
+		
+		if(!nextToken()) {
+			return false;
+		}
+		for(int i = 0; i < 4; i++) {
+			if(!nextToken()) {
+				incompleteBook();
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns the position where the parser
+	 * continues. A parser which is created
+	 * at this position reads the same book
+	 * as this parser does next.
+	 * 
+	 * @return the current position in the buffer
+	 */
+	public int getPosition() {
+		return position;
+	}
+	
+	/**
+	 * @param authors the dictionary the authors of the
+	 * books are taken from, <code>null</code> if every
+	 * book shall get its own
+	 */
+	public void setAuthors(AuthorDictionary authors) {
+		this.authors = authors;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Reads the next token like the Scanner does:
+	 * one delimiter in front of the token is skipped,
+	 * then everything until the next delimiter is
+	 * the token. Two delimiters in a row result in
+	 * an empty token.
+	 * 
+	 * @return <code>true</code> if there was a token,
+	 * <code>false</code> if the end was reached.
+	 */
+	private boolean nextToken() {
+		
+		if(position < limit && isDelimiter(buffer.get(position))) {
+			position++;
+		}
+		if(position >= limit) {
+			return false;
+		}
+		
+		tokenStart = position;
+		while(position < limit && !isDelimiter(buffer.get(position))) {
+			position++;
+		}
+		tokenEnd = position;
+		
+		return true;
+	}
+	
+	private static boolean isDelimiter(byte b) {
+		return b == '#' || b == '\n';
+	}
+	
+	/**
+	 * Reads the token as number.
+	 * 
+	 * @param count the amount of digits the token must have
+	 * @return the number or -1 if the token is no
+	 * number with this amount of digits
+	 */
+	private int digits(int count) {
+		
+		if(tokenEnd - tokenStart != count) {
+			return -1;
+		}
+		int number = 0;
+		for(int i = tokenStart; i < tokenEnd; i++) {
+			byte b = buffer.get(i);
+			if(b < '0' || b > '9') {
+				return -1;
+			}
+			number = number * 10 + (b - '0');
+		}
+		return number;
+	}
+	
+	/**
+	 * Decodes the last token as UTF-8.
+	 * 
+	 * @param emptyToken the token which stands for
+	 * an empty String or <code>null</code> if there is none
+	 * @return the String of the token
+	 */
+	private String decode(byte[] emptyToken) {
+		
+		int length = tokenEnd - tokenStart;
+		
+		if(length == 0 || (emptyToken != null && tokenEquals(emptyToken))) {
+			return "";
+		}
+		
+		if(scratch.length < length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+		for(int i = 0; i < length; i++) {
+			scratch[i] = buffer.get(tokenStart + i);
+		}
+		
+		return new String(scratch, 0, length, StandardCharsets.UTF_8);
+	}
+	
+	private boolean tokenEquals(byte[] bytes) {
+		
+		if(tokenEnd - tokenStart != bytes.length) {
+			return false;
+		}
+		for(int i = 0; i < bytes.length; i++) {
+			if(buffer.get(tokenStart + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private static void incompleteBook() {
+		System.out.println("\n\nThere are no further lines or tokens\n"
+				+ ">> Maybe an amount of tokens, which isnt divided by 5\n"
+				+ "(Exceptionmessage: null).");
+	}
+
+}
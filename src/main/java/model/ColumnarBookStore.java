@@ -0,0 +1,554 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Vector;
+
+/**
+ * This BookStore keeps the books in columns
+ * of ints instead of Book objects.
+ * 
+ * Titles are stored as ids of a StringDictionary, authors
+ * as ids of the AuthorDictionary of the library and dates
+ * packed (see Book.getPackedDate()). A Book is created
+ * only when it is asked for; it shares its Strings with
+ * the dictionaries and is not connected to the store.
+ * 
+ * Sorting by title, author or date ranks the different
+ * values once and then sorts the rows by their ranks,
+ * without creating any Book.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class ColumnarBookStore implements BookStore {
+	
+	private final StringDictionary titles;
+	private final AuthorDictionary authors;
+	
+	/**
+	 * The month and year of irregular dates, as
+	 * <i>month + "\n" + year</i>. An irregular date
+	 * is stored as <i>-2 - id</i> in the date column.
+	 */
+	private final StringDictionary irregularDates;
+	
+	/*
+	 * The columns, the first size values are used.
+	 */
+	private int[] titleIds;
+	private int[] authorIds;
+	private int[] dates;
+	private int size;
+	
+	/**
+	 * True if a snapshot uses the columns too, they are
+	 * copied before a book in them is replaced or moved.
+	 */
+	private boolean shared;
+	
+	/**
+	 * True if this store is a snapshot.
+	 */
+	private final boolean readOnly;
+	
+	/*
+	 * The last ranks of the titles and authors, they
+	 * are used again while no new value was added.
+	 */
+	private Ranking titleRanking;
+	private Ranking authorRanking;
+	
+	/*
+	 * Whether a title or author matched a BookFilter.
+	 */
+	private static final byte MATCH = 1;
+	private static final byte NO_MATCH = 2;
+	
+	/**
+	 * Constructor for an empty store.
+	 * 
+	 * @param authors the dictionary the authors are taken from
+	 */
+	public ColumnarBookStore(AuthorDictionary authors) {
+		this.titles = new StringDictionary();
+		this.authors = authors;
+		this.irregularDates = new StringDictionary();
+		this.titleIds = new int[16];
+		this.authorIds = new int[16];
+		this.dates = new int[16];
+		this.readOnly = false;
+	}
+	
+	/**
+	 * Constructor for a snapshot of a store.
+	 */
+	private ColumnarBookStore(ColumnarBookStore store) {
+		this.titles = store.titles;
+		this.authors = store.authors;
+		this.irregularDates = store.irregularDates;
+		this.titleIds = store.titleIds;
+		this.authorIds = store.authorIds;
+		this.dates = store.dates;
+		this.size = store.size;
+		this.readOnly = true;
+	}
+	
+	/**
+	 * @param authors the dictionary the authors are taken from
+	 * @param books the books which are stored
+	 */
+	public ColumnarBookStore(AuthorDictionary authors, Vector<Book> books) {
+		this(authors);
+		ensureCapacity(books.size());
+		for(Book book : books) {
+			add(book);
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Book get(int index) {
+		checkIndex(index);
+		
+		String title = titles.get(titleIds[index]);
+		Author author = authors.get(authorIds[index]);
+		int date = dates[index];
+		
+		if(date >= 0) {
+			return new Book(title, author, date);
+		}
+		String irregular = irregularDates.get(-2 - date);
+		int separator = irregular.indexOf('\n');
+		return new Book(title, author, irregular.substring(0, separator), irregular.substring(separator + 1));
+	}
+
+	@Override
+	public void set(int index, Book book) {
+		checkIndex(index);
+		prepareChange();
+		
+		titleIds[index] = titles.intern(book.getTitle());
+		authorIds[index] = authors.intern(book.getAuthorEntry()).getId();
+		dates[index] = encodeDate(book);
+	}
+
+	@Override
+	public void add(Book book) {
+		checkWritable();
+		ensureCapacity(size + 1);
+		size++;
+		set(size - 1, book);
+	}
+
+	@Override
+	public void insert(int index, Book book) {
+		if(index == size) {
+			add(book);
+			return;
+		}
+		checkIndex(index);
+		prepareChange();
+		ensureCapacity(size + 1);
+		
+		int moved = size - index;
+		System.arraycopy(titleIds, index, titleIds, index + 1, moved);
+		System.arraycopy(authorIds, index, authorIds, index + 1, moved);
+		System.arraycopy(dates, index, dates, index + 1, moved);
+		size++;
+		set(index, book);
+	}
+
+	@Override
+	public void remove(int index) {
+		checkIndex(index);
+		prepareChange();
+		
+		int moved = size - index - 1;
+		System.arraycopy(titleIds, index + 1, titleIds, index, moved);
+		System.arraycopy(authorIds, index + 1, authorIds, index, moved);
+		System.arraycopy(dates, index + 1, dates, index, moved);
+		size--;
+	}
+
+	@Override
+	public void removeAll(BitSet positions) {
+		
+		prepareChange();
+		int kept = 0;
+		for(int i = 0; i < size; i++) {
+			if(!positions.get(i)) {
+				titleIds[kept] = titleIds[i];
+				authorIds[kept] = authorIds[i];
+				dates[kept] = dates[i];
+				kept++;
+			}
+		}
+		size = kept;
+	}
+	
+	private int encodeDate(Book book) {
+		int date = book.getPackedDate();
+		if(date != Book.DATE_IRREGULAR) {
+			return date;
+		}
+		return -2 - irregularDates.intern(book.getMonth() + "\n" + book.getYear());
+	}
+	
+	private void ensureCapacity(int capacity) {
+		if(capacity > titleIds.length) {
+			int length = Math.max(capacity, titleIds.length * 2);
+			titleIds = Arrays.copyOf(titleIds, length);
+			authorIds = Arrays.copyOf(authorIds, length);
+			dates = Arrays.copyOf(dates, length);
+			shared = false;
+		}
+	}
+	
+	/**
+	 * Is called before a book in the columns
+	 * is replaced or moved.
+	 */
+	private void prepareChange() {
+		checkWritable();
+		if(shared) {
+			titleIds = titleIds.clone();
+			authorIds = authorIds.clone();
+			dates = dates.clone();
+			shared = false;
+		}
+	}
+	
+	private void checkWritable() {
+		if(readOnly) {
+			throw new UnsupportedOperationException("A snapshot cannot be changed.");
+		}
+	}
+	
+	private void checkIndex(int index) {
+		if(index < 0 || index >= size) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+	}
+	
+	//#######################################################################
+
+	/**
+	 * Compares the columns. Every title and author
+	 * is compared once, no matter how many books
+	 * have it, and only matching books are created.
+	 */
+	@Override
+	public void select(BookFilter filter, BitSet rows) {
+		
+		/*
+		 * Whether a title or author matches,
+		 * 0 if it was not compared yet.
+		 */
+		byte[] titleMatches = filter.hasTitle() ? new byte[titles.size()] : null;
+		byte[] authorMatches = filter.hasAuthor() ? new byte[authors.size()] : null;
+		
+		for(int i = 0; i < size; i++) {
+			if(!filter.matchesDate(dates[i] >= 0 ? dates[i] : Book.DATE_IRREGULAR)) {
+				continue;
+			}
+			if(authorMatches != null) {
+				int id = authorIds[i];
+				if(authorMatches[id] == 0) {
+					Author author = authors.get(id);
+					authorMatches[id] = filter.matchesAuthor(author.getSurName(), author.getLastName()) ? MATCH : NO_MATCH;
+				}
+				if(authorMatches[id] == NO_MATCH) {
+					continue;
+				}
+			}
+			if(titleMatches != null) {
+				int id = titleIds[i];
+				if(titleMatches[id] == 0) {
+					titleMatches[id] = filter.matchesTitle(titles.get(id)) ? MATCH : NO_MATCH;
+				}
+				if(titleMatches[id] == NO_MATCH) {
+					continue;
+				}
+			}
+			rows.set(i);
+		}
+	}
+	
+	/**
+	 * Counts the columns, the authors are taken
+	 * from the dictionary and no Book is created.
+	 */
+	@Override
+	public void count(LibraryStatistics statistics) {
+		for(int i = 0; i < size; i++) {
+			statistics.added(authors.get(authorIds[i]), dates[i] >= 0 ? dates[i] : Book.DATE_IRREGULAR);
+		}
+	}
+	
+	/**
+	 * Sorts the books stable. The comparators of the library
+	 * only look at one column, so its values are ranked and
+	 * the rows sorted by rank. Other comparators are given
+	 * one Book for every row.
+	 */
+	@Override
+	public int[] sort(Comparator<Book> comparator, BookSort sorter) {
+		
+		checkWritable();
+		
+		int[] ranks;
+		int[] column;
+		
+		if(comparator instanceof BookSortTitle) {
+			int direction = ((BookSortTitle) comparator).getCount();
+			if(titleRanking == null || !titleRanking.isFor(direction, titles.size())) {
+				titleRanking = new Ranking(direction, titles.size(),
+						rank(titles.size(), comparator, sorter, id -> new Book(titles.get(id), Author.NONE, 0)));
+			}
+			column = titleIds;
+			ranks = titleRanking.ranks;
+		} else if(comparator instanceof BookSortAuthor) {
+			int direction = ((BookSortAuthor) comparator).getCount();
+			if(authorRanking == null || !authorRanking.isFor(direction, authors.size())) {
+				authorRanking = new Ranking(direction, authors.size(),
+						rank(authors.size(), comparator, sorter, id -> new Book("", authors.get(id), 0)));
+			}
+			column = authorIds;
+			ranks = authorRanking.ranks;
+		} else if(comparator instanceof BookSortDate) {
+			return sortByDate(comparator, sorter);
+		} else {
+			return sortByBooks(comparator, sorter);
+		}
+		
+		long[] keys = new long[size];
+		for(int i = 0; i < size; i++) {
+			keys[i] = ((long) ranks[column[i]] << 32) | i;
+		}
+		return permute(keys, sorter);
+	}
+	
+	/**
+	 * Without irregular dates the packed date is its own
+	 * rank, otherwise the dates are ranked through the
+	 * sorted list of the different dates.
+	 */
+	private int[] sortByDate(Comparator<Book> comparator, BookSort sorter) {
+		
+		if(irregularDates.size() == 0) {
+			int sign = ((BookSortDate) comparator).getCount() == 0 ? 1 : -1;
+			long[] keys = new long[size];
+			for(int i = 0; i < size; i++) {
+				keys[i] = ((long) (sign * dates[i]) << 32) | i;
+			}
+			return permute(keys, sorter);
+		}
+		
+		int[] distinct = Arrays.copyOf(dates, size);
+		Arrays.sort(distinct);
+		int count = 0;
+		for(int i = 0; i < distinct.length; i++) {
+			if(i == 0 || distinct[i] != distinct[i - 1]) {
+				distinct[count++] = distinct[i];
+			}
+		}
+		final int[] values = Arrays.copyOf(distinct, count);
+		
+		int[] ranks = rank(count, comparator, sorter, i -> {
+			int date = values[i];
+			if(date >= 0) {
+				return new Book("", Author.NONE, date);
+			}
+			String irregular = irregularDates.get(-2 - date);
+			int separator = irregular.indexOf('\n');
+			return new Book("", Author.NONE, irregular.substring(0, separator), irregular.substring(separator + 1));
+		});
+		
+		long[] keys = new long[size];
+		for(int i = 0; i < size; i++) {
+			keys[i] = ((long) ranks[Arrays.binarySearch(values, dates[i])] << 32) | i;
+		}
+		return permute(keys, sorter);
+	}
+	
+	/**
+	 * The ranks of the values of a dictionary for
+	 * one direction of a comparator.
+	 */
+	private static class Ranking {
+		
+		final int direction;
+		final int count;
+		final int[] ranks;
+		
+		Ranking(int direction, int count, int[] ranks) {
+			this.direction = direction;
+			this.count = count;
+			this.ranks = ranks;
+		}
+		
+		boolean isFor(int direction, int count) {
+			return this.direction == direction && this.count == count;
+		}
+	}
+	
+	private interface Probe {
+		Book create(int value);
+	}
+	
+	/**
+	 * @param count the amount of different values
+	 * @param comparator compares the books of the values
+	 * @param probe creates a book with a value
+	 * @return the rank of every value, equal values
+	 * have the same rank
+	 */
+	private static int[] rank(int count, Comparator<Book> comparator, BookSort sorter, Probe probe) {
+		
+		Book[] books = new Book[count];
+		Integer[] order = new Integer[count];
+		for(int i = 0; i < count; i++) {
+			books[i] = probe.create(i);
+			order[i] = i;
+		}
+		sorter.sort(order, (a, b) -> comparator.compare(books[a], books[b]));
+		
+		int[] ranks = new int[count];
+		int rank = 0;
+		for(int i = 0; i < count; i++) {
+			if(i > 0 && comparator.compare(books[order[i - 1]], books[order[i]]) != 0) {
+				rank++;
+			}
+			ranks[order[i]] = rank;
+		}
+		return ranks;
+	}
+	
+	private int[] sortByBooks(Comparator<Book> comparator, BookSort sorter) {
+		
+		Book[] books = new Book[size];
+		for(int i = 0; i < size; i++) {
+			books[i] = get(i);
+		}
+		int[] order = sorter.sortBooks(books, comparator);
+		
+		long[] keys = new long[size];
+		for(int i = 0; i < size; i++) {
+			keys[i] = ((long) i << 32) | order[i];
+		}
+		return permute(keys, sorter);
+	}
+	
+	/**
+	 * Sorts the keys and puts the rows into their order.
+	 * The lower 32 bits of a key are the row, so rows
+	 * with the same rank keep their order.
+	 * 
+	 * @return the old position of every row in the new order
+	 */
+	private int[] permute(long[] keys, BookSort sorter) {
+		
+		sorter.sort(keys);
+		
+		int[] newTitles = new int[titleIds.length];
+		int[] newAuthors = new int[authorIds.length];
+		int[] newDates = new int[dates.length];
+		int[] order = new int[size];
+		for(int i = 0; i < size; i++) {
+			int row = (int) keys[i];
+			order[i] = row;
+			newTitles[i] = titleIds[row];
+			newAuthors[i] = authorIds[row];
+			newDates[i] = dates[row];
+		}
+		titleIds = newTitles;
+		authorIds = newAuthors;
+		dates = newDates;
+		shared = false;
+		return order;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @param index the position of the book
+	 * @return the id of the title in the title dictionary
+	 */
+	int getTitleId(int index) {
+		return titleIds[index];
+	}
+	
+	/**
+	 * @param index the position of the book
+	 * @return the id of the author in the AuthorDictionary
+	 */
+	int getAuthorId(int index) {
+		return authorIds[index];
+	}
+	
+	/**
+	 * @param index the position of the book
+	 * @return the packed date, negative for irregular dates
+	 */
+	int getPackedDate(int index) {
+		return dates[index];
+	}
+
+	@Override
+	public Vector<Book> getBooks() {
+		Vector<Book> books = new Vector<Book>(size);
+		for(int i = 0; i < size; i++) {
+			books.add(get(i));
+		}
+		return books;
+	}
+
+	/**
+	 * Shares the columns and the dictionaries with the
+	 * snapshot. The dictionaries only grow, so the ids
+	 * of the snapshot stay valid.
+	 */
+	@Override
+	public BookStore snapshot() {
+		if(readOnly) {
+			return this;
+		}
+		shared = true;
+		return new ColumnarBookStore(this);
+	}
+
+	@Override
+	public boolean readsFromFile() {
+		return false;
+	}
+
+	@Override
+	public void close() {
+		//nothing to release
+	}
+}
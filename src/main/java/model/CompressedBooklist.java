@@ -0,0 +1,344 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Vector;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * This class reads and writes the compressed
+ * version of a booklist (.booklistz).
+ * 
+ * The lines of a .booklist file are split into blocks of
+ * about BLOCK_SIZE bytes, and every block is compressed on
+ * its own with the Deflater of the JDK. A block always ends
+ * behind a book, so it can be parsed as soon as it is
+ * inflated and only one block is kept in memory at a time.
+ * 
+ * Layout of the file (big endian):
+ * <pre>
+ * "BKLZ"          4 bytes, marks a compressed booklist
+ * version         int
+ * blocks          length of the lines + length of the
+ *                 compressed bytes (int each) + compressed bytes
+ * end             int 0
+ * </pre>
+ * Every block but the first starts with the line break
+ * behind the last book of the block before.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class CompressedBooklist {
+	
+	/**
+	 * Ending which is used for compressed Booklist files.
+	 */
+	public static final String FILE_ENDING = ".booklistz";
+	
+	private static final byte[] MAGIC = {'B', 'K', 'L', 'Z'};
+	
+	/**
+	 * The version of the layout, it is increased
+	 * whenever the layout changes.
+	 */
+	static final int VERSION = 1;
+	
+	/**
+	 * A block is compressed when its lines reach this size.
+	 */
+	static final int BLOCK_SIZE = 1 << 18;
+	
+	public CompressedBooklist() {
+		//do nothing, just defined for accidental instance creation.
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Checks if a file is a compressed booklist
+	 * by looking at its first bytes.
+	 * 
+	 * @param file the file
+	 * @return <code>true</code> if the file is a compressed booklist
+	 * @throws IOException if the file cannot be read
+	 */
+	public static boolean isCompressed(File file) throws IOException {
+		
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			
+			if(raf.length() < MAGIC.length + 4) {
+				return false;
+			}
+			for(int i = 0; i < MAGIC.length; i++) {
+				if(raf.readByte() != MAGIC[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+	
+	/**
+	 * @param file the file
+	 * @return <code>true</code> if the name of the file
+	 * ends with the ending of compressed booklists.
+	 */
+	public static boolean hasCompressedEnding(File file) {
+		return file.getName().endsWith(FILE_ENDING);
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Reads all books of a compressed booklist.
+	 * 
+	 * @param file the file
+	 * @return the books
+	 * @throws IOException if the file cannot be read or is damaged
+	 */
+	public static Vector<Book> read(File file) throws IOException {
+		return read(file, null);
+	}
+	
+	/**
+	 * Reads all books of a compressed booklist.
+	 * 
+	 * @param file the file
+	 * @param authors the dictionary the authors are
+	 * taken from, may be <code>null</code>
+	 * @return the books
+	 * @throws IOException if the file cannot be read or is damaged
+	 */
+	public static Vector<Book> read(File file, AuthorDictionary authors) throws IOException {
+		
+		Vector<Book> books = new Vector<Book>();
+		
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			
+			byte[] magic = new byte[MAGIC.length];
+			in.readFully(magic);
+			if(!Arrays.equals(magic, MAGIC) || in.readInt() != VERSION) {
+				throw new IOException(file.getName() + " is no compressed booklist of version " + VERSION + ".");
+			}
+			
+			Inflater inflater = new Inflater();
+			byte[] compressed = new byte[0];
+			byte[] lines = new byte[0];
+			
+			try {
+				int length;
+				while((length = in.readInt()) != 0) {
+					int compressedLength = in.readInt();
+					if(length < 0 || compressedLength < 0) {
+						throw new IOException(file.getName() + " is damaged.");
+					}
+					if(compressed.length < compressedLength) {
+						compressed = new byte[compressedLength];
+					}
+					if(lines.length < length) {
+						lines = new byte[length];
+					}
+					in.readFully(compressed, 0, compressedLength);
+					
+					inflater.reset();
+					inflater.setInput(compressed, 0, compressedLength);
+					if(inflate(inflater, lines, length) != length) {
+						throw new IOException(file.getName() + " is damaged.");
+					}
+					
+					BooklistParser parser = new BooklistParser(ByteBuffer.wrap(lines), 0, length);
+					parser.setAuthors(authors);
+					parser.parseInto(books);
+				}
+			} catch (EOFException e) {
+				throw new IOException(file.getName() + " ends too early.", e);
+			} finally {
+				inflater.end();
+			}
+		}
+		
+		return books;
+	}
+	
+	private static int inflate(Inflater inflater, byte[] lines, int length) throws IOException {
+		
+		int inflated = 0;
+		try {
+			while(inflated < length && !inflater.finished()) {
+				int n = inflater.inflate(lines, inflated, length - inflated);
+				if(n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				inflated += n;
+			}
+		} catch (DataFormatException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		return inflated;
+	}
+	
+	/**
+	 * Writes all books of the store.
+	 * 
+	 * @param file the file which is written
+	 * @param books the books
+	 * @param listener is informed about the written books,
+	 * may be <code>null</code>
+	 * @param checksum is updated with the written bytes,
+	 * may be <code>null</code>
+	 * @throws IOException if the file cannot be written
+	 */
+	static void write(File file, BookStore books, ProgressListener listener,
+			Checksum checksum) throws IOException {
+		
+		OutputStream stream = new FileOutputStream(file);
+		if(checksum != null) {
+			stream = new CheckedOutputStream(stream, checksum);
+		}
+		
+		try (BlockOutputStream out = new BlockOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+			Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+			
+			for(int i = 0; i < books.size(); i++) {
+				if(listener != null && i % Library.PROGRESS_STEP == 0) {
+					listener.progress(i, books.size());
+				}
+				
+				if(i > 0) {
+					writer.write('\n');
+				}
+				Library.writeRecord(writer, books.get(i));
+				writer.flush();
+				out.endOfBook();
+			}
+		}
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Collects the lines of the books and writes
+	 * them as compressed block as soon as a block
+	 * is full and a book ends.
+	 */
+	private static class BlockOutputStream extends OutputStream {
+		
+		private final DataOutputStream out;
+		private final Deflater deflater;
+		
+		private byte[] lines;
+		private int length;
+		private byte[] compressed;
+		
+		BlockOutputStream(OutputStream out) throws IOException {
+			this.out = new DataOutputStream(out);
+			this.deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+			this.lines = new byte[BLOCK_SIZE + (BLOCK_SIZE >> 2)];
+			this.compressed = new byte[BLOCK_SIZE];
+			
+			this.out.write(MAGIC);
+			this.out.writeInt(VERSION);
+		}
+		
+		@Override
+		public void write(int b) {
+			ensureCapacity(1);
+			lines[length++] = (byte) b;
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) {
+			ensureCapacity(len);
+			System.arraycopy(b, off, lines, length, len);
+			length += len;
+		}
+		
+		private void ensureCapacity(int more) {
+			if(length + more > lines.length) {
+				lines = Arrays.copyOf(lines, Math.max(lines.length * 2, length + more)); 	//a very long book
+			}
+		}
+		
+		/**
+		 * A book was written completely.
+		 */
+		void endOfBook() throws IOException {
+			if(length >= BLOCK_SIZE) {
+				writeBlock();
+			}
+		}
+		
+		private void writeBlock() throws IOException {
+			
+			deflater.reset();
+			deflater.setInput(lines, 0, length);
+			deflater.finish();
+			
+			int compressedLength = 0;
+			while(!deflater.finished()) {
+				if(compressedLength == compressed.length) {
+					compressed = Arrays.copyOf(compressed, compressed.length * 2);
+				}
+				compressedLength += deflater.deflate(compressed, compressedLength,
+						compressed.length - compressedLength);
+			}
+			
+			out.writeInt(length);
+			out.writeInt(compressedLength);
+			out.write(compressed, 0, compressedLength);
+			length = 0;
+		}
+		
+		@Override
+		public void close() throws IOException {
+			try {
+				if(length > 0) {
+					writeBlock();
+				}
+				out.writeInt(0);
+			} finally {
+				deflater.end();
+				out.close();
+			}
+		}
+	}
+}
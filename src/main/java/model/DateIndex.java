@@ -0,0 +1,294 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The ids of the books sorted by their packed date
+ * (<i>year * 100 + month</i>), so the books of a range of
+ * months are found by two binary searches: they are the
+ * ids between the first and the last month.
+ * 
+ * The dates are sorted like this:
+ * <ul>
+ * <li>irregular dates (Book.DATE_IRREGULAR) first,</li>
+ * <li>then the books without a year, packed below 100
+ * ("00#0000" as 0, only a month as the month),</li>
+ * <li>then the years, a book with only a year ("00")
+ * before January of its year.</li>
+ * </ul>
+ * Books with the same date are sorted by their id.
+ * 
+ * Date and id are kept together in one long, the date
+ * in the upper bits. The sorted entries are cut into blocks
+ * of at most BLOCK entries, so a change only moves the
+ * entries of one block; a full block is split in two.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+final class DateIndex {
+	
+	/**
+	 * The bits of an entry which hold the id,
+	 * the date is kept above them.
+	 */
+	private static final int ID_BITS = 40;
+	private static final long ID_MASK = (1L << ID_BITS) - 1;
+	
+	/**
+	 * The most entries of a block.
+	 */
+	private static final int BLOCK = 2048;
+	
+	/*
+	 * The blocks in their order, the first sizes[b] entries
+	 * of blocks[b] are used. No block is empty.
+	 */
+	private long[][] blocks = new long[16][];
+	private int[] sizes = new int[16];
+	private int blockCount;
+	
+	private int size;
+	
+	/**
+	 * Creates the index of the books.
+	 * 
+	 * @param books the books
+	 * @param ids the ids of the books
+	 */
+	DateIndex(BookStore books, BookIds ids) {
+		
+		long[] entries = new long[books.size()];
+		for(int i = 0; i < entries.length; i++) {
+			entries[i] = entry(books.get(i).getPackedDate(), ids.get(i));
+		}
+		Arrays.sort(entries);
+		
+		//the blocks are filled to 3/4, so there is room for new books
+		int fill = BLOCK * 3 / 4;
+		for(int from = 0; from < entries.length; from += fill) {
+			int length = Math.min(fill, entries.length - from);
+			long[] block = new long[BLOCK];
+			System.arraycopy(entries, from, block, 0, length);
+			insertBlock(blockCount, block, length);
+		}
+		size = entries.length;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return the amount of books
+	 */
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * Puts a book into the index.
+	 * 
+	 * @param book the book
+	 * @param id its id
+	 */
+	void add(Book book, long id) {
+		
+		long entry = entry(book.getPackedDate(), id);
+		if(blockCount == 0) {
+			insertBlock(0, new long[BLOCK], 0);
+		}
+		int b = blockOf(entry);
+		int at = -1 - Arrays.binarySearch(blocks[b], 0, sizes[b], entry);
+		
+		if(sizes[b] == BLOCK) {
+			long[] upper = new long[BLOCK];
+			System.arraycopy(blocks[b], BLOCK / 2, upper, 0, BLOCK / 2);
+			sizes[b] = BLOCK / 2;
+			insertBlock(b + 1, upper, BLOCK / 2);
+			if(at > BLOCK / 2) {
+				b++;
+				at -= BLOCK / 2;
+			}
+		}
+		long[] block = blocks[b];
+		System.arraycopy(block, at, block, at + 1, sizes[b] - at);
+		block[at] = entry;
+		sizes[b]++;
+		size++;
+	}
+	
+	/**
+	 * Takes a book out of the index.
+	 * 
+	 * @param book the book, as it was put into the index
+	 * @param id its id
+	 * @return false if the book was not in the index,
+	 * e.g. because its date was changed in place
+	 */
+	boolean remove(Book book, long id) {
+		
+		if(blockCount == 0) {
+			return false;
+		}
+		int b = blockOf(entry(book.getPackedDate(), id));
+		int at = Arrays.binarySearch(blocks[b], 0, sizes[b], entry(book.getPackedDate(), id));
+		if(at < 0) {
+			return false;
+		}
+		System.arraycopy(blocks[b], at + 1, blocks[b], at, sizes[b] - at - 1);
+		sizes[b]--;
+		size--;
+		if(sizes[b] == 0) {
+			removeBlock(b);
+		}
+		return true;
+	}
+	
+	/**
+	 * Takes many books out of the index in one pass.
+	 * 
+	 * @param removed the ids of the books, sorted
+	 */
+	void removeAll(long[] removed) {
+		
+		int keptBlocks = 0;
+		for(int b = 0; b < blockCount; b++) {
+			long[] block = blocks[b];
+			int kept = 0;
+			for(int i = 0; i < sizes[b]; i++) {
+				if(Arrays.binarySearch(removed, block[i] & ID_MASK) < 0) {
+					block[kept++] = block[i];
+				}
+			}
+			size -= sizes[b] - kept;
+			if(kept > 0) {
+				blocks[keptBlocks] = block;
+				sizes[keptBlocks] = kept;
+				keptBlocks++;
+			}
+		}
+		Arrays.fill(blocks, keptBlocks, blockCount, null);
+		blockCount = keptBlocks;
+	}
+	
+	/**
+	 * @param fromDate the first packed date
+	 * @param toDate the last packed date
+	 * @return the ids of the books from the first to the last
+	 * date, both included, sorted by date and then by id
+	 */
+	long[] between(int fromDate, int toDate) {
+		
+		if(fromDate > toDate || blockCount == 0) {
+			return new long[0];
+		}
+		long first = entry(fromDate, 0);
+		long end = entry(toDate + 1, 0);
+		
+		//the block and position of the first entry which is not before
+		int b = blockOf(first);
+		int i = firstNotBefore(b, first);
+		int endBlock = blockOf(end);
+		int endAt = firstNotBefore(endBlock, end);
+		
+		int count = -i;
+		for(int k = b; k < endBlock; k++) {
+			count += sizes[k];
+		}
+		count += endAt;
+		
+		long[] ids = new long[Math.max(0, count)];
+		for(int n = 0; n < ids.length; n++) {
+			if(i == sizes[b]) {
+				b++;
+				i = 0;
+			}
+			ids[n] = blocks[b][i++] & ID_MASK;
+		}
+		return ids;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return the entry of the date and the id;
+	 * DATE_IRREGULAR becomes the smallest date
+	 */
+	private static long entry(int date, long id) {
+		return ((long) (date - Book.DATE_IRREGULAR) << ID_BITS) | id;
+	}
+	
+	/**
+	 * @return the last block whose first entry is
+	 * not after the entry, the first block if none
+	 */
+	private int blockOf(long entry) {
+		int from = 1;
+		int to = blockCount;
+		while(from < to) {
+			int middle = (from + to) >>> 1;
+			if(blocks[middle][0] <= entry) {
+				from = middle + 1;
+			} else {
+				to = middle;
+			}
+		}
+		return from - 1;
+	}
+	
+	/**
+	 * @return the first position in the block whose
+	 * entry is not smaller than the entry, or the
+	 * size of the block
+	 */
+	private int firstNotBefore(int b, long entry) {
+		long[] block = blocks[b];
+		int from = 0;
+		int to = sizes[b];
+		while(from < to) {
+			int middle = (from + to) >>> 1;
+			if(block[middle] < entry) {
+				from = middle + 1;
+			} else {
+				to = middle;
+			}
+		}
+		return from;
+	}
+	
+	private void insertBlock(int b, long[] block, int blockSize) {
+		if(blockCount == blocks.length) {
+			blocks = Arrays.copyOf(blocks, blockCount * 2);
+			sizes = Arrays.copyOf(sizes, blockCount * 2);
+		}
+		System.arraycopy(blocks, b, blocks, b + 1, blockCount - b);
+		System.arraycopy(sizes, b, sizes, b + 1, blockCount - b);
+		blocks[b] = block;
+		sizes[b] = blockSize;
+		blockCount++;
+	}
+	
+	private void removeBlock(int b) {
+		System.arraycopy(blocks, b + 1, blocks, b, blockCount - b - 1);
+		System.arraycopy(sizes, b + 1, sizes, b, blockCount - b - 1);
+		blockCount--;
+		blocks[blockCount] = null;
+	}
+}
@@ -0,0 +1,424 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A DeltaSave writes only the books of a .booklist
+ * file which were changed.
+ * 
+ * An edited book whose new line has the same length as
+ * the old one is written over it. All other changes move
+ * the books behind them, so the file is written again
+ * from the first of them on and cut off behind the last
+ * book.
+ * 
+ * The file is changed in place, so every change is first
+ * written into a patch file next to it (<i>name.booklist.patch</i>),
+ * with the position of its bytes and a checksum at the end.
+ * Only when the patch file is complete and forced to the disk
+ * the changes are written into the booklist. If the program
+ * stops in between, the Library applies the patch again when
+ * it opens the file, a patch file without a valid checksum
+ * is thrown away and the file was not touched yet.
+ * 
+ * <i> Without LibraryOptions.isSyncOnSave() nothing is forced
+ * to the disk, the order of the writes is not kept then and
+ * a crash of the system can still damage the file. </i>
+ * 
+ * Created by Library.prepareSave().
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+class DeltaSave {
+	
+	/**
+	 * The ending of the patch file, after the name of the booklist.
+	 */
+	static final String FILE_ENDING = ".patch";
+	
+	/**
+	 * The first int of a patch file.
+	 */
+	private static final int MAGIC = 0x42504154; 	//"BPAT"
+	
+	/**
+	 * The most bytes of the moved books in one entry of the patch.
+	 */
+	private static final int CHUNK_SIZE = 1 << 16;
+	
+	/**
+	 * Where the books stand in the file before the save.
+	 */
+	private final RecordLayout layout;
+	
+	/**
+	 * The books which are written over the old ones
+	 * and their new lines.
+	 */
+	private final List<Integer> patched;
+	private final List<byte[]> patches;
+	
+	/**
+	 * The position from which all books are written again.
+	 */
+	private final int tailStart;
+	
+	/**
+	 * The books, those from <i>tailStart</i> on are written.
+	 */
+	private final BookStore books;
+	
+	/**
+	 * Where the books end after the save, known once the
+	 * patch is written.
+	 */
+	private long[] ends;
+	
+	/**
+	 * Where the books stand in the file after the save,
+	 * made after the patch was applied, so it has the
+	 * length and date of the changed file.
+	 */
+	private RecordLayout result;
+	
+	/**
+	 * The amount of bytes the save has written.
+	 */
+	private long bytesWritten;
+	
+	/**
+	 * Finds out what has to be written.
+	 * 
+	 * @param layout where the books stand in the file
+	 * @param books the books of the library, a snapshot
+	 * if the save runs on another thread
+	 * @param dirty the books which were changed
+	 */
+	DeltaSave(RecordLayout layout, BookStore books, DirtyBooks dirty) {
+		
+		this.layout = layout;
+		this.patched = new ArrayList<Integer>();
+		this.patches = new ArrayList<byte[]>();
+		
+		int start = Math.min(dirty.getFirstMoved(), layout.size());
+		
+		for(int i = dirty.nextEdited(0); i >= 0 && i < start; i = dirty.nextEdited(i + 1)) {
+			byte[] line = encode(books.get(i));
+			
+			if(line.length != layout.end(i) - layout.start(i)) {
+				start = i; 	//does not fit, write everything from here on
+				break;
+			}
+			patched.add(i);
+			patches.add(line);
+		}
+		
+		this.tailStart = start;
+		this.books = books;
+	}
+	
+	/**
+	 * @param book the book
+	 * @return the line of the book in a .booklist file
+	 */
+	private static byte[] encode(Book book) {
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+		try {
+			Writer writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+			Library.writeRecord(writer, book);
+			writer.flush();
+		} catch (IOException e) {
+			throw new IllegalStateException(e); 	//not thrown in memory
+		}
+		return bytes.toByteArray();
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Writes the changes into the patch file
+	 * and then into the booklist.
+	 * 
+	 * @param file the .booklist file
+	 * @param sync true to force the patch and the changes to the disk
+	 * @param listener is informed about the written books,
+	 * may be <code>null</code>
+	 * @throws IOException if the file was changed by someone
+	 * else or cannot be written
+	 */
+	void write(File file, boolean sync, ProgressListener listener) throws IOException {
+		writePatch(file, sync, listener);
+		apply(patchFile(file), file, sync);
+		result = new RecordLayout(ends, books.size(), file);
+	}
+	
+	/**
+	 * Writes the changes into the patch file only,
+	 * the booklist is not changed yet.
+	 * 
+	 * @param file the .booklist file
+	 * @param sync true to force the patch to the disk
+	 * @param listener is informed about the written books,
+	 * may be <code>null</code>
+	 * @throws IOException if the file was changed by someone
+	 * else or the patch cannot be written
+	 */
+	void writePatch(File file, boolean sync, ProgressListener listener) throws IOException {
+		
+		if(!layout.describes(file)) {
+			throw new IOException("The file " + file.getName() + " was changed by another program.");
+		}
+		
+		File patch = patchFile(file);
+		long[] ends = layout.copyEnds(tailStart, books.size());
+		long written = 0;
+		long length;
+		
+		try (FileOutputStream stream = new FileOutputStream(patch)) {
+			
+			CRC32 checksum = new CRC32();
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new CheckedOutputStream(stream, checksum), 1 << 16));
+			out.writeInt(MAGIC);
+			
+			for(int i = 0; i < patched.size(); i++) {
+				writeEntry(out, layout.start(patched.get(i)), patches.get(i), patches.get(i).length);
+				written += patches.get(i).length;
+			}
+			
+			/*
+			 * Everything behind the first moved book,
+			 * in entries of up to CHUNK_SIZE bytes.
+			 */
+			long tailPosition = tailStart == 0 ? 0 : layout.end(tailStart - 1);
+			long position = tailPosition;
+			long chunkStart = position;
+			ByteArrayOutputStream chunk = new ByteArrayOutputStream(CHUNK_SIZE + 256);
+			
+			for(int i = tailStart; i < books.size(); i++) {
+				if(listener != null && (i - tailStart) % Library.PROGRESS_STEP == 0) {
+					listener.progress(i - tailStart, books.size() - tailStart);
+				}
+				
+				if(i > 0) {
+					chunk.write('\n');
+					position++;
+				}
+				byte[] line = encode(books.get(i));
+				chunk.write(line);
+				position += line.length;
+				ends[i] = position;
+				
+				if(chunk.size() >= CHUNK_SIZE) {
+					writeEntry(out, chunkStart, chunk.toByteArray(), chunk.size());
+					chunkStart = position;
+					chunk.reset();
+				}
+			}
+			if(chunk.size() > 0) {
+				writeEntry(out, chunkStart, chunk.toByteArray(), chunk.size());
+			}
+			written += position - tailPosition;
+			length = position;
+			
+			out.writeLong(-1);
+			out.writeLong(length);
+			out.flush();
+			out.writeLong(checksum.getValue());
+			out.flush();
+			if(sync) {
+				stream.getFD().sync();
+			}
+		} catch (IOException | RuntimeException e) {
+			patch.delete(); 	//the booklist is not touched yet
+			throw e;
+		}
+		
+		bytesWritten = written;
+		this.ends = ends;
+	}
+	
+	private static void writeEntry(DataOutputStream out, long position, byte[] bytes, int length) throws IOException {
+		out.writeLong(position);
+		out.writeInt(length);
+		out.write(bytes, 0, length);
+	}
+	
+	/**
+	 * Writes the entries of a complete patch file into the
+	 * booklist and deletes the patch file afterwards. If
+	 * this fails, the patch file is kept and applied when
+	 * the file is opened the next time.
+	 */
+	private static void apply(File patch, File file, boolean sync) throws IOException {
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(patch), 1 << 16));
+				FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+			
+			if(in.readInt() != MAGIC) {
+				throw new IOException("The file " + patch.getName() + " is no patch.");
+			}
+			
+			long position;
+			while((position = in.readLong()) >= 0) {
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				write(channel, ByteBuffer.wrap(bytes), position);
+			}
+			channel.truncate(in.readLong());
+			if(sync) {
+				channel.force(true);
+			}
+		}
+		patch.delete();
+	}
+	
+	private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+	
+	/**
+	 * Finishes a delta save which was stopped by a crash:
+	 * a complete patch file is written into the booklist,
+	 * one which was not completely written is deleted.
+	 * Is called before the file is read.
+	 * 
+	 * @param file a .booklist file
+	 * @return <code>true</code> if a patch was applied
+	 * @throws IOException if the patch cannot be applied
+	 */
+	static boolean recover(File file) throws IOException {
+		
+		File patch = patchFile(file);
+		if(!patch.exists()) {
+			return false;
+		}
+		if(!isComplete(patch)) {
+			patch.delete();
+			return false;
+		}
+		apply(patch, file, true);
+		return true;
+	}
+	
+	/**
+	 * Deletes the patch file of a booklist which was written
+	 * completely, so it is not applied to the new file.
+	 * 
+	 * @param file a .booklist file
+	 */
+	static void discard(File file) {
+		patchFile(file).delete();
+	}
+	
+	/**
+	 * @param file a booklist file
+	 * @return the patch file which belongs to it
+	 */
+	static File patchFile(File file) {
+		return new File(file.getAbsoluteFile().getPath() + FILE_ENDING);
+	}
+	
+	/**
+	 * Compares the checksum at the end of the patch file
+	 * with the checksum of everything before it.
+	 */
+	private static boolean isComplete(File patch) throws IOException {
+		
+		long length = patch.length();
+		if(length < 4 + 8 + 8 + 8) {
+			return false;
+		}
+		CRC32 checksum = new CRC32();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(patch), 1 << 16))) {
+			
+			CheckedInputStream checked = new CheckedInputStream(in, checksum);
+			byte[] buffer = new byte[1 << 16];
+			long left = length - 8;
+			while(left > 0) {
+				int read = checked.read(buffer, 0, (int) Math.min(buffer.length, left));
+				if(read < 0) {
+					return false;
+				}
+				left -= read;
+			}
+			return in.readLong() == checksum.getValue();
+			
+		} catch (EOFException e) {
+			return false;
+		}
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return the amount of books which are written
+	 */
+	int getBookCount() {
+		return patched.size() + books.size() - tailStart;
+	}
+	
+	/**
+	 * @return the amount of bytes the save has written
+	 */
+	long getBytesWritten() {
+		return bytesWritten;
+	}
+	
+	/**
+	 * @return where the books stood in the file before the save
+	 */
+	RecordLayout getLayout() {
+		return layout;
+	}
+	
+	/**
+	 * @return where the books stand in the file after the save
+	 */
+	RecordLayout getResult() {
+		return result;
+	}
+}
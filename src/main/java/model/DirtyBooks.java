@@ -0,0 +1,114 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.util.BitSet;
+
+/**
+ * DirtyBooks remembers which books of a library were
+ * changed since the file was written the last time.
+ * 
+ * Books which were edited are marked one by one. Adding,
+ * deleting and sorting move books, so every book from the
+ * first moved one on must be written again.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+class DirtyBooks {
+	
+	/**
+	 * The books which were edited.
+	 */
+	private BitSet edited;
+	
+	/**
+	 * From this position on the books may not
+	 * stand at their place in the file anymore.
+	 */
+	private int firstMoved;
+	
+	/**
+	 * @param count the amount of books in the file
+	 */
+	DirtyBooks(int count) {
+		cleared(count);
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @param index the book which was edited
+	 */
+	void edited(int index) {
+		if(index < firstMoved) {
+			edited.set(index);
+		}
+	}
+	
+	/**
+	 * @param index the first book which was added,
+	 * deleted or moved
+	 */
+	void moved(int index) {
+		firstMoved = Math.min(firstMoved, index);
+	}
+	
+	/**
+	 * Books were appended to the file and
+	 * at the end of the library.
+	 * 
+	 * @param oldCount the amount of books before
+	 * @param newCount the amount of books now
+	 */
+	void appended(int oldCount, int newCount) {
+		if(firstMoved == oldCount) {
+			firstMoved = newCount;
+		}
+	}
+	
+	/**
+	 * All books are written now.
+	 * 
+	 * @param count the amount of books in the file
+	 */
+	void cleared(int count) {
+		edited = new BitSet();
+		firstMoved = count;
+	}
+	
+	/**
+	 * @return the first book which may not stand
+	 * at its place in the file anymore
+	 */
+	int getFirstMoved() {
+		return firstMoved;
+	}
+	
+	/**
+	 * @param from the position to start at
+	 * @return the next edited book in front of the first
+	 * moved one, or -1 if there is none
+	 */
+	int nextEdited(int from) {
+		int index = edited.nextSetBit(from);
+		return index < firstMoved ? index : -1;
+	}
+}
@@ -0,0 +1,110 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * A FileWatcher tells when a file was changed
+ * on the disk, e.g. by another program.
+ * 
+ * It watches the directory of the file with a
+ * WatchService on its own thread and runs the given
+ * action on this thread, whenever the file is written,
+ * created or replaced.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class FileWatcher implements Closeable {
+	
+	private final WatchService service;
+	
+	/**
+	 * The name of the file in its directory.
+	 */
+	private final Path name;
+	
+	private final Runnable onChange;
+	
+	/**
+	 * Starts to watch the file.
+	 * 
+	 * @param file the file
+	 * @param onChange is run on the thread of the
+	 * watcher after the file was changed
+	 * @throws IOException if the directory cannot be watched
+	 */
+	public FileWatcher(File file, Runnable onChange) throws IOException {
+		
+		Path path = file.getAbsoluteFile().toPath();
+		this.name = path.getFileName();
+		this.onChange = onChange;
+		this.service = FileSystems.getDefault().newWatchService();
+		
+		path.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+				StandardWatchEventKinds.ENTRY_MODIFY);
+		
+		Thread thread = new Thread(this::watch, "Booklist watcher " + name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+	
+	private void watch() {
+		
+		try {
+			while(true) {
+				WatchKey key = service.take();
+				boolean changed = false;
+				
+				for(WatchEvent<?> event : key.pollEvents()) {
+					if(event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context())) {
+						changed = true;
+					}
+				}
+				if(changed) {
+					onChange.run();
+				}
+				if(!key.reset()) {
+					return; 	//the directory is gone
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			//the watcher was closed
+		}
+	}
+	
+	/**
+	 * Stops watching the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		service.close();
+	}
+}
@@ -21,14 +21,30 @@ package model;
 
 import java.io.BufferedWriter;
 import java.io.File;					//to open a file
-import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.NoSuchElementException;
-import java.util.Scanner; 				//to get a parser
+import java.util.Comparator;
+import java.util.List;
 import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.Checksum;
 
 /**
  * This class represents a library in which
@@ -45,7 +61,12 @@ public class Library {
 	/**
 	 * Stores all books of the library.
 	 */
-	private Vector<Book> books;
+	private BookStore books;
+	
+	/**
+	 * Every author of the books, once.
+	 */
+	private final AuthorDictionary authors = new AuthorDictionary();
 	
 	/**
 	 * The file where the details of
@@ -61,11 +82,192 @@ public class Library {
 	private BookSortAuthor bookSortAuthor = new BookSortAuthor();
 	private BookSortDate bookSortDate = new BookSortDate();
 	
+	/**
+	 * Sorts the books, on several threads
+	 * if there are enough of them.
+	 */
+	private BookSort sorter;
+	
+	/*
+	 * The positions of the SortedIndexes in indexes.
+	 */
+	private static final int BY_TITLE = 0;
+	private static final int BY_AUTHOR = 1;
+	private static final int BY_AUTHOR_FIRST_NAME = 2;
+	private static final int BY_DATE = 3;
+	
+	/**
+	 * The books sorted by title, by author (last and first
+	 * name first) and by date. An index is created the first
+	 * time the books are sorted by it, afterwards every change
+	 * is put into it, so the next sorting only walks through
+	 * it. Only books in a VectorBookStore are indexed, the
+	 * other stores keep the books outside of the heap or
+	 * rank their columns themselves.
+	 */
+	private final SortedIndex[] indexes = new SortedIndex[4];
+	
+	/**
+	 * The words of the titles and authors, created
+	 * for the first search and kept up to date
+	 * afterwards. null until then.
+	 */
+	private TextIndex textIndex;
+	
+	/**
+	 * The ids of the books sorted by date, created
+	 * for the first query of a range of dates and kept
+	 * up to date afterwards. null until then.
+	 */
+	private DateIndex dateIndex;
+	
+	/**
+	 * The amount of books per author, year and month. The
+	 * books are counted while the file is read and the
+	 * statistics are changed with every book afterwards.
+	 * While the books of a binary booklist are counted,
+	 * they hold only the changes since it was opened.
+	 */
+	private LibraryStatistics statistics = new LibraryStatistics();
+	
+	/**
+	 * Counts the books of a binary booklist on another
+	 * thread, null once the statistics are complete.
+	 */
+	private FutureTask<LibraryStatistics> counting;
+	
+	/**
+	 * The index the books are sorted by, -1 if they are
+	 * not (anymore). While they are, added and edited books
+	 * are moved to their place in the index.
+	 */
+	private int sortedBy = -1;
+	
+	/**
+	 * True if the books are sorted from
+	 * the end of the index to its start.
+	 */
+	private boolean sortedBackwards;
+	
+	/**
+	 * Records the changes, if only the changes
+	 * shall be saved (see LibraryJournal).
+	 * <code>null</code> if all books are written
+	 * on every save.
+	 */
+	private LibraryJournal journal;
+	
+	/**
+	 * The journal which was found when the library was
+	 * opened, but did not fit to the file and was kept
+	 * under another name. null if there was none.
+	 */
+	private File keptJournal;
+	
+	/**
+	 * Is increased on every change of the books.
+	 */
+	private int version;
+	
+	/**
+	 * A ProgressListener is informed
+	 * after every <i>PROGRESS_STEP</i> books.
+	 */
+	static final int PROGRESS_STEP = 1 << 14;
+	
+	/**
+	 * The size the journal may reach, before all books
+	 * are written to the file and the journal is removed.
+	 */
+	private long journalThreshold;
+	
+	/**
+	 * True if the file holds the books the changes
+	 * in the journal are applied to.
+	 */
+	private boolean fileIsBase;
+	
+	/**
+	 * True if a saved file is forced to the disk
+	 * before it replaces the old one.
+	 */
+	private boolean sync = true;
+	
+	/**
+	 * The books which were changed since the file was
+	 * written, <code>null</code> if only whole files
+	 * are saved.
+	 */
+	private DirtyBooks dirty;
+	
+	/**
+	 * Where the books stand in the file,
+	 * <code>null</code> if it is not known yet.
+	 */
+	private RecordLayout layout;
+	
+	/**
+	 * True while a SaveTask of the library which writes
+	 * the file runs or waits to be run.
+	 */
+	private boolean saving;
+	
+	/**
+	 * The amount of SaveTasks which write the file, created
+	 * so far. The tasks are run in the order they were
+	 * created, so <i>saving</i> ends when the last one is done.
+	 */
+	private int preparedSaves;
+	
+	/**
+	 * The amount of bytes the last save has written.
+	 */
+	private long bytesWritten;
+	
+	/**
+	 * The version which was saved the last time.
+	 */
+	private int savedVersion;
+	
+	/**
+	 * Where the books of the file are kept.
+	 */
+	private StorageMode storageMode = StorageMode.MEMORY;
+	
+	/*
+	 * The file as it was read or written the last time:
+	 * its length, when it was written and the checksum of
+	 * its last bytes. If only books were appended to the
+	 * file, its start is unchanged.
+	 */
+	private long knownLength;
+	private long knownModified;
+	private long knownEnd;
+	
+	/**
+	 * The amount of bytes at the end of the file
+	 * which are compared to find out if books were
+	 * only appended.
+	 */
+	private static final int KNOWN_END_SIZE = 4096;
+	
+	/**
+	 * Informed about changed books.
+	 */
+	private final List<LibraryListener> listeners = new ArrayList<LibraryListener>();
+	
+	/**
+	 * The ids of the books, in the order of the books.
+	 */
+	private BookIds ids;
+	
 	/**
 	 * Constructor with no arguments.
 	 */
 	public Library() {
-		books = new Vector<Book>();
+		books = new VectorBookStore();
+		ids = new BookIds(0);
+		sorter = createSorter(new LibraryOptions());
 	}
 	
 	/**
@@ -76,7 +278,9 @@ public class Library {
 	 * which shall exists in the library
 	 */
 	public Library(Vector<Book> books) {
-		this.books = books;
+		this.books = new VectorBookStore(count(books, statistics));
+		ids = new BookIds(books.size());
+		sorter = createSorter(new LibraryOptions());
 	}
 	
 	/**
@@ -84,65 +288,171 @@ public class Library {
 	 * to create a library
 	 * 
 	 * @param file the file
-	 * @throws FileNotFoundException 
-	 * is thrown when the source of the
-	 * scanner the <i> file </i> is not found
+	 * @throws IOException 
+	 * is thrown when the <i> file </i> is
+	 * not found or cannot be read
 	 */
-	public Library(File file) throws FileNotFoundException {
+	public Library(File file) throws IOException {
+		this(file, new LibraryOptions());
+	}
+	
+	/**
+	 * Constructor which creates a library
+	 * with the given options.
+	 * 
+	 * @param file the file
+	 * @param options determine how the file is read
+	 * @throws IOException 
+	 * is thrown when the <i> file </i> is
+	 * not found or cannot be read
+	 */
+	public Library(File file, LibraryOptions options) throws IOException {
 		
 		this.file = file;
-		books = new Vector<Book>();
+		
+		/*
+		 * Finish a delta save which was stopped by a crash.
+		 */
+		DeltaSave.recover(file);
 		
 		/*
 		 * Parse the content of the file
 		 * and create Books.
 		 */
-		Scanner sc = new Scanner(file);
-		sc.useDelimiter("[#\n]"); //we use '#' and '\n' as delimiter
+		if(options.getLoadMode() == LoadMode.PARALLEL && (options.getStorageMode() == StorageMode.MEMORY
+				|| options.getStorageMode() == StorageMode.COLUMNAR) && !BinaryBooklist.isBinary(file) && !CompressedBooklist.isCompressed(file)) {
+			books = keepInMemory(count(ParallelBooklistLoader.load(file, options.getParallelism(), authors),
+					statistics), options.getStorageMode());
+		} else {
+			books = openStore(file, options.getStorageMode(), statistics);
+		}
+		counting = books instanceof BinaryBookStore ? countLater(books) : null;
+		ids = new BookIds(books.size());
+		fileIsBase = true;
+		sync = options.isSyncOnSave();
+		storageMode = options.getStorageMode();
+		sorter = createSorter(options);
+		
+		/*
+		 * Apply the changes which were saved in the journal.
+		 * If there was one, the library keeps using it.
+		 */
+		boolean replayed = LibraryJournal.replay(this, file);
+		
+		if(options.isJournaling() || replayed) {
+			journal = new LibraryJournal(file);
+			journalThreshold = options.getJournalThreshold();
+		} else if(options.isDeltaSaving()) {
+			dirty = new DirtyBooks(books.size());
+		}
+		
+		savedVersion = version;
+		rememberFile(file.length());
+	}
 
-		try{
-			while(sc.hasNext()) { 		//parse as long as there are tokes
-				String title = sc.next();
-				String surName = sc.next();
-				String lastName = sc.next();
-				String month = sc.next();
-				String year = sc.next();
-				
-				/*
-				 * Tokens in the file for empty
-				 * strings:
-				 * 
-				 * "XXXXXX" for surName
-				 * "XXXXXX" for lastName
-				 * "00" for month
-				 * "0000" for year
-				 */
-				
-				if(surName.equals("XXXXXX")) {
-					surName = "";
-				}
-				if(lastName.equals("XXXXXX")) {
-					lastName = "";
-				}
-				if(month.equals("00")) {
-					month = "";
-				}
-				if(year.equals("0000")) {
-					year = "";
-				}
-				
-				books.add(new Book(title, surName, lastName, month, year));
-				
+	/**
+	 * Creates the sorter, which sorts on the threads
+	 * of the options once there are enough books.
+	 */
+	private static BookSort createSorter(LibraryOptions options) {
+		return new BookSort(options.getParallelism(), options.getParallelSortThreshold());
+	}
+
+	/**
+	 * Opens the store for a file. Binary booklists are
+	 * always read directly from the file, .booklist and
+	 * compressed files depend on the storage mode.
+	 * 
+	 * The books are counted while they are read. The
+	 * books of a binary booklist are not read when it is
+	 * opened, so they are not counted, see countLater().
+	 * 
+	 * @param file the file
+	 * @param storageMode where the books of a .booklist
+	 * file shall be kept
+	 * @param statistics the statistics the books are
+	 * added to, null if they shall not be counted
+	 * @return the store
+	 * @throws IOException if the file cannot be read
+	 */
+	private BookStore openStore(File file, StorageMode storageMode, LibraryStatistics statistics) throws IOException {
+		
+		if(BinaryBooklist.isBinary(file)) {
+			return new BinaryBookStore(file);
+		} else if(CompressedBooklist.isCompressed(file)) {
+			return keepInMemory(count(CompressedBooklist.read(file, authors), statistics), storageMode);
+		} else if(storageMode == StorageMode.PAGED) {
+			return new PagedBookStore(file, statistics);
+		} else if(storageMode == StorageMode.OFF_HEAP) {
+			PagedBookStore paged = new PagedBookStore(file, statistics);
+			try {
+				return new OffHeapBookStore(paged);
+			} finally {
+				paged.close();
+			}
+		} else {
+			return keepInMemory(count(BooklistParser.parse(file, authors), statistics), storageMode);
+		}
+	}
+	
+	/**
+	 * Counts the books which were read.
+	 * 
+	 * @param books the books
+	 * @param statistics the statistics the books are
+	 * added to, null if they shall not be counted
+	 * @return the books
+	 */
+	private static Vector<Book> count(Vector<Book> books, LibraryStatistics statistics) {
+		if(statistics != null) {
+			for(Book book : books) {
+				statistics.added(book);
 			}
-		} catch (NoSuchElementException e) {
-			System.out.println("\n\nThere are no further lines or tokens\n"
-					+ ">> Maybe an amount of tokens, which isnt divided by 5\n"
-					+ "(Exceptionmessage: "
-					+ e.getMessage() + ").");
 		}
+		return books;
+	}
+	
+	/**
+	 * Counts the books of a store on another thread, so
+	 * a binary booklist still opens without reading its
+	 * books. The thread counts a snapshot, the changes
+	 * of the library are added when it is done.
+	 * 
+	 * @param store the store which was opened
+	 * @return the task which counts the books
+	 */
+	private static FutureTask<LibraryStatistics> countLater(BookStore store) {
 		
-		sc.close(); //close Scanner
+		final BookStore snapshot = store.snapshot();
+		FutureTask<LibraryStatistics> task = new FutureTask<LibraryStatistics>(() -> {
+			LibraryStatistics counted = new LibraryStatistics();
+			snapshot.count(counted);
+			return counted;
+		});
 		
+		Thread thread = new Thread(task, "Booklist statistics");
+		thread.setDaemon(true);
+		thread.start();
+		return task;
+	}
+	
+	/**
+	 * @param books the books which were read
+	 * @param storageMode StorageMode.COLUMNAR stores the
+	 * books in columns, StorageMode.OFF_HEAP outside of
+	 * the heap, every other mode in a Vector
+	 * @return the store with the books
+	 * @throws IOException if the books cannot be
+	 * stored outside of the heap
+	 */
+	private BookStore keepInMemory(Vector<Book> books, StorageMode storageMode) throws IOException {
+		
+		if(storageMode == StorageMode.COLUMNAR) {
+			return new ColumnarBookStore(authors, books);
+		} else if(storageMode == StorageMode.OFF_HEAP) {
+			return new OffHeapBookStore(new VectorBookStore(books));
+		}
+		return new VectorBookStore(books);
 	}
 	
 	//#######################################################################
@@ -150,107 +460,750 @@ public class Library {
 	/**
 	 * Sorts books by title
 	 * 
+	 * Books with the same title are sorted
+	 * by author and date, if the books are
+	 * kept in memory (StorageMode.MEMORY).
+	 * 
 	 * @param countSort
 	 * 0 for sorting A to Z
 	 * 1 for sorting Z to A
 	 */
 	public void sortByTitles(int countSort) {
-		bookSortTitle.setCount(countSort);
-		Collections.sort(books, bookSortTitle);
+		sort(LibraryJournal.SORT_TITLES, countSort, books instanceof VectorBookStore);
+	}
+	
+	/**
+	 * Sort books by author
+	 * 
+	 * Books of the same author are sorted
+	 * by title and date, if the books are
+	 * kept in memory (StorageMode.MEMORY).
+	 * 
+	 * @param countSort
+	 * 0 for <i>surName + lastName </i>
+	 * 1 for <i>lastName + "," + surName </i>
+	 */
+	public void sortByAuthors(int countSort) {
+		sort(LibraryJournal.SORT_AUTHORS, countSort, books instanceof VectorBookStore);
+	}
+	
+	/**
+	 * Sort books by date
+	 * 
+	 * Books with the same date are sorted
+	 * by title and author, if the books are
+	 * kept in memory (StorageMode.MEMORY).
+	 * 
+	 * @param countSort
+	 * 0 for oldest date first
+	 * 1 for newest date first
+	 */
+	public void sortByDate(int countSort) {
+		sort(LibraryJournal.SORT_DATE, countSort, books instanceof VectorBookStore);
+	}
+	
+	/**
+	 * Sorts the books, the journal repeats it.
+	 * 
+	 * @param by LibraryJournal.SORT_TITLES, SORT_AUTHORS or SORT_DATE
+	 * @param countSort the order of the sorting
+	 * @param inOrder <code>true</code> to sort books which are
+	 * equal for the comparator by the rest of the book, as
+	 * a SortedIndex does; <code>false</code> to keep their order
+	 */
+	void sort(byte by, int countSort, boolean inOrder) {
+		
+		int index;
+		Comparator<Book> comparator;
+		if(by == LibraryJournal.SORT_TITLES) {
+			bookSortTitle.setCount(countSort);
+			comparator = bookSortTitle;
+			index = BY_TITLE;
+		} else if(by == LibraryJournal.SORT_AUTHORS) {
+			bookSortAuthor.setCount(countSort);
+			comparator = bookSortAuthor;
+			index = countSort == 0 ? BY_AUTHOR : BY_AUTHOR_FIRST_NAME;
+		} else {
+			bookSortDate.setCount(countSort);
+			comparator = bookSortDate;
+			index = BY_DATE;
+		}
+		boolean backwards = by != LibraryJournal.SORT_AUTHORS && countSort == 1;
+		
+		sortedBy = -1;
+		if(inOrder && books instanceof VectorBookStore) {
+			sortByIndex(index, backwards);
+		} else if(inOrder) {
+			Comparator<Book> order = SortedIndex.inOrder(firstComparator(index));
+			ids.sorted(books.sort(backwards ? Collections.reverseOrder(order) : order, sorter));
+		} else {
+			ids.sorted(books.sort(comparator, sorter));
+		}
+		
+		version++;
+		if(journal != null) {
+			if(inOrder) {
+				journal.recordOrder(by, countSort);
+			} else {
+				journal.recordSort(by, countSort);
+			}
+		}
+		if(dirty != null) {
+			dirty.moved(0);
+		}
+	}
+	
+	/**
+	 * Puts the books into the order of an index,
+	 * the index is created if there is none yet.
+	 */
+	private void sortByIndex(int index, boolean backwards) {
+		
+		int count = books.size();
+		if(indexes[index] == null) {
+			long[] bookIds = new long[count];
+			for(int i = 0; i < count; i++) {
+				bookIds[i] = ids.get(i);
+			}
+			indexes[index] = new SortedIndex(firstComparator(index),
+					books.getBooks().toArray(new Book[count]), bookIds, sorter);
+		}
+		
+		Book[] sorted = new Book[count];
+		long[] sortedIds = new long[Math.max(16, count)];
+		indexes[index].walk(sorted, sortedIds, backwards);
+		((VectorBookStore) books).setAll(sorted);
+		ids.ordered(sortedIds);
+		sortedBy = index;
+		sortedBackwards = backwards;
+	}
+	
+	/**
+	 * @return the comparator of an index
+	 */
+	private static Comparator<Book> firstComparator(int index) {
+		if(index == BY_TITLE) {
+			return new BookSortTitle();
+		} else if(index == BY_AUTHOR) {
+			return new BookSortAuthor();
+		} else if(index == BY_AUTHOR_FIRST_NAME) {
+			BookSortAuthor comparator = new BookSortAuthor();
+			comparator.setCount(1);
+			return comparator;
+		}
+		return new BookSortDate();
+	}
+	
+	/**
+	 * @param book a book which is not in the library
+	 * @param id its id, or Long.MAX_VALUE for a new book
+	 * @return the position where the book belongs
+	 * while the books are sorted by an index
+	 */
+	private int sortedPosition(Book book, long id, int count) {
+		int rank = indexes[sortedBy].rankOf(book, id);
+		return sortedBackwards ? count - 1 - rank : rank;
+	}
+	
+	/**
+	 * Removes the books from the indexes, before
+	 * they are removed from the library.
+	 */
+	private void removeFromIndexes(BitSet positions) {
+		
+		int count = positions.cardinality();
+		long[] removed = null;
+		
+		if(textIndex != null) {
+			if(count < textIndex.size() / 32) {
+				for(int p = positions.nextSetBit(0); p >= 0; p = positions.nextSetBit(p + 1)) {
+					if(!textIndex.remove(books.get(p), ids.get(p))) {
+						textIndex = null;
+						break;
+					}
+				}
+			} else {
+				removed = removedIds(positions, count);
+				textIndex.removeAll(removed);
+			}
+		}
+		
+		if(dateIndex != null) {
+			if(count < dateIndex.size() / 32) {
+				for(int p = positions.nextSetBit(0); p >= 0; p = positions.nextSetBit(p + 1)) {
+					if(!dateIndex.remove(books.get(p), ids.get(p))) {
+						dateIndex = null;
+						break;
+					}
+				}
+			} else {
+				if(removed == null) {
+					removed = removedIds(positions, count);
+				}
+				dateIndex.removeAll(removed);
+			}
+		}
+		
+		for(int i = 0; i < indexes.length; i++) {
+			if(indexes[i] == null) {
+				continue;
+			}
+			if(count < indexes[i].size() / 32) {
+				for(int p = positions.nextSetBit(0); p >= 0; p = positions.nextSetBit(p + 1)) {
+					if(indexes[i].remove(books.get(p), ids.get(p)) < 0) {
+						dropIndex(i);
+						break;
+					}
+				}
+			} else {
+				if(removed == null) {
+					removed = removedIds(positions, count);
+				}
+				indexes[i].removeAll(removed);
+			}
+		}
+	}
+	
+	/**
+	 * @return the sorted ids of the books at the positions
+	 */
+	private long[] removedIds(BitSet positions, int count) {
+		long[] removed = new long[count];
+		int r = 0;
+		for(int p = positions.nextSetBit(0); p >= 0; p = positions.nextSetBit(p + 1)) {
+			removed[r++] = ids.get(p);
+		}
+		Arrays.sort(removed);
+		return removed;
+	}
+	
+	/**
+	 * Throws an index away, e.g. because a book
+	 * in it was changed without updateBook().
+	 * It is created again on the next sorting.
+	 */
+	private void dropIndex(int index) {
+		indexes[index] = null;
+		if(sortedBy == index) {
+			sortedBy = -1;
+		}
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Saves the changes of the library.
+	 * 
+	 * If the library has a journal, only the changes
+	 * since the last save are appended to it. All books
+	 * are written if the journal became too big or the
+	 * file of the library has changed.
+	 * If the library saves only the changed books
+	 * (LibraryOptions.isDeltaSaving()), they are written
+	 * into a patch file and then into the file, see
+	 * DeltaSave. Otherwise this is the same as
+	 * writeToFile().
+	 * 
+	 * <i> This step cannot be undone! </i>
+	 */
+	public void save() {
+		run(prepareSave(false));
+	}
+	
+	/**
+	 * This method "saves" the state of the Booklist
+	 * to the file which is specified in the Library-class.
+	 * 
+	 * Files with the ending ".booklistb" are written
+	 * as binary booklist, files with the ending
+	 * ".booklistz" compressed, all others as text.
+	 * If the library has a journal, it is removed
+	 * afterwards because the file holds all changes.
+	 * 
+	 * <i> This step cannot be undone! </i>
+	 */
+	public void writeToFile() {
+		run(prepareWrite(file, BooklistFormat.of(file), false));
+	}
+	
+	/**
+	 * Runs a SaveTask on the current thread.
+	 */
+	private void run(SaveTask task) {
+		
+		try {
+			task.run(null);
+			saveCompleted(task);
+			
+		} catch (Exception e) {
+			saveFailed(task);
+			System.out.println("Save did not work properly.\n"
+					+ "Errormessage is" + e.getMessage());
+			e.printStackTrace();
+		}
+		
+	}
+	
+	/**
+	 * Writes all books to a file.
+	 * 
+	 * If the books are read from a file, they are
+	 * read from the new file afterwards.
+	 * 
+	 * @param target the file which is written
+	 * @param binary <code>true</code> to write a binary
+	 * booklist, <code>false</code> to write a .booklist file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeTo(File target, boolean binary) throws IOException {
+		writeTo(target, binary ? BooklistFormat.BINARY : BooklistFormat.TEXT);
+	}
+	
+	/**
+	 * Writes all books to a file in the given format.
+	 * 
+	 * If the books are read from a file, they are
+	 * read from the new file afterwards.
+	 * 
+	 * @param target the file which is written
+	 * @param format the format of the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeTo(File target, BooklistFormat format) throws IOException {
+		
+		SaveTask task = new SaveTask(target, format, books, sync, new byte[0], version);
+		task.setSaveNumber(-1); 	//does not end a save in the background
+		task.run(null);
+		saveCompleted(task);
+	}
+	
+	/**
+	 * Creates a task which saves the library like save()
+	 * does, but can be run on another thread. It writes
+	 * a snapshot of the books, so the library can be
+	 * changed while the task runs.
+	 * 
+	 * When the task is done, saveCompleted(SaveTask) or
+	 * saveFailed(SaveTask) must be called.
+	 * 
+	 * @return the task
+	 */
+	public SaveTask prepareSave() {
+		return prepareSave(true);
+	}
+	
+	private SaveTask prepareSave(boolean snapshot) {
+		
+		if(journal != null && fileIsBase && journal.size() <= journalThreshold) {
+			return numbered(new SaveTask(file, BooklistFormat.of(file), null, false,
+					journal.takePending(), version), false);
+		}
+		if(dirty != null && fileIsBase && !saving && !books.readsFromFile()
+				&& BooklistFormat.of(file) == BooklistFormat.TEXT) {
+			SaveTask task = prepareDelta(snapshot);
+			if(task != null) {
+				return task;
+			}
+		}
+		return prepareWrite(file, BooklistFormat.of(file), snapshot);
+	}
+	
+	/**
+	 * Creates a task which writes only the changed books.
+	 * 
+	 * @param snapshot true if the task may run on another
+	 * thread and needs a snapshot of the books
+	 * @return the task or <code>null</code> if all
+	 * books have to be written
+	 */
+	private SaveTask prepareDelta(boolean snapshot) {
+		
+		if(dirty.getFirstMoved() == 0) {
+			return null; 	//e.g. sorted, every book is written anyway
+		}
+		try {
+			if(CompressedBooklist.isCompressed(file)) {
+				return null; 	//read from a compressed file, not written yet
+			}
+			if(layout == null || !layout.describes(file)) {
+				layout = RecordLayout.index(file);
+			}
+		} catch (IOException e) {
+			return null;
+		}
+		
+		DeltaSave delta = new DeltaSave(layout, snapshot ? books.snapshot() : books, dirty);
+		dirty.cleared(books.size());
+		layout = null;
+		
+		return numbered(new SaveTask(file, delta, sync, version), true);
+	}
+	
+	/**
+	 * Creates a task which writes all books.
+	 * 
+	 * @param snapshot true if the task may run on another
+	 * thread and needs a snapshot of the books
+	 */
+	private SaveTask prepareWrite(File target, BooklistFormat format, boolean snapshot) {
+		
+		if(journal != null) {
+			journal.cleared();
+		}
+		if(dirty != null) {
+			dirty.cleared(books.size());
+		}
+		fileIsBase = true;
+		layout = null;
+		
+		return numbered(new SaveTask(target, format, snapshot ? books.snapshot() : books, sync,
+				new byte[0], version), true);
+	}
+	
+	/**
+	 * Gives the task its number.
+	 * 
+	 * @param writesFile true if the task changes the file
+	 */
+	private SaveTask numbered(SaveTask task, boolean writesFile) {
+		if(writesFile) {
+			saving = true;
+			preparedSaves++;
+		}
+		task.setSaveNumber(preparedSaves);
+		return task;
+	}
+	
+	/**
+	 * Is called after a SaveTask of this library is done.
+	 * If the books are read from a file and all of them
+	 * were written, they are read from the new file.
+	 * 
+	 * @param task the task
+	 * @throws IOException if the new file cannot be read
+	 */
+	public void saveCompleted(SaveTask task) throws IOException {
+		
+		if(task.getSaveNumber() == preparedSaves) {
+			saving = false; 	//no later task writes the file
+		}
+		bytesWritten = task.getBytesWritten();
+		savedVersion = task.getVersion();
+		if(task.getDelta() != null) {
+			layout = task.getDelta().getResult();
+		}
+		if((task.writesAllBooks() || task.getDelta() != null) && file != null
+				&& task.getTarget().equals(file.getAbsoluteFile())) {
+			rememberFile(task.getTarget().length());
+		}
+		
+		if(task.writesAllBooks() && books.readsFromFile() && task.getVersion() == version) {
+			books.close();
+			books = openStore(task.getTarget(), StorageMode.PAGED, null); 	//the books are still counted
+		}
+	}
+	
+	/**
+	 * Is called if a SaveTask of this library failed, or
+	 * was not run because an earlier one failed.
+	 * The next save writes all books again.
+	 * 
+	 * @param task the task
+	 */
+	public void saveFailed(SaveTask task) {
+		if(task.getSaveNumber() == preparedSaves) {
+			saving = false;
+		}
+		fileIsBase = false;
+	}
+	
+	/**
+	 * Applies changes another program made to the file.
+	 * 
+	 * If books were only appended to a .booklist file, just
+	 * they are read and added at the end. Otherwise all books
+	 * are read again, but only if the library has no changes
+	 * which are not saved to the file; they win then and are
+	 * written on the next save.
+	 * The listeners are informed which books changed.
+	 * 
+	 * @return <code>true</code> if the library was changed
+	 * @throws IOException if the file cannot be read
+	 */
+	public boolean reload() throws IOException {
+		
+		if(file == null || saving || !file.exists()
+				|| (file.length() == knownLength && file.lastModified() == knownModified)) {
+			return false; 	//unchanged or our own save
+		}
+		
+		boolean unsaved = version != savedVersion || (journal != null && journal.exists());
+		
+		if(knownLength >= 0 && file.length() > knownLength && knownEnd == endChecksum(file, knownLength)
+				&& !BinaryBooklist.isBinary(file) && !CompressedBooklist.isCompressed(file)) {
+			readAppended(unsaved);
+			return true;
+		}
+		
+		if(unsaved) {
+			fileIsBase = false;
+			return false;
+		}
+		
+		BookStore old = books;
+		LibraryStatistics counted = new LibraryStatistics();
+		books = openStore(file, storageMode, counted);
+		statistics = counted;
+		counting = books instanceof BinaryBookStore ? countLater(books) : null;
+		ids.reset(books.size());
+		Arrays.fill(indexes, null);
+		textIndex = null;
+		dateIndex = null;
+		sortedBy = -1;
+		version++;
+		savedVersion = version;
+		fileIsBase = true;
+		layout = null;
+		if(dirty != null) {
+			dirty.cleared(books.size());
+		}
+		rememberFile(file.length());
+		
+		fireDifferences(old, books);
+		old.close();
+		return true;
+	}
+	
+	/**
+	 * Reads the books behind the known end of the file.
+	 * A book which is not written completely yet is
+	 * read the next time.
+	 */
+	private void readAppended(boolean unsaved) throws IOException {
+		
+		int first = books.size();
+		long end;
+		
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer map = BooklistParser.map(channel);
+			BooklistParser parser = new BooklistParser(map, (int) knownLength, map.limit());
+			parser.setAuthors(authors);
+			
+			end = knownLength;
+			Book book;
+			while((book = parser.nextBook()) != null) {
+				books.add(book);
+				statistics.added(book);
+				long id = ids.add();
+				for(SortedIndex index : indexes) {
+					if(index != null) {
+						index.add(book, id);
+					}
+				}
+				if(textIndex != null) {
+					textIndex.add(book, id);
+				}
+				if(dateIndex != null) {
+					dateIndex.add(book, id);
+				}
+				end = parser.getPosition();
+			}
+		}
+		sortedBy = -1; 	//the books were appended at the end
+		
+		version++;
+		if(!unsaved) {
+			savedVersion = version;
+		}
+		if(dirty != null) {
+			dirty.appended(first, books.size());
+		}
+		if(journal != null) {
+			fileIsBase = false; 	//the journal does not fit to the file anymore
+		}
+		rememberFile(end);
+		
+		if(books.size() > first) {
+			for(LibraryListener listener : listeners) {
+				listener.booksInserted(first, books.size() - 1);
+			}
+		}
+	}
+	
+	/**
+	 * Informs the listeners about the books which differ
+	 * between the old and the new books. Books which are
+	 * the same at the start and at the end are left out.
+	 */
+	private void fireDifferences(BookStore old, BookStore now) {
+		
+		int oldSize = old.size();
+		int newSize = now.size();
+		
+		int start = 0;
+		while(start < oldSize && start < newSize && sameBook(old.get(start), now.get(start))) {
+			start++;
+		}
+		int end = 0;
+		while(end < oldSize - start && end < newSize - start
+				&& sameBook(old.get(oldSize - 1 - end), now.get(newSize - 1 - end))) {
+			end++;
+		}
+		
+		int oldChanged = oldSize - start - end;
+		int newChanged = newSize - start - end;
+		int updated = Math.min(oldChanged, newChanged);
+		
+		for(LibraryListener listener : listeners) {
+			if(updated > 0) {
+				listener.booksUpdated(start, start + updated - 1);
+			}
+			if(newChanged > updated) {
+				listener.booksInserted(start + updated, start + newChanged - 1);
+			} else if(oldChanged > updated) {
+				listener.booksDeleted(start + updated, start + oldChanged - 1);
+			}
+		}
+	}
+	
+	private static boolean sameBook(Book a, Book b) {
+		return a.getTitle().equals(b.getTitle())
+				&& a.getSurName().equals(b.getSurName())
+				&& a.getLastName().equals(b.getLastName())
+				&& a.getPackedDate() == b.getPackedDate()
+				&& a.getMonth().equals(b.getMonth())
+				&& a.getYear().equals(b.getYear());
+	}
+	
+	/**
+	 * Remembers the state of the file, so reload()
+	 * can find out what another program changed.
+	 * 
+	 * @param end the end of the last book in the file
+	 */
+	private void rememberFile(long end) {
+		try {
+			knownLength = end;
+			knownModified = file.lastModified();
+			knownEnd = endChecksum(file, end);
+		} catch (IOException e) {
+			knownLength = -1; 	//read everything on the next reload
+		}
 	}
 	
 	/**
-	 * Sort books by author
-	 * 
-	 * @param countSort
-	 * 0 for <i>surName + lastName </i>
-	 * 1 for <i>lastName + "," + surName </i>
+	 * @return the checksum of the bytes in front of the end
 	 */
-	public void sortByAuthors(int countSort) {
-		bookSortAuthor.setCount(countSort);
-		Collections.sort(books, bookSortAuthor);
+	private static long endChecksum(File file, long end) throws IOException {
+		
+		byte[] bytes = new byte[(int) Math.min(end, KNOWN_END_SIZE)];
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+			raf.seek(end - bytes.length);
+			raf.readFully(bytes);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(bytes);
+		return crc.getValue();
 	}
 	
 	/**
-	 * Sort books by date
-	 * 
-	 * @param countSort
-	 * 0 for oldest date first
-	 * 1 for newest date first
+	 * @param listener is informed about changed books
 	 */
-	public void sortByDate(int countSort) {
-		bookSortDate.setCount(countSort);
-		Collections.sort(books, bookSortDate);
+	public void addLibraryListener(LibraryListener listener) {
+		listeners.add(listener);
 	}
 	
-	//#######################################################################
+	/**
+	 * @param listener is not informed anymore
+	 */
+	public void removeLibraryListener(LibraryListener listener) {
+		listeners.remove(listener);
+	}
 	
 	/**
-	 * This method "saves" the state of the Booklist
-	 * to the file which is specified in the Library-class.
+	 * Writes books as text, one book per line.
 	 * 
-	 * <i> This step cannot be undone! </i>
+	 * @param out the file which is written
+	 * @param books the books
+	 * @param listener is informed about the written books,
+	 * may be <code>null</code>
+	 * @param checksum is updated with the written bytes,
+	 * may be <code>null</code>
+	 * @throws IOException if the file cannot be written
 	 */
-	public void writeToFile() {
+	static void writeText(File out, BookStore books, ProgressListener listener,
+			Checksum checksum) throws IOException {
+		
+		OutputStream fos = new FileOutputStream(out);
+		if(checksum != null) {
+			fos = new CheckedOutputStream(fos, checksum);
+		}
+		BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8));
 		
 		try {
-			FileWriter fw = new FileWriter(file.getAbsoluteFile());
-			BufferedWriter bw = new BufferedWriter(fw);
-			
 			for(int i = 0; i < books.size(); i++) {
-				Book book = books.get(i);
-				String title = book.getTitle();
-				String surName = book.getSurName();
-				String lastName = book.getLastName();
-				String month = book.getMonth();
-				String year = book.getYear();
-				
-				/*
-				 * Tokens in the file for empty
-				 * strings:
-				 * 
-				 * "XXXXXX" for surName
-				 * "XXXXXX" for lastName
-				 * "00" for month
-				 * "0000" for year
-				 */
-				
-				if(surName.isEmpty()) {
-					surName = "XXXXXX";
-				}
-				if(lastName.isEmpty()) {
-					lastName = "XXXXXX";
-				}
-				if(month.isEmpty()) {
-					month = "00";
-				}
-				if(year.isEmpty()) {
-					year = "0000";
+				if(listener != null && i % PROGRESS_STEP == 0) {
+					listener.progress(i, books.size());
 				}
 				
-				bw.write(title);
-				bw.write('#');
-				bw.write(surName);
-				bw.write('#');
-				bw.write(lastName);
-				bw.write('#');
-				bw.write(month);
-				bw.write('#');
-				bw.write(year);
+				writeRecord(bw, books.get(i));
 				if(i != (books.size() - 1)) {
-					bw.newLine();
+					bw.write('\n'); 	//the delimiter the parser expects
 				}
 			}
-			
+		} finally {
 			bw.close();
-			fw.close();
-
-		} catch (Exception e) {
-			System.out.println("Save did not work properly.\n"
-					+ "Errormessage is" + e.getMessage());
-			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Writes one book as it is stored in a .booklist file,
+	 * without the line break.
+	 * 
+	 * @param bw the writer
+	 * @param book the book
+	 * @throws IOException if the book cannot be written
+	 */
+	static void writeRecord(Writer bw, Book book) throws IOException {
+		
+		String title = book.getTitle();
+		String surName = book.getSurName();
+		String lastName = book.getLastName();
+		String month = book.getMonth();
+		String year = book.getYear();
+		
+		/*
+		 * Tokens in the file for empty
+		 * strings:
+		 * 
+		 * "XXXXXX" for surName
+		 * "XXXXXX" for lastName
+		 * "00" for month
+		 * "0000" for year
+		 */
+		
+		if(surName.isEmpty()) {
+			surName = "XXXXXX";
+		}
+		if(lastName.isEmpty()) {
+			lastName = "XXXXXX";
+		}
+		if(month.isEmpty()) {
+			month = "00";
+		}
+		if(year.isEmpty()) {
+			year = "0000";
 		}
 		
+		bw.write(title);
+		bw.write('#');
+		bw.write(surName);
+		bw.write('#');
+		bw.write(lastName);
+		bw.write('#');
+		bw.write(month);
+		bw.write('#');
+		bw.write(year);
 	}
 	
 	/**
@@ -266,24 +1219,23 @@ public class Library {
 	public void export(File file) {
 		
 		try {
-			if(!books.isEmpty()) {
+			if(books.size() > 0) {
 				FileWriter fw = new FileWriter(file.getAbsoluteFile());
 				BufferedWriter bw = new BufferedWriter(fw);
 				
-				Library copyLib = this.getLibraryDeepCopy();
-				Vector<Book> copyBooks = copyLib.getBooks();
+				Book[] copyBooks = snapshot().getBooks().toArray(new Book[0]);
 				
 				BookSortTitle titleSorter = new BookSortTitle();
 				BookSortAuthor authorSorter = new BookSortAuthor();
 				
 				bw.write("Titles:");
 				
-				Collections.sort(copyBooks, titleSorter);
+				sorter.sort(copyBooks, titleSorter);
 				
 				Book book = null;
 				
-				for(int i = 0; i < copyBooks.size(); i++) {
-					book = copyBooks.get(i);
+				for(int i = 0; i < copyBooks.length; i++) {
+					book = copyBooks[i];
 					
 					bw.newLine();
 					bw.write("\t");
@@ -298,9 +1250,9 @@ public class Library {
 				bw.newLine();
 				bw.write("Authors:");
 				
-				Collections.sort(copyBooks, authorSorter);
+				sorter.sort(copyBooks, authorSorter);
 								
-				book = copyBooks.get(0);
+				book = copyBooks[0];
 				String lastAuthor = book.getAuthor();
 				
 				bw.newLine();
@@ -308,8 +1260,8 @@ public class Library {
 				bw.write(": ");
 				bw.write(book.getTitle());
 					
-				for(int i = 1; i < copyBooks.size(); i++) {
-					book = copyBooks.get(i);
+				for(int i = 1; i < copyBooks.length; i++) {
+					book = copyBooks[i];
 					
 					if(lastAuthor.equals(book.getAuthor())) {
 						bw.write(", ");
@@ -332,18 +1284,18 @@ public class Library {
 				bw.write("Date:");
 				bw.newLine();
 				
-				Collections.sort(copyBooks, titleSorter);
-				Collections.sort(copyBooks, dateSorter);
+				sorter.sort(copyBooks, titleSorter);
+				sorter.sort(copyBooks, dateSorter);
 				
-				for(int i = 0; i < copyBooks.size(); i++) {
-					book = copyBooks.get(i);
+				for(int i = 0; i < copyBooks.length; i++) {
+					book = copyBooks[i];
 					
 					if(! (book.getYear().isEmpty())) {
 						bw.write("\t" + "- ");
 						bw.write(book.getDateWithWords());
 						bw.write(": " + book.getTitle());
 						
-						if(i != (copyBooks.size() - 1)) { //at last iteration don't add a newline
+						if(i != (copyBooks.length - 1)) { //at last iteration don't add a newline
 							bw.newLine();
 						}
 					}
@@ -364,35 +1316,523 @@ public class Library {
 	//#######################################################################
 
 	/**
+	 * Adds a book at the end, or at its place
+	 * if the library is sorted.
+	 * 
 	 * @param book 
 	 * the book which shall be added to the library
 	 */
 	public void addBook(Book book) {
-		books.add(book);
+		int index = books.size();
+		if(sortedBy >= 0) {
+			index = sortedPosition(book, Long.MAX_VALUE, books.size() + 1);
+		}
+		insertBook(index, book);
+	}
+	
+	/**
+	 * Inserts a book at a position,
+	 * the journal repeats it.
+	 * 
+	 * @param index the position, size() to append the book
+	 * @param book the book
+	 */
+	void insertBook(int index, Book book) {
+		
+		book.setAuthorEntry(authors.intern(book.getAuthorEntry()));
+		boolean appended = index == books.size();
+		books.insert(index, book);
+		statistics.added(book);
+		long id = ids.insert(index);
+		for(SortedIndex sorted : indexes) {
+			if(sorted != null) {
+				sorted.add(book, id);
+			}
+		}
+		if(textIndex != null) {
+			textIndex.add(book, id);
+		}
+		if(dateIndex != null) {
+			dateIndex.add(book, id);
+		}
+		
+		version++;
+		if(journal != null) {
+			if(appended) {
+				journal.recordAdd(book);
+			} else {
+				journal.recordInsert(index, book);
+			}
+		}
+		if(dirty != null) {
+			dirty.moved(index);
+		}
+	}
+	
+	/**
+	 * Replaces a book, e.g. after it
+	 * has been edited. If the library is
+	 * sorted, the book is moved to its place.
+	 * 
+	 * @param index
+	 * the position of the book
+	 * @param book
+	 * the new version of the book
+	 */
+	public void updateBook(int index, Book book) {
+		replaceBook(index, book);
+		if(sortedBy >= 0) {
+			int to = sortedPosition(book, ids.get(index), books.size());
+			if(to != index) {
+				moveBook(index, to);
+			}
+		}
+	}
+	
+	/**
+	 * Replaces a book at its position,
+	 * the journal repeats it.
+	 * 
+	 * @param index the position of the book
+	 * @param book the new version of the book
+	 */
+	void replaceBook(int index, Book book) {
+		
+		book.setAuthorEntry(authors.intern(book.getAuthorEntry()));
+		Book old = books.get(index);
+		long id = ids.get(index);
+		books.set(index, book);
+		if(old != book) {
+			statistics.removed(old);
+			statistics.added(book);
+		}
+		for(int i = 0; i < indexes.length; i++) {
+			if(indexes[i] != null) {
+				if(indexes[i].remove(old, id) < 0 || old == book) {
+					dropIndex(i); 	//the book was changed in place
+				} else {
+					indexes[i].add(book, id);
+				}
+			}
+		}
+		if(textIndex != null) {
+			if(!textIndex.remove(old, id) || old == book) {
+				textIndex = null; 	//the book was changed in place
+			} else {
+				textIndex.add(book, id);
+			}
+		}
+		if(dateIndex != null) {
+			if(!dateIndex.remove(old, id) || old == book) {
+				dateIndex = null; 	//the book was changed in place
+			} else {
+				dateIndex.add(book, id);
+			}
+		}
+		
+		version++;
+		if(journal != null) {
+			journal.recordUpdate(index, book);
+		}
+		if(dirty != null) {
+			dirty.edited(index);
+		}
+	}
+	
+	/**
+	 * Moves a book to another position,
+	 * the journal repeats it.
+	 * 
+	 * @param from the position of the book
+	 * @param to its new position
+	 */
+	void moveBook(int from, int to) {
+		
+		Book book = books.get(from);
+		books.remove(from);
+		books.insert(to, book);
+		ids.moved(from, to);
+		
+		version++;
+		if(journal != null) {
+			journal.recordMove(from, to);
+		}
+		if(dirty != null) {
+			dirty.moved(Math.min(from, to));
+		}
+	}
+	
+	/**
+	 * Replaces a book, found by its id. Unlike the
+	 * position, the id stays the same while the
+	 * library is sorted or books are deleted.
+	 * 
+	 * @param id
+	 * the id of the book
+	 * @param book
+	 * the new version of the book
+	 * @return <code>false</code> if no book
+	 * has the id, e.g. it was deleted
+	 */
+	public boolean updateBook(long id, Book book) {
+		int index = ids.indexOf(id);
+		if(index < 0) {
+			return false;
+		}
+		updateBook(index, book);
+		return true;
+	}
+	
+	/**
+	 * Get a single book of the library.
+	 * 
+	 * @param index
+	 * the position of the book
+	 * @return the book at the position
+	 */
+	public Book getBook(int index) {
+		return books.get(index);
+	}
+	
+	/**
+	 * Get a single book of the library by its id.
+	 * 
+	 * @param id
+	 * the id of the book
+	 * @return the book or <code>null</code>
+	 * if no book has the id
+	 */
+	public Book getBook(long id) {
+		int index = ids.indexOf(id);
+		return index < 0 ? null : books.get(index);
+	}
+	
+	/**
+	 * @param index
+	 * the position of a book
+	 * @return the id of the book, it stays
+	 * the same until the file is read again
+	 */
+	public long getId(int index) {
+		return ids.get(index);
+	}
+	
+	/**
+	 * @param id
+	 * the id of a book
+	 * @return the position of the book or -1
+	 * if no book has the id
+	 */
+	public int indexOf(long id) {
+		return ids.indexOf(id);
+	}
+	
+	/**
+	 * @return the amount of books in the library.
+	 */
+	public int size() {
+		return books.size();
 	}
 
 	/**
 	 * Delete books in the library.
 	 * 
 	 * @param delete
-	 * the books that shall be deleted
+	 * the positions of the books that shall be deleted
 	 */
 	public void deleteBooks(int[] delete) {
 		
-		for(int i = (delete.length - 1); i >= 0; i--) {
-			books.remove(delete[i]);
+		BitSet positions = new BitSet(books.size());
+		for(int index : delete) {
+			positions.set(index);
+		}
+		deleteBooks(positions);
+	}
+	
+	/**
+	 * Delete books in the library by their ids.
+	 * Ids which no book has are left out.
+	 * 
+	 * @param delete
+	 * the ids of the books that shall be deleted
+	 */
+	public void deleteBooks(long[] delete) {
+		
+		BitSet positions = new BitSet(books.size());
+		for(long id : delete) {
+			int index = ids.indexOf(id);
+			if(index >= 0) {
+				positions.set(index);
+			}
+		}
+		deleteBooks(positions);
+	}
+	
+	/**
+	 * Deletes the books in one pass over the library,
+	 * however many there are. The listeners are
+	 * informed once.
+	 * 
+	 * @param positions the positions of the books
+	 */
+	private void deleteBooks(BitSet positions) {
+		
+		if(positions.isEmpty()) {
+			return;
+		}
+		
+		removeFromIndexes(positions);
+		for(int p = positions.nextSetBit(0); p >= 0; p = positions.nextSetBit(p + 1)) {
+			statistics.removed(books.get(p));
+		}
+		books.removeAll(positions);
+		ids.removed(positions);
+		version++;
+		if(journal != null) {
+			journal.recordDelete(positions.stream().toArray());
+		}
+		if(dirty != null) {
+			dirty.moved(positions.nextSetBit(0));
+		}
+		for(LibraryListener listener : listeners) {
+			listener.booksDeleted(positions);
+		}
+	}
+	
+	/**
+	 * Searches the titles and the names of the authors.
+	 * Every word of the query must begin a word of the
+	 * book; upper and lower case and accents do not matter,
+	 * so "mura haru" finds "Murakami, Haruki" and "noel"
+	 * finds "Noël". The index of the words is created for
+	 * the first search and kept up to date afterwards.
+	 * 
+	 * @param query the words
+	 * @param limit the most books which are returned
+	 * @return the ids of the books, in the order
+	 * in which they were added
+	 */
+	public long[] search(String query, int limit) {
+		if(textIndex == null) {
+			textIndex = new TextIndex(books, ids);
+		}
+		return textIndex.search(query, limit);
+	}
+
+	/**
+	 * Searches the titles and the names of the authors and
+	 * tolerates typing errors: "Murakmi" finds "Murakami",
+	 * "Doctorw" finds "Doctorow". A word of the query may differ
+	 * from a word of the book in one letter if it has four to six
+	 * letters and in two letters if it is longer. The books which
+	 * differ least from the query come first.
+	 *
+	 * @param query the words
+	 * @param limit the most books which are returned
+	 * @return the ids of the books, the best first
+	 */
+	public long[] searchSimilar(String query, int limit) {
+		if(textIndex == null) {
+			textIndex = new TextIndex(books, ids);
+		}
+		return textIndex.searchSimilar(query, limit);
+	}
+
+	/**
+	 * The books were counted while the file was read, so
+	 * no book is read here. Only the books of a binary
+	 * booklist are counted on another thread after it
+	 * was opened; until they are, this waits for them
+	 * (see isStatisticsReady()).
+	 * 
+	 * @return the amount of books per author, year and
+	 * month, kept up to date while the library changes
+	 */
+	public LibraryStatistics getStatistics() {
+		
+		boolean interrupted = false;
+		while(counting != null) {
+			try {
+				LibraryStatistics counted = counting.get();
+				counted.addAll(statistics); 	//the changes since the file was opened
+				statistics = counted;
+			} catch (InterruptedException e) {
+				interrupted = true;
+				continue;
+			} catch (ExecutionException e) {
+				statistics = new LibraryStatistics(); 	//the file could not be counted, count the store
+				books.count(statistics);
+			}
+			counting = null;
+		}
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		return statistics;
+	}
+	
+	/**
+	 * @return <code>true</code> if getStatistics() returns
+	 * without waiting, <code>false</code> while the books
+	 * of a binary booklist are still counted.
+	 */
+	public boolean isStatisticsReady() {
+		return counting == null || counting.isDone();
+	}
+
+	/**
+	 * Creates a query for the books, see BookQuery.
+	 *
+	 * @return the query, it matches every book
+	 * until conditions are added
+	 */
+	public BookQuery query() {
+		return new BookQuery(this);
+	}
+
+	/**
+	 * Runs a query.
+	 *
+	 * @param query the query
+	 * @return the positions of the found books, sorted
+	 * if the query sorts, with its offset and limit
+	 */
+	int[] find(BookQuery query) {
+
+		int[] found = select(query.filter()).stream().toArray();
+
+		if(query.getSortBy() != 0) {
+			Book[] matched = new Book[found.length];
+			for(int i = 0; i < found.length; i++) {
+				matched[i] = books.get(found[i]);
+			}
+			int[] order = sorter.sortBooks(matched, comparator(query.getSortBy(), query.getCountSort()));
+			int[] sorted = new int[found.length];
+			for(int i = 0; i < found.length; i++) {
+				sorted[i] = found[order[i]];
+			}
+			found = sorted;
+		}
+
+		int from = Math.min(query.getOffset(), found.length);
+		int to = (int) Math.min(found.length, (long) from + query.getLimit());
+		return Arrays.copyOfRange(found, from, to);
+	}
+
+	/**
+	 * @param query the query
+	 * @return the amount of books which match
+	 * the query, without its offset and limit
+	 */
+	int count(BookQuery query) {
+		BookFilter filter = query.filter();
+		if(filter.hasDate() && !filter.hasAuthor() && !filter.hasTitle()) {
+			return dated(filter).length;
+		}
+		return select(filter).cardinality();
+	}
+
+	/**
+	 * Finds the books which match the conditions. A range of
+	 * dates is looked up in the DateIndex, only the books in
+	 * it are tested for the other conditions. If the range
+	 * holds many books, the BookStore tests all books instead,
+	 * which creates no Book for the ones which do not match.
+	 *
+	 * @param filter the conditions
+	 * @return the positions of the books which match
+	 */
+	private BitSet select(BookFilter filter) {
+
+		BitSet rows = new BitSet(books.size());
+		if(filter.hasDate()) {
+			long[] dated = dated(filter);
+			boolean others = filter.hasAuthor() || filter.hasTitle();
+			if(!others || dated.length < books.size() / 8) {
+				for(long id : dated) {
+					int p = ids.indexOf(id);
+					if(!others || filter.matches(books.get(p))) {
+						rows.set(p);
+					}
+				}
+				return rows;
+			}
+		}
+		books.select(filter, rows);
+		return rows;
+	}
+
+	/**
+	 * @param filter conditions with a date
+	 * @return the ids of the books whose date matches
+	 */
+	private long[] dated(BookFilter filter) {
+		if(dateIndex == null) {
+			dateIndex = new DateIndex(books, ids);
+		}
+		return dateIndex.between(filter.getFirstDate(), filter.getLastDate());
+	}
+
+	/**
+	 * @return a new comparator like the one
+	 * the library sorts with
+	 */
+	private static Comparator<Book> comparator(byte by, int countSort) {
+		if(by == LibraryJournal.SORT_TITLES) {
+			BookSortTitle comparator = new BookSortTitle();
+			comparator.setCount(countSort);
+			return comparator;
+		} else if(by == LibraryJournal.SORT_AUTHORS) {
+			BookSortAuthor comparator = new BookSortAuthor();
+			comparator.setCount(countSort);
+			return comparator;
 		}
+		BookSortDate comparator = new BookSortDate();
+		comparator.setCount(countSort);
+		return comparator;
+	}
+	
+	/**
+	 * Searches the titles and the names of the authors,
+	 * see <i>search(String, int)</i>.
+	 * 
+	 * @param query the words
+	 * @return the ids of all books which have the words
+	 */
+	public long[] search(String query) {
+		return search(query, Integer.MAX_VALUE);
 	}
 	
 	/**
 	 * Get all books of the library.
+	 * 
+	 * <i> If the books are not kept in memory
+	 * (StorageMode.PAGED), this is a copy which
+	 * needs memory for all books. Use size() and
+	 * getBook(int) instead. </i>
+	 * 
 	 * @return Vector with all books.
 	 */
 	public Vector<Book> getBooks() {
-		return books;
+		return books.getBooks();
 	}
 	
 
+	/**
+	 * @return the authors of the books in the library
+	 */
+	public AuthorDictionary getAuthors() {
+		return authors;
+	}
+	
+	/**
+	 * @return the amount of bytes the last save has
+	 * written to the file and the journal
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+	
 	/**
 	 * Returns the file where the books are stored
 	 * @return 
@@ -401,26 +1841,96 @@ public class Library {
 	public File getFile() {
 		return file;
 	}
+	
+	/**
+	 * The changes of a journal are only applied to the file
+	 * it was written for. If the file was changed since, for
+	 * example by another program, they are not applied and
+	 * the journal is kept under another name for the user.
+	 * 
+	 * @return the file the journal was kept in when the
+	 * library was opened, null if it was applied or
+	 * there was none
+	 */
+	public File getKeptJournal() {
+		return keptJournal;
+	}
+	
+	/**
+	 * Is called by LibraryJournal.replay() if the journal
+	 * was not applied, but kept under another name.
+	 * 
+	 * @param kept the file the journal was moved to
+	 */
+	void journalKept(File kept) {
+		keptJournal = kept;
+	}
 
 	/**
 	 * @param file the file to set
 	 */
 	public void setFile(File file) {
 		this.file = file;
+		
+		/*
+		 * The new file does not hold the books yet,
+		 * so all books are written on the next save.
+		 */
+		fileIsBase = false;
+		layout = null;
+		knownLength = -1;
+		if(journal != null) {
+			journal = new LibraryJournal(file);
+		}
+	}
+	
+	/**
+	 * Releases the file the books are read from,
+	 * if they are not kept in memory. The library
+	 * must not be used afterwards.
+	 * 
+	 * If all changes have been saved to the journal,
+	 * the books are written to the file and the
+	 * journal is removed.
+	 */
+	public void close() {
+		if(journal != null && journal.exists() && !journal.hasPending()) {
+			writeToFile();
+		}
+		books.close();
+		sorter.close();
+	}
+	
+	/**
+	 * Returns the books as they are now, in O(1). The
+	 * snapshot does not change when the library is edited,
+	 * so it can be read on another thread, e.g. to save or
+	 * export the books. The Books are shared, they must
+	 * not be changed; a changed book is given to
+	 * <i>updateBook(int, Book)</i> as a new Book.
+	 * 
+	 * @return the snapshot, it cannot be changed
+	 */
+	public BookStore snapshot() {
+		return books.snapshot();
 	}
 	
 	/**
 	 * Get a deep copy of the Library
 	 * 
+	 * <i> Every Book is copied. To read the books
+	 * while the library changes, a snapshot() is
+	 * enough. </i>
+	 * 
 	 * @return A deep copied Vector of
 	 * the books.
 	 */
 	public Library getLibraryDeepCopy() {
-		Vector<Book> vectorCopy = new Vector<Book>();
+		Vector<Book> vectorCopy = new Vector<Book>(books.size());
 		
 		for(int i = 0; i < books.size(); i++) {
 			Book book = books.get(i);
-			vectorCopy.add(new Book(book.getTitle(), book.getSurName(), book.getLastName(), book.getMonth(), book.getYear()));
+			vectorCopy.add(new Book(book.getTitle(), book.getAuthorEntry(), book.getMonth(), book.getYear()));
 		}
 		
 		return new Library(vectorCopy);
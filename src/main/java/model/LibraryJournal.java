@@ -0,0 +1,497 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * The journal of a library holds the changes since
+ * the booklist file was written the last time.
+ * 
+ * Instead of writing all books on every save, only the
+ * changes are appended to a file next to the booklist
+ * (<i>name.booklist.journal</i>). When the library is opened,
+ * the changes are applied again to the books of the file.
+ * 
+ * Layout of the journal (big endian):
+ * <pre>
+ * "BKLJ"          4 bytes
+ * length          long, length of the booklist file
+ * lastModified    long, when the booklist file was written
+ * entries         length + change + CRC32 of the change
+ * </pre>
+ * The length and date of the booklist file make sure that the
+ * journal is only applied to the file it was written for. A
+ * journal which does not fit is not deleted, it is renamed
+ * (<i>name.booklist.journal.outdated</i>) and the library
+ * tells which file it was kept in.
+ * An entry which was not written completely is ignored.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class LibraryJournal {
+	
+	/**
+	 * Ending which is added to the name of the booklist file.
+	 */
+	public static final String FILE_ENDING = ".journal";
+	
+	/**
+	 * Ending which is added to the name of a journal
+	 * which does not fit to its booklist file anymore.
+	 */
+	public static final String OUTDATED_ENDING = ".outdated";
+	
+	/**
+	 * Ending which is added to the name of a journal
+	 * which cannot be read.
+	 */
+	public static final String DAMAGED_ENDING = ".damaged";
+	
+	private static final byte[] MAGIC = {'B', 'K', 'L', 'J'};
+	
+	private static final int HEADER_SIZE = 20;
+	
+	/*
+	 * The kinds of changes.
+	 */
+	private static final byte ADD = 'A';
+	private static final byte UPDATE = 'U';
+	private static final byte DELETE = 'D';
+	private static final byte SORT = 'S';
+	private static final byte INSERT = 'I';
+	private static final byte MOVE = 'M';
+	private static final byte ORDER = 'O';
+	
+	/*
+	 * What the books were sorted by.
+	 */
+	static final byte SORT_TITLES = 'T';
+	static final byte SORT_AUTHORS = 'A';
+	static final byte SORT_DATE = 'D';
+	
+	/**
+	 * The journal file.
+	 */
+	private final File file;
+	
+	/**
+	 * Changes which have not been saved yet.
+	 */
+	private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	private final DataOutputStream pendingOut = new DataOutputStream(pending);
+	
+	/**
+	 * The amount of bytes of changes
+	 * in the journal file.
+	 */
+	private long savedSize;
+	
+	/**
+	 * Holds one change while it is encoded.
+	 */
+	private final ByteArrayOutputStream entry = new ByteArrayOutputStream();
+	private final DataOutputStream entryOut = new DataOutputStream(entry);
+	
+	/**
+	 * Creates the journal of a booklist file.
+	 * 
+	 * @param booklist the booklist file
+	 */
+	public LibraryJournal(File booklist) {
+		this.file = journalFile(booklist);
+		this.savedSize = file.exists() ? Math.max(0, file.length() - HEADER_SIZE) : 0;
+	}
+	
+	/**
+	 * @param booklist a booklist file
+	 * @return the journal file which belongs to it
+	 */
+	public static File journalFile(File booklist) {
+		return new File(booklist.getAbsoluteFile().getPath() + FILE_ENDING);
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @param book the book which was added
+	 */
+	public void recordAdd(Book book) {
+		try {
+			entryOut.writeByte(ADD);
+			BinaryBooklist.writeBook(entryOut, book);
+			endEntry();
+		} catch (IOException e) {
+			throw new IllegalStateException(e); 	//cannot happen in memory
+		}
+	}
+	
+	/**
+	 * @param index the position the book was inserted at
+	 * @param book the book which was inserted
+	 */
+	public void recordInsert(int index, Book book) {
+		try {
+			entryOut.writeByte(INSERT);
+			entryOut.writeInt(index);
+			BinaryBooklist.writeBook(entryOut, book);
+			endEntry();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * @param index the position of the book
+	 * @param book the new version of the book
+	 */
+	public void recordUpdate(int index, Book book) {
+		try {
+			entryOut.writeByte(UPDATE);
+			entryOut.writeInt(index);
+			BinaryBooklist.writeBook(entryOut, book);
+			endEntry();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * @param delete the positions of the books which
+	 * were deleted, in ascending order
+	 */
+	public void recordDelete(int[] delete) {
+		try {
+			entryOut.writeByte(DELETE);
+			entryOut.writeInt(delete.length);
+			for(int index : delete) {
+				entryOut.writeInt(index);
+			}
+			endEntry();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * @param by SORT_TITLES, SORT_AUTHORS or SORT_DATE
+	 * @param countSort the order of the sorting
+	 */
+	public void recordSort(byte by, int countSort) {
+		try {
+			entryOut.writeByte(SORT);
+			entryOut.writeByte(by);
+			entryOut.writeByte(countSort);
+			endEntry();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * @param from the old position of the book
+	 * @param to its new position
+	 */
+	public void recordMove(int from, int to) {
+		try {
+			entryOut.writeByte(MOVE);
+			entryOut.writeInt(from);
+			entryOut.writeInt(to);
+			endEntry();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Records a sorting which sorted equal books
+	 * by the rest of the book (see SortedIndex).
+	 * 
+	 * @param by SORT_TITLES, SORT_AUTHORS or SORT_DATE
+	 * @param countSort the order of the sorting
+	 */
+	public void recordOrder(byte by, int countSort) {
+		try {
+			entryOut.writeByte(ORDER);
+			entryOut.writeByte(by);
+			entryOut.writeByte(countSort);
+			endEntry();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * Adds the encoded change to the pending changes,
+	 * together with its length and checksum.
+	 */
+	private void endEntry() throws IOException {
+		
+		CRC32 crc = new CRC32();
+		crc.update(entry.toByteArray());
+		
+		pendingOut.writeInt(entry.size());
+		entry.writeTo(pendingOut);
+		pendingOut.writeInt((int) crc.getValue());
+		
+		entry.reset();
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return <code>true</code> if there are changes
+	 * which have not been saved yet.
+	 */
+	public boolean hasPending() {
+		return pending.size() > 0;
+	}
+	
+	/**
+	 * @return the size of the journal after
+	 * the pending changes are saved.
+	 */
+	public long size() {
+		return HEADER_SIZE + savedSize + pending.size();
+	}
+	
+	/**
+	 * @return <code>true</code> if the journal file exists.
+	 */
+	public boolean exists() {
+		return file.exists();
+	}
+	
+	/**
+	 * Returns the pending changes, so they can be saved
+	 * with append(File, byte[]). Afterwards there are
+	 * no pending changes.
+	 * 
+	 * @return the encoded changes
+	 */
+	public byte[] takePending() {
+		
+		byte[] entries = pending.toByteArray();
+		savedSize += entries.length;
+		pending.reset();
+		return entries;
+	}
+	
+	/**
+	 * Forgets the pending changes and the size of the
+	 * journal file, because all books are written to
+	 * the booklist file and the journal file is deleted.
+	 */
+	public void cleared() {
+		savedSize = 0;
+		pending.reset();
+	}
+	
+	/**
+	 * Appends changes to the journal of a booklist file
+	 * and makes sure they reach the disk. The journal
+	 * file is created if it does not exist yet.
+	 * 
+	 * <i> The booklist file must not change
+	 * as long as the journal exists. </i>
+	 * 
+	 * @param booklist the booklist file
+	 * @param entries the changes from takePending()
+	 * @throws IOException if the journal cannot be written
+	 */
+	public static void append(File booklist, byte[] entries) throws IOException {
+		
+		if(entries.length == 0) {
+			return;
+		}
+		
+		File file = journalFile(booklist);
+		
+		try (FileChannel channel = FileChannel.open(file.toPath(),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+			
+			long end = channel.size();
+			if(end < HEADER_SIZE) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.put(MAGIC);
+				header.putLong(booklist.length());
+				header.putLong(booklist.lastModified());
+				header.flip();
+				write(channel, header, 0);
+				end = HEADER_SIZE;
+			}
+			
+			write(channel, ByteBuffer.wrap(entries), end);
+			channel.force(false);
+		}
+	}
+	
+	private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+	
+	/**
+	 * Deletes the journal of a booklist file,
+	 * after all books were written to it.
+	 * 
+	 * @param booklist the booklist file
+	 * @throws IOException if the journal cannot be deleted
+	 */
+	public static void delete(File booklist) throws IOException {
+		Files.deleteIfExists(journalFile(booklist).toPath());
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Applies the changes of the journal of a booklist
+	 * file to the library which was read from the file.
+	 * 
+	 * @param library the library
+	 * @param booklist the file the library was read from
+	 * @return <code>true</code> if a journal was applied,
+	 * <code>false</code> if there is none for the file or
+	 * it was kept under another name (see Library.getKeptJournal())
+	 * @throws IOException if the journal cannot be read
+	 */
+	public static boolean replay(Library library, File booklist) throws IOException {
+		
+		File file = journalFile(booklist);
+		if(!file.exists()) {
+			return false;
+		}
+		
+		ByteBuffer journal = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		
+		if(journal.limit() < HEADER_SIZE || journal.getInt(0) != ByteBuffer.wrap(MAGIC).getInt()) {
+			/*
+			 * Keep the damaged journal for the user,
+			 * but out of the way of new changes.
+			 */
+			library.journalKept(keep(file, DAMAGED_ENDING));
+			return false;
+		}
+		if(journal.getLong(4) != booklist.length() || journal.getLong(12) != booklist.lastModified()) {
+			/*
+			 * The booklist file was changed after the journal was
+			 * started: by a save which could not remove the journal
+			 * anymore, but also by another program which appended
+			 * books or by a copy of a backup. The positions in the
+			 * journal may not fit to the books, so its changes are
+			 * not applied, but they are kept for the user.
+			 */
+			library.journalKept(keep(file, OUTDATED_ENDING));
+			return false;
+		}
+		
+		int position = HEADER_SIZE;
+		CRC32 crc = new CRC32();
+		
+		while(position + 4 <= journal.limit()) {
+			int length = journal.getInt(position);
+			int start = position + 4;
+			
+			if(length <= 0 || start + length + 4 > journal.limit()) {
+				break; 	//the last change was not written completely
+			}
+			
+			crc.reset();
+			crc.update(journal.array(), start, length);
+			if((int) crc.getValue() != journal.getInt(start + length)) {
+				break;
+			}
+			
+			apply(library, journal, start);
+			position = start + length + 4;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Moves a journal which is not applied out of the way
+	 * of new changes, without replacing a journal which
+	 * was kept before.
+	 * 
+	 * @param file the journal file
+	 * @param ending the ending which is added to its name
+	 * @return the file the journal was moved to
+	 */
+	private static File keep(File file, String ending) throws IOException {
+		
+		File kept = new File(file.getPath() + ending);
+		for(int i = 2; kept.exists(); i++) {
+			kept = new File(file.getPath() + ending + i);
+		}
+		Files.move(file.toPath(), kept.toPath());
+		return kept;
+	}
+	
+	/**
+	 * Applies a single change to the library.
+	 */
+	private static void apply(Library library, ByteBuffer journal, int start) throws IOException {
+		
+		int[] position = {start + 1};
+		
+		switch(journal.get(start)) {
+		case ADD:
+			library.insertBook(library.size(), BinaryBooklist.readBook(journal, position));
+			break;
+		case INSERT:
+			int at = journal.getInt(position[0]);
+			position[0] += 4;
+			library.insertBook(at, BinaryBooklist.readBook(journal, position));
+			break;
+		case UPDATE:
+			int index = journal.getInt(position[0]);
+			position[0] += 4;
+			library.replaceBook(index, BinaryBooklist.readBook(journal, position));
+			break;
+		case MOVE:
+			library.moveBook(journal.getInt(position[0]), journal.getInt(position[0] + 4));
+			break;
+		case DELETE:
+			int[] delete = new int[journal.getInt(position[0])];
+			for(int i = 0; i < delete.length; i++) {
+				delete[i] = journal.getInt(position[0] + 4 + 4 * i);
+			}
+			library.deleteBooks(delete);
+			break;
+		case SORT:
+		case ORDER:
+			library.sort(journal.get(position[0]), journal.get(position[0] + 1), journal.get(start) == ORDER);
+			break;
+		default:
+			throw new IOException("The journal contains an unknown change.");
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.util.BitSet;
+
+/**
+ * A LibraryListener is informed which books
+ * of a library changed, so a view only has
+ * to refresh these rows.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public interface LibraryListener {
+	
+	/**
+	 * @param first the position of the first new book
+	 * @param last the position of the last new book
+	 */
+	void booksInserted(int first, int last);
+	
+	/**
+	 * @param first the position of the first changed book
+	 * @param last the position of the last changed book
+	 */
+	void booksUpdated(int first, int last);
+	
+	/**
+	 * @param first the position the first removed book had
+	 * @param last the position the last removed book had
+	 */
+	void booksDeleted(int first, int last);
+	
+	/**
+	 * Books were deleted at once, they need not
+	 * stand next to each other.
+	 * 
+	 * @param positions the positions the removed books had
+	 */
+	void booksDeleted(BitSet positions);
+}
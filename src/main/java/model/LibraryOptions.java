@@ -0,0 +1,267 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+/**
+ * This class holds the options which determine
+ * how a library is loaded and stored.
+ * 
+ * The options can be given as program arguments:
+ * <ul>
+ * <li><i>--parallel</i> parse the file on all cores</li>
+ * <li><i>--threads=N</i> parse and sort on N threads</li>
+ * <li><i>--sort-threshold=N</i> sort on several threads
+ * from N books on</li>
+ * <li><i>--paged</i> leave the books in the file and read
+ * only the books which are shown</li>
+ * <li><i>--columnar</i> keep the books in columns of ints,
+ * which need less memory and sort faster</li>
+ * <li><i>--off-heap</i> keep the books encoded outside
+ * of the heap, for libraries with millions of books</li>
+ * <li><i>--journal</i> save only the changes to a journal</li>
+ * <li><i>--delta</i> write only the changed books into
+ * the file when it is saved</li>
+ * <li><i>--no-sync</i> do not wait until a saved file
+ * reached the disk (faster, but not safe on power loss)</li>
+ * </ul>
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class LibraryOptions {
+	
+	/**
+	 * How the file is parsed.
+	 */
+	private LoadMode loadMode;
+	
+	/**
+	 * The amount of threads which are used
+	 * to parse a file and to sort in parallel.
+	 */
+	private int parallelism;
+	
+	/**
+	 * The smallest amount of books which
+	 * are sorted on several threads.
+	 */
+	private int parallelSortThreshold;
+	
+	/**
+	 * Where the books are kept.
+	 */
+	private StorageMode storageMode;
+	
+	/**
+	 * True if only the changes are saved.
+	 */
+	private boolean journaling;
+	
+	/**
+	 * The size in bytes the journal may reach, before
+	 * all books are written to the file again.
+	 */
+	private long journalThreshold;
+	
+	/**
+	 * True if a saved file is forced to the disk
+	 * before it replaces the old one.
+	 */
+	private boolean syncOnSave;
+	
+	/**
+	 * True if only the changed books are written
+	 * into the file when it is saved.
+	 */
+	private boolean deltaSaving;
+	
+	/**
+	 * Constructor with the default options.
+	 */
+	public LibraryOptions() {
+		loadMode = LoadMode.SEQUENTIAL;
+		parallelism = Runtime.getRuntime().availableProcessors();
+		parallelSortThreshold = 1 << 16;
+		storageMode = StorageMode.MEMORY;
+		journaling = false;
+		journalThreshold = 4 << 20;
+		syncOnSave = true;
+		deltaSaving = false;
+	}
+	
+	/**
+	 * Creates the options from the arguments
+	 * the program was started with.
+	 * Unknown arguments are ignored.
+	 * 
+	 * @param args the program arguments
+	 * @return the options
+	 */
+	public static LibraryOptions fromArguments(String[] args) {
+		
+		LibraryOptions options = new LibraryOptions();
+		
+		for(String arg : args) {
+			if(arg.equals("--parallel")) {
+				options.setLoadMode(LoadMode.PARALLEL);
+			} else if(arg.startsWith("--threads=")) {
+				options.setLoadMode(LoadMode.PARALLEL);
+				options.setParallelism(Integer.parseInt(arg.substring("--threads=".length())));
+			} else if(arg.startsWith("--sort-threshold=")) {
+				options.setParallelSortThreshold(Integer.parseInt(arg.substring("--sort-threshold=".length())));
+			} else if(arg.equals("--paged")) {
+				options.setStorageMode(StorageMode.PAGED);
+			} else if(arg.equals("--columnar")) {
+				options.setStorageMode(StorageMode.COLUMNAR);
+			} else if(arg.equals("--off-heap")) {
+				options.setStorageMode(StorageMode.OFF_HEAP);
+			} else if(arg.equals("--journal")) {
+				options.setJournaling(true);
+			} else if(arg.equals("--delta")) {
+				options.setDeltaSaving(true);
+			} else if(arg.equals("--no-sync")) {
+				options.setSyncOnSave(false);
+			}
+		}
+		
+		return options;
+	}
+	
+	//#######################################################################
+
+	/**
+	 * @return how the file is parsed
+	 */
+	public LoadMode getLoadMode() {
+		return loadMode;
+	}
+
+	/**
+	 * @param loadMode how the file shall be parsed
+	 */
+	public void setLoadMode(LoadMode loadMode) {
+		this.loadMode = loadMode;
+	}
+
+	/**
+	 * @return the amount of threads which are used
+	 * to parse a file and to sort in parallel
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * @param parallelism the amount of threads which shall
+	 * be used to parse a file and to sort in parallel
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = Math.max(1, parallelism);
+	}
+	
+	/**
+	 * @return the smallest amount of books
+	 * which are sorted on several threads
+	 */
+	public int getParallelSortThreshold() {
+		return parallelSortThreshold;
+	}
+	
+	/**
+	 * @param parallelSortThreshold the smallest amount of
+	 * books which shall be sorted on several threads
+	 */
+	public void setParallelSortThreshold(int parallelSortThreshold) {
+		this.parallelSortThreshold = Math.max(0, parallelSortThreshold);
+	}
+
+	/**
+	 * @return where the books are kept
+	 */
+	public StorageMode getStorageMode() {
+		return storageMode;
+	}
+
+	/**
+	 * @param storageMode where the books shall be kept
+	 */
+	public void setStorageMode(StorageMode storageMode) {
+		this.storageMode = storageMode;
+	}
+
+	/**
+	 * @return true if only the changes are saved
+	 */
+	public boolean isJournaling() {
+		return journaling;
+	}
+
+	/**
+	 * @param journaling true if only the changes shall be saved
+	 */
+	public void setJournaling(boolean journaling) {
+		this.journaling = journaling;
+	}
+
+	/**
+	 * @return the size in bytes the journal may reach
+	 */
+	public long getJournalThreshold() {
+		return journalThreshold;
+	}
+
+	/**
+	 * @param journalThreshold the size in bytes the journal may reach
+	 */
+	public void setJournalThreshold(long journalThreshold) {
+		this.journalThreshold = journalThreshold;
+	}
+
+	/**
+	 * @return true if a saved file is forced to the disk
+	 */
+	public boolean isSyncOnSave() {
+		return syncOnSave;
+	}
+
+	/**
+	 * @param syncOnSave true if a saved file shall be forced
+	 * to the disk before it replaces the old one
+	 */
+	public void setSyncOnSave(boolean syncOnSave) {
+		this.syncOnSave = syncOnSave;
+	}
+
+	/**
+	 * @return true if only the changed books
+	 * are written when the file is saved
+	 */
+	public boolean isDeltaSaving() {
+		return deltaSaving;
+	}
+
+	/**
+	 * @param deltaSaving true if only the changed books
+	 * shall be written when the file is saved
+	 */
+	public void setDeltaSaving(boolean deltaSaving) {
+		this.deltaSaving = deltaSaving;
+	}
+}
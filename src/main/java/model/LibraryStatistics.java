@@ -0,0 +1,283 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Counts the books of a library per author, per year and
+ * per month. The library counts its books while its file
+ * is read, afterwards every added, edited and deleted book
+ * only changes the counters of its author and its date, so
+ * reading a number never walks through the books.
+ * 
+ * The years and months are the ones of the packed date:
+ * year 0 stands for books without a year, month 0 for
+ * books without a month. Books with an irregular date
+ * are counted apart. A book which is changed in place
+ * instead of being replaced by updateBook() is still
+ * counted with its old author and date.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class LibraryStatistics {
+	
+	/**
+	 * The amount of books of every author which has books.
+	 */
+	private final HashMap<Author, Count> authors = new HashMap<Author, Count>();
+	
+	/**
+	 * The amount of books of every year, up to 9999.
+	 */
+	private final int[] years = new int[10000];
+	
+	/**
+	 * The amount of years (other than 0) which have books.
+	 */
+	private int yearCount;
+	
+	/**
+	 * The amount of books of every month, the
+	 * month of the packed date has two digits.
+	 */
+	private final int[] months = new int[100];
+	
+	private int irregular;
+	
+	private int size;
+	
+	/**
+	 * Creates empty statistics.
+	 */
+	LibraryStatistics() {
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return the amount of books
+	 */
+	public int getBookCount() {
+		return size;
+	}
+	
+	/**
+	 * @param author an author
+	 * @return the amount of books of the author
+	 */
+	public int booksOf(Author author) {
+		Count count = authors.get(author);
+		return count == null ? 0 : count.value;
+	}
+	
+	/**
+	 * @return the amount of authors which have books
+	 */
+	public int getAuthorCount() {
+		return authors.size();
+	}
+	
+	/**
+	 * @param year a year, 0 for books without a year
+	 * @return the amount of books of the year
+	 */
+	public int booksIn(int year) {
+		return year >= 0 && year < years.length ? years[year] : 0;
+	}
+	
+	/**
+	 * @return the amount of years which have books,
+	 * without the books without a year
+	 */
+	public int getYearCount() {
+		return yearCount;
+	}
+	
+	/**
+	 * @param month a month from 1 to 12, 0 for books without a month
+	 * @return the amount of books of the month, of every year
+	 */
+	public int booksInMonth(int month) {
+		return month >= 0 && month < months.length ? months[month] : 0;
+	}
+	
+	/**
+	 * @return the amount of books whose date
+	 * is no month and year (Book.DATE_IRREGULAR)
+	 */
+	public int booksWithIrregularDate() {
+		return irregular;
+	}
+	
+	/**
+	 * @return the amount of books of every author,
+	 * a copy which is not changed afterwards
+	 */
+	public Map<Author, Integer> getBooksPerAuthor() {
+		HashMap<Author, Integer> copy = new HashMap<Author, Integer>(authors.size() * 2);
+		for(Map.Entry<Author, Count> entry : authors.entrySet()) {
+			copy.put(entry.getKey(), entry.getValue().value);
+		}
+		return copy;
+	}
+	
+	/**
+	 * @return the amount of books of every year which
+	 * has books, sorted by year; year 0 for books without
+	 * a year. A copy which is not changed afterwards.
+	 */
+	public SortedMap<Integer, Integer> getBooksPerYear() {
+		TreeMap<Integer, Integer> copy = new TreeMap<Integer, Integer>();
+		for(int year = 0; year < years.length; year++) {
+			if(years[year] > 0) {
+				copy.put(year, years[year]);
+			}
+		}
+		return copy;
+	}
+	
+	/**
+	 * @return the amount of books of every month, of
+	 * every year: index 1 for January to 12 for December,
+	 * index 0 for books without a month. A copy.
+	 */
+	public int[] getBooksPerMonth() {
+		int[] copy = new int[13];
+		System.arraycopy(months, 0, copy, 0, copy.length);
+		return copy;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Counts a book which was added to the library.
+	 * 
+	 * @param book the book
+	 */
+	void added(Book book) {
+		added(book.getAuthorEntry(), book.getPackedDate());
+	}
+	
+	/**
+	 * Counts a book by its author and date. A store
+	 * which keeps bytes counts its books with this,
+	 * without creating a Book for each of them.
+	 * 
+	 * @param author the author of the book
+	 * @param date the packed date of the book
+	 */
+	void added(Author author, int date) {
+		
+		Count count = authors.get(author);
+		if(count == null) {
+			count = new Count();
+			authors.put(author, count);
+		}
+		count.value++;
+		
+		if(date == Book.DATE_IRREGULAR) {
+			irregular++;
+		} else {
+			if(years[date / 100]++ == 0 && date >= 100) {
+				yearCount++;
+			}
+			months[date % 100]++;
+		}
+		size++;
+	}
+	
+	/**
+	 * Stops counting a book which was removed from the library.
+	 * An author which was not counted gets -1 books, so the
+	 * statistics can also hold only the changes of a library.
+	 * 
+	 * @param book the book, as it was counted
+	 */
+	void removed(Book book) {
+		
+		Author author = book.getAuthorEntry();
+		Count count = authors.get(author);
+		if(count == null) {
+			count = new Count();
+			authors.put(author, count);
+		}
+		if(--count.value == 0) {
+			authors.remove(author);
+		}
+		
+		int date = book.getPackedDate();
+		if(date == Book.DATE_IRREGULAR) {
+			irregular--;
+		} else {
+			if(--years[date / 100] == 0 && date >= 100) {
+				yearCount--;
+			}
+			months[date % 100]--;
+		}
+		size--;
+	}
+	
+	/**
+	 * Adds the counters of other statistics, for example
+	 * the changes which were made to a library while its
+	 * books were counted.
+	 * 
+	 * @param changes the statistics which are added
+	 */
+	void addAll(LibraryStatistics changes) {
+		
+		for(Map.Entry<Author, Count> entry : changes.authors.entrySet()) {
+			Count count = authors.get(entry.getKey());
+			if(count == null) {
+				count = new Count();
+				authors.put(entry.getKey(), count);
+			}
+			count.value += entry.getValue().value;
+			if(count.value == 0) {
+				authors.remove(entry.getKey());
+			}
+		}
+		
+		yearCount = 0;
+		for(int year = 0; year < years.length; year++) {
+			years[year] += changes.years[year];
+			if(year > 0 && years[year] > 0) {
+				yearCount++;
+			}
+		}
+		for(int month = 0; month < months.length; month++) {
+			months[month] += changes.months[month];
+		}
+		irregular += changes.irregular;
+		size += changes.size;
+	}
+	
+	/**
+	 * The counter of an author, changed in place.
+	 */
+	private static class Count {
+		
+		private int value;
+	}
+}
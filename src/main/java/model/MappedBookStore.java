@@ -0,0 +1,516 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * This BookStore leaves the books in a mapped file.
+ * 
+ * Only a reference to every book in the file is kept
+ * in memory. A book is read from the file when it is
+ * needed and stays in a small cache, books which were not
+ * used for a while are removed from the cache again.
+ * 
+ * Books which are added or changed are kept in memory
+ * until the library is saved, afterwards the store reads
+ * them from the new file as well.
+ * 
+ * The subclasses determine how the references are found
+ * and how a book is read from the file.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public abstract class MappedBookStore implements BookStore {
+	
+	/**
+	 * The amount of books which are kept in the cache.
+	 * It is a lot more than a window can show at once.
+	 */
+	private static final int CACHE_SIZE = 1024;
+	
+	/**
+	 * The content of the file.
+	 */
+	protected MappedByteBuffer map;
+	
+	/**
+	 * One entry for every book in the order of the store.
+	 * 
+	 * A positive entry (or 0) references a book in the file,
+	 * a negative entry <i>-(i + 1)</i> stands for the book
+	 * <i>i</i> in <i>changedBooks</i>.
+	 * 
+	 * If it is <code>null</code>, the store holds the books
+	 * of the file in their order and book <i>i</i> has the
+	 * reference <i>i</i>.
+	 */
+	private int[] refs;
+	protected int size;
+	
+	/**
+	 * Books which were added or changed
+	 * since the file was read.
+	 */
+	private final ArrayList<Book> changedBooks = new ArrayList<Book>();
+	
+	/**
+	 * True if a snapshot uses the references too,
+	 * they are copied before one of them is changed.
+	 */
+	private boolean shared;
+	
+	/**
+	 * The books which were read last,
+	 * the key is the position in the file.
+	 */
+	private final LinkedHashMap<Integer, Book> cache =
+			new LinkedHashMap<Integer, Book>(CACHE_SIZE * 2, 0.75f, true) {
+		
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, Book> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+	
+	/**
+	 * Maps the file and finds the books in it.
+	 * 
+	 * @param file the file of the store
+	 * @throws IOException
+	 * if the file cannot be opened or read
+	 */
+	protected void open(File file) throws IOException {
+		
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel()) {
+			map = BooklistParser.map(channel);
+		}
+		
+		refs = null;
+		size = 0;
+		changedBooks.clear();
+		cache.clear();
+		
+		index();
+	}
+	
+	/**
+	 * Finds the books in the mapped file.
+	 * Either all references are added with
+	 * <i>append(int)</i> or <i>size</i> is set
+	 * to the amount of books in the file.
+	 * 
+	 * @throws IOException if the file is damaged
+	 */
+	protected abstract void index() throws IOException;
+	
+	/**
+	 * Reads a book from the mapped file.
+	 * 
+	 * @param map the content of the file, a snapshot
+	 * keeps reading it when the store is closed
+	 * @param ref the reference of the book
+	 * @return the book
+	 */
+	protected abstract Book read(ByteBuffer map, int ref);
+	
+	/**
+	 * Tells if a book of the file matches the filter.
+	 * This reads the book, a store which can compare
+	 * its bytes overrides it.
+	 * 
+	 * @param map the mapped file
+	 * @param ref the reference of the book
+	 * @param filter the conditions
+	 * @return true if the book matches
+	 */
+	protected boolean matches(ByteBuffer map, int ref, BookFilter filter) {
+		return filter.matches(read(map, ref));
+	}
+	
+	/**
+	 * Counts the author and the date of a book of the file.
+	 * This reads the book, a store which can take them
+	 * from its bytes overrides it.
+	 * 
+	 * @param map the mapped file
+	 * @param ref the reference of the book
+	 * @param statistics the statistics the book is added to
+	 */
+	protected void count(ByteBuffer map, int ref, LibraryStatistics statistics) {
+		statistics.added(read(map, ref));
+	}
+	
+	//#######################################################################
+
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	@Override
+	public synchronized Book get(int index) {
+		
+		checkIndex(index);
+		int ref = ref(index);
+		
+		if(ref < 0) {
+			return changedBooks.get(-ref - 1);
+		}
+		
+		Book book = cache.get(ref);
+		if(book == null) {
+			book = read(map, ref);
+			cache.put(ref, book);
+		}
+		return book;
+	}
+
+	@Override
+	public synchronized void set(int index, Book book) {
+		
+		checkIndex(index);
+		prepareChange();
+		int ref = ref(index);
+		
+		if(ref < 0) {
+			changedBooks.set(-ref - 1, book);
+		} else {
+			references()[index] = keep(book);
+		}
+	}
+
+	@Override
+	public synchronized void add(Book book) {
+		checkWritable();
+		references();
+		append(keep(book));
+	}
+
+	@Override
+	public synchronized void insert(int index, Book book) {
+		
+		if(index == size) {
+			add(book);
+			return;
+		}
+		checkIndex(index);
+		prepareChange();
+		references();
+		append(keep(book));
+		
+		int ref = refs[size - 1];
+		System.arraycopy(refs, index, refs, index + 1, size - 1 - index);
+		refs[index] = ref;
+	}
+
+	@Override
+	public synchronized void remove(int index) {
+		
+		checkIndex(index);
+		prepareChange();
+		int ref = ref(index);
+		
+		if(ref < 0) {
+			changedBooks.set(-ref - 1, null); 	//let the book be collected
+		}
+		
+		int[] refs = references();
+		System.arraycopy(refs, index + 1, refs, index, size - index - 1);
+		size--;
+	}
+
+	@Override
+	public synchronized void removeAll(BitSet positions) {
+		
+		prepareChange();
+		int[] refs = references();
+		int kept = 0;
+		for(int i = 0; i < size; i++) {
+			if(!positions.get(i)) {
+				refs[kept++] = refs[i];
+			} else if(refs[i] < 0) {
+				changedBooks.set(-refs[i] - 1, null);
+			}
+		}
+		size = kept;
+	}
+
+	/**
+	 * Changed and cached books are compared as Books,
+	 * the others in the file through <i>matches()</i>.
+	 */
+	@Override
+	public synchronized void select(BookFilter filter, BitSet rows) {
+		for(int i = 0; i < size; i++) {
+			int ref = ref(i);
+			Book book = ref < 0 ? changedBooks.get(-ref - 1) : cache.get(ref);
+			if(book != null ? filter.matches(book) : matches(map, ref, filter)) {
+				rows.set(i);
+			}
+		}
+	}
+	
+	/**
+	 * Changed and cached books are counted as Books,
+	 * the others in the file through <i>count()</i>.
+	 */
+	@Override
+	public synchronized void count(LibraryStatistics statistics) {
+		for(int i = 0; i < size; i++) {
+			int ref = ref(i);
+			Book book = ref < 0 ? changedBooks.get(-ref - 1) : cache.get(ref);
+			if(book != null) {
+				statistics.added(book);
+			} else {
+				count(map, ref, statistics);
+			}
+		}
+	}
+	
+	/**
+	 * Sorts the books. To compare the books all
+	 * of them are read from the file, they are
+	 * released again after the sorting.
+	 */
+	@Override
+	public synchronized int[] sort(final Comparator<Book> comparator, BookSort sorter) {
+		
+		prepareChange();
+		Row[] rows = new Row[size];
+		for(int i = 0; i < size; i++) {
+			int ref = ref(i);
+			rows[i] = new Row(i, ref, ref < 0 ? changedBooks.get(-ref - 1) : read(map, ref));
+		}
+		
+		sorter.sort(rows, (Row r1, Row r2) -> comparator.compare(r1.book, r2.book));
+		
+		int[] refs = references();
+		int[] order = new int[size];
+		for(int i = 0; i < size; i++) {
+			refs[i] = rows[i].ref;
+			order[i] = rows[i].index;
+		}
+		return order;
+	}
+
+	@Override
+	public synchronized Vector<Book> getBooks() {
+		
+		Vector<Book> books = new Vector<Book>(size);
+		for(int i = 0; i < size; i++) {
+			int ref = ref(i);
+			books.add(ref < 0 ? changedBooks.get(-ref - 1) : read(map, ref));
+		}
+		return books;
+	}
+
+	/**
+	 * Shares the mapped file and the references with the
+	 * snapshot. Only the books which were changed since
+	 * the file was read are copied into it.
+	 */
+	@Override
+	public synchronized BookStore snapshot() {
+		shared = true;
+		return new Snapshot(this);
+	}
+
+	@Override
+	public boolean readsFromFile() {
+		return true;
+	}
+
+	@Override
+	public synchronized void close() {
+		map = null;
+		cache.clear();
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return the reference of the book at the position
+	 */
+	private int ref(int index) {
+		return refs == null ? index : refs[index];
+	}
+	
+	/**
+	 * Returns the references and creates them
+	 * first if the store still holds the books
+	 * of the file in their order.
+	 */
+	private int[] references() {
+		
+		if(refs == null) {
+			refs = new int[Math.max(16, size + size / 2)];
+			for(int i = 0; i < size; i++) {
+				refs[i] = i;
+			}
+		}
+		return refs;
+	}
+	
+	/**
+	 * Keeps a book in memory.
+	 * 
+	 * @return the entry for <i>refs</i>
+	 */
+	private int keep(Book book) {
+		changedBooks.add(book);
+		return -changedBooks.size();
+	}
+	
+	/**
+	 * Adds a reference at the end.
+	 * 
+	 * @param ref the reference of the book
+	 */
+	protected void append(int ref) {
+		
+		if(refs == null) {
+			refs = new int[16];
+		}
+		if(size == refs.length) {
+			refs = Arrays.copyOf(refs, refs.length * 2);
+		}
+		refs[size++] = ref;
+	}
+	
+	/**
+	 * Is called before a reference is changed.
+	 */
+	private void prepareChange() {
+		checkWritable();
+		if(shared && refs != null) {
+			refs = refs.clone();
+		}
+		shared = false;
+	}
+	
+	/**
+	 * @throws UnsupportedOperationException
+	 * if the store is a snapshot
+	 */
+	protected void checkWritable() {
+		//every store can be changed, except snapshots
+	}
+	
+	private void checkIndex(int index) {
+		if(index < 0 || index >= size) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+	}
+	
+	/**
+	 * The books of a store at the time the snapshot
+	 * was taken. It reads them with the store it
+	 * was taken from.
+	 */
+	private static class Snapshot extends MappedBookStore {
+		
+		private final MappedBookStore store;
+		
+		Snapshot(MappedBookStore store) {
+			this.store = store;
+			copyState(store, this);
+		}
+		
+		@Override
+		protected void index() {
+			//the references are taken from the store
+		}
+		
+		@Override
+		protected Book read(ByteBuffer map, int ref) {
+			return store.read(map, ref);
+		}
+		
+		@Override
+		protected boolean matches(ByteBuffer map, int ref, BookFilter filter) {
+			return store.matches(map, ref, filter);
+		}
+		
+		@Override
+		protected void count(ByteBuffer map, int ref, LibraryStatistics statistics) {
+			store.count(map, ref, statistics);
+		}
+		
+		@Override
+		protected void checkWritable() {
+			throw new UnsupportedOperationException("A snapshot cannot be changed.");
+		}
+		
+		@Override
+		public BookStore snapshot() {
+			return this;
+		}
+		
+		@Override
+		public synchronized void close() {
+			map = null;
+		}
+	}
+	
+	/**
+	 * Gives a snapshot the map, the references
+	 * and the changed books of a store.
+	 */
+	private static void copyState(MappedBookStore store, MappedBookStore snapshot) {
+		snapshot.map = store.map;
+		snapshot.refs = store.refs;
+		snapshot.size = store.size;
+		snapshot.changedBooks.addAll(store.changedBooks);
+	}
+	
+	/**
+	 * A book together with its position and its entry in <i>refs</i>,
+	 * needed while the books are sorted.
+	 */
+	private static class Row {
+		
+		private final int index;
+		private final int ref;
+		private final Book book;
+		
+		Row(int index, int ref, Book book) {
+			this.index = index;
+			this.ref = ref;
+			this.book = book;
+		}
+	}
+}
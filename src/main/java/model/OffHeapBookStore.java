@@ -0,0 +1,524 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Vector;
+
+/**
+ * This BookStore keeps the books outside of the heap.
+ * 
+ * Every book is encoded like in a binary booklist and
+ * written into segments of a temporary file which is
+ * mapped into memory. The position of every book is
+ * kept in an index, which is mapped as well. The heap
+ * only holds the segments, no matter how many books
+ * the store has, so the garbage collector does not
+ * need to look at millions of Books and Strings.
+ * 
+ * A Book is only created when it is asked for.
+ * A changed or removed book leaves its old bytes
+ * behind, they are removed when there are more
+ * of them than bytes of books.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class OffHeapBookStore implements BookStore {
+	
+	/**
+	 * The size of a segment for books. A book which
+	 * is larger gets a segment of its own.
+	 */
+	private static final int SEGMENT_SIZE = 1 << 24;
+	
+	/**
+	 * The amount of positions in a segment of the index.
+	 */
+	private static final int INDEX_SEGMENT_SIZE = 1 << 20;
+	
+	private File tempFile;
+	private FileChannel channel;
+	
+	/**
+	 * Where the next segment starts in the temporary file.
+	 */
+	private long fileEnd;
+	
+	/**
+	 * The books, each one as an int with its
+	 * length followed by its bytes. Books are
+	 * only written into the last segment.
+	 */
+	private ArrayList<ByteBuffer> segments;
+	
+	/**
+	 * The position of every book in the order of the
+	 * store, as <i>segment &lt;&lt; 32 | offset</i>.
+	 */
+	private ArrayList<LongBuffer> index;
+	private int size;
+	
+	/*
+	 * The bytes written into the segments and
+	 * the bytes which still belong to a book.
+	 */
+	private long usedBytes;
+	private long liveBytes;
+	
+	/**
+	 * True if a snapshot uses the index too, it is
+	 * copied before a position in it is changed.
+	 * The books in the segments are never changed.
+	 */
+	private boolean shared;
+	
+	/**
+	 * True if this store is a snapshot.
+	 */
+	private final boolean readOnly;
+	
+	private final ByteArrayOutputStream encoded = new ByteArrayOutputStream(256);
+	private final DataOutputStream encoder = new DataOutputStream(encoded);
+	
+	/**
+	 * Creates an empty store and its temporary file.
+	 * 
+	 * @throws IOException if the temporary file
+	 * cannot be created
+	 */
+	public OffHeapBookStore() throws IOException {
+		readOnly = false;
+		open();
+	}
+	
+	/**
+	 * Constructor for a snapshot of a store. The mapped
+	 * segments stay valid when the temporary file of the
+	 * store is closed.
+	 */
+	private OffHeapBookStore(OffHeapBookStore store) {
+		readOnly = true;
+		segments = new ArrayList<ByteBuffer>(store.segments);
+		index = new ArrayList<LongBuffer>(store.index);
+		size = store.size;
+	}
+	
+	/**
+	 * Copies the books of another store. Only one
+	 * of its books is needed on the heap at a time.
+	 * 
+	 * @param books the books which are copied
+	 * @throws IOException if the temporary file
+	 * cannot be created
+	 */
+	public OffHeapBookStore(BookStore books) throws IOException {
+		this();
+		for(int i = 0; i < books.size(); i++) {
+			add(books.get(i));
+		}
+	}
+	
+	private void open() throws IOException {
+		
+		tempFile = File.createTempFile("books", ".offheap");
+		tempFile.deleteOnExit();
+		channel = new RandomAccessFile(tempFile, "rw").getChannel();
+		fileEnd = 0;
+		segments = new ArrayList<ByteBuffer>();
+		index = new ArrayList<LongBuffer>();
+		usedBytes = 0;
+		liveBytes = 0;
+	}
+	
+	//#######################################################################
+
+	@Override
+	public synchronized int size() {
+		return size;
+	}
+
+	@Override
+	public synchronized Book get(int index) {
+		checkIndex(index);
+		return read(position(index));
+	}
+
+	@Override
+	public synchronized void set(int index, Book book) {
+		
+		checkIndex(index);
+		prepareChange();
+		liveBytes -= length(position(index));
+		setPosition(index, write(book));
+		compactIfWasteful();
+	}
+
+	@Override
+	public synchronized void add(Book book) {
+		
+		checkWritable();
+		long position = write(book);
+		if(size == index.size() * INDEX_SEGMENT_SIZE) {
+			index.add(map(8L * INDEX_SEGMENT_SIZE).asLongBuffer());
+		}
+		setPosition(size++, position);
+	}
+
+	@Override
+	public synchronized void insert(int index, Book book) {
+		
+		if(index == size) {
+			add(book);
+			return;
+		}
+		checkIndex(index);
+		prepareChange();
+		long position = write(book);
+		if(size == this.index.size() * INDEX_SEGMENT_SIZE) {
+			this.index.add(map(8L * INDEX_SEGMENT_SIZE).asLongBuffer());
+		}
+		for(int i = size; i > index; i--) {
+			setPosition(i, position(i - 1));
+		}
+		setPosition(index, position);
+		size++;
+	}
+
+	@Override
+	public synchronized void remove(int index) {
+		
+		checkIndex(index);
+		prepareChange();
+		liveBytes -= length(position(index));
+		for(int i = index + 1; i < size; i++) {
+			setPosition(i - 1, position(i));
+		}
+		size--;
+		compactIfWasteful();
+	}
+
+	@Override
+	public synchronized void removeAll(BitSet positions) {
+		
+		prepareChange();
+		int kept = 0;
+		for(int i = 0; i < size; i++) {
+			long position = position(i);
+			if(!positions.get(i)) {
+				setPosition(kept++, position);
+			} else {
+				liveBytes -= length(position);
+			}
+		}
+		size = kept;
+		compactIfWasteful();
+	}
+
+	/**
+	 * Compares the encoded books,
+	 * only matching books are created.
+	 */
+	@Override
+	public synchronized void select(BookFilter filter, BitSet rows) {
+		for(int i = 0; i < size; i++) {
+			long position = position(i);
+			if(BinaryBooklist.matches(segments.get((int) (position >>> 32)), (int) position + 4, filter)) {
+				rows.set(i);
+			}
+		}
+	}
+	
+	/**
+	 * Counts the encoded books, no Book is created.
+	 */
+	@Override
+	public synchronized void count(LibraryStatistics statistics) {
+		for(int i = 0; i < size; i++) {
+			long position = position(i);
+			BinaryBooklist.count(segments.get((int) (position >>> 32)), (int) position + 4, statistics);
+		}
+	}
+	
+	/**
+	 * Sorts the books. To compare the books all of
+	 * them are created, they are released again after
+	 * the sorting. Only the index is changed.
+	 */
+	@Override
+	public synchronized int[] sort(Comparator<Book> comparator, BookSort sorter) {
+		
+		prepareChange();
+		Row[] rows = new Row[size];
+		for(int i = 0; i < size; i++) {
+			long position = position(i);
+			rows[i] = new Row(i, position, read(position));
+		}
+		
+		sorter.sort(rows, (Row r1, Row r2) -> comparator.compare(r1.book, r2.book));
+		
+		int[] order = new int[size];
+		for(int i = 0; i < size; i++) {
+			setPosition(i, rows[i].position);
+			order[i] = rows[i].index;
+		}
+		compactIfWasteful();
+		return order;
+	}
+
+	@Override
+	public synchronized Vector<Book> getBooks() {
+		
+		Vector<Book> books = new Vector<Book>(size);
+		for(int i = 0; i < size; i++) {
+			books.add(read(position(i)));
+		}
+		return books;
+	}
+
+	/**
+	 * Shares the segments and the index with
+	 * the snapshot, nothing is copied.
+	 */
+	@Override
+	public synchronized BookStore snapshot() {
+		if(readOnly) {
+			return this;
+		}
+		shared = true;
+		return new OffHeapBookStore(this);
+	}
+
+	@Override
+	public boolean readsFromFile() {
+		return false;
+	}
+
+	/**
+	 * Releases the segments and deletes the temporary
+	 * file. The mapped memory is given back when the
+	 * segments are collected.
+	 */
+	@Override
+	public synchronized void close() {
+		
+		segments.clear();
+		index.clear();
+		size = 0;
+		if(readOnly) {
+			return; 	//the file belongs to the store
+		}
+		try {
+			channel.close();
+		} catch (IOException e) {
+			System.out.println("The temporary file of the books could not be closed.\n"
+					+ "Errormessage is" + e.getMessage());
+		}
+		tempFile.delete();
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Encodes a book and writes it behind
+	 * the last book in the segments.
+	 * 
+	 * @return the position of the book
+	 */
+	private long write(Book book) {
+		
+		encoded.reset();
+		try {
+			BinaryBooklist.writeBook(encoder, book);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); 	//cannot happen, it is written into an array
+		}
+		return append(encoded.toByteArray(), 0, encoded.size());
+	}
+	
+	/**
+	 * Writes the bytes of a book behind the last book.
+	 * 
+	 * @return the position of the book
+	 */
+	private long append(byte[] bytes, int offset, int length) {
+		
+		ByteBuffer segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+		if(segment == null || segment.remaining() < 4 + length) {
+			segment = map(Math.max(SEGMENT_SIZE, 4 + length));
+			segments.add(segment);
+		}
+		
+		long position = ((long) (segments.size() - 1) << 32) | segment.position();
+		segment.putInt(length);
+		segment.put(bytes, offset, length);
+		usedBytes += 4 + length;
+		liveBytes += 4 + length;
+		return position;
+	}
+	
+	private Book read(long position) {
+		return BinaryBooklist.readBook(segments.get((int) (position >>> 32)), (int) position + 4);
+	}
+	
+	/**
+	 * @return the bytes a book needs in its segment
+	 */
+	private int length(long position) {
+		return 4 + segments.get((int) (position >>> 32)).getInt((int) position);
+	}
+	
+	/**
+	 * Maps the next part of the temporary file.
+	 * 
+	 * @param bytes the size of the part
+	 * @return the part
+	 */
+	private ByteBuffer map(long bytes) {
+		
+		try {
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, fileEnd, bytes);
+			fileEnd += bytes;
+			return buffer;
+		} catch (IOException e) {
+			throw new UncheckedIOException("The books do not fit into the temporary file.", e);
+		}
+	}
+	
+	private long position(int index) {
+		return this.index.get(index / INDEX_SEGMENT_SIZE).get(index % INDEX_SEGMENT_SIZE);
+	}
+	
+	private void setPosition(int index, long position) {
+		this.index.get(index / INDEX_SEGMENT_SIZE).put(index % INDEX_SEGMENT_SIZE, position);
+	}
+	
+	/**
+	 * Copies the books into a new temporary file, when
+	 * more than half of the segments are old bytes.
+	 */
+	private void compactIfWasteful() {
+		
+		long waste = usedBytes - liveBytes;
+		if(waste < SEGMENT_SIZE || waste < liveBytes) {
+			return;
+		}
+		
+		ArrayList<ByteBuffer> oldSegments = segments;
+		ArrayList<LongBuffer> oldIndex = index;
+		FileChannel oldChannel = channel;
+		File oldFile = tempFile;
+		try {
+			open();
+			shared = false;
+		} catch (IOException e) {
+			System.out.println("The books could not be compacted.\n"
+					+ "Errormessage is" + e.getMessage());
+			return;
+		}
+		
+		byte[] bytes = new byte[256];
+		for(int i = 0; i < size; i++) {
+			if(i % INDEX_SEGMENT_SIZE == 0) {
+				index.add(map(8L * INDEX_SEGMENT_SIZE).asLongBuffer());
+			}
+			long position = oldIndex.get(i / INDEX_SEGMENT_SIZE).get(i % INDEX_SEGMENT_SIZE);
+			ByteBuffer segment = oldSegments.get((int) (position >>> 32)).duplicate();
+			segment.position((int) position);
+			int length = segment.getInt();
+			if(length > bytes.length) {
+				bytes = new byte[Math.max(length, bytes.length * 2)];
+			}
+			segment.get(bytes, 0, length);
+			setPosition(i, append(bytes, 0, length));
+		}
+		
+		try {
+			oldChannel.close();
+		} catch (IOException e) {
+			//the old file is deleted on exit
+		}
+		oldFile.delete();
+	}
+	
+	/**
+	 * Is called before a position in the index is
+	 * changed. A shared index is copied into a new
+	 * part of the temporary file, the old part counts
+	 * as waste until the books are compacted.
+	 */
+	private void prepareChange() {
+		
+		checkWritable();
+		if(!shared) {
+			return;
+		}
+		ArrayList<LongBuffer> copy = new ArrayList<LongBuffer>(index.size());
+		for(LongBuffer part : index) {
+			LongBuffer newPart = map(8L * INDEX_SEGMENT_SIZE).asLongBuffer();
+			newPart.put(part.duplicate());
+			copy.add(newPart);
+			usedBytes += 8L * INDEX_SEGMENT_SIZE;
+		}
+		index = copy;
+		shared = false;
+	}
+	
+	private void checkWritable() {
+		if(readOnly) {
+			throw new UnsupportedOperationException("A snapshot cannot be changed.");
+		}
+	}
+	
+	private void checkIndex(int index) {
+		if(index < 0 || index >= size) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+	}
+	
+	/**
+	 * A book together with its place in the store
+	 * and in the segments, needed while the books
+	 * are sorted.
+	 */
+	private static class Row {
+		
+		private final int index;
+		private final long position;
+		private final Book book;
+		
+		Row(int index, long position, Book book) {
+			this.index = index;
+			this.position = position;
+			this.book = book;
+		}
+	}
+}
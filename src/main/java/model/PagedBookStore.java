@@ -0,0 +1,101 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * This BookStore leaves the books in a .booklist file.
+ * 
+ * Only the position where the line of every book starts
+ * is kept in memory, the book is parsed from there when
+ * it is needed.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class PagedBookStore extends MappedBookStore {
+	
+	/**
+	 * The statistics the books are added to while
+	 * the file is indexed, null otherwise.
+	 */
+	private LibraryStatistics counted;
+	
+	/**
+	 * Creates the store for a .booklist file.
+	 * 
+	 * @param file the .booklist file
+	 * @throws IOException
+	 * if the file cannot be opened or read
+	 */
+	public PagedBookStore(File file) throws IOException {
+		this(file, null);
+	}
+	
+	/**
+	 * Creates the store for a .booklist file and counts
+	 * its books while it looks for their starts.
+	 * 
+	 * @param file the .booklist file
+	 * @param statistics the statistics the books are
+	 * added to, null if they shall not be counted
+	 * @throws IOException
+	 * if the file cannot be opened or read
+	 */
+	public PagedBookStore(File file, LibraryStatistics statistics) throws IOException {
+		counted = statistics;
+		try {
+			open(file);
+		} finally {
+			counted = null;
+		}
+	}
+
+	/**
+	 * Remembers where every book starts.
+	 */
+	@Override
+	protected void index() {
+		
+		BooklistParser parser = new BooklistParser(map);
+		int start = parser.getPosition();
+		
+		while(counted != null ? parser.countBook(counted) : parser.skipBook()) {
+			append(start);
+			start = parser.getPosition();
+		}
+	}
+
+	/**
+	 * Parses the book which starts at the position.
+	 */
+	@Override
+	protected Book read(ByteBuffer map, int ref) {
+		return new BooklistParser(map, ref, map.limit()).nextBook();
+	}
+	
+	@Override
+	protected void count(ByteBuffer map, int ref, LibraryStatistics statistics) {
+		new BooklistParser(map, ref, map.limit()).countBook(statistics);
+	}
+}
@@ -0,0 +1,220 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class loads a .booklist file on several cores.
+ * 
+ * The mapped file is split into chunks at line boundaries,
+ * every chunk is parsed by its own BooklistParser on a
+ * fork-join pool and afterwards the books of the chunks
+ * are put together in the order of the file.
+ * 
+ * <i> Every book has to be on its own line, which is
+ * always the case for files written by the Library. </i>
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class ParallelBooklistLoader {
+	
+	/**
+	 * Files smaller than this are parsed by
+	 * one thread, splitting them does not pay off.
+	 */
+	private static final int MIN_PARALLEL_SIZE = 1 << 20;
+	
+	/**
+	 * Every thread gets several chunks, so a thread
+	 * which is done early can help the others.
+	 */
+	private static final int CHUNKS_PER_THREAD = 4;
+	
+	public ParallelBooklistLoader() {
+		//do nothing, just defined for accidental instance creation.
+	}
+	
+	/**
+	 * Parses all books of the file in parallel.
+	 * 
+	 * @param file the .booklist file
+	 * @param parallelism the amount of threads
+	 * @return Vector with all books of the file
+	 * in the order of the file.
+	 * @throws IOException
+	 * if the file cannot be opened or read
+	 */
+	public static Vector<Book> load(File file, int parallelism) throws IOException {
+		return load(file, parallelism, null);
+	}
+	
+	/**
+	 * Parses all books of the file in parallel.
+	 * 
+	 * @param file the .booklist file
+	 * @param parallelism the amount of threads
+	 * @param authors the dictionary the authors are
+	 * taken from, may be <code>null</code>
+	 * @return Vector with all books of the file
+	 * in the order of the file.
+	 * @throws IOException
+	 * if the file cannot be opened or read
+	 */
+	public static Vector<Book> load(File file, int parallelism, AuthorDictionary authors) throws IOException {
+		
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel()) {
+			
+			MappedByteBuffer map = BooklistParser.map(channel);
+			
+			if(parallelism <= 1 || map.limit() < MIN_PARALLEL_SIZE) {
+				Vector<Book> books = new Vector<Book>();
+				BooklistParser parser = new BooklistParser(map);
+				parser.setAuthors(authors);
+				parser.parseInto(books);
+				return books;
+			}
+			
+			int[] bounds = chunkBounds(map, parallelism * CHUNKS_PER_THREAD);
+			
+			@SuppressWarnings({"unchecked", "rawtypes"})
+			List<Book>[] parts = new List[bounds.length - 1];
+			
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				pool.invoke(new ChunkTask(map, bounds, parts, authors, 0, parts.length));
+			} finally {
+				pool.shutdown();
+			}
+			
+			/*
+			 * Stitch the chunks together
+			 * in the order of the file.
+			 */
+			int count = 0;
+			for(List<Book> part : parts) {
+				count += part.size();
+			}
+			
+			Vector<Book> books = new Vector<Book>(count);
+			for(List<Book> part : parts) {
+				books.addAll(part);
+			}
+			
+			return books;
+		}
+	}
+	
+	/**
+	 * Determines where the chunks start.
+	 * Every chunk except the first one starts at
+	 * a '\n', so the parser of the chunk skips it
+	 * exactly like the sequential parser does.
+	 * 
+	 * @param map the mapped file
+	 * @param chunks the amount of chunks which is wanted
+	 * @return the start of every chunk followed
+	 * by the end of the file
+	 */
+	static int[] chunkBounds(MappedByteBuffer map, int chunks) {
+		
+		int size = map.limit();
+		int[] bounds = new int[chunks + 1];
+		int count = 1; 				//bounds[0] is always 0
+		
+		for(int i = 1; i < chunks; i++) {
+			int bound = (int) ((long) size * i / chunks);
+			bound = Math.max(bound, bounds[count - 1] + 1);
+			
+			while(bound < size && map.get(bound) != '\n') {
+				bound++;
+			}
+			if(bound >= size) {
+				break;
+			}
+			bounds[count++] = bound;
+		}
+		bounds[count++] = size;
+		
+		int[] result = new int[count];
+		System.arraycopy(bounds, 0, result, 0, count);
+		return result;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Parses the chunks <i>from</i> until <i>to</i>
+	 * by splitting the range in halves until
+	 * only one chunk is left.
+	 */
+	private static class ChunkTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final MappedByteBuffer map;
+		private final int[] bounds;
+		private final List<Book>[] parts;
+		private final AuthorDictionary authors;
+		private final int from;
+		private final int to;
+		
+		ChunkTask(MappedByteBuffer map, int[] bounds, List<Book>[] parts,
+				AuthorDictionary authors, int from, int to) {
+			this.map = map;
+			this.bounds = bounds;
+			this.parts = parts;
+			this.authors = authors;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			
+			if(to - from == 1) {
+				/*
+				 * Estimate the amount of books
+				 * with ~60 bytes per line.
+				 */
+				List<Book> books = new ArrayList<Book>((bounds[from + 1] - bounds[from]) / 60 + 16);
+				BooklistParser parser = new BooklistParser(map, bounds[from], bounds[from + 1]);
+				parser.setAuthors(authors);
+				parser.parseInto(books);
+				parts[from] = books;
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ChunkTask(map, bounds, parts, authors, from, middle),
+						new ChunkTask(map, bounds, parts, authors, middle, to));
+			}
+		}
+	}
+}
@@ -0,0 +1,138 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A RecordLayout knows where every book of
+ * a .booklist file is stored in the file.
+ * 
+ * Book <i>i</i> takes the bytes from the end of the book
+ * before plus the line break up to end(i). The length and
+ * date of the file are kept, so the layout is only used
+ * for the file it was made for.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+class RecordLayout {
+	
+	/**
+	 * Where the books end, the first <i>count</i> are used.
+	 */
+	private final long[] ends;
+	
+	private final int count;
+	
+	/**
+	 * The length of the file the layout belongs to.
+	 */
+	private final long length;
+	
+	/**
+	 * When the file the layout belongs to was written.
+	 */
+	private final long lastModified;
+	
+	RecordLayout(long[] ends, int count, File file) {
+		this.ends = ends;
+		this.count = count;
+		this.length = file.length();
+		this.lastModified = file.lastModified();
+	}
+	
+	/**
+	 * Finds the books in a .booklist file.
+	 * 
+	 * @param file the file
+	 * @return the layout of the file
+	 * @throws IOException if the file cannot be read
+	 */
+	static RecordLayout index(File file) throws IOException {
+		
+		long[] ends = new long[1024];
+		int count = 0;
+		
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			MappedByteBuffer map = BooklistParser.map(channel);
+			BooklistParser parser = new BooklistParser(map);
+			
+			while(parser.skipBook()) {
+				if(count == ends.length) {
+					ends = Arrays.copyOf(ends, count * 2);
+				}
+				ends[count++] = parser.getPosition();
+			}
+		}
+		
+		return new RecordLayout(ends, count, file);
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @param file the file
+	 * @return true if the file was not changed
+	 * since the layout was made
+	 */
+	boolean describes(File file) {
+		return file.length() == length && file.lastModified() == lastModified;
+	}
+	
+	/**
+	 * @return the amount of books in the file
+	 */
+	int size() {
+		return count;
+	}
+	
+	/**
+	 * @param index the position of the book
+	 * @return where the book starts
+	 */
+	long start(int index) {
+		return index == 0 ? 0 : ends[index - 1] + 1;
+	}
+	
+	/**
+	 * @param index the position of the book
+	 * @return where the book ends (exclusive)
+	 */
+	long end(int index) {
+		return ends[index];
+	}
+	
+	/**
+	 * @param from the position of the first book
+	 * which is replaced
+	 * @param capacity the amount of books which will follow
+	 * @return a copy of the ends of the books before
+	 * it, with room for more books
+	 */
+	long[] copyEnds(int from, int capacity) {
+		return Arrays.copyOf(ends, Math.max(from, capacity));
+	}
+}
@@ -0,0 +1,243 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A SaveTask holds everything which is needed to save
+ * a library, so it can be run on another thread while
+ * the library is changed further.
+ * 
+ * It writes all books of a snapshot of the library and/or
+ * appends changes to the journal of the file, or it writes
+ * only the changed books into the file (DeltaSave).
+ * 
+ * Created by Library.prepareSave().
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class SaveTask {
+	
+	/**
+	 * The file which is written.
+	 */
+	private final File target;
+	
+	/**
+	 * The format the file is written in.
+	 */
+	private final BooklistFormat format;
+	
+	/**
+	 * The books which are written or <code>null</code>
+	 * if only changes are appended to the journal.
+	 */
+	private final BookStore books;
+	
+	/**
+	 * True if the written file is forced to the disk
+	 * before it replaces the old one.
+	 */
+	private final boolean sync;
+	
+	/**
+	 * Changes which are appended to the journal after
+	 * the books were written, may be empty.
+	 */
+	private final byte[] journalEntries;
+	
+	/**
+	 * The changed books which are written into the
+	 * file or <code>null</code>.
+	 */
+	private final DeltaSave delta;
+	
+	/**
+	 * The amount of bytes the task has written.
+	 */
+	private long bytesWritten;
+	
+	/**
+	 * The version of the library the task was created for.
+	 */
+	private final int version;
+	
+	/**
+	 * The number of the last task of the library which
+	 * writes the file, when this task was created.
+	 */
+	private int saveNumber;
+	
+	SaveTask(File target, BooklistFormat format, BookStore books, boolean sync,
+			byte[] journalEntries, int version) {
+		this(target, format, books, sync, journalEntries, null, version);
+	}
+	
+	SaveTask(File target, DeltaSave delta, boolean sync, int version) {
+		this(target, BooklistFormat.TEXT, null, sync, new byte[0], delta, version);
+	}
+	
+	private SaveTask(File target, BooklistFormat format, BookStore books, boolean sync,
+			byte[] journalEntries, DeltaSave delta, int version) {
+		this.target = target.getAbsoluteFile();
+		this.format = format;
+		this.books = books;
+		this.sync = sync;
+		this.journalEntries = journalEntries;
+		this.delta = delta;
+		this.version = version;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Saves the library.
+	 * 
+	 * @param listener is informed about the written books,
+	 * may be <code>null</code>
+	 * @throws IOException if the file cannot be written
+	 */
+	public void run(ProgressListener listener) throws IOException {
+		
+		if(delta != null) {
+			delta.write(target, sync, listener);
+			bytesWritten = delta.getBytesWritten();
+		}
+		
+		if(books != null) {
+			AtomicFile out = new AtomicFile(target, sync);
+			
+			try {
+				switch(format) {
+				case BINARY:
+					BinaryBooklist.write(out.getTempFile(), books, listener, out.getChecksum());
+					break;
+				case COMPRESSED:
+					CompressedBooklist.write(out.getTempFile(), books, listener, out.getChecksum());
+					break;
+				default:
+					Library.writeText(out.getTempFile(), books, listener, out.getChecksum());
+				}
+			} catch (IOException | RuntimeException e) {
+				out.discard();
+				throw e;
+			}
+			
+			out.commit(format == BooklistFormat.BINARY ? BinaryBooklist.booksStart(books.size()) : 0);
+			bytesWritten = target.length();
+			
+			/*
+			 * The file holds all changes now.
+			 */
+			LibraryJournal.delete(target);
+			DeltaSave.discard(target);
+		}
+		
+		LibraryJournal.append(target, journalEntries);
+		bytesWritten += journalEntries.length;
+	}
+	
+	/**
+	 * Combines this task with a task which was created
+	 * later, so both can be done with one write.
+	 * 
+	 * @param later the later task
+	 * @return a task which saves the changes of both
+	 */
+	public SaveTask merge(SaveTask later) {
+		
+		if(later.books != null || !later.target.equals(target)) {
+			return later; 	//the later snapshot contains everything
+		}
+		
+		byte[] entries = new byte[journalEntries.length + later.journalEntries.length];
+		System.arraycopy(journalEntries, 0, entries, 0, journalEntries.length);
+		System.arraycopy(later.journalEntries, 0, entries, journalEntries.length, later.journalEntries.length);
+		
+		SaveTask merged = new SaveTask(target, format, books, sync, entries, delta, later.version);
+		merged.saveNumber = later.saveNumber;
+		return merged;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return <code>true</code> if the task writes
+	 * all books and not only changes.
+	 */
+	public boolean writesAllBooks() {
+		return books != null;
+	}
+	
+	/**
+	 * @return the amount of books which are written.
+	 */
+	public int getBookCount() {
+		if(delta != null) {
+			return delta.getBookCount();
+		}
+		return books == null ? 0 : books.size();
+	}
+	
+	/**
+	 * @return the amount of bytes the task has written
+	 * to the file and the journal, after it was run
+	 */
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+	
+	/**
+	 * @return the file which is written.
+	 */
+	public File getTarget() {
+		return target;
+	}
+	
+	/**
+	 * @return the version of the library the task was created for.
+	 */
+	int getVersion() {
+		return version;
+	}
+	
+	/**
+	 * @return the number of the last task of the library
+	 * which writes the file, when this task was created
+	 */
+	int getSaveNumber() {
+		return saveNumber;
+	}
+	
+	void setSaveNumber(int saveNumber) {
+		this.saveNumber = saveNumber;
+	}
+	
+	/**
+	 * @return the changed books which are written
+	 * into the file or <code>null</code>
+	 */
+	DeltaSave getDelta() {
+		return delta;
+	}
+}
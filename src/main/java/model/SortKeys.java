@@ -0,0 +1,216 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * Creates the keys by which titles and names
+ * are sorted and compares them.
+ * 
+ * A key is sorted like in a German dictionary: upper and
+ * lower case are not told apart, "ü" is sorted as "u",
+ * "ß" as "ss" and "Noël" as "Noel". The first part of the
+ * key is the text written this way, so "Das Brot der frühen
+ * Jahre" comes before "Das Brot der Gäste". If the text has
+ * such letters, a second part follows which says where they
+ * were, so "Noel" still comes before "Noël".
+ * 
+ * The keys are kept by the Books and Authors, comparing
+ * two of them only walks through two byte arrays and
+ * creates no objects. (A java.text.CollationKey would
+ * do the same, but it takes about 15 microseconds to
+ * create and is three times as long as the title.)
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+final class SortKeys {
+	
+	/**
+	 * Ends the first part of a key which has a second one.
+	 */
+	private static final byte SEPARATOR = 0;
+	
+	/**
+	 * The second part of a letter which is sorted as it is.
+	 */
+	private static final byte PLAIN = 1;
+	
+	/*
+	 * How the letters up to LATIN_EXTENDED_END are
+	 * sorted, created once. Others are looked up when
+	 * they appear.
+	 */
+	private static final int LATIN_EXTENDED_END = 0x250;
+	private static final String[] FOLDED = new String[LATIN_EXTENDED_END];
+	
+	static {
+		for(char c = 0; c < LATIN_EXTENDED_END; c++) {
+			FOLDED[c] = fold(c);
+		}
+	}
+	
+	private SortKeys() {
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @param text the text
+	 * @return the key by which the text is sorted
+	 */
+	static byte[] of(String text) {
+		
+		int length = text.length();
+		boolean plain = true;
+		for(int i = 0; i < length && plain; i++) {
+			char c = text.charAt(i);
+			plain = c > 0 && c < 0x80;
+		}
+		if(plain) {
+			byte[] key = new byte[length];
+			for(int i = 0; i < length; i++) {
+				key[i] = (byte) Character.toLowerCase(text.charAt(i));
+			}
+			return key;
+		}
+		
+		StringBuilder first = new StringBuilder(length + 4);
+		byte[] second = new byte[length * 3];
+		int secondLength = 0;
+		boolean hasSecond = false;
+		for(int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			char lower = Character.toLowerCase(c);
+			String folded = c < LATIN_EXTENDED_END ? FOLDED[c] : fold(c);
+			byte mark = PLAIN;
+			if(folded.length() != 1 || folded.charAt(0) != lower) {
+				mark = (byte) (2 + lower % 254);
+				hasSecond = true;
+			}
+			for(int j = 0; j < folded.length(); j++) {
+				first.append(folded.charAt(j));
+				if(secondLength == second.length) {
+					second = Arrays.copyOf(second, secondLength * 2);
+				}
+				second[secondLength++] = mark;
+			}
+		}
+		
+		byte[] firstBytes = first.toString().getBytes(StandardCharsets.UTF_8);
+		if(!hasSecond) {
+			return firstBytes;
+		}
+		byte[] key = new byte[firstBytes.length + 1 + secondLength];
+		System.arraycopy(firstBytes, 0, key, 0, firstBytes.length);
+		key[firstBytes.length] = SEPARATOR;
+		System.arraycopy(second, 0, key, firstBytes.length + 1, secondLength);
+		return key;
+	}
+	
+	/**
+	 * @param text the text
+	 * @return the text in lower case and without accents,
+	 * the way it is sorted ("Noël" as "noel")
+	 */
+	static String folded(String text) {
+
+		int length = text.length();
+		StringBuilder folded = null;
+		for(int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if(folded == null && c > 0 && c < 0x80 && !Character.isUpperCase(c)) {
+				continue; 	//unchanged up to here
+			}
+			if(folded == null) {
+				folded = new StringBuilder(length + 4);
+				folded.append(text, 0, i);
+			}
+			folded.append(c < LATIN_EXTENDED_END ? FOLDED[c] : fold(c));
+		}
+		return folded == null ? text : folded.toString();
+	}
+
+	/**
+	 * Compares two keys byte by byte, the bytes
+	 * are read without a sign.
+	 * 
+	 * @param key1 the first key
+	 * @param key2 the second key
+	 * @return less than 0 if the first key is sorted
+	 * before the second, 0 if they are equal
+	 */
+	static int compare(byte[] key1, byte[] key2) {
+		int length = Math.min(key1.length, key2.length);
+		for(int i = 0; i < length; i++) {
+			int difference = (key1[i] & 0xff) - (key2[i] & 0xff);
+			if(difference != 0) {
+				return difference;
+			}
+		}
+		return key1.length - key2.length;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @param c a letter
+	 * @return the letters it is sorted as, in lower case
+	 * and without accents, empty if it is only an accent
+	 */
+	private static String fold(char c) {
+		
+		char lower = Character.toLowerCase(c);
+		switch(lower) {
+			case 0:
+				// 0 is the SEPARATOR
+				return "\u0001";
+			case 'ß':
+				return "ss";
+			case 'æ':
+				return "ae";
+			case 'œ':
+				return "oe";
+			case 'ø':
+				return "o";
+			case 'ł':
+				return "l";
+			case 'đ':
+				return "d";
+			default:
+				break;
+		}
+		if(lower < 0x80 || Character.isSurrogate(lower)) {
+			return String.valueOf(lower);
+		}
+		
+		String decomposed = Normalizer.normalize(String.valueOf(lower), Normalizer.Form.NFD);
+		StringBuilder folded = new StringBuilder(decomposed.length());
+		for(int i = 0; i < decomposed.length(); i++) {
+			char part = decomposed.charAt(i);
+			if(Character.getType(part) != Character.NON_SPACING_MARK) {
+				folded.append(part);
+			}
+		}
+		return folded.toString();
+	}
+}
@@ -0,0 +1,449 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A SortedIndex keeps the books of a library in one
+ * order while books are added, edited and deleted, so
+ * the library can be sorted by walking through it.
+ * 
+ * The books are kept with their ids in blocks of at most
+ * BLOCK_SIZE books, one after another in the order. A book
+ * is found by a binary search over the first books of the
+ * blocks and then inside its block, so adding or removing
+ * a book moves at most one block. A full block is split.
+ * The amount of books before a block is summed up in a
+ * Fenwick tree over the sizes of the blocks, so the position
+ * of a book is found in O(log n) as well.
+ * 
+ * The Library only keeps indexes of books which are kept
+ * in memory as Books (StorageMode.MEMORY). An index of
+ * a store which reads from the file would hold every book
+ * of it, so these stores are sorted as a whole instead.
+ * 
+ * Books which are equal for the comparator are compared
+ * by their title, author and date, and at last by their
+ * ids, so every book has exactly one place.
+ * The books must not be changed while they are in the
+ * index, a changed book is removed and added again.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+class SortedIndex {
+	
+	private static final int BLOCK_SIZE = 1024;
+	
+	/**
+	 * The order of the books, without the ids.
+	 */
+	private final Comparator<Book> order;
+	
+	/*
+	 * The blocks, the first sizes[block] books and
+	 * ids of a block are used.
+	 */
+	private Book[][] books;
+	private long[][] ids;
+	private int[] sizes;
+	private int blockCount;
+	private int size;
+	
+	/**
+	 * The Fenwick tree of the sizes: tree[i] is the sum
+	 * of the sizes of the blocks from i - (i & -i) to i - 1.
+	 * Its entry 0 is not used.
+	 */
+	private int[] tree;
+	
+	/**
+	 * Creates the index of the books.
+	 * 
+	 * @param first the comparator which sorts the books
+	 * @param books the books in the order of the library
+	 * @param ids the ids of the books
+	 * @param sorter sorts the books, on several threads for many books
+	 */
+	SortedIndex(Comparator<Book> first, Book[] books, long[] ids, BookSort sorter) {
+		
+		this.order = new InOrder(first);
+		
+		Entry[] entries = new Entry[books.length];
+		for(int i = 0; i < books.length; i++) {
+			entries[i] = new Entry(books[i], ids[i]);
+		}
+		sorter.sort(entries, (Entry e1, Entry e2) -> {
+			int result = order.compare(e1.book, e2.book);
+			return result != 0 ? result : Long.compare(e1.id, e2.id);
+		});
+		
+		Book[] sorted = new Book[entries.length];
+		long[] sortedIds = new long[entries.length];
+		for(int i = 0; i < entries.length; i++) {
+			sorted[i] = entries[i].book;
+			sortedIds[i] = entries[i].id;
+		}
+		fill(sorted, sortedIds);
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return the amount of books
+	 */
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * Adds a book.
+	 * 
+	 * @param book the book
+	 * @param id its id
+	 * @return the position of the book in the order
+	 */
+	int add(Book book, long id) {
+		
+		int block = findBlock(book, id);
+		int index = findInBlock(block, book, id);
+		int rank = rankOfBlock(block) + index;
+		
+		if(sizes[block] == BLOCK_SIZE) {
+			split(block);
+			if(index > BLOCK_SIZE / 2) {
+				block++;
+				index -= BLOCK_SIZE / 2;
+			}
+		}
+		
+		int moved = sizes[block] - index;
+		System.arraycopy(books[block], index, books[block], index + 1, moved);
+		System.arraycopy(ids[block], index, ids[block], index + 1, moved);
+		books[block][index] = book;
+		ids[block][index] = id;
+		sizes[block]++;
+		grow(block, 1);
+		size++;
+		return rank;
+	}
+	
+	/**
+	 * Removes a book.
+	 * 
+	 * @param book the book as it was added
+	 * @param id its id
+	 * @return the position the book had in the
+	 * order, -1 if it was not in the index
+	 */
+	int remove(Book book, long id) {
+		
+		int block = findBlock(book, id);
+		int index = findInBlock(block, book, id);
+		if(index == sizes[block] || ids[block][index] != id) {
+			return -1;
+		}
+		int rank = rankOfBlock(block) + index;
+		
+		int moved = sizes[block] - index - 1;
+		System.arraycopy(books[block], index + 1, books[block], index, moved);
+		System.arraycopy(ids[block], index + 1, ids[block], index, moved);
+		sizes[block]--;
+		grow(block, -1);
+		books[block][sizes[block]] = null;
+		size--;
+		
+		if(sizes[block] == 0 && blockCount > 1) {
+			removeBlock(block);
+		}
+		return rank;
+	}
+	
+	/**
+	 * Removes many books in one pass.
+	 * 
+	 * @param removed the ids of the books, sorted
+	 */
+	void removeAll(long[] removed) {
+		
+		Book[] keptBooks = new Book[size];
+		long[] keptIds = new long[size];
+		int kept = 0;
+		for(int block = 0; block < blockCount; block++) {
+			for(int i = 0; i < sizes[block]; i++) {
+				if(Arrays.binarySearch(removed, ids[block][i]) < 0) {
+					keptBooks[kept] = books[block][i];
+					keptIds[kept++] = ids[block][i];
+				}
+			}
+		}
+		fill(Arrays.copyOf(keptBooks, kept), Arrays.copyOf(keptIds, kept));
+	}
+	
+	/**
+	 * @param book a book
+	 * @param id its id
+	 * @return the amount of books in the index
+	 * which come before the book
+	 */
+	int rankOf(Book book, long id) {
+		int block = findBlock(book, id);
+		return rankOfBlock(block) + findInBlock(block, book, id);
+	}
+	
+	/**
+	 * Writes the books and their ids into the
+	 * arrays, in the order or backwards.
+	 * 
+	 * @param sortedBooks gets the books
+	 * @param sortedIds gets the ids
+	 * @param backwards <code>true</code> to
+	 * start with the last book
+	 */
+	void walk(Book[] sortedBooks, long[] sortedIds, boolean backwards) {
+		int i = 0;
+		for(int block = 0; block < blockCount; block++) {
+			for(int j = 0; j < sizes[block]; j++) {
+				int to = backwards ? size - 1 - i : i;
+				sortedBooks[to] = books[block][j];
+				sortedIds[to] = ids[block][j];
+				i++;
+			}
+		}
+	}
+	
+	//#######################################################################
+	
+	private int compare(Book book, long id, int block, int index) {
+		int result = order.compare(book, books[block][index]);
+		return result != 0 ? result : Long.compare(id, ids[block][index]);
+	}
+	
+	/**
+	 * @return the last block whose first book does
+	 * not come after the book, or the first block
+	 */
+	private int findBlock(Book book, long id) {
+		int low = 1;
+		int high = blockCount - 1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			if(compare(book, id, middle, 0) < 0) {
+				high = middle - 1;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return high < 1 ? 0 : high;
+	}
+	
+	/**
+	 * @return the position of the first book in the
+	 * block which does not come before the book
+	 */
+	private int findInBlock(int block, Book book, long id) {
+		int low = 0;
+		int high = sizes[block] - 1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			if(compare(book, id, block, middle) > 0) {
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+	
+	/**
+	 * @return the amount of books in the blocks before the block
+	 */
+	private int rankOfBlock(int block) {
+		int rank = 0;
+		for(int i = block; i > 0; i -= i & -i) {
+			rank += tree[i];
+		}
+		return rank;
+	}
+	
+	/**
+	 * Changes the size of a block in the tree.
+	 */
+	private void grow(int block, int change) {
+		for(int i = block + 1; i <= blockCount; i += i & -i) {
+			tree[i] += change;
+		}
+	}
+	
+	/**
+	 * Creates the tree again after blocks were
+	 * inserted or removed, in O(blocks).
+	 */
+	private void sumUp() {
+		tree = new int[blockCount + 1];
+		for(int i = 1; i <= blockCount; i++) {
+			tree[i] += sizes[i - 1];
+			int parent = i + (i & -i);
+			if(parent <= blockCount) {
+				tree[parent] += tree[i];
+			}
+		}
+	}
+	
+	/**
+	 * Moves the second half of a full block into a new block.
+	 */
+	private void split(int block) {
+		
+		insertBlock(block + 1);
+		int half = BLOCK_SIZE / 2;
+		System.arraycopy(books[block], half, books[block + 1], 0, BLOCK_SIZE - half);
+		System.arraycopy(ids[block], half, ids[block + 1], 0, BLOCK_SIZE - half);
+		Arrays.fill(books[block], half, BLOCK_SIZE, null);
+		sizes[block] = half;
+		sizes[block + 1] = BLOCK_SIZE - half;
+		sumUp();
+	}
+	
+	private void insertBlock(int block) {
+		
+		if(blockCount == sizes.length) {
+			books = Arrays.copyOf(books, blockCount * 2);
+			ids = Arrays.copyOf(ids, blockCount * 2);
+			sizes = Arrays.copyOf(sizes, blockCount * 2);
+		}
+		System.arraycopy(books, block, books, block + 1, blockCount - block);
+		System.arraycopy(ids, block, ids, block + 1, blockCount - block);
+		System.arraycopy(sizes, block, sizes, block + 1, blockCount - block);
+		books[block] = new Book[BLOCK_SIZE];
+		ids[block] = new long[BLOCK_SIZE];
+		sizes[block] = 0;
+		blockCount++;
+	}
+	
+	private void removeBlock(int block) {
+		
+		System.arraycopy(books, block + 1, books, block, blockCount - block - 1);
+		System.arraycopy(ids, block + 1, ids, block, blockCount - block - 1);
+		System.arraycopy(sizes, block + 1, sizes, block, blockCount - block - 1);
+		blockCount--;
+		books[blockCount] = null;
+		ids[blockCount] = null;
+		sumUp();
+	}
+	
+	/**
+	 * Puts sorted books into blocks which are
+	 * three quarters full, so the next books
+	 * can be added without splitting them.
+	 */
+	private void fill(Book[] sorted, long[] sortedIds) {
+		
+		int perBlock = BLOCK_SIZE * 3 / 4;
+		blockCount = Math.max(1, (sorted.length + perBlock - 1) / perBlock);
+		books = new Book[blockCount][];
+		ids = new long[blockCount][];
+		sizes = new int[blockCount];
+		for(int block = 0; block < blockCount; block++) {
+			int from = block * perBlock;
+			int count = Math.max(0, Math.min(perBlock, sorted.length - from));
+			books[block] = new Book[BLOCK_SIZE];
+			ids[block] = new long[BLOCK_SIZE];
+			System.arraycopy(sorted, from, books[block], 0, count);
+			System.arraycopy(sortedIds, from, ids[block], 0, count);
+			sizes[block] = count;
+		}
+		size = sorted.length;
+		sumUp();
+	}
+	
+	/**
+	 * A book with its id, while the index is created.
+	 */
+	private static class Entry {
+		
+		private final Book book;
+		private final long id;
+		
+		Entry(Book book, long id) {
+			this.book = book;
+			this.id = id;
+		}
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Compares the books with a comparator and
+	 * equal books by their title, author and date.
+	 */
+	private static class InOrder implements Comparator<Book> {
+		
+		private final Comparator<Book> first;
+		private final BookSortDate byDate = new BookSortDate();
+		
+		InOrder(Comparator<Book> first) {
+			this.first = first;
+		}
+		
+		@Override
+		public int compare(Book b1, Book b2) {
+			
+			int result = first.compare(b1, b2);
+			if(result != 0 || b1 == b2) {
+				return result;
+			}
+			result = SortKeys.compare(b1.getTitleKey(), b2.getTitleKey());
+			if(result == 0) {
+				result = SortKeys.compare(b1.getAuthorEntry().getSortKeyLastNameFirst(),
+						b2.getAuthorEntry().getSortKeyLastNameFirst());
+			}
+			if(result == 0) {
+				result = byDate.compare(b1, b2);
+			}
+			if(result == 0) {
+				result = b1.getTitle().compareTo(b2.getTitle());
+			}
+			if(result == 0) {
+				result = b1.getLastName().compareTo(b2.getLastName());
+			}
+			if(result == 0) {
+				result = b1.getSurName().compareTo(b2.getSurName());
+			}
+			if(result == 0) {
+				result = b1.getYear().compareTo(b2.getYear());
+			}
+			if(result == 0) {
+				result = b1.getMonth().compareTo(b2.getMonth());
+			}
+			return result;
+		}
+	}
+	
+	/**
+	 * @param first the comparator which sorts the books
+	 * @return the comparator which also
+	 * compares the books it finds equal
+	 */
+	static Comparator<Book> inOrder(Comparator<Book> first) {
+		return new InOrder(first);
+	}
+}
@@ -0,0 +1,126 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A StringDictionary gives every different String
+ * a number, so a column of Strings can be stored as
+ * a column of ints. Strings are never removed.
+ * 
+ * The ids are found through a table of ints with
+ * open addressing, so a String costs two array
+ * slots and no Map entry or Integer.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+class StringDictionary {
+	
+	/**
+	 * id + 1 of the String which hashes to a slot,
+	 * 0 for an empty slot. It is at most half full.
+	 */
+	private int[] table;
+	
+	/**
+	 * The Strings by their id, the first <i>size</i> are used.
+	 * It is read without locking by snapshots on other
+	 * threads, so a grown array is published as a whole.
+	 */
+	private volatile String[] strings;
+	private int size;
+	
+	StringDictionary() {
+		table = new int[128];
+		strings = new String[64];
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @param string a String
+	 * @return the id of the String, it is
+	 * added if it is not in the dictionary yet
+	 */
+	int intern(String string) {
+		
+		int mask = table.length - 1;
+		int slot = spread(string.hashCode()) & mask;
+		while(table[slot] != 0) {
+			int id = table[slot] - 1;
+			if(strings[id].equals(string)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+		
+		if(size == strings.length) {
+			strings = Arrays.copyOf(strings, size * 2);
+		}
+		strings[size] = string;
+		table[slot] = size + 1;
+		size++;
+		
+		if(size * 2 > table.length) {
+			rehash(table.length * 2);
+		}
+		return size - 1;
+	}
+	
+	private void rehash(int capacity) {
+		
+		table = new int[capacity];
+		int mask = capacity - 1;
+		for(int id = 0; id < size; id++) {
+			int slot = spread(strings[id].hashCode()) & mask;
+			while(table[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = id + 1;
+		}
+	}
+	
+	/**
+	 * Mixes the bits of a hash code, so Strings
+	 * which differ only at the end do not
+	 * fill neighbouring slots.
+	 */
+	private static int spread(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+	
+	/**
+	 * @param id the id of a String
+	 * @return the String
+	 */
+	String get(int id) {
+		return strings[id];
+	}
+	
+	/**
+	 * @return the amount of different Strings
+	 */
+	int size() {
+		return size;
+	}
+}
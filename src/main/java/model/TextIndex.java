@@ -0,0 +1,809 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An inverted index of the words in the titles and
+ * the names of the authors. It maps every word to
+ * the ids of the books which contain it, so a search
+ * only looks at the books which have the words.
+ * 
+ * The words are written in lower case and without
+ * accents, like in SortKeys, so "noel" finds "Noël".
+ * Every word of a query must begin a word of the book,
+ * "mura haru" finds the books of "Murakami, Haruki".
+ * 
+ * A search which tolerates typing errors compares the
+ * words of the query to the words of the index through
+ * a TrigramIndex and ranks the books by how many letters
+ * of their words differ from the query.
+ * 
+ * The ids of a word are kept sorted, a new book has the
+ * highest id, so adding it only appends its id. A word
+ * of many books keeps a bit for every id instead, two
+ * such words are combined 64 books at a time.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+final class TextIndex {
+	
+	/**
+	 * The ids of the books for every word.
+	 */
+	private final HashMap<String, Postings> words = new HashMap<String, Postings>();
+	
+	/**
+	 * The same words sorted, so the words
+	 * which begin with a prefix are found.
+	 */
+	private final TreeMap<String, Postings> sortedWords = new TreeMap<String, Postings>();
+	
+	/**
+	 * The same words by their trigrams, so the
+	 * words which are written similar are found.
+	 */
+	private final TrigramIndex similarWords = new TrigramIndex();
+	
+	private int size;
+	
+	/**
+	 * The highest id in the index.
+	 */
+	private long lastId;
+	
+	/**
+	 * The fewest books a word needs
+	 * before they are kept as bits.
+	 */
+	private static final int MIN_BITS = 1024;
+	
+	/**
+	 * Creates an empty index.
+	 */
+	TextIndex() {
+	}
+	
+	/**
+	 * Creates the index of the books.
+	 * 
+	 * @param books the books
+	 * @param ids the ids of the books
+	 */
+	TextIndex(BookStore books, BookIds ids) {
+		for(int i = 0; i < books.size(); i++) {
+			add(books.get(i), ids.get(i));
+		}
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return the amount of books
+	 */
+	int size() {
+		return size;
+	}
+	
+	/**
+	 * @return the amount of different words
+	 */
+	int words() {
+		return words.size();
+	}
+	
+	/**
+	 * Puts a book into the index.
+	 * 
+	 * @param book the book
+	 * @param id its id
+	 */
+	void add(Book book, long id) {
+		
+		lastId = Math.max(lastId, id);
+		for(String word : words(book)) {
+			Postings postings = words.get(word);
+			if(postings == null) {
+				postings = new Postings();
+				words.put(word, postings);
+				sortedWords.put(word, postings);
+				similarWords.add(word);
+			}
+			postings.add(id);
+			if(postings.size >= MIN_BITS && postings.bits == null) {
+				postings.compact(lastId);
+			}
+		}
+		size++;
+	}
+	
+	/**
+	 * Takes a book out of the index.
+	 * 
+	 * @param book the book as it was put into the index
+	 * @param id its id
+	 * @return false if the book was not in the index,
+	 * e.g. because it was changed afterwards
+	 */
+	boolean remove(Book book, long id) {
+		
+		boolean found = true;
+		for(String word : words(book)) {
+			Postings postings = words.get(word);
+			if(postings == null || !postings.remove(id)) {
+				found = false;
+			} else if(postings.size == 0) {
+				words.remove(word);
+				sortedWords.remove(word);
+				similarWords.remove(word);
+			} else if(postings.bits != null) {
+				postings.compact(lastId);
+			}
+		}
+		size--;
+		return found;
+	}
+	
+	/**
+	 * Takes many books out of the index
+	 * in one pass over all words.
+	 * 
+	 * @param removed the sorted ids of the books
+	 */
+	void removeAll(long[] removed) {
+		
+		List<String> empty = new ArrayList<String>();
+		for(Map.Entry<String, Postings> entry : words.entrySet()) {
+			Postings postings = entry.getValue();
+			if(postings.removeAll(removed) == 0) {
+				empty.add(entry.getKey());
+			} else {
+				postings.compact(lastId);
+			}
+		}
+		for(String word : empty) {
+			words.remove(word);
+			sortedWords.remove(word);
+			similarWords.remove(word);
+		}
+		size -= removed.length;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Finds the books which have every word of the query,
+	 * as a word or as the beginning of a word.
+	 * 
+	 * @param query the words
+	 * @param limit the most ids which are returned
+	 * @return the ids of the books, sorted
+	 */
+	long[] search(String query, int limit) {
+		
+		List<String> terms = tokens(query);
+		if(terms.isEmpty() || limit <= 0) {
+			return new long[0];
+		}
+		
+		/*
+		 * The words which begin with every term.
+		 * The term with the fewest books is taken
+		 * first, the others only remove books.
+		 */
+		List<List<Postings>> matches = new ArrayList<List<Postings>>();
+		int rarest = 0;
+		long fewest = Long.MAX_VALUE;
+		for(String term : terms) {
+			List<Postings> match = new ArrayList<Postings>(
+					sortedWords.subMap(term, term + Character.MAX_VALUE).values());
+			if(match.isEmpty()) {
+				return new long[0];
+			}
+			long count = 0;
+			for(Postings postings : match) {
+				count += postings.size;
+			}
+			if(count < fewest) {
+				fewest = count;
+				rarest = matches.size();
+			}
+			matches.add(match);
+		}
+		
+		if(fewest >= lastId / 64) {
+			
+			/*
+			 * Many books, they are found in a bit
+			 * for every id instead of a list.
+			 */
+			long[] found = new long[(int) (lastId >>> 6) + 1];
+			for(Postings postings : matches.get(rarest)) {
+				postings.addTo(found);
+			}
+			for(int i = 0; i < matches.size(); i++) {
+				if(i != rarest) {
+					retain(found, matches.get(i));
+				}
+			}
+			return ids(found, limit);
+		}
+		
+		long[] found = union(matches.get(rarest));
+		int count = found.length;
+		for(int i = 0; i < matches.size() && count > 0; i++) {
+			if(i != rarest) {
+				count = retain(found, count, matches.get(i));
+			}
+		}
+		return Arrays.copyOf(found, Math.min(count, limit));
+	}
+	
+	/**
+	 * @return the ids of all the postings, sorted and once
+	 */
+	private static long[] union(List<Postings> match) {
+		
+		int total = 0;
+		for(Postings postings : match) {
+			total += postings.size;
+		}
+		long[] ids = new long[total];
+		int count = 0;
+		for(Postings postings : match) {
+			count = postings.copyTo(ids, count);
+		}
+		if(match.size() == 1) {
+			return ids;
+		}
+		Arrays.sort(ids);
+		
+		int distinct = 0;
+		for(int i = 0; i < total; i++) {
+			if(distinct == 0 || ids[i] != ids[distinct - 1]) {
+				ids[distinct++] = ids[i];
+			}
+		}
+		return Arrays.copyOf(ids, distinct);
+	}
+	
+	/**
+	 * Keeps the found ids which are in one of the postings.
+	 * 
+	 * @param found the sorted ids, the kept ones are moved to the front
+	 * @param count the amount of found ids
+	 * @return the amount of kept ids
+	 */
+	private static int retain(long[] found, int count, List<Postings> match) {
+		
+		boolean[] keep = new boolean[count];
+		for(Postings postings : match) {
+			long[] ids = postings.ids;
+			int size = postings.size;
+			if(ids == null || size * 8L >= count) {
+				for(int i = 0; i < count; i++) {
+					if(!keep[i] && postings.contains(found[i])) {
+						keep[i] = true;
+					}
+				}
+			} else {
+				for(int i = 0; i < size; i++) {
+					int at = Arrays.binarySearch(found, 0, count, ids[i]);
+					if(at >= 0) {
+						keep[at] = true;
+					}
+				}
+			}
+		}
+		
+		int kept = 0;
+		for(int i = 0; i < count; i++) {
+			if(keep[i]) {
+				found[kept++] = found[i];
+			}
+		}
+		return kept;
+	}
+	
+	/**
+	 * Keeps the found ids which are in one of the postings.
+	 * 
+	 * @param found a bit for every found id
+	 */
+	private static void retain(long[] found, List<Postings> match) {
+		
+		long[] other;
+		if(match.size() == 1 && match.get(0).bits != null) {
+			other = match.get(0).bits;
+		} else {
+			other = new long[found.length];
+			for(Postings postings : match) {
+				postings.addTo(other);
+			}
+		}
+		
+		int length = Math.min(found.length, other.length);
+		for(int i = 0; i < length; i++) {
+			found[i] &= other[i];
+		}
+		Arrays.fill(found, length, found.length, 0);
+	}
+	
+	/**
+	 * @param found a bit for every found id
+	 * @param limit the most ids which are returned
+	 * @return the ids of the set bits, sorted
+	 */
+	private static long[] ids(long[] found, int limit) {
+		
+		int count = 0;
+		for(int i = 0; i < found.length && count < limit; i++) {
+			count += Long.bitCount(found[i]);
+		}
+		long[] ids = new long[Math.min(count, limit)];
+		int at = 0;
+		for(int i = 0; at < ids.length; i++) {
+			for(long word = found[i]; word != 0 && at < ids.length; word &= word - 1) {
+				ids[at++] = ((long) i << 6) + Long.numberOfTrailingZeros(word);
+			}
+		}
+		return ids;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Finds the books which have, for every word of the query,
+	 * a word which is written like it or differs in a few
+	 * letters (see TrigramIndex). The books are ranked by the
+	 * sum of the differing letters, books with the same sum
+	 * by their id.
+	 * 
+	 * The books of the term with the fewest books are walked
+	 * through in this order, the most similar words first, and
+	 * the walk stops as soon as no later book can be among the
+	 * first <i>limit</i>. So the time depends on the amount of
+	 * different words and on <i>limit</i>, not on the amount of
+	 * books, as long as enough books have all terms.
+	 * 
+	 * @param query the words
+	 * @param limit the most ids which are returned
+	 * @return the ids of the books, the best first
+	 */
+	long[] searchSimilar(String query, int limit) {
+		
+		List<String> terms = tokens(query);
+		if(terms.isEmpty() || limit <= 0) {
+			return new long[0];
+		}
+		
+		/*
+		 * The similar words of every term, the
+		 * most similar first, with their books.
+		 */
+		Postings[][] postings = new Postings[terms.size()][];
+		int[][] distances = new int[terms.size()][];
+		int rarest = 0;
+		long fewest = Long.MAX_VALUE;
+		for(int t = 0; t < terms.size(); t++) {
+			List<TrigramIndex.Match> matches = similarWords.similar(terms.get(t));
+			matches.removeIf(match -> !words.containsKey(match.word));
+			if(matches.isEmpty()) {
+				return new long[0];
+			}
+			postings[t] = new Postings[matches.size()];
+			distances[t] = new int[matches.size()];
+			long count = 0;
+			for(int i = 0; i < matches.size(); i++) {
+				postings[t][i] = words.get(matches.get(i).word);
+				distances[t][i] = matches.get(i).distance;
+				count += postings[t][i].size;
+			}
+			if(count < fewest) {
+				fewest = count;
+				rarest = t;
+			}
+		}
+		
+		/*
+		 * A found book is kept as (distance << ID_BITS) | id,
+		 * so sorting the keys ranks the books.
+		 */
+		long[] found = new long[16];
+		int count = 0;
+		Postings[] first = postings[rarest];
+		int[] firstDistances = distances[rarest];
+		int others = 0;
+		for(int t = 0; t < distances.length; t++) {
+			if(t != rarest) {
+				others += distances[t][0];
+			}
+		}
+		
+		for(int start = 0; start < first.length;) {
+			
+			int level = firstDistances[start];
+			int end = start;
+			while(end < first.length && firstDistances[end] == level) {
+				end++;
+			}
+			
+			/*
+			 * The books of this level have at least the distance
+			 * lowest, the other terms add at least their most
+			 * similar word. Found books with less are ranked before
+			 * all of them, found books with the same distance before
+			 * the books of this level with higher ids.
+			 */
+			int lowest = level + others;
+			int better = 0;
+			long[] same = new long[count];
+			int sameCount = 0;
+			for(int i = 0; i < count; i++) {
+				long distance = found[i] >>> ID_BITS;
+				if(distance < lowest) {
+					better++;
+				} else if(distance == lowest) {
+					same[sameCount++] = found[i] & ID_MASK;
+				}
+			}
+			if(better >= limit) {
+				break;
+			}
+			Arrays.sort(same, 0, sameCount);
+			int sameBefore = 0;
+			int levelCount = 0;
+			
+			long id = 0;
+			while((id = next(first, start, end, id)) > 0) {
+				
+				if(contains(first, 0, start, id)) {
+					continue; 	//found in a lower level
+				}
+				
+				int distance = level;
+				for(int t = 0; t < postings.length && distance >= 0; t++) {
+					if(t != rarest) {
+						int best = best(postings[t], distances[t], id);
+						distance = best < 0 ? -1 : distance + best;
+					}
+				}
+				if(distance >= 0) {
+					if(count == found.length) {
+						found = Arrays.copyOf(found, count * 2);
+					}
+					found[count++] = ((long) distance << ID_BITS) | id;
+					if(distance == lowest) {
+						levelCount++;
+					}
+				}
+				
+				while(sameBefore < sameCount && same[sameBefore] <= id) {
+					sameBefore++;
+				}
+				if(better + sameBefore + levelCount >= limit) {
+					break; 	//every later book is ranked behind them
+				}
+			}
+			start = end;
+		}
+		
+		Arrays.sort(found, 0, count);
+		long[] ids = new long[Math.min(count, limit)];
+		for(int i = 0; i < ids.length; i++) {
+			ids[i] = found[i] & ID_MASK;
+		}
+		return ids;
+	}
+	
+	/*
+	 * How the id and the distance of a found book
+	 * are packed into one long.
+	 */
+	private static final int ID_BITS = 48;
+	private static final long ID_MASK = (1L << ID_BITS) - 1;
+	
+	/**
+	 * @return the lowest id after <i>after</i> of
+	 * the postings from <i>from</i> to <i>to</i>,
+	 * 0 if there is none
+	 */
+	private static long next(Postings[] postings, int from, int to, long after) {
+		long next = Long.MAX_VALUE;
+		for(int i = from; i < to; i++) {
+			long id = postings[i].next(after);
+			if(id > 0 && id < next) {
+				next = id;
+			}
+		}
+		return next == Long.MAX_VALUE ? 0 : next;
+	}
+	
+	private static boolean contains(Postings[] postings, int from, int to, long id) {
+		for(int i = from; i < to; i++) {
+			if(postings[i].contains(id)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @return the distance of the most similar
+	 * word the book has, -1 if it has none
+	 */
+	private static int best(Postings[] postings, int[] distances, long id) {
+		for(int i = 0; i < postings.length; i++) {
+			if(postings[i].contains(id)) {
+				return distances[i];
+			}
+		}
+		return -1;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return the different words of the title and the author
+	 */
+	private static List<String> words(Book book) {
+		
+		List<String> words = tokens(book.getTitle());
+		for(String word : tokens(book.getSurName() + " " + book.getLastName())) {
+			if(!words.contains(word)) {
+				words.add(word);
+			}
+		}
+		return words;
+	}
+	
+	/**
+	 * Splits a text into its words, in lower case and without
+	 * accents. Everything but letters and digits separates them.
+	 * 
+	 * @param text the text
+	 * @return the different words
+	 */
+	static List<String> tokens(String text) {
+		
+		String folded = SortKeys.folded(text);
+		List<String> tokens = new ArrayList<String>(4);
+		int start = -1;
+		for(int i = 0; i <= folded.length(); i++) {
+			boolean inWord = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+			if(inWord && start < 0) {
+				start = i;
+			} else if(!inWord && start >= 0) {
+				String token = folded.substring(start, i);
+				if(!tokens.contains(token)) {
+					tokens.add(token);
+				}
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * The ids of the books which contain a word. A word
+	 * of few books keeps them in a sorted list, a word of
+	 * many books as a bit for every id, which needs less
+	 * memory then and is faster to combine.
+	 */
+	private static class Postings {
+		
+		/**
+		 * The sorted ids, null while there are bits.
+		 */
+		private long[] ids = new long[1];
+		
+		/**
+		 * A bit for every id, null while there is a list.
+		 */
+		private long[] bits;
+		
+		private int size;
+		
+		void add(long id) {
+			
+			if(bits != null) {
+				int word = (int) (id >>> 6);
+				if(word >= bits.length) {
+					bits = Arrays.copyOf(bits, Math.max(word + 1, bits.length * 2));
+				}
+				if((bits[word] & (1L << id)) == 0) {
+					bits[word] |= 1L << id;
+					size++;
+				}
+				return;
+			}
+			
+			if(size == ids.length) {
+				ids = Arrays.copyOf(ids, size * 2);
+			}
+			if(size == 0 || ids[size - 1] < id) {
+				ids[size++] = id;
+				return;
+			}
+			int at = -Arrays.binarySearch(ids, 0, size, id) - 1;
+			if(at < 0) {
+				return; 	//already there
+			}
+			System.arraycopy(ids, at, ids, at + 1, size - at);
+			ids[at] = id;
+			size++;
+		}
+		
+		boolean remove(long id) {
+			
+			if(bits != null) {
+				if(!contains(id)) {
+					return false;
+				}
+				bits[(int) (id >>> 6)] &= ~(1L << id);
+				size--;
+				return true;
+			}
+			
+			int at = Arrays.binarySearch(ids, 0, size, id);
+			if(at < 0) {
+				return false;
+			}
+			System.arraycopy(ids, at + 1, ids, at, size - at - 1);
+			size--;
+			if(size > 4 && size < ids.length / 4) {
+				ids = Arrays.copyOf(ids, ids.length / 2);
+			}
+			return true;
+		}
+		
+		/**
+		 * @return the amount of ids which are left
+		 */
+		int removeAll(long[] removed) {
+			
+			if(bits != null) {
+				for(long id : removed) {
+					remove(id);
+				}
+				return size;
+			}
+			
+			int kept = 0;
+			for(int i = 0; i < size; i++) {
+				if(Arrays.binarySearch(removed, ids[i]) < 0) {
+					ids[kept++] = ids[i];
+				}
+			}
+			size = kept;
+			return kept;
+		}
+		
+		/**
+		 * @return the lowest id after <i>after</i>, 0 if there is none
+		 */
+		long next(long after) {
+			
+			if(bits != null) {
+				long id = after + 1;
+				int word = (int) (id >>> 6);
+				if(word >= bits.length) {
+					return 0;
+				}
+				long rest = bits[word] & (-1L << id);
+				while(rest == 0) {
+					if(++word == bits.length) {
+						return 0;
+					}
+					rest = bits[word];
+				}
+				return ((long) word << 6) + Long.numberOfTrailingZeros(rest);
+			}
+			
+			int at = Arrays.binarySearch(ids, 0, size, after + 1);
+			if(at < 0) {
+				at = -at - 1;
+			}
+			return at < size ? ids[at] : 0;
+		}
+		
+		boolean contains(long id) {
+			if(bits != null) {
+				int word = (int) (id >>> 6);
+				return word < bits.length && (bits[word] & (1L << id)) != 0;
+			}
+			return Arrays.binarySearch(ids, 0, size, id) >= 0;
+		}
+		
+		/**
+		 * Writes the ids into an array, sorted, whether
+		 * they are kept as a list or as bits. A word keeps
+		 * its bits until one of its books is removed, even
+		 * when the index grew so much that its books are
+		 * only few now.
+		 * 
+		 * @param target the array
+		 * @param at the position of the first id
+		 * @return the position behind the last id
+		 */
+		int copyTo(long[] target, int at) {
+			if(bits == null) {
+				System.arraycopy(ids, 0, target, at, size);
+				return at + size;
+			}
+			for(int i = 0; i < bits.length; i++) {
+				for(long word = bits[i]; word != 0; word &= word - 1) {
+					target[at++] = ((long) i << 6) + Long.numberOfTrailingZeros(word);
+				}
+			}
+			return at;
+		}
+		
+		/**
+		 * Sets the bits of the ids.
+		 */
+		void addTo(long[] found) {
+			if(bits != null) {
+				int length = Math.min(found.length, bits.length);
+				for(int i = 0; i < length; i++) {
+					found[i] |= bits[i];
+				}
+			} else {
+				for(int i = 0; i < size; i++) {
+					found[(int) (ids[i] >>> 6)] |= 1L << ids[i];
+				}
+			}
+		}
+		
+		/**
+		 * Changes to bits or back to a list,
+		 * whichever needs less memory.
+		 * 
+		 * @param lastId the highest id of the index
+		 */
+		void compact(long lastId) {
+			
+			if(bits == null && size >= MIN_BITS && size >= lastId / 64) {
+				bits = new long[(int) (lastId >>> 6) + 1];
+				for(int i = 0; i < size; i++) {
+					bits[(int) (ids[i] >>> 6)] |= 1L << ids[i];
+				}
+				ids = null;
+			} else if(bits != null && size < lastId / 256) {
+				ids = new long[Math.max(1, size)];
+				int at = 0;
+				for(int i = 0; i < bits.length; i++) {
+					for(long word = bits[i]; word != 0; word &= word - 1) {
+						ids[at++] = ((long) i << 6) + Long.numberOfTrailingZeros(word);
+					}
+				}
+				bits = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,342 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Finds the words which are written almost like a
+ * term, e.g. "murakami" for "murakmi" or "doctorow"
+ * for "doctorw". It keeps, for every three letters
+ * which follow each other, the words which have them
+ * ("murakami" is "$mu", "mur", "ura", ..., "mi$").
+ * 
+ * A word which differs from the term in one letter
+ * shares all but at most three of these trigrams, two
+ * swapped letters change up to four of them, so
+ * only the words which share enough of them are
+ * compared letter by letter. The comparison stops
+ * as soon as more than the allowed letters differ.
+ * 
+ * Words of digits only (the numbers in titles) are
+ * left out, a typing error makes another number.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+final class TrigramIndex {
+	
+	/**
+	 * Marks the start and the end of a word.
+	 */
+	private static final char BOUNDARY = '$';
+	
+	/**
+	 * The words by their number, null for a removed word.
+	 */
+	private final ArrayList<String> words = new ArrayList<String>();
+	private final HashMap<String, Integer> numbers = new HashMap<String, Integer>();
+	
+	/**
+	 * The numbers of removed words, which are used again.
+	 */
+	private int[] free = new int[16];
+	private int freeCount;
+	
+	/**
+	 * The numbers of the words which have a trigram.
+	 */
+	private final HashMap<Long, WordList> trigrams = new HashMap<Long, WordList>();
+	
+	/**
+	 * How many trigrams every word shares with the term,
+	 * kept between searches so they create no array.
+	 */
+	private int[] shared = new int[16];
+	
+	//#######################################################################
+	
+	/**
+	 * @return the amount of words
+	 */
+	int size() {
+		return numbers.size();
+	}
+	
+	/**
+	 * @param word a word of the TextIndex, in lower case
+	 */
+	void add(String word) {
+		
+		if(!hasLetter(word) || numbers.containsKey(word)) {
+			return;
+		}
+		
+		int number;
+		if(freeCount > 0) {
+			number = free[--freeCount];
+			words.set(number, word);
+		} else {
+			number = words.size();
+			words.add(word);
+		}
+		numbers.put(word, number);
+		
+		for(long trigram : trigrams(word)) {
+			WordList list = trigrams.get(trigram);
+			if(list == null) {
+				list = new WordList();
+				trigrams.put(trigram, list);
+			}
+			list.add(number);
+		}
+	}
+	
+	/**
+	 * @param word a word which no book has anymore
+	 */
+	void remove(String word) {
+		
+		Integer number = numbers.remove(word);
+		if(number == null) {
+			return;
+		}
+		
+		for(long trigram : trigrams(word)) {
+			WordList list = trigrams.get(trigram);
+			if(list != null && list.remove(number) == 0) {
+				trigrams.remove(trigram);
+			}
+		}
+		words.set(number, null);
+		if(freeCount == free.length) {
+			free = Arrays.copyOf(free, freeCount * 2);
+		}
+		free[freeCount++] = number;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Finds the words which differ from the term in at
+	 * most <i>maxDistance(term.length())</i> letters.
+	 * A short term or a number only matches itself, it
+	 * is returned without looking whether it is a word.
+	 * 
+	 * @param term the term, in lower case
+	 * @return the words, the most similar first
+	 */
+	List<Match> similar(String term) {
+		
+		List<Match> matches = new ArrayList<Match>();
+		int max = maxDistance(term.length());
+		if(max == 0 || !hasLetter(term)) {
+			matches.add(new Match(term, 0));
+			return matches;
+		}
+		
+		if(shared.length < words.size()) {
+			shared = new int[Math.max(words.size(), shared.length * 2)];
+		}
+		
+		/*
+		 * Counts the trigrams every word shares with the
+		 * term. One changed letter changes at most three
+		 * trigrams and two swapped letters at most four
+		 * ("haruki" and "haurki" share only "$ha" and "ki$"),
+		 * so a word with fewer shared ones cannot be
+		 * similar enough.
+		 */
+		long[] termTrigrams = trigrams(term);
+		int needed = termTrigrams.length - 4 * max;
+		int[] candidates = new int[16];
+		int candidateCount = 0;
+		for(long trigram : termTrigrams) {
+			WordList list = trigrams.get(trigram);
+			if(list == null) {
+				continue;
+			}
+			for(int i = 0; i < list.size; i++) {
+				int number = list.numbers[i];
+				if(shared[number]++ == 0) {
+					if(candidateCount == candidates.length) {
+						candidates = Arrays.copyOf(candidates, candidateCount * 2);
+					}
+					candidates[candidateCount++] = number;
+				}
+			}
+		}
+		
+		for(int i = 0; i < candidateCount; i++) {
+			int number = candidates[i];
+			String word = words.get(number);
+			if(shared[number] >= needed && Math.abs(word.length() - term.length()) <= max) {
+				int distance = distance(term, word, max);
+				if(distance <= max) {
+					matches.add(new Match(word, distance));
+				}
+			}
+			shared[number] = 0;
+		}
+		
+		matches.sort((Match m1, Match m2) -> m1.distance != m2.distance
+				? m1.distance - m2.distance : m1.word.compareTo(m2.word));
+		return matches;
+	}
+	
+	/**
+	 * @param length the length of a term
+	 * @return the most letters in which a word may differ:
+	 * none for up to three letters, one for up to
+	 * six and two for longer terms
+	 */
+	static int maxDistance(int length) {
+		if(length <= 3) {
+			return 0;
+		}
+		return length <= 6 ? 1 : 2;
+	}
+	
+	/**
+	 * The edit distance of two words: how many letters must be
+	 * inserted, removed, replaced or swapped with the next one
+	 * to turn the one into the other. Only the letters near the
+	 * diagonal are compared, and it stops as soon as the
+	 * distance is higher than <i>max</i>.
+	 * 
+	 * @return the distance, or max + 1 if it is higher than max
+	 */
+	static int distance(String a, String b, int max) {
+		
+		int n = a.length();
+		int m = b.length();
+		if(Math.abs(n - m) > max) {
+			return max + 1;
+		}
+		
+		int big = max + 1;
+		int[] before = new int[m + 1];
+		int[] previous = new int[m + 1];
+		int[] current = new int[m + 1];
+		for(int j = 0; j <= m; j++) {
+			previous[j] = j <= max ? j : big;
+		}
+		
+		for(int i = 1; i <= n; i++) {
+			int from = Math.max(1, i - max);
+			int to = Math.min(m, i + max);
+			Arrays.fill(current, big);
+			current[0] = i <= max ? i : big;
+			int lowest = current[0];
+			char ca = a.charAt(i - 1);
+			for(int j = from; j <= to; j++) {
+				char cb = b.charAt(j - 1);
+				int cost = ca == cb ? 0 : 1;
+				int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+				if(i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+					value = Math.min(value, before[j - 2] + 1);
+				}
+				current[j] = Math.min(value, big);
+				lowest = Math.min(lowest, current[j]);
+			}
+			if(lowest > max) {
+				return big;
+			}
+			int[] oldest = before;
+			before = previous;
+			previous = current;
+			current = oldest;
+		}
+		return previous[m];
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * @return the trigrams of the word with a BOUNDARY
+	 * before and after it, three chars packed into a long
+	 */
+	private static long[] trigrams(String word) {
+		
+		String bounded = BOUNDARY + word + BOUNDARY;
+		long[] trigrams = new long[bounded.length() - 2];
+		for(int i = 0; i < trigrams.length; i++) {
+			trigrams[i] = ((long) bounded.charAt(i) << 32)
+					| ((long) bounded.charAt(i + 1) << 16) | bounded.charAt(i + 2);
+		}
+		return trigrams;
+	}
+	
+	private static boolean hasLetter(String word) {
+		for(int i = 0; i < word.length(); i++) {
+			if(Character.isLetter(word.charAt(i))) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * A word which is similar to a term.
+	 */
+	static final class Match {
+		
+		final String word;
+		final int distance;
+		
+		Match(String word, int distance) {
+			this.word = word;
+			this.distance = distance;
+		}
+	}
+	
+	/**
+	 * The numbers of the words which have a trigram.
+	 */
+	private static class WordList {
+		
+		private int[] numbers = new int[2];
+		private int size;
+		
+		void add(int number) {
+			if(size == numbers.length) {
+				numbers = Arrays.copyOf(numbers, size * 2);
+			}
+			numbers[size++] = number;
+		}
+		
+		/**
+		 * @return the amount of numbers which are left
+		 */
+		int remove(int number) {
+			for(int i = 0; i < size; i++) {
+				if(numbers[i] == number) {
+					numbers[i] = numbers[--size];
+					break;
+				}
+			}
+			return size;
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Vector;
+
+/**
+ * This BookStore keeps all books
+ * in a Vector in memory.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class VectorBookStore implements BookStore {
+	
+	/**
+	 * Stores all books.
+	 */
+	private Vector<Book> books;
+	
+	/**
+	 * True if a snapshot uses the Vector too, it is
+	 * copied before a book in it is replaced or moved.
+	 * Books can still be added, the snapshot only reads
+	 * the books it had.
+	 */
+	private boolean shared;
+	
+	/**
+	 * True if this store is a snapshot.
+	 */
+	private final boolean readOnly;
+	
+	/**
+	 * The amount of books of a snapshot.
+	 */
+	private final int snapshotSize;
+	
+	/**
+	 * Constructor for an empty store.
+	 */
+	public VectorBookStore() {
+		this(new Vector<Book>());
+	}
+	
+	/**
+	 * @param books the books which are
+	 * stored, the Vector is used directly.
+	 */
+	public VectorBookStore(Vector<Book> books) {
+		this.books = books;
+		this.readOnly = false;
+		this.snapshotSize = -1;
+	}
+	
+	/**
+	 * Constructor for a snapshot.
+	 */
+	private VectorBookStore(Vector<Book> books, int size) {
+		this.books = books;
+		this.readOnly = true;
+		this.snapshotSize = size;
+	}
+
+	@Override
+	public int size() {
+		return readOnly ? snapshotSize : books.size();
+	}
+
+	@Override
+	public Book get(int index) {
+		if(readOnly && index >= snapshotSize) {
+			throw new ArrayIndexOutOfBoundsException(index);
+		}
+		return books.get(index);
+	}
+
+	@Override
+	public void set(int index, Book book) {
+		prepareChange();
+		books.set(index, book);
+	}
+
+	@Override
+	public void add(Book book) {
+		if(readOnly) {
+			throw new UnsupportedOperationException("A snapshot cannot be changed.");
+		}
+		books.add(book);
+	}
+
+	@Override
+	public void insert(int index, Book book) {
+		if(index == books.size()) {
+			add(book);
+			return;
+		}
+		prepareChange();
+		books.add(index, book);
+	}
+
+	@Override
+	public void remove(int index) {
+		prepareChange();
+		books.remove(index);
+	}
+
+	@Override
+	public void removeAll(BitSet positions) {
+		
+		prepareChange();
+		if(positions.cardinality() <= 16) {
+			for(int i = positions.length() - 1; i >= 0; i = positions.previousSetBit(i - 1)) {
+				books.remove(i); 	//a few books are moved faster by the Vector itself
+			}
+			return;
+		}
+		Book[] array = books.toArray(new Book[books.size()]);
+		int kept = 0;
+		for(int i = 0; i < array.length; i++) {
+			if(!positions.get(i)) {
+				array[kept++] = array[i];
+			}
+		}
+		books.clear();
+		books.addAll(Arrays.asList(array).subList(0, kept));
+	}
+
+	@Override
+	public void select(BookFilter filter, BitSet rows) {
+		int size = size();
+		for(int i = 0; i < size; i++) {
+			if(filter.matches(books.get(i))) {
+				rows.set(i);
+			}
+		}
+	}
+
+	@Override
+	public void count(LibraryStatistics statistics) {
+		for(Book book : books) {
+			statistics.added(book);
+		}
+	}
+
+	@Override
+	public int[] sort(Comparator<Book> comparator, BookSort sorter) {
+		
+		prepareChange();
+		Book[] array = books.toArray(new Book[books.size()]);
+		int[] order = sorter.sortBooks(array, comparator);
+		books.clear();
+		books.addAll(Arrays.asList(array));
+		return order;
+	}
+
+	@Override
+	public Vector<Book> getBooks() {
+		if(readOnly) {
+			return new Vector<Book>(books.subList(0, snapshotSize));
+		}
+		prepareChange(); 	//the Vector may be changed by the caller
+		return books;
+	}
+	
+	/**
+	 * Shares the Vector with the snapshot,
+	 * the Books are not copied.
+	 */
+	@Override
+	public BookStore snapshot() {
+		if(readOnly) {
+			return this;
+		}
+		shared = true;
+		return new VectorBookStore(books, books.size());
+	}
+
+	@Override
+	public boolean readsFromFile() {
+		return false;
+	}
+
+	@Override
+	public void close() {
+		//nothing to release
+	}
+	
+	/**
+	 * Puts the books into the given order,
+	 * e.g. the order of a SortedIndex.
+	 * 
+	 * @param sorted all books of the store
+	 */
+	void setAll(Book[] sorted) {
+		prepareChange();
+		books.clear();
+		books.addAll(Arrays.asList(sorted));
+	}
+	
+	/**
+	 * Is called before the Vector is changed.
+	 */
+	private void prepareChange() {
+		if(readOnly) {
+			throw new UnsupportedOperationException("A snapshot cannot be changed.");
+		}
+		if(shared) {
+			books = new Vector<Book>(books);
+			shared = false;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import static model.BookAssert.tempFile;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import org.junit.Test;
+
+/**
+ * Checks that a file which is replaced keeps its
+ * permissions, and that a symbolic link to it is kept.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class AtomicFileTest {
+	
+	private static final byte[] CONTENT = "Ilias#Homer#XXXXXX#01#1999".getBytes(StandardCharsets.UTF_8);
+	
+	@Test
+	public void permissionsKept() throws IOException {
+		
+		File file = tempFile(".booklist", "");
+		Path path = file.toPath();
+		assumeNotNull(Files.getFileAttributeView(path, PosixFileAttributeView.class));
+		Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-rw-r--"));
+		
+		replace(file);
+		
+		assertArrayEquals(CONTENT, Files.readAllBytes(path));
+		assertEquals("rw-rw-r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(path)));
+	}
+	
+	@Test
+	public void symbolicLinkKept() throws IOException {
+		
+		File file = tempFile(".booklist", "");
+		assumeNotNull(Files.getFileAttributeView(file.toPath(), PosixFileAttributeView.class));
+		File link = new File(file.getPath() + ".link");
+		Files.createSymbolicLink(link.toPath(), file.toPath());
+		link.deleteOnExit();
+		
+		replace(link);
+		
+		assertTrue(Files.isSymbolicLink(link.toPath()));
+		assertArrayEquals(CONTENT, Files.readAllBytes(file.toPath()));
+	}
+	
+	/**
+	 * Replaces the file with CONTENT.
+	 */
+	private static void replace(File file) throws IOException {
+		
+		AtomicFile out = new AtomicFile(file, false);
+		Files.write(out.getTempFile().toPath(), CONTENT);
+		out.getChecksum().update(CONTENT);
+		out.commit(0);
+	}
+}
@@ -0,0 +1,74 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Vector;
+
+/**
+ * Compares the heap which the books of a file need,
+ * once with an own Author for every book and once with
+ * the authors shared through an AuthorDictionary.
+ * 
+ * Run it with the amount of books as first argument
+ * (default 5 000 000) and enough heap, e.g. -Xmx4g.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class AuthorHeapBenchmark {
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 5000000;
+		File file = SyntheticBooklist.createTempFile(count);
+		
+		System.out.println(count + " books (" + (file.length() >> 20) + " MB)");
+		
+		long base = usedHeap();
+		Vector<Book> books = BooklistParser.parse(file, null);
+		long withoutDictionary = usedHeap() - base;
+		System.out.println("own authors:    " + (withoutDictionary >> 20) + " MB, "
+				+ (withoutDictionary / books.size()) + " bytes per book");
+		books = null;
+		
+		base = usedHeap();
+		AuthorDictionary authors = new AuthorDictionary();
+		books = BooklistParser.parse(file, authors);
+		long withDictionary = usedHeap() - base;
+		System.out.println("shared authors: " + (withDictionary >> 20) + " MB, "
+				+ (withDictionary / books.size()) + " bytes per book, "
+				+ authors.size() + " different authors");
+		
+		System.out.println("saved: " + ((withoutDictionary - withDictionary) >> 20) + " MB ("
+				+ ((withoutDictionary - withDictionary) * 100 / withoutDictionary) + "%)");
+		
+		file.delete();
+	}
+	
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
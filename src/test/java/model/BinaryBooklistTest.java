@@ -0,0 +1,106 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import static model.BookAssert.SPECIAL_LINES;
+import static model.BookAssert.assertSameBooks;
+import static model.BookAssert.booksOf;
+import static model.BookAssert.join;
+import static model.BookAssert.tempFile;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks that a .booklist file converted into a binary
+ * booklist and back loses nothing: the books are the same,
+ * and the text written again is the same file the library
+ * writes for the .booklist file, including the sentinels
+ * XXXXXX, 00 and 0000.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class BinaryBooklistTest {
+	
+	@Test
+	public void specialFields() throws IOException {
+		assertRoundTrip(tempFile(".booklist", join(SPECIAL_LINES)));
+	}
+	
+	@Test
+	public void syntheticBooklist() throws IOException {
+		File file = File.createTempFile("check", ".booklist");
+		file.deleteOnExit();
+		SyntheticBooklist.write(file, 20000, 11);
+		assertRoundTrip(file);
+	}
+	
+	@Test
+	public void emptyBooklist() throws IOException {
+		assertRoundTrip(tempFile(".booklist", ""));
+	}
+	
+	@Test
+	public void formatIsDetected() throws IOException {
+		File text = tempFile(".booklist", join(SPECIAL_LINES));
+		File binary = tempFile(BinaryBooklist.FILE_ENDING, "");
+		BinaryBooklist.convertToBinary(text, binary);
+		assertTrue(BinaryBooklist.isBinary(binary));
+		assertFalse(BinaryBooklist.isBinary(text));
+	}
+	
+	/**
+	 * Converts the file into a binary booklist and back.
+	 */
+	private static void assertRoundTrip(File text) throws IOException {
+		
+		List<Book> scanned = ParserBenchmark.parseWithScanner(text);
+		
+		File binary = tempFile(BinaryBooklist.FILE_ENDING, "");
+		BinaryBooklist.convertToBinary(text, binary);
+		Library library = new Library(binary);
+		assertSameBooks(scanned, booksOf(library));
+		library.close();
+		
+		File back = tempFile(".booklist", "");
+		BinaryBooklist.convertToText(binary, back);
+		assertSameBooks(scanned, ParserBenchmark.parseWithScanner(back));
+		assertArrayEquals(Files.readAllBytes(written(text).toPath()), Files.readAllBytes(back.toPath()));
+	}
+	
+	/**
+	 * @return the file as the library writes it, with the
+	 * sentinels for every empty field ("###" becomes "#XXXXXX#XXXXXX#")
+	 */
+	private static File written(File text) throws IOException {
+		File written = tempFile(".booklist", "");
+		Library library = new Library(text);
+		library.writeTo(written, BooklistFormat.TEXT);
+		library.close();
+		return written;
+	}
+}
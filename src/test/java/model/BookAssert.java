@@ -0,0 +1,112 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers for the checks: booklist files with every
+ * kind of field and comparing books field by field.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+final class BookAssert {
+	
+	/**
+	 * Lines with the sentinels for empty fields (XXXXXX, 00,
+	 * 0000), umlauts, empty tokens and irregular dates.
+	 */
+	static final String[] SPECIAL_LINES = {
+		"Kafka am Strand#Haruki#Murakami#03#2012",
+		"Ohne Autor#XXXXXX#XXXXXX#00#0000",
+		"Nur ein Jahr#Juli#Zeh#00#2009",
+		"Nur ein Monat#Juli#Zeh#07#0000",
+		"Noël, Brüder und Straße#XXXXXX#Homer#12#0000",
+		"Ilias#Homer#XXXXXX#01#1999",
+		"Seltsames Datum#Cory#Doctorow#ab#20x4",
+		"Dreizehnter Monat#Cory#Doctorow#13#2001",
+		"#Leerer#Titel#05#2010",
+		"Leere Namen###02#2003",
+		"日本語のタイトル#春樹#村上#11#1987"
+	};
+	
+	private BookAssert() {
+	}
+	
+	/**
+	 * Writes lines into a temporary file which
+	 * is deleted when the checks end.
+	 * 
+	 * @param ending the ending of the file name
+	 * @param text the content of the file
+	 * @return the file
+	 */
+	static File tempFile(String ending, String text) throws IOException {
+		File file = File.createTempFile("check", ending);
+		file.deleteOnExit();
+		Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+	
+	/**
+	 * @return the lines joined by "\n", without a line
+	 * break after the last one like in Default.booklist
+	 */
+	static String join(String... lines) {
+		return String.join("\n", lines);
+	}
+	
+	/**
+	 * @return the books of the library, in its order
+	 */
+	static List<Book> booksOf(Library library) {
+		List<Book> books = new ArrayList<Book>(library.size());
+		for(int i = 0; i < library.size(); i++) {
+			books.add(library.getBook(i));
+		}
+		return books;
+	}
+	
+	/**
+	 * Fails unless both lists hold the same books,
+	 * compared field by field.
+	 */
+	static void assertSameBooks(List<Book> expected, List<Book> actual) {
+		assertEquals("amount of books", expected.size(), actual.size());
+		for(int i = 0; i < expected.size(); i++) {
+			Book x = expected.get(i);
+			Book y = actual.get(i);
+			String at = "book " + i + " ";
+			assertEquals(at + "title", x.getTitle(), y.getTitle());
+			assertEquals(at + "sur name", x.getSurName(), y.getSurName());
+			assertEquals(at + "last name", x.getLastName(), y.getLastName());
+			assertEquals(at + "month", x.getMonth(), y.getMonth());
+			assertEquals(at + "year", x.getYear(), y.getYear());
+			assertEquals(at + "date", x.getPackedDate(), y.getPackedDate());
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import static model.BookAssert.assertSameBooks;
+import static model.BookAssert.booksOf;
+import static model.BookAssert.join;
+import static model.BookAssert.tempFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks that a query with an author finds the same books
+ * in every store as walking through the books does, also
+ * if only one of the names is given. The stores compare
+ * the names in their bytes or columns, edited books as Books.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class BookQueryTest {
+	
+	private static final String[] LINES = {
+		"Kafka am Strand#Haruki#Murakami#03#2012",
+		"Naokos Lächeln#Haruki#Murakami#01#2001",
+		"Die Pilger#Haruki#Yamamoto#05#2015",
+		"Schlaf#Ryu#Murakami#00#2010",
+		"Spieltrieb#Juli#Zeh#00#2004",
+		"Ohne Autor#XXXXXX#XXXXXX#00#0000",
+		"Nur ein Name#XXXXXX#Murakami#07#1999"
+	};
+	
+	@Test
+	public void everyStorageMode() throws IOException {
+		for(StorageMode mode : StorageMode.values()) {
+			LibraryOptions options = new LibraryOptions();
+			options.setStorageMode(mode);
+			assertAuthorQueries(new Library(tempFile(".booklist", join(LINES)), options), mode.toString());
+		}
+	}
+	
+	@Test
+	public void binaryBooklist() throws IOException {
+		File binary = tempFile(BinaryBooklist.FILE_ENDING, "");
+		BinaryBooklist.convertToBinary(tempFile(".booklist", join(LINES)), binary);
+		assertAuthorQueries(new Library(binary), "binary");
+	}
+	
+	/**
+	 * Queries the names, before and after a book was edited.
+	 */
+	private static void assertAuthorQueries(Library library, String what) {
+		
+		for(int round = 0; round < 2; round++) {
+			assertAuthorQuery(library, "Haruki", "Murakami");
+			assertAuthorQuery(library, "Haruki", null);
+			assertAuthorQuery(library, null, "Murakami");
+			assertAuthorQuery(library, "", "Murakami");
+			assertAuthorQuery(library, "", "");
+			assertAuthorQuery(library, null, null);
+			
+			Book book = new Book(library.getBook(4));
+			book.setSurName("Haruki");
+			book.setLastName("Murakami");
+			library.updateBook(4, book);
+		}
+		library.close();
+	}
+	
+	private static void assertAuthorQuery(Library library, String surName, String lastName) {
+		List<Book> expected = new ArrayList<Book>();
+		for(Book book : booksOf(library)) {
+			if((surName == null || surName.equals(book.getSurName()))
+					&& (lastName == null || lastName.equals(book.getLastName()))) {
+				expected.add(book);
+			}
+		}
+		assertSameBooks(expected, library.query().authorIs(surName, lastName).books());
+	}
+}
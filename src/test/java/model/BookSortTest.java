@@ -0,0 +1,100 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the parallel sorting against Collections.sort:
+ * with many equal books, which must keep their order,
+ * and with books which are already in order.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class BookSortTest {
+	
+	/**
+	 * Enough books for several parts on every thread,
+	 * and an amount which does not split evenly.
+	 */
+	private static final int BOOKS = 5 * BookSort.MIN_PART + 123;
+	
+	@Test
+	public void manyEqualBooks() {
+		
+		Random random = new Random(13);
+		Book[] books = new Book[BOOKS];
+		for(int i = 0; i < books.length; i++) {
+			books[i] = new Book("Titel " + random.nextInt(20), new Author("S" + random.nextInt(7), "L"),
+					200000 + random.nextInt(3) * 100 + 1 + random.nextInt(12));
+		}
+		
+		assertSortedLikeCollections(books, Comparator.comparing(Book::getTitle));
+		assertSortedLikeCollections(books, Comparator.comparing(Book::getPackedDate));
+		assertSortedLikeCollections(books, (Book b1, Book b2) -> 0);
+	}
+	
+	@Test
+	public void alreadySorted() {
+		
+		Book[] books = new Book[BOOKS];
+		for(int i = 0; i < books.length; i++) {
+			books[i] = new Book("Titel " + (i / 1000), new Author("Juli", "Zeh"), 200001);
+		}
+		assertSortedLikeCollections(books, Comparator.comparing(Book::getTitle));
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Sorts a copy of the books on several threads and fails
+	 * unless the books and their old positions are in the
+	 * order Collections.sort gives them.
+	 */
+	private static void assertSortedLikeCollections(Book[] books, Comparator<Book> comparator) {
+		
+		List<Integer> expected = new ArrayList<Integer>(books.length);
+		for(int i = 0; i < books.length; i++) {
+			expected.add(i);
+		}
+		Collections.sort(expected, (Integer i1, Integer i2) -> comparator.compare(books[i1], books[i2]));
+		
+		BookSort sorter = new BookSort(4, 1);
+		Book[] sorted = books.clone();
+		int[] order = sorter.sortBooks(sorted, comparator);
+		sorter.close();
+		
+		int[] expectedOrder = new int[books.length];
+		for(int i = 0; i < books.length; i++) {
+			expectedOrder[i] = expected.get(i);
+			assertSame("book " + i, books[expectedOrder[i]], sorted[i]);
+		}
+		assertArrayEquals(expectedOrder, order);
+	}
+}
@@ -0,0 +1,110 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import static model.BookAssert.SPECIAL_LINES;
+import static model.BookAssert.assertSameBooks;
+import static model.BookAssert.booksOf;
+import static model.BookAssert.join;
+import static model.BookAssert.tempFile;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks that the memory-mapped BooklistParser and the
+ * ParallelBooklistLoader read exactly the books the Scanner
+ * of the old Library(File) read, including the sentinels
+ * XXXXXX, 00 and 0000 for empty fields.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class BooklistParserTest {
+	
+	@Test
+	public void specialFields() throws IOException {
+		assertParsedLikeScanner(tempFile(".booklist", join(SPECIAL_LINES)));
+	}
+	
+	@Test
+	public void sentinelsBecomeEmpty() throws IOException {
+		List<Book> books = BooklistParser.parse(tempFile(".booklist", join(SPECIAL_LINES)));
+		Book book = books.get(1);
+		assertEquals("", book.getSurName());
+		assertEquals("", book.getLastName());
+		assertEquals("", book.getMonth());
+		assertEquals("", book.getYear());
+		assertEquals(0, book.getPackedDate());
+		assertEquals(200900, books.get(2).getPackedDate());
+		assertEquals(Book.DATE_IRREGULAR, books.get(6).getPackedDate());
+	}
+	
+	@Test
+	public void lineBreakAfterLastBook() throws IOException {
+		assertParsedLikeScanner(tempFile(".booklist", join(SPECIAL_LINES) + "\n"));
+	}
+	
+	@Test
+	public void incompleteLastBook() throws IOException {
+		assertParsedLikeScanner(tempFile(".booklist", join(SPECIAL_LINES) + "\nHalbes Buch#Juli"));
+	}
+	
+	@Test
+	public void windowsLineBreaks() throws IOException {
+		assertParsedLikeScanner(tempFile(".booklist", String.join("\r\n", SPECIAL_LINES)));
+	}
+	
+	@Test
+	public void emptyFile() throws IOException {
+		assertParsedLikeScanner(tempFile(".booklist", ""));
+	}
+	
+	@Test
+	public void syntheticBooklist() throws IOException {
+		File file = File.createTempFile("check", ".booklist");
+		file.deleteOnExit();
+		SyntheticBooklist.write(file, 20000, 7);
+		assertParsedLikeScanner(file);
+	}
+	
+	/**
+	 * Compares the parser, the parallel loader and
+	 * Library(File) in every storage mode with the Scanner.
+	 */
+	private static void assertParsedLikeScanner(File file) throws IOException {
+		
+		List<Book> scanned = ParserBenchmark.parseWithScanner(file);
+		assertSameBooks(scanned, BooklistParser.parse(file));
+		for(int parallelism = 1; parallelism <= 4; parallelism++) {
+			assertSameBooks(scanned, ParallelBooklistLoader.load(file, parallelism));
+		}
+		for(StorageMode mode : StorageMode.values()) {
+			LibraryOptions options = new LibraryOptions();
+			options.setStorageMode(mode);
+			Library library = new Library(file, options);
+			assertSameBooks(scanned, booksOf(library));
+			library.close();
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Compares sorting by title and by author with the
+ * keys kept by the Books and Authors against the old
+ * comparators, which lower cased (and put together)
+ * the Strings for every comparison.
+ * 
+ * Prints the time of the first sort, in which the keys
+ * are created, the best time of the other sorts and the
+ * bytes allocated per book by the last sort (including
+ * the copy of the list and the temporary array of the
+ * merge sort). Run it with the amount of books as
+ * first argument (default 1 000 000).
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class CollationBenchmark {
+	
+	private static final int ROUNDS = 5;
+	
+	/**
+	 * Keeps the results, so the work is not optimized away.
+	 */
+	private static int sink;
+	
+	/**
+	 * The comparator BookSortTitle used before the keys.
+	 */
+	private static final Comparator<Book> LOWER_CASE_TITLES = (b1, b2) ->
+		b1.getTitle().toLowerCase().compareTo(b2.getTitle().toLowerCase());
+	
+	/**
+	 * The comparator BookSortAuthor used before the keys.
+	 */
+	private static final Comparator<Book> LOWER_CASE_AUTHORS = (b1, b2) -> {
+		String name1 = b1.getLastName().toLowerCase() + b1.getSurName().toLowerCase();
+		String name2 = b2.getLastName().toLowerCase() + b2.getSurName().toLowerCase();
+		return name1.compareTo(name2);
+	};
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		File file = SyntheticBooklist.createTempFile(count);
+		List<Book> books = BooklistParser.parse(file, new AuthorDictionary());
+		file.delete();
+		
+		System.out.println(count + " books");
+		
+		measure("title, lower case:  ", books, LOWER_CASE_TITLES);
+		measure("title, keys:        ", books, new BookSortTitle());
+		measure("author, lower case: ", books, LOWER_CASE_AUTHORS);
+		measure("author, keys:       ", books, new BookSortAuthor());
+	}
+	
+	private static void measure(String name, List<Book> books, Comparator<Book> comparator) {
+		
+		com.sun.management.ThreadMXBean threads =
+				(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long id = Thread.currentThread().getId();
+		
+		long first = 0;
+		long best = Long.MAX_VALUE;
+		long allocated = 0;
+		
+		for(int round = 0; round < ROUNDS; round++) {
+			long bytes = threads.getThreadAllocatedBytes(id);
+			long start = System.nanoTime();
+			List<Book> copy = new ArrayList<Book>(books);
+			Collections.sort(copy, comparator);
+			sink += copy.size();
+			long time = System.nanoTime() - start;
+			allocated = threads.getThreadAllocatedBytes(id) - bytes;
+			if(round == 0) {
+				first = time;
+			} else {
+				best = Math.min(best, time);
+			}
+		}
+		
+		System.out.println(name + "first " + (first / 1000000) + " ms, then " + (best / 1000000) + " ms, "
+				+ (allocated / books.size()) + " bytes allocated per book");
+	}
+}
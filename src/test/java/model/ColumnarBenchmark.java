@@ -0,0 +1,106 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Comparator;
+
+/**
+ * Compares sorting the books in a VectorBookStore
+ * against a ColumnarBookStore, and the heap both
+ * stores keep alive. The columnar store ranks the
+ * titles and authors on the first sort and uses the
+ * ranks again until new values are added, so the
+ * first and the best of five sorts are printed.
+ * 
+ * Run it with the amount of books as first
+ * argument (default 1 000 000).
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class ColumnarBenchmark {
+	
+	private static final int ROUNDS = 5;
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		File file = SyntheticBooklist.createTempFile(count);
+		AuthorDictionary authors = new AuthorDictionary();
+		BookStore vector = new VectorBookStore(BooklistParser.parse(file, authors));
+		
+		System.out.println(count + " books");
+		
+		/*
+		 * The columns get their own titles from a second parse,
+		 * the authors are in the dictionary for both stores.
+		 */
+		long before = usedHeap();
+		BookStore columns = new ColumnarBookStore(authors, BooklistParser.parse(file, authors));
+		long withBoth = usedHeap();
+		file.delete();
+		vector = null;
+		long columnarHeap = withBoth - before;
+		long vectorHeap = withBoth - usedHeap();
+		
+		System.out.println("heap, Vector:        " + (vectorHeap >> 20) + " MB (Books and titles)");
+		System.out.println("heap, columnar:      " + (columnarHeap >> 20) + " MB (columns and title dictionary)");
+		
+		vector = new VectorBookStore(columns.getBooks());
+		
+		measure("sort title, Vector:  ", vector, new BookSortTitle());
+		measure("sort title, column:  ", columns, new BookSortTitle());
+		measure("sort author, Vector: ", vector, new BookSortAuthor());
+		measure("sort author, column: ", columns, new BookSortAuthor());
+		measure("sort date, Vector:   ", vector, new BookSortDate());
+		measure("sort date, column:   ", columns, new BookSortDate());
+		
+		if(!SyntheticBooklist.sameBooks(vector.getBooks(), columns.getBooks())) {
+			System.out.println("The stores differ!");
+		}
+	}
+	
+	private static void measure(String name, BookStore store, Comparator<Book> comparator) {
+		
+		long first = 0;
+		long best = Long.MAX_VALUE;
+		for(int round = 0; round < ROUNDS; round++) {
+			store.sort(new BookSortDate(), BookSort.SEQUENTIAL);
+			long start = System.nanoTime();
+			store.sort(comparator, BookSort.SEQUENTIAL);
+			long time = System.nanoTime() - start;
+			if(round == 0) {
+				first = time;
+			}
+			best = Math.min(best, time);
+		}
+		System.out.println(name + " first " + (first / 1000000) + " ms, best " + (best / 1000000) + " ms");
+	}
+	
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
@@ -0,0 +1,79 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Vector;
+
+/**
+ * Compares the size and the load time of a compressed
+ * booklist with the plain .booklist file.
+ * 
+ * Run it with the amount of books as first argument
+ * (default 1 000 000).
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class CompressedLoadBenchmark {
+	
+	private static final int ROUNDS = 5;
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		File plain = SyntheticBooklist.createTempFile(count);
+		File compressed = File.createTempFile("booklist", CompressedBooklist.FILE_ENDING);
+		compressed.deleteOnExit();
+		
+		Library library = new Library(plain);
+		long start = System.nanoTime();
+		library.writeTo(compressed, BooklistFormat.COMPRESSED);
+		long writeTime = System.nanoTime() - start;
+		
+		System.out.println(count + " books: plain " + (plain.length() >> 10) + " KB, compressed "
+				+ (compressed.length() >> 10) + " KB (" + (compressed.length() * 100 / plain.length())
+				+ "%), compressed in " + (writeTime / 1000000) + " ms");
+		
+		Vector<Book> plainBooks = null;
+		Vector<Book> compressedBooks = null;
+		long plainBest = Long.MAX_VALUE;
+		long compressedBest = Long.MAX_VALUE;
+		
+		for(int round = 0; round < ROUNDS; round++) {
+			start = System.nanoTime();
+			plainBooks = BooklistParser.parse(plain);
+			plainBest = Math.min(plainBest, System.nanoTime() - start);
+			
+			start = System.nanoTime();
+			compressedBooks = CompressedBooklist.read(compressed);
+			compressedBest = Math.min(compressedBest, System.nanoTime() - start);
+		}
+		
+		System.out.println("plain:      " + (plainBest / 1000000) + " ms");
+		System.out.println("compressed: " + (compressedBest / 1000000) + " ms");
+		if(!SyntheticBooklist.sameBooks(plainBooks, compressedBooks)) {
+			throw new IllegalStateException("The compressed file holds different books.");
+		}
+		
+		compressed.delete();
+	}
+}
@@ -0,0 +1,168 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares sorting by date and rendering the dates
+ * with the packed dates against the old way, which
+ * put Strings together for every comparison and
+ * parsed the month for every rendered row.
+ * 
+ * A JMH benchmark: main() runs it with the GC profiler,
+ * which prints the bytes allocated per operation next
+ * to the time (sorting includes the copy of the list and
+ * the temporary array of the merge sort). Run it with the
+ * amount of books as first argument (default 1 000 000).
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateBenchmark {
+	
+	private static final String[] NAMEOFMONTH = {
+		"January", "February", "March", "April", "May", "June", "July", "August", "September", "October", "November", "December"
+	};
+	
+	/**
+	 * The comparator BookSortDate used before the dates were packed.
+	 */
+	private static final Comparator<Book> STRING_DATES = (b1, b2) -> {
+		String datum1 = b1.getYear() + b1.getMonth();
+		String datum2 = b2.getYear() + b2.getMonth();
+		return datum1.compareTo(datum2);
+	};
+	
+	/**
+	 * The amount of books.
+	 */
+	@Param("1000000")
+	public int count;
+	
+	private List<Book> books;
+	
+	@Setup
+	public void createBooks() throws IOException {
+		File file = SyntheticBooklist.createTempFile(count);
+		books = BooklistParser.parse(file, new AuthorDictionary());
+		file.delete();
+	}
+	
+	//#######################################################################
+	
+	@Benchmark
+	public List<Book> sortStrings() {
+		return sort(STRING_DATES);
+	}
+	
+	@Benchmark
+	public List<Book> sortPacked() {
+		return sort(new BookSortDate());
+	}
+	
+	@Benchmark
+	public void renderParseInt(Blackhole hole) {
+		for(Book book : books) {
+			hole.consume(oldDateWithWords(book.getMonth(), book.getYear()));
+		}
+	}
+	
+	@Benchmark
+	public void renderPacked(Blackhole hole) {
+		for(Book book : books) {
+			hole.consume(book.getDateWithWords());
+		}
+	}
+	
+	private List<Book> sort(Comparator<Book> comparator) {
+		List<Book> copy = new ArrayList<Book>(books);
+		Collections.sort(copy, comparator);
+		return copy;
+	}
+	
+	//#######################################################################
+	
+	public static void main(String[] args) throws RunnerException {
+		
+		String count = args.length > 0 ? args[0] : "1000000";
+		new Runner(new OptionsBuilder()
+				.include(DateBenchmark.class.getName())
+				.param("count", count)
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+	
+	/**
+	 * Book.getDateWithWords() before the dates were packed.
+	 */
+	private static String oldDateWithWords(String month, String year) {
+		if(month.isEmpty() && year.isEmpty()) {
+			return "";
+		} else if(month.isEmpty()) {
+			return year;
+		} else if(year.isEmpty()){
+			int monthInt = Integer.parseInt(month);
+			
+			if(monthInt > 0 && monthInt < 13) {
+				return NAMEOFMONTH[monthInt - 1];
+			} else {
+				return "";
+			}
+		} else {
+			int monthInt = Integer.parseInt(month);
+			
+			if(monthInt > 0 && monthInt < 13) {
+				return year + ", " + NAMEOFMONTH[monthInt - 1];
+			} else {
+				return year;
+			}
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures queries for a range of dates: walking through
+ * all books and comparing their dates against looking
+ * the range up in the DateIndex (counting them and listing
+ * their ids), for a short and a long range, and what adding, editing and deleting a book
+ * costs while the index is kept up to date.
+ * 
+ * Run it with the amount of books as first
+ * argument (default 1 000 000).
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class DateRangeBenchmark {
+	
+	private static final int RUNS = 200;
+	
+	private static final int CHANGES = 2000;
+	
+	/**
+	 * Keeps the results, so the work is not optimized away.
+	 */
+	private static long sink;
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		File file = SyntheticBooklist.createTempFile(count);
+		Library library = new Library(file);
+		file.delete();
+		
+		System.out.println(count + " books");
+		
+		long heap = usedHeap();
+		long start = System.nanoTime();
+		library.query().withoutDate().count();
+		long built = System.nanoTime() - start;
+		System.out.println("index created in " + (built / 1000000) + " ms, "
+				+ ((usedHeap() - heap) / count) + " bytes per book");
+		
+		measure(library, "03.2012 - 12.2014", 201203, 201412);
+		measure(library, "1950 - 2019", 195000, 201912);
+		measure(library, "12.1999", 199912, 199912);
+		
+		long[] times = new long[RUNS];
+		int found = 0;
+		for(int run = 0; run < RUNS; run++) {
+			start = System.nanoTime();
+			found = library.query().withoutDate().count();
+			times[run] = System.nanoTime() - start;
+			sink += found;
+		}
+		Arrays.sort(times);
+		System.out.println("without date: " + found + " books, index " + (times[RUNS / 2] / 1000) + " us");
+		
+		Random random = new Random(1);
+		start = System.nanoTime();
+		for(int i = 0; i < CHANGES; i++) {
+			library.addBook(new Book("Spieltrieb " + i, new Author("Juli", "Zeh"), 190000 + random.nextInt(13000)));
+		}
+		long added = System.nanoTime() - start;
+		start = System.nanoTime();
+		for(int i = 0; i < CHANGES; i++) {
+			int index = random.nextInt(library.size());
+			Book book = library.getBook(index);
+			library.updateBook(index, new Book(book.getTitle(), book.getAuthorEntry(), 190000 + random.nextInt(13000)));
+		}
+		long edited = System.nanoTime() - start;
+		start = System.nanoTime();
+		for(int i = 0; i < CHANGES; i++) {
+			library.deleteBooks(new int[] {random.nextInt(library.size())});
+		}
+		long deleted = System.nanoTime() - start;
+		System.out.println("add " + (added / CHANGES / 1000) + " us, edit " + (edited / CHANGES / 1000)
+				+ " us, delete " + (deleted / CHANGES / 1000) + " us per book");
+		
+		System.out.println(sink == 0 ? "" : "");
+	}
+	
+	private static void measure(Library library, String name, int fromDate, int toDate) {
+		
+		long[] scanned = new long[RUNS];
+		long[] indexed = new long[RUNS];
+		long[] listed = new long[RUNS];
+		int found = 0;
+		for(int run = 0; run < RUNS; run++) {
+			long start = System.nanoTime();
+			int scan = 0;
+			for(int i = 0; i < library.size(); i++) {
+				int date = library.getBook(i).getPackedDate();
+				if(date >= 100 && date >= fromDate && date <= toDate) {
+					scan++;
+				}
+			}
+			scanned[run] = System.nanoTime() - start;
+			start = System.nanoTime();
+			found = library.query().datedBetween(fromDate / 100, fromDate % 100, toDate / 100, toDate % 100).count();
+			indexed[run] = System.nanoTime() - start;
+			start = System.nanoTime();
+			sink += library.query().datedBetween(fromDate / 100, fromDate % 100, toDate / 100, toDate % 100).ids().length;
+			listed[run] = System.nanoTime() - start;
+			if(found != scan) {
+				throw new IllegalStateException(name + ": " + found + " books, " + scan + " by walking through");
+			}
+			sink += found;
+		}
+		Arrays.sort(scanned);
+		Arrays.sort(indexed);
+		Arrays.sort(listed);
+		System.out.println(name + ": " + found + " books, walking through " + (scanned[RUNS / 2] / 1000)
+				+ " us, index " + (indexed[RUNS / 2] / 1000) + " us, ids of the books "
+				+ (listed[RUNS / 2] / 1000) + " us");
+	}
+	
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
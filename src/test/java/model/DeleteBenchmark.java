@@ -0,0 +1,82 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Vector;
+
+/**
+ * Compares deleting many scattered books one by one,
+ * like Library.deleteBooks(int[]) did, against the
+ * bulk delete of the library for every storage mode.
+ * 
+ * Run it with the amount of books and the amount of
+ * deleted books as arguments (default 1 000 000 and 50 000).
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class DeleteBenchmark {
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int deleted = args.length > 1 ? Integer.parseInt(args[1]) : 50000;
+		
+		File file = SyntheticBooklist.createTempFile(count);
+		
+		Random random = new Random(1);
+		int[] positions = new int[deleted];
+		for(int i = 0; i < deleted; i++) {
+			positions[i] = random.nextInt(count);
+		}
+		Arrays.sort(positions);
+		positions = Arrays.stream(positions).distinct().toArray();
+		
+		System.out.println(count + " books, " + positions.length + " deleted");
+		
+		Vector<Book> books = BooklistParser.parse(file, new AuthorDictionary());
+		long start = System.nanoTime();
+		for(int i = positions.length - 1; i >= 0; i--) {
+			books.remove(positions[i]);
+		}
+		System.out.println("one by one, Vector:  " + (System.nanoTime() - start) / 1000000 + " ms");
+		Vector<Book> expected = books;
+		
+		for(StorageMode mode : StorageMode.values()) {
+			LibraryOptions options = new LibraryOptions();
+			options.setStorageMode(mode);
+			Library library = new Library(file, options);
+			
+			start = System.nanoTime();
+			library.deleteBooks(positions);
+			long time = System.nanoTime() - start;
+			
+			String name = ("bulk, " + mode + ":").concat("               ").substring(0, 21);
+			System.out.println(name + time / 1000000 + " ms"
+					+ (SyntheticBooklist.sameBooks(expected, library.getBooks()) ? "" : ", the books differ!"));
+			library.close();
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,180 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import static model.BookAssert.SPECIAL_LINES;
+import static model.BookAssert.assertSameBooks;
+import static model.BookAssert.booksOf;
+import static model.BookAssert.join;
+import static model.BookAssert.tempFile;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks that a delta save writes the changed books, and
+ * that a save which stopped after the patch file was written
+ * is finished when the file is opened again, while a patch
+ * file which is not complete leaves the file as it was.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class DeltaSaveTest {
+	
+	@Test
+	public void savedWithoutPatch() throws IOException {
+		
+		File file = createBooklist();
+		Library library = open(file);
+		change(library);
+		List<Book> expected = booksOf(library);
+		library.save();
+		library.close();
+		
+		assertFalse(DeltaSave.patchFile(file).exists());
+		assertSameBooks(expected, ParserBenchmark.parseWithScanner(file));
+	}
+	
+	/**
+	 * The layout after a save describes the changed file,
+	 * so the next save does not read the file again.
+	 */
+	@Test
+	public void layoutKeptForNextSave() throws IOException {
+		
+		File file = createBooklist();
+		Library library = open(file);
+		
+		change(library);
+		SaveTask first = library.prepareSave();
+		assertNotNull(first.getDelta());
+		first.run(null);
+		library.saveCompleted(first);
+		assertTrue(first.getDelta().getResult().describes(file));
+		
+		change(library);
+		SaveTask second = library.prepareSave();
+		assertNotNull(second.getDelta());
+		assertSame(first.getDelta().getResult(), second.getDelta().getLayout());
+		List<Book> expected = booksOf(library);
+		second.run(null);
+		library.saveCompleted(second);
+		library.close();
+		
+		assertSameBooks(expected, ParserBenchmark.parseWithScanner(file));
+	}
+	
+	/**
+	 * The program stops after the patch file was
+	 * written, before the booklist was changed.
+	 */
+	@Test
+	public void stoppedAfterPatch() throws IOException {
+		
+		File file = createBooklist();
+		List<Book> before = ParserBenchmark.parseWithScanner(file);
+		Library library = open(file);
+		change(library);
+		List<Book> expected = booksOf(library);
+		writePatchOnly(library);
+		library.close();
+		assertSameBooks(before, ParserBenchmark.parseWithScanner(file));
+		
+		Library again = open(file);
+		assertSameBooks(expected, booksOf(again));
+		again.close();
+		assertFalse(DeltaSave.patchFile(file).exists());
+		assertSameBooks(expected, ParserBenchmark.parseWithScanner(file));
+	}
+	
+	/**
+	 * The program stops while the patch file is written.
+	 */
+	@Test
+	public void stoppedInPatch() throws IOException {
+		
+		File file = createBooklist();
+		List<Book> before = ParserBenchmark.parseWithScanner(file);
+		Library library = open(file);
+		change(library);
+		writePatchOnly(library);
+		library.close();
+		
+		File patch = DeltaSave.patchFile(file);
+		try (RandomAccessFile cut = new RandomAccessFile(patch, "rw")) {
+			cut.setLength(patch.length() - 5);
+		}
+		
+		Library again = open(file);
+		assertSameBooks(before, booksOf(again));
+		again.close();
+		assertFalse(patch.exists());
+	}
+	
+	//#######################################################################
+	
+	private static File createBooklist() throws IOException {
+		List<String> lines = new ArrayList<String>(Arrays.asList(SPECIAL_LINES));
+		for(int i = 0; i < 5000; i++) {
+			lines.add("Titel " + i + "#Juli#Zeh#0" + (1 + i % 9) + "#" + (1990 + i % 30));
+		}
+		return tempFile(".booklist", join(lines.toArray(new String[lines.size()])));
+	}
+	
+	private static Library open(File file) throws IOException {
+		LibraryOptions options = new LibraryOptions();
+		options.setDeltaSaving(true);
+		return new Library(file, options);
+	}
+	
+	/**
+	 * Edits a book in place, one with a longer
+	 * line and adds a book at the end.
+	 */
+	private static void change(Library library) {
+		
+		Book same = new Book(library.getBook(2000));
+		same.setTitle(same.getTitle().replace('T', 'R'));
+		library.updateBook(2000, same);
+		
+		Book longer = new Book(library.getBook(4000));
+		longer.setTitle(longer.getTitle() + " und mehr");
+		library.updateBook(4000, longer);
+		
+		library.addBook(new Book("Kafka am Strand", "Haruki", "Murakami", "03", "2012"));
+	}
+	
+	private static void writePatchOnly(Library library) throws IOException {
+		SaveTask task = library.prepareSave();
+		assertNotNull(task.getDelta());
+		task.getDelta().writePatch(task.getTarget(), true, null);
+	}
+}
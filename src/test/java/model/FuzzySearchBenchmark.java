@@ -0,0 +1,153 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures how long a search with typing errors takes
+ * while the library grows from 10 000 to 10 000 000
+ * books (or the amount given as first argument).
+ * 
+ * The books are made up: like in real titles, the amount
+ * of different words grows with the square root of the
+ * amount of books and few words are used very often. Some
+ * real names and words are mixed in, so there is something
+ * to misspell. The books are only put into a TextIndex,
+ * so 10 million of them fit into the memory.
+ * 
+ * Every time the library has grown ten times, every query
+ * is run many times and the median and the 99th percentile
+ * are printed, for the first 20 books.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class FuzzySearchBenchmark {
+	
+	private static final int RUNS = 500;
+	
+	private static final int LIMIT = 20;
+	
+	private static final String[] QUERIES = {
+		"Murakmi", "Doctorw", "Noel", "Coward Noel", "murakmi kafak", "Abendort", "stradn brohter"
+	};
+	
+	private static final String[][] AUTHORS = {
+		{"Haruki", "Murakami"}, {"Cory", "Doctorow"}, {"Noël", "Coward"}, {"Heinrich", "Böll"}
+	};
+	
+	private static final String[] TITLE_WORDS = {
+		"Kafka", "Strand", "Abendrot", "Brother", "Schweigen"
+	};
+	
+	private static final String[] SYLLABLES = {
+		"ka", "ri", "to", "ma", "ne", "su", "lo", "be", "di", "fa", "go", "hu", "ji", "ke", "la", "mo",
+		"nu", "pa", "re", "si", "ta", "vo", "wi", "ze", "an", "el", "in", "or", "us", "ch", "st", "en"
+	};
+	
+	/**
+	 * Keeps the results, so the work is not optimized away.
+	 */
+	private static long sink;
+	
+	public static void main(String[] args) {
+		
+		int max = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		Random random = new Random(1);
+		TextIndex index = new TextIndex();
+		
+		int next = 10000;
+		long start = System.nanoTime();
+		for(int i = 1; i <= max; i++) {
+			index.add(book(random, i), i);
+			if(i == next || i == max) {
+				System.out.println(i + " books, " + index.words() + " different words, added in "
+						+ ((System.nanoTime() - start) / 1000000) + " ms");
+				for(String query : QUERIES) {
+					measure(index, query);
+				}
+				next *= 10;
+				start = System.nanoTime();
+			}
+		}
+		System.out.println(sink == 0 ? "" : "");
+	}
+	
+	private static void measure(TextIndex index, String query) {
+		
+		long[] times = new long[RUNS];
+		int found = 0;
+		for(int run = 0; run < RUNS; run++) {
+			long start = System.nanoTime();
+			found = index.searchSimilar(query, LIMIT).length;
+			times[run] = System.nanoTime() - start;
+			sink += found;
+		}
+		Arrays.sort(times);
+		System.out.println("  \"" + query + "\": " + found + " books, median " + (times[RUNS / 2] / 1000)
+				+ " us, 99% " + (times[RUNS * 99 / 100] / 1000) + " us");
+	}
+	
+	/**
+	 * @param count the amount of books so far
+	 * @return a made up book
+	 */
+	private static Book book(Random random, int count) {
+		
+		int words = (int) (40 * Math.sqrt(count));
+		StringBuilder title = new StringBuilder();
+		int length = 2 + random.nextInt(3);
+		for(int i = 0; i < length; i++) {
+			if(i > 0) {
+				title.append(' ');
+			}
+			if(random.nextInt(20) == 0) {
+				title.append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+			} else {
+				title.append(word((int) Math.pow(words, random.nextDouble())));
+			}
+		}
+		
+		Author author;
+		if(random.nextInt(20) == 0) {
+			String[] name = AUTHORS[random.nextInt(AUTHORS.length)];
+			author = new Author(name[0], name[1]);
+		} else {
+			author = new Author(word(-1 - random.nextInt(words / 4 + 1)),
+					word(-1 - (int) Math.pow(words, random.nextDouble())));
+		}
+		return new Book(title.toString(), author, 0);
+	}
+	
+	/**
+	 * @return the made up word with the number
+	 */
+	private static String word(int number) {
+		Random random = new Random(number * 0x9E3779B97F4A7C15L);
+		StringBuilder word = new StringBuilder();
+		int syllables = 2 + random.nextInt(3);
+		for(int i = 0; i < syllables; i++) {
+			word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+		}
+		word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+		return word.toString();
+	}
+}
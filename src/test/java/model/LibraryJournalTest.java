@@ -0,0 +1,130 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import static model.BookAssert.SPECIAL_LINES;
+import static model.BookAssert.assertSameBooks;
+import static model.BookAssert.booksOf;
+import static model.BookAssert.join;
+import static model.BookAssert.tempFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks that the changes of the journal are applied when
+ * the file is opened again, and that a journal which does
+ * not fit to the file anymore is kept instead of deleted.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class LibraryJournalTest {
+	
+	@Test
+	public void replayed() throws IOException {
+		
+		File file = tempFile(".booklist", join(SPECIAL_LINES));
+		Library library = open(file);
+		change(library);
+		List<Book> expected = booksOf(library);
+		library.save(); 	//not closed, close() would write all books
+		assertTrue(LibraryJournal.journalFile(file).exists());
+		
+		Library again = open(file);
+		assertNull(again.getKeptJournal());
+		assertSameBooks(expected, booksOf(again));
+		again.close();
+		LibraryJournal.journalFile(file).delete();
+	}
+	
+	/**
+	 * Another program appends a book after the changes were
+	 * saved in the journal. The journal is not applied to
+	 * the changed file, but it is not lost either.
+	 */
+	@Test
+	public void outdatedJournalKept() throws IOException {
+		
+		File file = tempFile(".booklist", join(SPECIAL_LINES));
+		Library library = open(file);
+		change(library);
+		library.save();
+		
+		File journal = LibraryJournal.journalFile(file);
+		long journalLength = journal.length();
+		try (FileWriter out = new FileWriter(file, true)) {
+			out.write("\nCorpus Delicti#Juli#Zeh#01#2009");
+		}
+		List<Book> expected = ParserBenchmark.parseWithScanner(file);
+		
+		Library again = open(file);
+		File kept = again.getKeptJournal();
+		assertEquals(new File(journal.getPath() + LibraryJournal.OUTDATED_ENDING), kept);
+		assertEquals(journalLength, kept.length());
+		assertFalse(journal.exists());
+		assertSameBooks(expected, booksOf(again));
+		again.close();
+		
+		/*
+		 * A second outdated journal does not replace the first.
+		 */
+		Library third = open(file);
+		change(third);
+		third.save();
+		try (FileWriter out = new FileWriter(file, true)) {
+			out.write("\nSpieltrieb#Juli#Zeh#09#2004");
+		}
+		Library fourth = open(file);
+		assertEquals(new File(kept.getPath() + "2"), fourth.getKeptJournal());
+		assertTrue(kept.exists());
+		fourth.close();
+		
+		kept.delete();
+		fourth.getKeptJournal().delete();
+	}
+	
+	//#######################################################################
+	
+	private static Library open(File file) throws IOException {
+		LibraryOptions options = new LibraryOptions();
+		options.setJournaling(true);
+		options.setJournalThreshold(Long.MAX_VALUE);
+		return new Library(file, options);
+	}
+	
+	/**
+	 * Adds, edits and deletes books.
+	 */
+	private static void change(Library library) {
+		library.addBook(new Book("Unterleuten", new Author("Juli", "Zeh"), 201601));
+		Book book = new Book(library.getBook(1));
+		book.setTitle("Neuer Titel");
+		library.updateBook(1, book);
+		library.deleteBooks(new int[] {0});
+	}
+}
@@ -0,0 +1,247 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import static model.BookAssert.SPECIAL_LINES;
+import static model.BookAssert.join;
+import static model.BookAssert.tempFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the LibraryStatistics against counting the books
+ * again, for every storage mode and a binary booklist:
+ * after opening, while books are added, edited, deleted
+ * and sorted, after the journal was read again and
+ * after the file was changed by another program.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class LibraryStatisticsTest {
+	
+	private static final String[] MONTHS = {"00", "01", "03", "12", "13", "ab"};
+	
+	private static final String[] YEARS = {"0000", "2012", "2013", "1999", "20x4"};
+	
+	@Test
+	public void everyStorageMode() throws IOException {
+		for(StorageMode mode : StorageMode.values()) {
+			LibraryOptions options = new LibraryOptions();
+			options.setStorageMode(mode);
+			assertCountedWhileChanged(createBooklist(".booklist"), options, mode.toString());
+		}
+	}
+	
+	@Test
+	public void binaryBooklist() throws IOException {
+		File binary = tempFile(BinaryBooklist.FILE_ENDING, "");
+		BinaryBooklist.convertToBinary(createBooklist(".booklist"), binary);
+		assertCountedWhileChanged(binary, new LibraryOptions(), "binary");
+	}
+	
+	/**
+	 * The books are changed before the statistics are asked
+	 * for, so a store which reads from the file counts some
+	 * books from its bytes and the changed ones as Books.
+	 */
+	@Test
+	public void countedAfterChanges() throws IOException {
+		for(StorageMode mode : StorageMode.values()) {
+			LibraryOptions options = new LibraryOptions();
+			options.setStorageMode(mode);
+			Library library = new Library(createBooklist(".booklist"), options);
+			Random random = new Random(3);
+			for(int step = 0; step < 100; step++) {
+				change(library, random, step);
+			}
+			assertCounted(library, mode + " changed");
+			library.close();
+		}
+	}
+	
+	/**
+	 * The books of a binary booklist are counted on another
+	 * thread, the changes made meanwhile are added to them.
+	 */
+	@Test
+	public void binaryCountedAfterChanges() throws IOException {
+		File binary = tempFile(BinaryBooklist.FILE_ENDING, "");
+		BinaryBooklist.convertToBinary(createBooklist(".booklist"), binary);
+		Library library = new Library(binary);
+		Random random = new Random(3);
+		for(int step = 0; step < 100; step++) {
+			change(library, random, step);
+		}
+		assertCounted(library, "binary changed");
+		library.close();
+	}
+	
+	/**
+	 * Another program replaces the file, the library counts
+	 * the books while it reads them again.
+	 */
+	@Test
+	public void countedAfterReload() throws IOException {
+		for(StorageMode mode : StorageMode.values()) {
+			LibraryOptions options = new LibraryOptions();
+			options.setStorageMode(mode);
+			File file = createBooklist(".booklist");
+			Library library = new Library(file, options);
+			Random random = new Random(11);
+			for(int step = 0; step < 50; step++) {
+				change(library, random, step);
+			}
+			library.save();
+			assertCounted(library, mode + " saved");
+			
+			Files.copy(createBooklist(".booklist").toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			assertTrue(mode + " reloaded", library.reload());
+			assertCounted(library, mode + " reloaded");
+			library.close();
+		}
+	}
+	
+	//#######################################################################
+	
+	/**
+	 * Opens the file, changes the books and opens
+	 * it again with the changes from the journal.
+	 */
+	private static void assertCountedWhileChanged(File file, LibraryOptions options, String what) throws IOException {
+		
+		options.setJournaling(true);
+		options.setJournalThreshold(Long.MAX_VALUE);
+		Library library = new Library(file, options);
+		assertCounted(library, what + " opened");
+		
+		Random random = new Random(5);
+		for(int step = 0; step < 200; step++) {
+			change(library, random, step);
+			if(step % 40 == 0) {
+				library.save();
+			}
+			assertCounted(library, what + " step " + step);
+		}
+		library.save();
+		library.close();
+		
+		Library again = new Library(file, options);
+		assertCounted(again, what + " opened again");
+		again.close();
+		LibraryJournal.journalFile(file).delete();
+	}
+	
+	/**
+	 * Adds, edits, deletes or sorts books.
+	 */
+	private static void change(Library library, Random random, int step) {
+		switch(random.nextInt(4)) {
+			case 0:
+				library.addBook(new Book("Neu " + step, "S" + random.nextInt(40), "L" + random.nextInt(5),
+						MONTHS[random.nextInt(MONTHS.length)], YEARS[random.nextInt(YEARS.length)]));
+				break;
+			case 1:
+				int index = random.nextInt(library.size());
+				Book book = new Book(library.getBook(index));
+				book.setSurName("S" + random.nextInt(40));
+				book.setYear(YEARS[random.nextInt(YEARS.length)]);
+				library.updateBook(index, book);
+				break;
+			case 2:
+				int[] delete = new int[1 + random.nextInt(3)];
+				for(int i = 0; i < delete.length; i++) {
+					delete[i] = random.nextInt(library.size());
+				}
+				library.deleteBooks(delete);
+				break;
+			default:
+				if(random.nextInt(10) == 0) {
+					library.sortByAuthors(0);
+				}
+		}
+	}
+	
+	/**
+	 * @return a booklist with the special lines
+	 * and books of 30 * 5 authors
+	 */
+	private static File createBooklist(String ending) throws IOException {
+		Random random = new Random(7);
+		String[] lines = new String[SPECIAL_LINES.length + 2000];
+		System.arraycopy(SPECIAL_LINES, 0, lines, 0, SPECIAL_LINES.length);
+		for(int i = SPECIAL_LINES.length; i < lines.length; i++) {
+			lines[i] = "Titel " + i + "#S" + random.nextInt(30) + "#L" + random.nextInt(5)
+					+ "#" + MONTHS[random.nextInt(MONTHS.length)] + "#" + YEARS[random.nextInt(YEARS.length)];
+		}
+		return tempFile(ending, join(lines));
+	}
+	
+	/**
+	 * Fails unless the statistics of the library are
+	 * the ones of walking through all its books.
+	 */
+	private static void assertCounted(Library library, String what) {
+		
+		Map<Author, Integer> authors = new HashMap<Author, Integer>();
+		int[] years = new int[10000];
+		int[] months = new int[100];
+		int irregular = 0;
+		for(int i = 0; i < library.size(); i++) {
+			Book book = library.getBook(i);
+			authors.merge(new Author(book.getSurName(), book.getLastName()), 1, Integer::sum);
+			int date = book.getPackedDate();
+			if(date == Book.DATE_IRREGULAR) {
+				irregular++;
+			} else {
+				years[date / 100]++;
+				months[date % 100]++;
+			}
+		}
+		int yearCount = 0;
+		for(int year = 1; year < years.length; year++) {
+			if(years[year] > 0) {
+				yearCount++;
+			}
+		}
+		
+		LibraryStatistics statistics = library.getStatistics();
+		assertEquals(what + ": books", library.size(), statistics.getBookCount());
+		assertEquals(what + ": authors", authors, statistics.getBooksPerAuthor());
+		assertEquals(what + ": years", yearCount, statistics.getYearCount());
+		assertEquals(what + ": irregular dates", irregular, statistics.booksWithIrregularDate());
+		for(int year = 0; year < years.length; year++) {
+			assertEquals(what + ": year " + year, years[year], statistics.booksIn(year));
+		}
+		for(int month = 0; month < months.length; month++) {
+			assertEquals(what + ": month " + month, months[month], statistics.booksInMonth(month));
+		}
+	}
+}
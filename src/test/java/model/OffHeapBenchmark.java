@@ -0,0 +1,134 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Measures the garbage collection pauses while a
+ * library is used, once with the books in a Vector
+ * and once outside of the heap.
+ * 
+ * The work is what the window does: rows are read
+ * at random and put together into a String, like the
+ * table renders them.
+ * Every collection is recorded; the longest pause,
+ * the sum of the pauses and the heap which is used
+ * after a full collection are printed.
+ * 
+ * Run it once for every mode, so the collections of
+ * one mode are not counted for the other:
+ * <pre>
+ * java model.OffHeapBenchmark memory 5000000
+ * java model.OffHeapBenchmark offheap 5000000
+ * </pre>
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class OffHeapBenchmark {
+	
+	private static final int ROWS = 20000000;
+	
+	private static long pauses;
+	private static long longestPause;
+	private static int collections;
+	
+	/**
+	 * Keeps the results, so the work is not optimized away.
+	 */
+	private static int sink;
+	
+	public static void main(String[] args) throws IOException {
+		
+		boolean offHeap = args.length > 0 && args[0].equals("offheap");
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 5000000;
+		
+		File file = SyntheticBooklist.createTempFile(count);
+		BookStore books;
+		if(offHeap) {
+			PagedBookStore paged = new PagedBookStore(file);
+			books = new OffHeapBookStore(paged);
+			paged.close();
+		} else {
+			books = new VectorBookStore(BooklistParser.parse(file, new AuthorDictionary()));
+		}
+		file.delete();
+		
+		System.out.println(count + " books, " + (offHeap ? "off heap" : "in a Vector"));
+		
+		long start = System.nanoTime();
+		System.gc();
+		System.out.println("full collection:   " + (System.nanoTime() - start) / 1000000 + " ms");
+		Runtime runtime = Runtime.getRuntime();
+		System.out.println("heap after it:     " + ((runtime.totalMemory() - runtime.freeMemory()) >> 20) + " MB");
+		
+		listen();
+		
+		Random random = new Random(1);
+		start = System.nanoTime();
+		for(int i = 0; i < ROWS; i++) {
+			Book book = books.get(random.nextInt(count));
+			String row = book.getTitle() + " | " + book.getAuthor() + " | " + book.getDateWithWords();
+			sink += row.length();
+		}
+		long time = System.nanoTime() - start;
+		
+		System.out.println(ROWS + " rows:     " + time / 1000000 + " ms");
+		System.out.println("collections:       " + collections);
+		System.out.println("pauses altogether: " + pauses + " ms");
+		System.out.println("longest pause:     " + longestPause + " ms");
+		
+		books.close();
+	}
+	
+	/**
+	 * Records every collection which happens from now on.
+	 */
+	private static void listen() {
+		
+		for(GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			((NotificationEmitter) bean).addNotificationListener((Notification notification, Object handback) -> {
+				
+				if(!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+					return;
+				}
+				GarbageCollectionNotificationInfo info =
+						GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+				long duration = info.getGcInfo().getDuration();
+				synchronized(OffHeapBenchmark.class) {
+					collections++;
+					pauses += duration;
+					longestPause = Math.max(longestPause, duration);
+				}
+			}, null, null);
+		}
+	}
+}
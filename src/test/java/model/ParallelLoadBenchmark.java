@@ -0,0 +1,77 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Vector;
+
+/**
+ * Measures how the ParallelBooklistLoader scales
+ * with the amount of threads.
+ * 
+ * Run it with the amount of books as first argument
+ * (default 10 000 000) and the highest amount of
+ * threads as second argument (default 8).
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class ParallelLoadBenchmark {
+	
+	private static final int ROUNDS = 3;
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+		File file = SyntheticBooklist.createTempFile(count);
+		
+		System.out.println("Loading " + count + " books (" + (file.length() >> 20) + " MB), "
+				+ Runtime.getRuntime().availableProcessors() + " cores available");
+		
+		Vector<Book> sequential = BooklistParser.parse(file);
+		long baseTime = 0;
+		
+		for(int threads = 1; threads <= maxThreads; threads *= 2) {
+			long best = Long.MAX_VALUE;
+			Vector<Book> books = null;
+			
+			for(int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				books = ParallelBooklistLoader.load(file, threads);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			
+			if(threads == 1) {
+				baseTime = best;
+			}
+			
+			System.out.println(threads + " threads: " + (best / 1000000) + " ms"
+					+ ", speedup " + String.format("%.2f", (double) baseTime / best));
+			if(!SyntheticBooklist.sameBooks(sequential, books)) {
+				throw new IllegalStateException(threads + " threads read different books.");
+			}
+			
+			books = null;
+			System.gc();
+		}
+	}
+}
@@ -0,0 +1,91 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures how the stable sort of the library scales
+ * with the amount of threads. The books are sorted by
+ * title, by author and by date on 1, 2, 4, ... threads
+ * up to the amount of cores (or the second argument),
+ * always from the same shuffled order. Prints the best
+ * time of every sort and the speedup against one thread,
+ * and checks that every result is the one of Arrays.sort.
+ * Run it with the amount of books as first argument
+ * (default 1 000 000).
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class ParallelSortBenchmark {
+	
+	private static final int ROUNDS = 5;
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int cores = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		File file = SyntheticBooklist.createTempFile(count);
+		List<Book> parsed = BooklistParser.parse(file, new AuthorDictionary());
+		file.delete();
+		Collections.shuffle(parsed, new Random(42));
+		Book[] books = parsed.toArray(new Book[0]);
+		
+		System.out.println(count + " books, " + Runtime.getRuntime().availableProcessors() + " cores");
+		
+		measure("title ", books, new BookSortTitle(), cores);
+		measure("author", books, new BookSortAuthor(), cores);
+		measure("date  ", books, new BookSortDate(), cores);
+	}
+	
+	private static void measure(String name, Book[] books, Comparator<Book> comparator, int cores) {
+		
+		Book[] expected = books.clone();
+		int[] expectedOrder = BookSort.SEQUENTIAL.sortBooks(expected, comparator);
+		
+		long single = 0;
+		for(int threads = 1; threads <= cores; threads = threads < cores ? Math.min(cores, threads * 2) : cores + 1) {
+			
+			BookSort sorter = new BookSort(threads, 0);
+			long best = Long.MAX_VALUE;
+			boolean same = true;
+			for(int round = 0; round < ROUNDS; round++) {
+				Book[] copy = books.clone();
+				long start = System.nanoTime();
+				int[] order = sorter.sortBooks(copy, comparator);
+				best = Math.min(best, System.nanoTime() - start);
+				same &= Arrays.equals(order, expectedOrder);
+			}
+			sorter.close();
+			
+			if(threads == 1) {
+				single = best;
+			}
+			System.out.println(name + " " + threads + " threads: " + (best / 1000000) + " ms, speedup "
+					+ String.format("%.2f", (double) single / best) + (same ? "" : ", NOT STABLE"));
+		}
+	}
+}
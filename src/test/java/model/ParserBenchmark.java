@@ -0,0 +1,111 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.Vector;
+
+/**
+ * Compares the memory-mapped BooklistParser with
+ * the Scanner which was used by Library(File) before.
+ * 
+ * Run it with the amount of books as argument,
+ * default are 1 000 000 books.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class ParserBenchmark {
+	
+	private static final int ROUNDS = 5;
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		File file = SyntheticBooklist.createTempFile(count);
+		
+		System.out.println("Parsing " + count + " books (" + (file.length() >> 20) + " MB)");
+		
+		Vector<Book> scanned = null;
+		Vector<Book> mapped = null;
+		
+		for(int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			scanned = parseWithScanner(file);
+			long scannerTime = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			mapped = BooklistParser.parse(file);
+			long mappedTime = System.nanoTime() - start;
+			
+			System.out.println("Round " + (round + 1)
+					+ ": Scanner " + (scannerTime / 1000000) + " ms"
+					+ ", mapped " + (mappedTime / 1000000) + " ms");
+		}
+		
+		if(!SyntheticBooklist.sameBooks(scanned, mapped)) {
+			throw new IllegalStateException("The parsers read different books.");
+		}
+	}
+	
+	/**
+	 * The way Library(File) parsed the file
+	 * before the BooklistParser was introduced.
+	 */
+	static Vector<Book> parseWithScanner(File file) throws IOException {
+		
+		Vector<Book> books = new Vector<Book>();
+		Scanner sc = new Scanner(file, "UTF-8");
+		sc.useDelimiter("[#\n]");
+		
+		try {
+			while(sc.hasNext()) {
+				String title = sc.next();
+				String surName = sc.next();
+				String lastName = sc.next();
+				String month = sc.next();
+				String year = sc.next();
+				
+				if(surName.equals("XXXXXX")) {
+					surName = "";
+				}
+				if(lastName.equals("XXXXXX")) {
+					lastName = "";
+				}
+				if(month.equals("00")) {
+					month = "";
+				}
+				if(year.equals("0000")) {
+					year = "";
+				}
+				
+				books.add(new Book(title, surName, lastName, month, year));
+			}
+		} catch (NoSuchElementException e) {
+			//an incomplete book at the end is ignored like before
+		}
+		
+		sc.close();
+		return books;
+	}
+}
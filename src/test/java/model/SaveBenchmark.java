@@ -0,0 +1,69 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Measures how fast a library is saved, once with the
+ * file forced to the disk before it replaces the old
+ * one and once without.
+ * 
+ * Run it with the amount of books as first argument
+ * (default 1 000 000).
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class SaveBenchmark {
+	
+	private static final int ROUNDS = 3;
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		File file = SyntheticBooklist.createTempFile(count);
+		
+		System.out.println("Saving " + count + " books (" + (file.length() >> 20) + " MB)");
+		
+		for(boolean sync : new boolean[] {false, true}) {
+			LibraryOptions options = new LibraryOptions();
+			options.setSyncOnSave(sync);
+			Library library = new Library(file, options);
+			
+			long best = Long.MAX_VALUE;
+			for(int round = 0; round < ROUNDS; round++) {
+				long start = System.nanoTime();
+				library.writeTo(file, false);
+				best = Math.min(best, System.nanoTime() - start);
+			}
+			
+			double seconds = best / 1e9;
+			System.out.println((sync ? "with fsync:    " : "without fsync: ") + (best / 1000000) + " ms, "
+					+ String.format("%.1f", count / seconds / 1000) + "k books/s, "
+					+ String.format("%.1f", (file.length() >> 20) / seconds) + " MB/s");
+			
+			library.close();
+		}
+		
+		file.delete();
+	}
+}
@@ -0,0 +1,93 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import static model.BookAssert.SPECIAL_LINES;
+import static model.BookAssert.assertSameBooks;
+import static model.BookAssert.booksOf;
+import static model.BookAssert.join;
+import static model.BookAssert.tempFile;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Checks saving in the background like the SaveWorker does:
+ * while a later task still waits, the file written by an
+ * earlier one is not read again as a change of another program.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class SaveTaskTest {
+	
+	@Test
+	public void waitingTaskIsOurOwnSave() throws IOException {
+		
+		File file = tempFile(".booklist", join(SPECIAL_LINES));
+		Library library = new Library(file);
+		
+		library.addBook(new Book("Kafka am Strand", "Haruki", "Murakami", "03", "2012"));
+		SaveTask first = library.prepareSave();
+		library.addBook(new Book("Spieltrieb", "Juli", "Zeh", "00", "2004"));
+		SaveTask second = library.prepareSave();
+		List<Book> expected = booksOf(library);
+		
+		first.run(null);
+		library.saveCompleted(first);
+		second.run(null); 	//only appends books to the first file
+		assertFalse(library.reload());
+		library.saveCompleted(second);
+		assertFalse(library.reload());
+		
+		assertSameBooks(expected, booksOf(library));
+		assertSameBooks(expected, ParserBenchmark.parseWithScanner(file));
+		library.close();
+	}
+	
+	/**
+	 * A task which was dropped after a failed one
+	 * ends the save like the failed one does.
+	 */
+	@Test
+	public void droppedTaskEndsSave() throws IOException {
+		
+		File file = tempFile(".booklist", join(SPECIAL_LINES));
+		Library library = new Library(file);
+		
+		library.addBook(new Book("Kafka am Strand", "Haruki", "Murakami", "03", "2012"));
+		SaveTask first = library.prepareSave();
+		SaveTask second = library.prepareSave();
+		library.saveFailed(first);
+		library.saveFailed(second);
+		
+		SaveTask third = library.prepareSave();
+		third.run(null);
+		library.saveCompleted(third);
+		assertFalse(library.reload());
+		
+		assertSameBooks(booksOf(library), ParserBenchmark.parseWithScanner(file));
+		library.close();
+	}
+}
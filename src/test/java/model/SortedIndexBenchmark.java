@@ -0,0 +1,109 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compares sorting the library with Collections.sort on
+ * every click, as it was done before the SortedIndexes,
+ * against walking through the indexes, and measures what
+ * adding, editing and deleting books costs while the
+ * library is sorted.
+ * 
+ * Run it with the amount of books as first
+ * argument (default 1 000 000).
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class SortedIndexBenchmark {
+	
+	private static final int ROUNDS = 5;
+	
+	private static final int CHANGES = 2000;
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		File file = SyntheticBooklist.createTempFile(count);
+		Library library = new Library(file);
+		file.delete();
+		
+		System.out.println(count + " books");
+		
+		byte[] by = {LibraryJournal.SORT_TITLES, LibraryJournal.SORT_AUTHORS, LibraryJournal.SORT_DATE};
+		String[] names = {"title:  ", "author: ", "date:   "};
+		
+		for(int i = 0; i < by.length; i++) {
+			long sorted = Long.MAX_VALUE;
+			for(int round = 0; round < ROUNDS; round++) {
+				library.sort(LibraryJournal.SORT_DATE, 1, false); 	//another order first
+				long start = System.nanoTime();
+				library.sort(by[i], 0, false);
+				sorted = Math.min(sorted, System.nanoTime() - start);
+			}
+			
+			long start = System.nanoTime();
+			library.sort(by[i], 0, true);
+			long created = System.nanoTime() - start;
+			
+			long walked = Long.MAX_VALUE;
+			for(int round = 0; round < ROUNDS; round++) {
+				library.sort(by[i], 1, true);
+				start = System.nanoTime();
+				library.sort(by[i], 0, true);
+				walked = Math.min(walked, System.nanoTime() - start);
+			}
+			
+			System.out.println(names[i] + "Collections.sort " + (sorted / 1000000) + " ms, index created in "
+					+ (created / 1000000) + " ms, walked in " + (walked / 1000000) + " ms");
+		}
+		
+		library.sortByTitles(0);
+		Random random = new Random(1);
+		
+		long start = System.nanoTime();
+		for(int i = 0; i < CHANGES; i++) {
+			library.addBook(new Book("Neues Buch " + random.nextInt(), "Juli", "Zeh", "05", "2001"));
+		}
+		long added = System.nanoTime() - start;
+		
+		start = System.nanoTime();
+		for(int i = 0; i < CHANGES; i++) {
+			long id = library.getId(random.nextInt(library.size()));
+			Book book = new Book(library.getBook(id));
+			book.setTitle("Anderer Titel " + random.nextInt());
+			library.updateBook(id, book);
+		}
+		long edited = System.nanoTime() - start;
+		
+		start = System.nanoTime();
+		for(int i = 0; i < CHANGES; i++) {
+			library.deleteBooks(new int[] {random.nextInt(library.size())});
+		}
+		long deleted = System.nanoTime() - start;
+		
+		System.out.println("sorted by title with 3 indexes, per book: add "
+				+ (added / CHANGES / 1000) + " us, edit " + (edited / CHANGES / 1000)
+				+ " us, delete " + (deleted / CHANGES / 1000) + " us");
+	}
+}
@@ -0,0 +1,117 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the positions the SortedIndex gives while books
+ * are added and removed against a list which is sorted,
+ * with enough books to split and remove blocks.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class SortedIndexTest {
+	
+	@Test
+	public void sameAsSortedList() {
+		
+		Comparator<Book> first = new BookSortTitle();
+		Comparator<Book> order = SortedIndex.inOrder(first);
+		Comparator<Entry> byEntry = (Entry e1, Entry e2) -> {
+			int result = order.compare(e1.book, e2.book);
+			return result != 0 ? result : Long.compare(e1.id, e2.id);
+		};
+		
+		Random random = new Random(9);
+		List<Entry> list = new ArrayList<Entry>();
+		Book[] books = new Book[3000];
+		long[] ids = new long[books.length];
+		for(int i = 0; i < books.length; i++) {
+			books[i] = new Book("Titel " + random.nextInt(500), new Author("Juli", "Zeh"), 0);
+			ids[i] = i + 1;
+			list.add(new Entry(books[i], ids[i]));
+		}
+		list.sort(byEntry);
+		SortedIndex index = new SortedIndex(first, books, ids, BookSort.SEQUENTIAL);
+		
+		long nextId = books.length + 1;
+		for(int step = 0; step < 20000; step++) {
+			boolean adding = step < 8000 ? random.nextInt(4) > 0 : random.nextInt(4) == 0;
+			if(adding || list.isEmpty()) {
+				Entry entry = new Entry(new Book("Titel " + random.nextInt(500), new Author("Juli", "Zeh"), 0), nextId++);
+				int position = -1 - binarySearch(list, entry, byEntry);
+				list.add(position, entry);
+				assertEquals("add " + step, position, index.add(entry.book, entry.id));
+			} else {
+				int position = random.nextInt(list.size());
+				Entry entry = list.remove(position);
+				assertEquals("remove " + step, position, index.remove(entry.book, entry.id));
+			}
+			assertEquals(list.size(), index.size());
+		}
+		
+		Book[] walked = new Book[index.size()];
+		long[] walkedIds = new long[index.size()];
+		index.walk(walked, walkedIds, false);
+		long[] expected = new long[list.size()];
+		for(int i = 0; i < expected.length; i++) {
+			expected[i] = list.get(i).id;
+		}
+		assertArrayEquals(expected, walkedIds);
+	}
+	
+	private static int binarySearch(List<Entry> list, Entry entry, Comparator<Entry> byEntry) {
+		int low = 0;
+		int high = list.size() - 1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			int result = byEntry.compare(list.get(middle), entry);
+			if(result < 0) {
+				low = middle + 1;
+			} else if(result > 0) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1 - low;
+	}
+	
+	private static class Entry {
+		
+		private final Book book;
+		private final long id;
+		
+		Entry(Book book, long id) {
+			this.book = book;
+			this.id = id;
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Measures the statistics of a library: how long counting
+ * the books takes, which the library does while it reads
+ * its file, how long a report of the books per author, year
+ * and month takes when it walks through the books compared
+ * to reading it from
+ * the LibraryStatistics, and what it costs to keep the
+ * counters up to date while books are added, edited and
+ * deleted.
+ * 
+ * Run it with the amount of books as first
+ * argument (default 1 000 000).
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class StatisticsBenchmark {
+	
+	private static final int RUNS = 20;
+	
+	private static final int CHANGES = 2000;
+	
+	private static final int READS = 1000;
+	
+	/**
+	 * Keeps the results, so the work is not optimized away.
+	 */
+	private static long sink;
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		File file = SyntheticBooklist.createTempFile(count);
+		Library library = new Library(file);
+		file.delete();
+		
+		System.out.println(count + " books");
+		
+		long[] times = new long[RUNS];
+		for(int run = 0; run < RUNS; run++) {
+			long start = System.nanoTime();
+			LibraryStatistics statistics = new LibraryStatistics();
+			new VectorBookStore(library.getBooks()).count(statistics);
+			sink += statistics.getAuthorCount();
+			times[run] = System.nanoTime() - start;
+		}
+		Arrays.sort(times);
+		System.out.println("counting all books: " + (times[RUNS / 2] / 1000000) + " ms");
+		
+		long[] scanned = new long[RUNS];
+		long[] read = new long[RUNS];
+		for(int run = 0; run < RUNS; run++) {
+			long start = System.nanoTime();
+			HashMap<Author, Integer> authors = new HashMap<Author, Integer>();
+			int[] years = new int[10000];
+			int[] months = new int[100];
+			for(int i = 0; i < library.size(); i++) {
+				Book book = library.getBook(i);
+				authors.merge(book.getAuthorEntry(), 1, Integer::sum);
+				int date = book.getPackedDate();
+				if(date >= 0) {
+					years[date / 100]++;
+					months[date % 100]++;
+				}
+			}
+			scanned[run] = System.nanoTime() - start;
+			sink += authors.size() + years[2000] + months[1];
+			
+			start = System.nanoTime();
+			for(int i = 0; i < READS; i++) {
+				LibraryStatistics statistics = library.getStatistics();
+				sink += statistics.getAuthorCount() + statistics.booksIn(2000) + statistics.booksInMonth(1);
+			}
+			read[run] = (System.nanoTime() - start) / READS;
+		}
+		Arrays.sort(scanned);
+		Arrays.sort(read);
+		System.out.println("report by walking through the books: " + (scanned[RUNS / 2] / 1000000)
+				+ " ms, read from the statistics: " + read[RUNS / 2] + " ns");
+		
+		long start = System.nanoTime();
+		sink += library.getStatistics().getBooksPerAuthor().size() + library.getStatistics().getBooksPerYear().size();
+		System.out.println("copy of the books per author and year: " + ((System.nanoTime() - start) / 1000) + " us");
+		
+		Random random = new Random(1);
+		start = System.nanoTime();
+		for(int i = 0; i < CHANGES; i++) {
+			library.addBook(new Book("Spieltrieb " + i, new Author("Juli", "Zeh"), 190000 + random.nextInt(13000)));
+		}
+		long added = System.nanoTime() - start;
+		start = System.nanoTime();
+		for(int i = 0; i < CHANGES; i++) {
+			int index = random.nextInt(library.size());
+			Book book = library.getBook(index);
+			library.updateBook(index, new Book(book.getTitle(), book.getAuthorEntry(), 190000 + random.nextInt(13000)));
+		}
+		long edited = System.nanoTime() - start;
+		System.out.println("add " + (added / CHANGES / 1000) + " us, edit " + (edited / CHANGES / 1000)
+				+ " us per book, with the statistics");
+		
+		System.out.println(sink == 0 ? "" : "");
+	}
+}
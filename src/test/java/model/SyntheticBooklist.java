@@ -0,0 +1,143 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package model;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Creates big .booklist files for the benchmarks.
+ * 
+ * The books look like the ones in Default.booklist:
+ * the same authors come up again and again, some
+ * titles contain umlauts and some fields are empty.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class SyntheticBooklist {
+	
+	private static final String[][] AUTHORS = {
+		{"Haruki", "Murakami"}, {"Stephenie", "Meyer"}, {"Juli", "Zeh"},
+		{"Heinrich", "Böll"}, {"Cory", "Doctorow"}, {"Noël", "Coward"},
+		{"Wolfgang", "Herrndorf"}, {"Alfred", "Lansing"}, {"", "Homer"},
+		{"", ""}
+	};
+	
+	private static final String[] TITLE_PARTS = {
+		"Bis(s) zum", "Das Brot der", "Little", "Kafka am", "Die Shackleton",
+		"Afterdark", "Adler und", "Naokos", "Spieltrieb", "Tschick"
+	};
+	
+	private static final String[] TITLE_ENDS = {
+		"Morgengrauen", "frühen Jahre", "Brother", "Strand", "Expedition",
+		"Engel", "Lächeln", "Abendrot", "Ende der Nacht", "Schweigen"
+	};
+	
+	public SyntheticBooklist() {
+		//do nothing, just defined for accidental instance creation.
+	}
+	
+	/**
+	 * Writes a .booklist file with the given
+	 * amount of books.
+	 * 
+	 * @param file the file which is written
+	 * @param count the amount of books
+	 * @param seed the seed of the random generator
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(File file, int count, long seed) throws IOException {
+		
+		Random random = new Random(seed);
+		
+		try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
+				new FileOutputStream(file), StandardCharsets.UTF_8), 1 << 16)) {
+			
+			for(int i = 0; i < count; i++) {
+				String[] author = AUTHORS[random.nextInt(AUTHORS.length)];
+				int month = random.nextInt(13);
+				int year = random.nextInt(10) == 0 ? 0 : 1950 + random.nextInt(70);
+				
+				bw.write(TITLE_PARTS[random.nextInt(TITLE_PARTS.length)]);
+				bw.write(' ');
+				bw.write(TITLE_ENDS[random.nextInt(TITLE_ENDS.length)]);
+				bw.write(' ');
+				bw.write(Integer.toString(i));
+				bw.write('#');
+				bw.write(author[0].isEmpty() ? "XXXXXX" : author[0]);
+				bw.write('#');
+				bw.write(author[1].isEmpty() ? "XXXXXX" : author[1]);
+				bw.write('#');
+				bw.write(month < 10 ? "0" + month : Integer.toString(month));
+				bw.write('#');
+				bw.write(year == 0 ? "0000" : Integer.toString(year));
+				if(i != (count - 1)) {
+					bw.newLine();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Creates a temporary .booklist file which is
+	 * deleted when the benchmark ends.
+	 * 
+	 * @param count the amount of books
+	 * @return the temporary file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static File createTempFile(int count) throws IOException {
+		
+		File file = File.createTempFile("synthetic", ".booklist");
+		file.deleteOnExit();
+		write(file, count, 42);
+		return file;
+	}
+	
+	/**
+	 * Compares the books of two lists field by field.
+	 * 
+	 * @return <code>true</code> if both lists hold the same books
+	 */
+	public static boolean sameBooks(java.util.List<Book> a, java.util.List<Book> b) {
+		
+		if(a.size() != b.size()) {
+			return false;
+		}
+		for(int i = 0; i < a.size(); i++) {
+			Book x = a.get(i);
+			Book y = b.get(i);
+			if(!x.getTitle().equals(y.getTitle())
+					|| !x.getSurName().equals(y.getSurName())
+					|| !x.getLastName().equals(y.getLastName())
+					|| !x.getMonth().equals(y.getMonth())
+					|| !x.getYear().equals(y.getYear())) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
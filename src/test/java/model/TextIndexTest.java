@@ -0,0 +1,161 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the search over the titles and authors against
+ * walking through all books, also for words whose books
+ * are kept as bits while the index grows around them.
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class TextIndexTest {
+	
+	/**
+	 * A word of many books is kept as bits. After many
+	 * other books were added it has few books compared
+	 * to the index and is combined like a list.
+	 */
+	@Test
+	public void wordKeptAsBitsInGrownIndex() {
+		
+		Library library = new Library();
+		for(int i = 0; i < 1100; i++) {
+			library.addBook(new Book("Kafka am Strand " + i, new Author("Haruki", "Murakami"), 0));
+		}
+		library.search("murakami"); 	//creates the index
+		for(int i = 0; i < 200000; i++) {
+			library.addBook(new Book("Spieltrieb " + i, new Author("Juli", "Zeh"), 0));
+		}
+		
+		long[] found = library.search("murakami", 10);
+		assertArrayEquals(new long[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, found);
+		assertEquals(1100, library.search("murakami").length);
+		assertEquals(1100, library.search("haruki kafka").length);
+		assertEquals(111, library.search("murakami 10").length); 	//10, 100 to 109, 1000 to 1099
+		assertEquals(10, library.searchSimilar("murakmi", 10).length);
+	}
+	
+	/**
+	 * Two swapped letters are one typing error, although
+	 * they change four of the trigrams of the word.
+	 */
+	@Test
+	public void swappedLetters() {
+		
+		Library library = new Library();
+		library.addBook(new Book("Kafka am Strand", new Author("Haruki", "Murakami"), 0));
+		library.addBook(new Book("Spieltrieb", new Author("Juli", "Zeh"), 0));
+		
+		assertArrayEquals(new long[] {1}, library.searchSimilar("haurki", 10));
+		assertArrayEquals(new long[] {1}, library.searchSimilar("strnad", 10));
+		assertArrayEquals(new long[] {1}, library.searchSimilar("kafak murakmai", 10));
+		assertArrayEquals(new long[] {2}, library.searchSimilar("spieltreib juli", 10));
+	}
+	
+	/**
+	 * The same, with the index created from an author-sorted file.
+	 */
+	@Test
+	public void authorSortedLibrary() {
+		
+		Library library = new Library();
+		for(int i = 0; i < 1100; i++) {
+			library.addBook(new Book("Kafka am Strand " + i, new Author("Haruki", "Murakami"), 0));
+		}
+		for(int i = 0; i < 200000; i++) {
+			library.addBook(new Book("Spieltrieb " + i, new Author("Juli", "Zeh"), 0));
+		}
+		assertEquals(1100, library.search("murakami").length);
+		assertEquals(1, library.search("murakami 1099").length);
+	}
+	
+	@Test
+	public void sameAsWalkingThrough() {
+		
+		String[] words = {"kafka", "strand", "brot", "fruhen", "jahre", "noel", "tschick", "engel"};
+		String[][] authors = {{"Haruki", "Murakami"}, {"Juli", "Zeh"}, {"Noël", "Coward"}, {"", "Homer"}};
+		Random random = new Random(3);
+		Library library = new Library();
+		library.search("x");
+		
+		for(int step = 0; step < 30000; step++) {
+			int action = random.nextInt(10);
+			if(action < 7 || library.size() == 0) {
+				String[] author = authors[random.nextInt(step < 5000 ? 1 : authors.length)];
+				library.addBook(new Book(words[random.nextInt(words.length)] + " "
+						+ words[random.nextInt(words.length)], new Author(author[0], author[1]), 0));
+			} else if(action < 9) {
+				library.deleteBooks(new int[] {random.nextInt(library.size())});
+			} else {
+				int index = random.nextInt(library.size());
+				library.updateBook(index, new Book(words[random.nextInt(words.length)],
+						library.getBook(index).getAuthorEntry(), 0));
+			}
+			
+			if(step % 1000 == 999) {
+				for(String query : new String[] {"murakami", "mura kaf", "zeh", "coward noel", "homer str", "j"}) {
+					assertArrayEquals(query, walkThrough(library, query), library.search(query));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return the ids of the books which have a word
+	 * beginning with every word of the query, sorted
+	 */
+	private static long[] walkThrough(Library library, String query) {
+		
+		List<String> terms = TextIndex.tokens(query);
+		List<Long> found = new ArrayList<Long>();
+		for(int i = 0; i < library.size(); i++) {
+			Book book = library.getBook(i);
+			List<String> bookWords = TextIndex.tokens(book.getTitle() + " "
+					+ book.getSurName() + " " + book.getLastName());
+			boolean all = true;
+			for(String term : terms) {
+				boolean any = false;
+				for(String word : bookWords) {
+					any |= word.startsWith(term);
+				}
+				all &= any;
+			}
+			if(all) {
+				found.add(library.getId(i));
+			}
+		}
+		long[] ids = new long[found.size()];
+		for(int i = 0; i < ids.length; i++) {
+			ids[i] = found.get(i);
+		}
+		java.util.Arrays.sort(ids);
+		return ids;
+	}
+}
@@ -0,0 +1,125 @@
+/** License (BSD Style License):
+ *  Copyright (c) 2015
+ *  Maximilian Alexander Gehrke
+ *  All rights reserved.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ *  INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ *  CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ *  ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ *  POSSIBILITY OF SUCH DAMAGE.
+ */
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Measures the search over the titles and authors:
+ * how long the index of the words takes to create and
+ * how much memory it needs, how long a query takes
+ * (median and slowest of many runs) and what adding,
+ * editing and deleting a book costs afterwards.
+ * 
+ * Run it with the amount of books as first
+ * argument (default 1 000 000).
+ * 
+ * @author Maximilian Alexander Gehrke
+ * @version 1.0
+ */
+
+public class TextSearchBenchmark {
+	
+	private static final int RUNS = 1000;
+	
+	private static final int CHANGES = 2000;
+	
+	/**
+	 * Keeps the results, so the work is not optimized away.
+	 */
+	private static long sink;
+	
+	public static void main(String[] args) throws IOException {
+		
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		File file = SyntheticBooklist.createTempFile(count);
+		Library library = new Library(file);
+		file.delete();
+		
+		System.out.println(count + " books");
+		
+		long heap = usedHeap();
+		long start = System.nanoTime();
+		library.search("");
+		long built = System.nanoTime() - start;
+		System.out.println("index created in " + (built / 1000000) + " ms, "
+				+ ((usedHeap() - heap) / count) + " bytes per book");
+		
+		String number = Integer.toString(count / 2);
+		measure(library, "one book (\"" + number + "\")", number);
+		measure(library, "prefix (\"" + number.substring(0, number.length() - 1) + "\")",
+				number.substring(0, number.length() - 1));
+		measure(library, "prefix (\"murak\")", "murak");
+		measure(library, "two words (\"kafka murakami\")", "kafka murakami");
+		measure(library, "three words (\"noel strand " + number + "\")", "noel strand " + number);
+		measure(library, "prefixes (\"doc bro\")", "doc bro");
+		measure(library, "no book (\"homer zeh\")", "homer zeh");
+		measure(library, "50 of many (\"bo\")", "bo", 50);
+		
+		Random random = new Random(1);
+		start = System.nanoTime();
+		for(int i = 0; i < CHANGES; i++) {
+			library.addBook(new Book("Spieltrieb Abendrot " + i, new Author("Juli", "Zeh"), 0));
+		}
+		long added = System.nanoTime() - start;
+		start = System.nanoTime();
+		for(int i = 0; i < CHANGES; i++) {
+			int index = random.nextInt(library.size());
+			library.updateBook(index, new Book("Tschick Engel " + i, library.getBook(index).getAuthorEntry(), 0));
+		}
+		long edited = System.nanoTime() - start;
+		start = System.nanoTime();
+		for(int i = 0; i < CHANGES; i++) {
+			library.deleteBooks(new int[] {random.nextInt(library.size())});
+		}
+		long deleted = System.nanoTime() - start;
+		System.out.println("add " + (added / CHANGES / 1000) + " us, edit " + (edited / CHANGES / 1000)
+				+ " us, delete " + (deleted / CHANGES / 1000) + " us per book");
+		
+		System.out.println(sink == 0 ? "" : "");
+	}
+	
+	private static void measure(Library library, String name, String query) {
+		measure(library, name, query, Integer.MAX_VALUE);
+	}
+	
+	private static void measure(Library library, String name, String query, int limit) {
+		
+		long[] times = new long[RUNS];
+		int found = 0;
+		for(int run = 0; run < RUNS; run++) {
+			long start = System.nanoTime();
+			found = library.search(query, limit).length;
+			times[run] = System.nanoTime() - start;
+			sink += found;
+		}
+		java.util.Arrays.sort(times);
+		System.out.println(name + ": " + found + " books, median " + (times[RUNS / 2] / 1000)
+				+ " us, slowest " + (times[RUNS - 1] / 1000) + " us");
+	}
+	
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for(int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}